@@ -0,0 +1,118 @@
+//******************************************************************************
+//                      CustomJsonWriterReaderBenchmark.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
+import opensilex.service.model.Data;
+import opensilex.service.model.Dataset;
+import opensilex.service.resource.dto.data.DataSearchDTO;
+import opensilex.service.result.ResultForm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Serialization of a search response of 10 000 data, by the JSON provider
+ * and by the provider it replaced, which built a Gson for each response and
+ * wrote through an unbuffered writer.
+ * Run with the benchmark profile (see pom.xml), the allocations being given
+ * by the gc profiler: -Dexec.args="CustomJsonWriterReaderBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CustomJsonWriterReaderBenchmark {
+
+    private static final int DATA_NUMBER = 10000;
+
+    private static final Type RESULT_TYPE = new TypeToken<ResultForm<DataSearchDTO>>() {}.getType();
+
+    private final CustomJsonWriterReader<ResultForm<DataSearchDTO>> provider = new CustomJsonWriterReader<>();
+
+    private ResultForm<DataSearchDTO> result;
+
+    @Setup
+    public void setUp() {
+        ArrayList<DataSearchDTO> dataList = new ArrayList<>(DATA_NUMBER);
+        for (int i = 0; i < DATA_NUMBER; i++) {
+            Data data = new Data();
+            data.setUri("http://www.opensilex.org/demo/id/data/" + i);
+            data.setProvenanceUri("http://www.opensilex.org/demo/id/provenance/1552386023784");
+            data.setObjectUri("http://www.opensilex.org/demo/2019/o19000" + (i % 100));
+            data.setVariableUri("http://www.opensilex.org/demo/id/variables/v001");
+            data.setDate(new Date(1388793300000L + i * 60000L));
+            data.setValue(i * 0.1);
+            dataList.add(new DataSearchDTO(data, "provenance", Arrays.asList("object " + (i % 100)), "variable"));
+        }
+        result = new ResultForm<>(DATA_NUMBER, 0, dataList, true);
+    }
+
+    @Benchmark
+    public void sharedGson(Blackhole blackhole) throws IOException {
+        provider.writeTo(result, ResultForm.class, RESULT_TYPE, new Annotation[0],
+                MediaType.APPLICATION_JSON_TYPE, null, new NullOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void gsonPerResponse(Blackhole blackhole) throws IOException {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(Dataset.class, new DatasetsSerializer())
+                .registerTypeAdapter(opensilex.service.model.Annotation.class, new AnnotationsSerializer())
+                .serializeNulls()
+                .create();
+        try (OutputStreamWriter writer = new OutputStreamWriter(new NullOutputStream(blackhole), UTF_8)) {
+            gson.toJson(result, RESULT_TYPE, writer);
+        }
+    }
+
+    /**
+     * Output stream consuming the written bytes, as the entity stream.
+     */
+    private static class NullOutputStream extends OutputStream {
+
+        private final Blackhole blackhole;
+
+        NullOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+        }
+    }
+}
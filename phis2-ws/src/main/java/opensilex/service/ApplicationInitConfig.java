@@ -7,14 +7,17 @@
 //*****************************************************************************
 package opensilex.service;
 
+import com.mongodb.MongoException;
 import io.swagger.jaxrs.config.BeanConfig;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import javax.annotation.PostConstruct;
 import javax.inject.Singleton;
 import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
+import org.eclipse.rdf4j.RDF4JException;
 import org.glassfish.hk2.api.InjectionResolver;
 import org.glassfish.hk2.api.TypeLiteral;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
@@ -25,6 +28,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.authentication.Session;
 import opensilex.service.authentication.TokenManager;
+import opensilex.service.dao.DatasetDAO;
+import opensilex.service.dao.DocumentMongoDAO;
+import opensilex.service.dao.ImageMetadataMongoDAO;
+import opensilex.service.dao.ProvenanceDAO;
+import opensilex.service.dao.manager.MongoDAO;
+import opensilex.service.dao.EnvironmentMeasureDAO;
+import opensilex.service.datasource.ClassHierarchyIndex;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.injection.SessionFactory;
 import opensilex.service.injection.SessionInject;
@@ -46,6 +56,10 @@ public class ApplicationInitConfig extends ResourceConfig {
      * Initializes application configuration
      */
     public ApplicationInitConfig() {
+        // Configuration files parsed once, then reloaded when modified
+        PropertiesFileManager.loadConfiguration();
+        ConfigurationFileWatcher.start();
+        
         packages("io.swagger.jaxrs.listing;"
                 + "opensilex.service.resource;"
                 + "opensilex.service.json;"
@@ -111,5 +125,27 @@ public class ApplicationInitConfig extends ResourceConfig {
             LOGGER.error("Can't change rights on log directory");
         }
         TokenManager.Instance();
+        
+        // Class hierarchy loaded before the first request. If the triplestore
+        // isn't reachable yet, it will be loaded on first use
+        try {
+            ClassHierarchyIndex.getInstance().load();
+        } catch (RDF4JException e) {
+            LOGGER.warn("Can't load the class hierarchy at startup: " + e.getMessage());
+        }
+        
+        // Indexes of the MongoDB collections with a fixed name and of the 
+        // existing collections recognized by their DAO, the collections being
+        // listed once. The other collections by variable or by file type get
+        // their indexes on first use, as all the collections if MongoDB isn't
+        // reachable yet
+        for (MongoDAO<?> mongoDao : Arrays.asList(new ImageMetadataMongoDAO(), new ProvenanceDAO(), new DatasetDAO(), 
+                new DocumentMongoDAO(), new EnvironmentMeasureDAO())) {
+            try {
+                mongoDao.ensureIndexes();
+            } catch (MongoException e) {
+                LOGGER.warn("Can't create the MongoDB indexes at startup: " + e.getMessage());
+            }
+        }
     }
 }
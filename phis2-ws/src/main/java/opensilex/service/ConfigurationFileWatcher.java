@@ -0,0 +1,169 @@
+//******************************************************************************
+//                          ConfigurationFileWatcher.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the configuration files and reloads them in the property file
+ * manager when they are modified.
+ * Only the files deployed on the file system can be watched (not the ones
+ * packaged in an archive).
+ * The values read once at startup (e.g. the connection pools configuration)
+ * are not updated by a reload.
+ * @see PropertiesFileManager
+ */
+public class ConfigurationFileWatcher implements Runnable {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(ConfigurationFileWatcher.class);
+
+    private static final String PROPERTIES_FILE_EXTENSION = ".properties";
+
+    private static ConfigurationFileWatcher instance = null;
+
+    private final WatchService watchService;
+
+    private ConfigurationFileWatcher(WatchService watchService) {
+        this.watchService = watchService;
+    }
+
+    /**
+     * Starts to watch the configuration files, if it is not already done.
+     */
+    public static synchronized void start() {
+        if (instance != null) {
+            return;
+        }
+        try {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> directories = new HashSet<>();
+            for (String fileName : PropertiesFileManager.CONFIGURATION_FILES) {
+                Path path = getConfigurationFilePath(fileName);
+                if (path != null && directories.add(path.getParent())) {
+                    path.getParent().register(watchService,
+                            StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_CREATE);
+                }
+            }
+            if (directories.isEmpty()) {
+                LOGGER.info("No configuration file to watch");
+                watchService.close();
+                return;
+            }
+
+            instance = new ConfigurationFileWatcher(watchService);
+            Thread thread = new Thread(instance, "configuration-file-watcher");
+            thread.setDaemon(true);
+            thread.start();
+            LOGGER.info("Configuration files watched in " + directories);
+        } catch (IOException ex) {
+            LOGGER.error("Can't watch the configuration files", ex);
+        }
+    }
+
+    /**
+     * Stops watching the configuration files.
+     */
+    public static synchronized void stop() {
+        if (instance != null) {
+            try {
+                instance.watchService.close();
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage(), ex);
+            }
+            instance = null;
+        }
+    }
+
+    /**
+     * Gets the path of a configuration file on the file system.
+     * @param configurationFileName
+     * @return the path of the file, null if the file is not on the file system
+     */
+    private static Path getConfigurationFilePath(String configurationFileName) {
+        URL resource = PropertiesFileManager.class.getResource("/" + configurationFileName + PROPERTIES_FILE_EXTENSION);
+        if (resource == null || !"file".equals(resource.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(resource.toURI());
+        } catch (URISyntaxException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            return null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    String modifiedFileName = event.context().toString();
+                    if (modifiedFileName.endsWith(PROPERTIES_FILE_EXTENSION)) {
+                        String configurationFileName = modifiedFileName.substring(
+                                0, modifiedFileName.length() - PROPERTIES_FILE_EXTENSION.length());
+                        if (PropertiesFileManager.isConfigurationLoaded(configurationFileName)) {
+                            reload(configurationFileName, directory.resolve(modifiedFileName));
+                        }
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            LOGGER.debug("Configuration file watcher stopped");
+        }
+    }
+
+    /**
+     * Reloads a configuration file. The file is read from the file system and
+     * not from the class loader, which may cache it.
+     * A file which can't be parsed or which is empty is ignored: the previous 
+     * values are kept.
+     * @param configurationFileName
+     * @param path
+     */
+    private void reload(String configurationFileName, Path path) {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            properties.load(inputStream);
+        } catch (IOException | IllegalArgumentException ex) {
+            LOGGER.error("Can't reload the configuration file " + path + ", previous values kept", ex);
+            return;
+        }
+        if (properties.isEmpty()) {
+            // The file may be truncated before being written by some editors
+            LOGGER.warn("Empty configuration file " + path + " ignored, previous values kept");
+            return;
+        }
+        PropertiesFileManager.reloadConfiguration(configurationFileName, properties);
+    }
+}
@@ -19,8 +19,13 @@ import java.security.NoSuchAlgorithmException;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
-import java.util.Objects;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
@@ -29,11 +34,32 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Property file manager.
+ * The configuration files are parsed once and kept in an immutable in-memory 
+ * snapshot. A file is reloaded as a whole (the snapshot is atomically replaced) 
+ * when it is modified.
+ * @see ConfigurationFileWatcher
  * @author Arnaud Charleroy <arnaud.charleroy@inra.fr>
  */
 public class PropertiesFileManager {
 
     final static Logger LOGGER = LoggerFactory.getLogger(PropertiesFileManager.class.getName());
+    
+    /**
+     * Configuration files parsed at startup.
+     */
+    public final static List<String> CONFIGURATION_FILES = Collections.unmodifiableList(Arrays.asList(
+            "service", 
+            "sesame_rdf_config", 
+            "mongodb_nosql_config", 
+            "phis_sql_config"));
+    
+    /**
+     * Configuration snapshot: properties by configuration file name. 
+     * Neither the map nor its values are modified, a new snapshot is built 
+     * for each (re)load.
+     */
+    private final static AtomicReference<Map<String, Map<String, String>>> CONFIGURATION 
+            = new AtomicReference<>(Collections.emptyMap());
 
     /**
      * Read config file and return a Property object.
@@ -109,20 +135,80 @@ public class PropertiesFileManager {
     }
 
     /**
-     * Reads a configuration file and returns a specific attribute.
+     * Parses the configuration files used by the web service. 
+     * Called once at startup.
+     */
+    public static void loadConfiguration() {
+        CONFIGURATION_FILES.forEach((fileName) -> {
+            storeConfiguration(fileName, toImmutableMap(parseFile(fileName)));
+        });
+        LOGGER.info("Configuration files loaded: " + CONFIGURATION_FILES);
+    }
+    
+    /**
+     * Reloads a configuration file from its content. The properties of the file 
+     * are replaced at once: readers see either all the old values or all the 
+     * new ones.
+     * @param configurationFileName
+     * @param properties the new content of the file
+     */
+    public static void reloadConfiguration(String configurationFileName, Properties properties) {
+        storeConfiguration(configurationFileName, toImmutableMap(properties));
+        LOGGER.info("Configuration file " + configurationFileName + " reloaded");
+    }
+    
+    /**
+     * @param configurationFileName
+     * @return true if the configuration file has been loaded
+     */
+    public static boolean isConfigurationLoaded(String configurationFileName) {
+        return CONFIGURATION.get().containsKey(configurationFileName);
+    }
+    
+    /**
+     * Gets the properties of a configuration file from the snapshot. 
+     * The file is parsed if it has not been loaded yet.
+     * @param configurationFileName
+     * @return the properties of the file
+     */
+    private static Map<String, String> getConfiguration(String configurationFileName) {
+        Map<String, String> properties = CONFIGURATION.get().get(configurationFileName);
+        if (properties == null) {
+            properties = toImmutableMap(parseFile(configurationFileName));
+            storeConfiguration(configurationFileName, properties);
+        }
+        return properties;
+    }
+    
+    private static void storeConfiguration(String configurationFileName, Map<String, String> properties) {
+        CONFIGURATION.updateAndGet((current) -> {
+            Map<String, Map<String, String>> next = new HashMap<>(current);
+            next.put(configurationFileName, properties);
+            return Collections.unmodifiableMap(next);
+        });
+    }
+    
+    private static Map<String, String> toImmutableMap(Properties properties) {
+        Map<String, String> map = new HashMap<>();
+        properties.stringPropertyNames().forEach((name) -> {
+            map.put(name, properties.getProperty(name));
+        });
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Gets an attribute of a configuration file.
      * @param configurationFileName
      * @param attribute
-     * @return null | Properties
+     * @return the value of the attribute, "null" if the attribute is not defined
      */
     public static String getConfigFileProperty(String configurationFileName, String attribute) {
         try {
-            final Properties sqlProps = parseFile(configurationFileName);
-            final StringBuilder strBuilder = new StringBuilder();
-            strBuilder.append(sqlProps.getProperty(attribute));
-            return strBuilder.toString();
+            return String.valueOf(getConfiguration(configurationFileName).get(attribute));
+        } catch (WebApplicationException ex) {
+            throw ex;
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
-            ex.printStackTrace();
             // INTERNAL_SERVER_ERROR thrown if parameters are not recovered
             throw new WebApplicationException(Response
                     .status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -130,6 +216,91 @@ public class PropertiesFileManager {
                     .build());
         }
     }
+    
+    /**
+     * Gets an attribute of a configuration file.
+     * @param configurationFileName
+     * @param attribute
+     * @param defaultValue
+     * @return the value of the attribute, the default value if the attribute 
+     *         is not defined or empty
+     */
+    public static String getConfigFileProperty(String configurationFileName, String attribute, String defaultValue) {
+        String value = getConfiguration(configurationFileName).get(attribute);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+    
+    /**
+     * Gets an integer attribute of a configuration file.
+     * @param configurationFileName
+     * @param attribute
+     * @return the value of the attribute
+     * @throws NumberFormatException if the attribute is not defined or not an integer
+     */
+    public static int getConfigFileIntProperty(String configurationFileName, String attribute) {
+        return Integer.parseInt(getConfigFileProperty(configurationFileName, attribute).trim());
+    }
+    
+    /**
+     * Gets an integer attribute of a configuration file.
+     * @param configurationFileName
+     * @param attribute
+     * @param defaultValue
+     * @return the value of the attribute, the default value if the attribute 
+     *         is not defined or not an integer
+     */
+    public static int getConfigFileIntProperty(String configurationFileName, String attribute, int defaultValue) {
+        String value = getConfigFileProperty(configurationFileName, attribute, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            LOGGER.error("Error : wrong value for " + attribute + " in " + configurationFileName + " configuration file", ex);
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Gets a long attribute of a configuration file.
+     * @param configurationFileName
+     * @param attribute
+     * @param defaultValue
+     * @return the value of the attribute, the default value if the attribute 
+     *         is not defined or not a long
+     */
+    public static long getConfigFileLongProperty(String configurationFileName, String attribute, long defaultValue) {
+        String value = getConfigFileProperty(configurationFileName, attribute, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            LOGGER.error("Error : wrong value for " + attribute + " in " + configurationFileName + " configuration file", ex);
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Gets a boolean attribute of a configuration file.
+     * @param configurationFileName
+     * @param attribute
+     * @param defaultValue
+     * @return the value of the attribute, the default value if the attribute 
+     *         is not defined
+     */
+    public static boolean getConfigFileBooleanProperty(String configurationFileName, String attribute, boolean defaultValue) {
+        String value = getConfigFileProperty(configurationFileName, attribute, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Boolean.valueOf(value);
+    }
 
     /**
      * Reads a configuration file and returns the SQL connection URL with the 
@@ -139,14 +310,16 @@ public class PropertiesFileManager {
      */
     public static String getSQLConnectionUrl(String configurationFileName) {
         try {
-            final Properties sqlProps = parseFile(configurationFileName);
+            final Map<String, String> sqlProps = getConfiguration(configurationFileName);
             final StringBuilder strBuilder = new StringBuilder();
-            strBuilder.append(sqlProps.getProperty("url"))
+            strBuilder.append(sqlProps.get("url"))
                     .append("?")
-                    .append("user=").append(sqlProps.getProperty("username"))
+                    .append("user=").append(sqlProps.get("username"))
                     .append("&")
-                    .append("password=").append(sqlProps.getProperty("password"));
+                    .append("password=").append(sqlProps.get("password"));
             return strBuilder.toString();
+        } catch (WebApplicationException ex) {
+            throw ex;
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
             // Si les paramètres ne sont pas récupérés le web service propage une exception INTERNAL_SERVER_ERROR
@@ -165,66 +338,67 @@ public class PropertiesFileManager {
      */
     public static PoolProperties getSQLPoolDataSourceProperties(String configurationFileName) {
         try {
+            final Map<String, String> sqlProps = getConfiguration(configurationFileName);
             final PoolProperties p = new PoolProperties();
             // minimal configuration
-            p.setUrl(getConfigFileProperty(configurationFileName, "url"));
-            p.setDriverClassName(getConfigFileProperty(configurationFileName, "driver"));
-            p.setUsername(getConfigFileProperty(configurationFileName, "username"));
-            p.setPassword(getConfigFileProperty(configurationFileName, "password"));
+            p.setUrl(sqlProps.get("url"));
+            p.setDriverClassName(sqlProps.get("driver"));
+            p.setUsername(sqlProps.get("username"));
+            p.setPassword(sqlProps.get("password"));
             // Optional 
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "jmxEnabled"), "null")) {
-                p.setJmxEnabled(Boolean.valueOf(getConfigFileProperty(configurationFileName, "jmxEnabled")));
+            if (sqlProps.containsKey("jmxEnabled")) {
+                p.setJmxEnabled(Boolean.valueOf(sqlProps.get("jmxEnabled")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "defaultAutoCommit"), "null")) {
-                p.setDefaultAutoCommit(Boolean.valueOf(getConfigFileProperty(configurationFileName, "defaultAutoCommit")));
+            if (sqlProps.containsKey("defaultAutoCommit")) {
+                p.setDefaultAutoCommit(Boolean.valueOf(sqlProps.get("defaultAutoCommit")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "testWhileIdle"), "null")) {
-                p.setTestWhileIdle(Boolean.valueOf(getConfigFileProperty(configurationFileName, "testWhileIdle")));
+            if (sqlProps.containsKey("testWhileIdle")) {
+                p.setTestWhileIdle(Boolean.valueOf(sqlProps.get("testWhileIdle")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "testOnBorrow"), "null")) {
-                p.setTestOnBorrow(Boolean.valueOf(getConfigFileProperty(configurationFileName, "testOnBorrow")));
+            if (sqlProps.containsKey("testOnBorrow")) {
+                p.setTestOnBorrow(Boolean.valueOf(sqlProps.get("testOnBorrow")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "validationQuery"), "null")) {
-                p.setValidationQuery(getConfigFileProperty(configurationFileName, "validationQuery"));
+            if (sqlProps.containsKey("validationQuery")) {
+                p.setValidationQuery(sqlProps.get("validationQuery"));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "testOnReturn"), "null")) {
-                p.setTestOnReturn(Boolean.valueOf(getConfigFileProperty(configurationFileName, "testOnReturn")));
+            if (sqlProps.containsKey("testOnReturn")) {
+                p.setTestOnReturn(Boolean.valueOf(sqlProps.get("testOnReturn")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "validationInterval"), "null")) {
-                p.setValidationInterval(Long.valueOf(getConfigFileProperty(configurationFileName, "validationInterval")));
+            if (sqlProps.containsKey("validationInterval")) {
+                p.setValidationInterval(Long.valueOf(sqlProps.get("validationInterval")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "timeBetweenEvictionRunsMillis"), "null")) {
-                p.setTimeBetweenEvictionRunsMillis(Integer.valueOf(getConfigFileProperty(configurationFileName, "timeBetweenEvictionRunsMillis")));
+            if (sqlProps.containsKey("timeBetweenEvictionRunsMillis")) {
+                p.setTimeBetweenEvictionRunsMillis(Integer.valueOf(sqlProps.get("timeBetweenEvictionRunsMillis")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "maxActive"), "null")) {
-                p.setMaxActive(Integer.valueOf(getConfigFileProperty(configurationFileName, "maxActive")));
+            if (sqlProps.containsKey("maxActive")) {
+                p.setMaxActive(Integer.valueOf(sqlProps.get("maxActive")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "minIdle"), "null")) {
-                p.setMinIdle(Integer.valueOf(getConfigFileProperty(configurationFileName, "minIdle")));
+            if (sqlProps.containsKey("minIdle")) {
+                p.setMinIdle(Integer.valueOf(sqlProps.get("minIdle")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "maxIdle"), "null")) {
-                p.setMaxIdle(Integer.valueOf(getConfigFileProperty(configurationFileName, "maxIdle")));
+            if (sqlProps.containsKey("maxIdle")) {
+                p.setMaxIdle(Integer.valueOf(sqlProps.get("maxIdle")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "initialSize"), "null")) {
-                p.setInitialSize(Integer.valueOf(getConfigFileProperty(configurationFileName, "initialSize")));
+            if (sqlProps.containsKey("initialSize")) {
+                p.setInitialSize(Integer.valueOf(sqlProps.get("initialSize")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "maxWait"), "null")) {
-                p.setMaxWait(Integer.valueOf(getConfigFileProperty(configurationFileName, "maxWait")));
+            if (sqlProps.containsKey("maxWait")) {
+                p.setMaxWait(Integer.valueOf(sqlProps.get("maxWait")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "removeAbandonedTimeout"), "null")) {
-                p.setRemoveAbandonedTimeout(Integer.valueOf(getConfigFileProperty(configurationFileName, "removeAbandonedTimeout")));
+            if (sqlProps.containsKey("removeAbandonedTimeout")) {
+                p.setRemoveAbandonedTimeout(Integer.valueOf(sqlProps.get("removeAbandonedTimeout")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "maxAge"), "null")) {
-                p.setMaxAge(Long.valueOf(getConfigFileProperty(configurationFileName, "maxAge")));
+            if (sqlProps.containsKey("maxAge")) {
+                p.setMaxAge(Long.valueOf(sqlProps.get("maxAge")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "logAbandoned"), "null")) {
-                p.setLogAbandoned(Boolean.valueOf(getConfigFileProperty(configurationFileName, "logAbandoned")));
+            if (sqlProps.containsKey("logAbandoned")) {
+                p.setLogAbandoned(Boolean.valueOf(sqlProps.get("logAbandoned")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "removeAbandoned"), "null")) {
-                p.setRemoveAbandoned(Boolean.valueOf(getConfigFileProperty(configurationFileName, "removeAbandoned")));
+            if (sqlProps.containsKey("removeAbandoned")) {
+                p.setRemoveAbandoned(Boolean.valueOf(sqlProps.get("removeAbandoned")));
             }
-            if (!Objects.equals(getConfigFileProperty(configurationFileName, "jdbcInterceptors"), "null")) {
-                p.setJdbcInterceptors(getConfigFileProperty(configurationFileName, "jdbcInterceptors"));
+            if (sqlProps.containsKey("jdbcInterceptors")) {
+                p.setJdbcInterceptors(sqlProps.get("jdbcInterceptors"));
             }
 
             return p;
@@ -8,12 +8,19 @@
 package opensilex.service.authentication;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import opensilex.service.PropertiesFileManager;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.dao.SessionDAO;
 import opensilex.service.view.brapi.Status;
@@ -22,82 +29,118 @@ import opensilex.service.view.brapi.form.ResponseFormGET;
 /**
  * Session manager.
  * Manages sessions and authentications using the singleton pattern.
+ * The active sessions are indexed by id and by user name. Each session expires 
+ * after sessionTime seconds without use: its expiration time is pushed back 
+ * each time it is used and a single scheduler removes the expired sessions.
  * @author Samuël Chérimont
  */
 public class TokenManager {
 
     static final Logger LOGGER = LoggerFactory.getLogger(TokenManager.class);
-    private ArrayList<Session> listSession;
-    private ArrayList<SessionThread> listThread;
-    private static TokenManager _instance = null;
+    
+    private static final String PROPERTY_FILE_NAME = "service";
+    
+    // Default session time in seconds
+    private static final int DEFAULT_SESSION_TIME = 12000;
+    
+    /**
+     * Active sessions by session id.
+     */
+    private final Map<String, ActiveSession> sessions = new ConcurrentHashMap<>();
+    
+    /**
+     * Active session ids by user name.
+     */
+    private final Map<String, String> sessionIdsByUserName = new ConcurrentHashMap<>();
+    
+    /**
+     * Single thread removing the expired sessions.
+     */
+    private final ScheduledExecutorService expirationScheduler = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "session-expiration");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Sessions statistics
+    private final AtomicLong createdSessionsCount = new AtomicLong();
+    private final AtomicLong expiredSessionsCount = new AtomicLong();
+    private final AtomicLong removedSessionsCount = new AtomicLong();
+
+    /**
+     * Safe thread initialization of the unique instance.
+     */
+    private static class TokenManagerHolder {
+
+        final private static TokenManager instance = new TokenManager();
+    }
 
     /**
      * Constructs a unique instance.
      * @return a unique instance
      */
     public static TokenManager Instance() {
-        if (_instance == null) {
-            _instance = new TokenManager();
-        }
-        return _instance;
+        return TokenManagerHolder.instance;
     }
-
+    
     /**
-     * Creates and runs a new thread for each new user.
-     * @param sessionId
-     * @param username
+     * @return the session time in milliseconds
      */
-    private void addThread(String sessionId, String username) {
-        if (this.listThread == null) {
-            this.listThread = new ArrayList();
-        }
-        this.removeEmptyThread();
-        SessionThread newThread = new SessionThread(sessionId, username);
-        listThread.add(newThread);
-        newThread.start();
+    private long getSessionTime() {
+        return PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "sessionTime", DEFAULT_SESSION_TIME) * 1000L;
     }
 
-    private void removeThread(String id) {
-        int i = 0;
-        boolean interrupted = false;
-        while (i < listThread.size() && !interrupted) {
-            if (listThread.get(i).getSessionId().equals(id)) {
-                listThread.get(i).interrupt();
-                listThread.remove(listThread.get(i));
-                interrupted = true;
-            }
-            i++;
+    /**
+     * Registers a session and schedules its expiration.
+     * @param session
+     */
+    private void register(Session session) {
+        ActiveSession activeSession = new ActiveSession(session, System.currentTimeMillis() + getSessionTime());
+        ActiveSession previous = sessions.put(session.getId(), activeSession);
+        if (previous != null) {
+            previous.cancelExpiration();
         }
+        sessionIdsByUserName.put(session.getName(), session.getId());
+        createdSessionsCount.incrementAndGet();
+        scheduleExpiration(activeSession, getSessionTime());
+    }
+    
+    private void scheduleExpiration(ActiveSession activeSession, long delay) {
+        activeSession.expiration = expirationScheduler.schedule(
+                () -> expire(activeSession), 
+                delay, 
+                TimeUnit.MILLISECONDS);
     }
     
     /**
-     * Increases a user connection time.
-     * @param userConnectionId
-     * @see SessionThread
+     * Removes the session if it has not been used during the session time.
+     * Schedules a new check at its new expiration time otherwise.
+     * @param activeSession 
      */
-    public void reloadToken(String userConnectionId) {
-        if (userConnectionId != null && (listThread != null && !listThread.isEmpty())) {
-            int i = 0;
-            while (i < listThread.size()) {
-                if (this.listThread.get(i).getSessionId().equals(userConnectionId)) {
-                    this.listThread.get(i).addTime();
-                    return;
-                }
-                i++;
+    private void expire(ActiveSession activeSession) {
+        try {
+            long remainingTime = activeSession.expirationTime.get() - System.currentTimeMillis();
+            if (remainingTime > 0) {
+                scheduleExpiration(activeSession, remainingTime);
+            } else if (sessions.get(activeSession.session.getId()) == activeSession) {
+                expiredSessionsCount.incrementAndGet();
+                removeSession(activeSession.session.getId());
             }
+        } catch (RuntimeException ex) {
+            LOGGER.error("Error while removing the expired session " + activeSession.session.getId(), ex);
         }
     }
-
+    
     /**
-     * Removes every finished session thread from the active thread list.
+     * Increases a user connection time.
+     * @param userConnectionId
      */
-    private void removeEmptyThread() {
-        int i = 0;
-        while (i < listThread.size()) {
-            if (!listThread.get(i).isAlive()) {
-                listThread.remove(listThread.get(i));
+    public void reloadToken(String userConnectionId) {
+        if (userConnectionId != null) {
+            ActiveSession activeSession = sessions.get(userConnectionId);
+            if (activeSession != null) {
+                activeSession.refresh(System.currentTimeMillis() + getSessionTime());
             }
-            i++;
         }
     }
 
@@ -107,29 +150,21 @@ public class TokenManager {
      * @return the session id or nothing if not found.
      */
     public String searchSession(String userName) {
-        if (listSession != null && !listSession.isEmpty()) {
-            int i = 0;
-            while (i < listSession.size()) {
-                if (userName.equals(listSession.get(i).getName())) {
-                    return listSession.get(i).getId();
-                }
-                i++;
-            }
+        if (userName == null) {
+            return null;
         }
-        return null;
+        return sessionIdsByUserName.get(userName);
     }
 
     public Session getSession(String id) {
-        if (listSession != null && !listSession.isEmpty()) {
-            int i = 0;
-            while (i < listSession.size()) {
-                if (id.equals(listSession.get(i).getId())) {
-                    return listSession.get(i);
-                }
-                i++;
-            }
+        if (id == null) {
+            return null;
+        }
+        ActiveSession activeSession = sessions.get(id);
+        if (activeSession == null || activeSession.isExpired(System.currentTimeMillis())) {
+            return null;
         }
-        return null;
+        return activeSession.session;
     }
 
     /**
@@ -143,20 +178,15 @@ public class TokenManager {
      * //\SILEX:todo
      */
     public void addSession(Session newActiveSession) {
-        if (this.listSession == null) {
-            this.listSession = new ArrayList();
-        }
-        this.listSession.add(newActiveSession);
-
         SessionDAO sessionDao = new SessionDAO(); 
         try {
             newActiveSession.setDateStart(new DateTime().toString("yyyy-MM-dd HH:mm:ss"));
-            sessionDao.insertOrUpdateOrDeleteQueryFromDAO("INSERT INTO session (email, id, date) VALUES ('" + newActiveSession.getName() + "', '" + newActiveSession.getId() + "', now())");
+            sessionDao.insertSession(newActiveSession);
         } catch (SQLException ex) {
             final Status status = new Status("Can't create session token", StatusCodeMsg.ERR, ex.getMessage());
             throw new WebApplicationException(Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ResponseFormGET(status)).build());
-        } finally {
         }
+        this.register(newActiveSession);
     }
 
     /**
@@ -165,45 +195,36 @@ public class TokenManager {
      * @param sessionId
      */
     public void removeSession(String sessionId) {
-        if (listSession == null || listSession.isEmpty()) {
+        if (sessionId == null) {
             return;
         }
-        SessionDAO sessionDao = new SessionDAO(); 
-        int i = 0;
-        boolean find = false;
-        while (i < listSession.size() && !find) {
-           String sessionid = listSession.get(i).getId(); 
-            if (sessionId.equals(sessionid)) { 
-                sessionDao.endSession(sessionid); 
-                listSession.remove(i);
-                find = true;
-            }
-            i++;
+        ActiveSession activeSession = sessions.remove(sessionId);
+        if (activeSession == null) {
+            return;
         }
-        this.removeThread(sessionId);
+        activeSession.cancelExpiration();
+        sessionIdsByUserName.remove(activeSession.session.getName(), sessionId);
+        removedSessionsCount.incrementAndGet();
+        
+        SessionDAO sessionDao = new SessionDAO(); 
+        sessionDao.endSession(sessionId); 
     }
 
     /**
-     * Adds a session the the active sessions list and creates a new thread to 
-     * handle this session.
+     * Adds a session the the active sessions list and schedules its expiration.
      * @param newActiveSession
      */
     public void createToken(Session newActiveSession) {
         this.addSession(newActiveSession);
-        this.addThread(newActiveSession.getId(), newActiveSession.getName());
     }
 
      /** 
-     * Adds an former session to the active sessions list and creates a new 
-     * thread to handle this session.
+     * Adds an former session to the active sessions list and schedules its 
+     * expiration.
      * @param newActiveSession 
      */ 
     public void createTokenFromBD(Session newActiveSession) { 
-        if (this.listSession == null) { 
-            this.listSession = new ArrayList(); 
-        } 
-        this.listSession.add(newActiveSession); 
-        this.addThread(newActiveSession.getId(), newActiveSession.getName()); 
+        this.register(newActiveSession);
     } 
     
     /**
@@ -214,27 +235,96 @@ public class TokenManager {
      *         false if not
      */
     public boolean checkAuthentication(String sessionId) {
-        if (sessionId != null && (this.listSession != null && !this.listSession.isEmpty())) {
-            int i = 0;
-            while (i < listSession.size()) {
-                if (sessionId.equals(listSession.get(i).getId())) {
-                    return true;
-                }
-                i++;
-            }
+        if (sessionId == null) {
+            return false;
+        }
+        ActiveSession activeSession = sessions.get(sessionId);
+        if (activeSession == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (activeSession.isExpired(now)) {
+            return false;
         }
-        return false;
+        activeSession.refresh(now + getSessionTime());
+        return true;
+    }
+    
+    /**
+     * @return the number of active sessions
+     */
+    public int getActiveSessionsCount() {
+        return sessions.size();
+    }
+    
+    /**
+     * @return the number of sessions created since the start of the web service
+     */
+    public long getCreatedSessionsCount() {
+        return createdSessionsCount.get();
+    }
+    
+    /**
+     * @return the number of sessions expired since the start of the web service
+     */
+    public long getExpiredSessionsCount() {
+        return expiredSessionsCount.get();
+    }
+    
+    /**
+     * @return the number of sessions removed (expired or logged out) since the 
+     * start of the web service
+     */
+    public long getRemovedSessionsCount() {
+        return removedSessionsCount.get();
     }
 
     public void shutdown() {
-        if (this.listSession != null && !this.listSession.isEmpty() && listThread != null && !listThread.isEmpty()) {
-            int i = 0;
-            while (i < listThread.size()) {
-                this.removeSession(listThread.get(i).getSessionId()); 
-                listThread.get(i).interrupt();
-                listThread.remove(listThread.get(i));
+        sessions.keySet().forEach((sessionId) -> {
+            this.removeSession(sessionId);
+        });
+        expirationScheduler.shutdownNow();
+    }
+    
+    /**
+     * Active session with its expiration time.
+     */
+    private static class ActiveSession {
+        
+        private final Session session;
+        
+        /**
+         * Expiration time in milliseconds. Only pushed back, without lock.
+         */
+        private final AtomicLong expirationTime;
+        
+        /**
+         * Next scheduled expiration check.
+         */
+        private volatile ScheduledFuture<?> expiration;
+        
+        private ActiveSession(Session session, long expirationTime) {
+            this.session = session;
+            this.expirationTime = new AtomicLong(expirationTime);
+        }
+        
+        private void refresh(long newExpirationTime) {
+            long current = expirationTime.get();
+            while (newExpirationTime > current 
+                    && !expirationTime.compareAndSet(current, newExpirationTime)) {
+                current = expirationTime.get();
+            }
+        }
+        
+        private boolean isExpired(long now) {
+            return expirationTime.get() <= now;
+        }
+        
+        private void cancelExpiration() {
+            ScheduledFuture<?> scheduledExpiration = expiration;
+            if (scheduledExpiration != null) {
+                scheduledExpiration.cancel(false);
             }
-            listThread = null;
         }
     }
 }
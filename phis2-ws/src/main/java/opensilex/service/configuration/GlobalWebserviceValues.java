@@ -30,4 +30,6 @@ public final class GlobalWebserviceValues {
     public static final String AUTHORIZATION = "Authorization";
     public static final String PAGE_SIZE = "pageSize";
     public static final String PAGE = "page";
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    public static final String TEXT_CSV = "text/csv";
 }
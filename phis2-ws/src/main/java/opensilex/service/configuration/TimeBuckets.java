@@ -0,0 +1,53 @@
+//******************************************************************************
+//                              TimeBuckets.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.configuration;
+
+/**
+ * List of authorized time buckets for the data aggregation.
+ * The buckets start at a round UTC minute, hour or day.
+ * @see opensilex.service.dao.DataDAO#aggregate
+ */
+public enum TimeBuckets {
+    MINUTE("minute", 60 * 1000L),
+    HOUR("hour", 60 * 60 * 1000L),
+    DAY("day", 24 * 60 * 60 * 1000L);
+
+    private final String label;
+    // In milliseconds
+    private final long duration;
+
+    private TimeBuckets(String label, long duration) {
+        this.label = label;
+        this.duration = duration;
+    }
+
+    /**
+     * @return the bucket duration, in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+
+    /**
+     * @param label
+     * @return the time bucket with the given label, null if unknown
+     */
+    public static TimeBuckets fromString(String label) {
+        for (TimeBuckets timeBucket : values()) {
+            if (timeBucket.label.equalsIgnoreCase(label)) {
+                return timeBucket;
+            }
+        }
+        return null;
+    }
+}
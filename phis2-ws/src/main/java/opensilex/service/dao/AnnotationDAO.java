@@ -9,7 +9,9 @@ package opensilex.service.dao;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import opensilex.service.dao.exception.DAOPersistenceException;
 import org.apache.jena.arq.querybuilder.UpdateBuilder;
 import org.apache.jena.datatypes.xsd.XSDDatatype;
@@ -80,26 +82,21 @@ public class AnnotationDAO extends Rdf4jDAO<Annotation> {
     
     /**
      * Generates a query to search the body values of annotations.
-     * @param annotations
+     * @param annotationsUris
      * @example
      * SELECT  ?uri ?bodyValue WHERE {
+     *      VALUES ?uri { <http://www.opensilex.org/andreas-dev/id/annotation/7dfcd6e1-bc6e-4553-85c7-295ab971f2fc> <http://www.opensilex.org/andreas-dev/id/annotation/0e92c41b-93df-4395-bc24-6e5373022be7> }
      *      ?uri  <http://www.w3.org/ns/oa#bodyValue>  ?bodyValue  .
-     *      FILTER (
-     *          (regex(str(?uri), "http://www.opensilex.org/andreas-dev/id/annotation/7dfcd6e1-bc6e-4553-85c7-295ab971f2fc")) 
-     *          || (regex(str(?uri), "http://www.opensilex.org/andreas-dev/id/annotation/0e92c41b-93df-4395-bc24-6e5373022be7"))
-     *      ) 
      * }
      * @return query generated with the searched parameter above
      */
-    private SPARQLQueryBuilder prepareSearchQueryForBodyValues(List<Annotation> annotations) {
+    private SPARQLQueryBuilder prepareSearchQueryForBodyValues(List<String> annotationsUris) {
         SPARQLQueryBuilder query = new SPARQLQueryBuilder();
         
         query.appendSelect(URI_SELECT_NAME_SPARQL);
         query.appendSelect("?" + BODY_VALUE);
         
-        annotations.forEach(annotation -> {
-            query.appendOrFilter("regex(str(" + URI_SELECT_NAME_SPARQL + ")" + ", \"" + annotation.getUri() + "\")");
-        });
+        query.appendToBody(prepareValuesBlock(URI_SELECT_NAME_SPARQL, annotationsUris));
         query.appendTriplet(URI_SELECT_NAME_SPARQL, Oa.RELATION_BODY_VALUE.toString(), "?" + BODY_VALUE, null);
         
         LOGGER.debug(SPARQL_QUERY + query.toString());
@@ -263,7 +260,7 @@ public class AnnotationDAO extends Rdf4jDAO<Annotation> {
         setNewUris(annotations);
         UpdateBuilder updateBuilder = new UpdateBuilder();
         addInsertToUpdateBuilder(updateBuilder, annotations); 
-        executeUpdateRequest(updateBuilder);
+        executeInsertRequests(Arrays.asList(updateBuilder));
         return annotations;
     }
 
@@ -395,10 +392,17 @@ public class AnnotationDAO extends Rdf4jDAO<Annotation> {
             // Retreive all information for each annotation
             try (TupleQueryResult result = tupleQuery.evaluate()) {
                 annotations = getAnnotationsWithoutBodyValuesFromResult(result, uri, creator, motivatedBy);
-                if(annotations.size() > 0) {
-                    query = prepareSearchQueryForBodyValues(annotations);
-                    tupleQuery = getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query.toString());
-                    setAnnotationsBodyValuesFromResult(tupleQuery.evaluate(), annotations);
+            }
+            // the body values of the whole page are searched at once
+            Map<String, Annotation> annotationsByUri = new LinkedHashMap<>();
+            annotations.forEach((annotation) -> {
+                annotationsByUri.put(annotation.getUri(), annotation);
+            });
+            for (List<String> annotationsUris : splitInValuesBlocks(new ArrayList<>(annotationsByUri.keySet()))) {
+                query = prepareSearchQueryForBodyValues(annotationsUris);
+                tupleQuery = getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query.toString());
+                try (TupleQueryResult result = tupleQuery.evaluate()) {
+                    setAnnotationsBodyValuesFromResult(result, annotationsByUri);
                 }
             }
             LOGGER.debug(JsonConverter.ConvertToJson(annotations));
@@ -411,9 +415,9 @@ public class AnnotationDAO extends Rdf4jDAO<Annotation> {
     /**
      * Set the body values of annotations from a query result.
      * @param result
-     * @param annotations 
+     * @param annotations the annotations, by URI
      */
-    private void setAnnotationsBodyValuesFromResult(TupleQueryResult result, List<Annotation> annotations) {
+    private void setAnnotationsBodyValuesFromResult(TupleQueryResult result, Map<String, Annotation> annotations) {
 
         while (result.hasNext()) {
             BindingSet bindingSet = result.next();
@@ -421,11 +425,7 @@ public class AnnotationDAO extends Rdf4jDAO<Annotation> {
             String annotationUri = getStringValueOfSelectNameFromBindingSet(URI, bindingSet);
             String bodyValue = getStringValueOfSelectNameFromBindingSet(BODY_VALUE, bindingSet);
             
-            annotations.stream()
-                    .filter(annotation -> annotationUri.equals(annotation.getUri()))
-                    .findFirst()
-                    .get()
-                    .addBodyValue(bodyValue);                    
+            annotations.get(annotationUri).addBodyValue(bodyValue);                    
         }
     }
 
@@ -439,13 +439,14 @@ public class AnnotationDAO extends Rdf4jDAO<Annotation> {
      */
     private ArrayList<Annotation> getAnnotationsWithoutBodyValuesFromResult(TupleQueryResult result, String searchUri, String searchCreator, String searchMotivatedBy) {
         ArrayList<Annotation> annotations = new ArrayList<>();
-        UriDAO uriDao = new UriDAO();
+        // the searched URI is checked once for all the results
+        boolean searchUriExists = searchUri != null && new UriDAO().existUri(searchUri);
         while (result.hasNext()) {
             BindingSet bindingSet = result.next();
        
             String annotationUri = null;
             if (searchUri != null) {
-                if(uriDao.existUri(searchUri)){
+                if(searchUriExists){
                     annotationUri = searchUri;
                 }
             } else {
@@ -9,7 +9,9 @@ package opensilex.service.dao;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import opensilex.service.dao.exception.UnknownUriException;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAODataErrorException;
@@ -147,6 +149,54 @@ public class ConcernedItemDAO extends Rdf4jDAO<ConcernedItem> {
         
         prepareQueryWithConcernedItemFilters(query, uriSelectNameSparql, concernsRelationUri, searchUri, searchLabel);
         
+        appendConcernedItemsSelect(query);
+        
+        LOGGER.debug(SPARQL_QUERY + query.toString());
+        return query;
+    }
+    
+    /**
+     * Prepares the query to search the concerned items of several objects at 
+     * once. The objects are given in a VALUES block and returned in the ?uri 
+     * column.
+     * @param objectsUris
+     * @example
+     * SELECT DISTINCT  ?uri ?concernedItemUri ?concernedItemType 
+     * (GROUP_CONCAT(DISTINCT ?concernedItemLabel; SEPARATOR=",") AS ?concernedItemLabels) 
+     * WHERE {
+     *   VALUES ?uri { <http://opensilex.org/id/event/96e72788-6bdc-4f8e-abd1-ce9329371e8e> <http://opensilex.org/id/event/0e92c41b-93df-4395-bc24-6e5373022be7> }
+     *   ?uri  <http://www.opensilex.org/vocabulary/oeev#concerns>  ?concernedItemUri  . 
+     *   
+     *   OPTIONAL {
+     *     ?concernedItemUri  <http://www.w3.org/1999/02/22-rdf-syntax-ns#type>  ?concernedItemType  . 
+     *     ?concernedItemUri  <http://www.w3.org/2000/01/rdf-schema#label>  ?concernedItemLabel  . 
+     *   }
+     * }
+     * GROUP BY  ?uri ?concernedItemUri ?concernedItemType 
+     * @return query
+     */
+    private SPARQLQueryBuilder prepareConcernedItemsSearchQuery(List<String> objectsUris) {
+        
+        SPARQLQueryBuilder query = new SPARQLQueryBuilder();
+        query.appendDistinct(Boolean.TRUE);
+        
+        query.appendToBody(prepareValuesBlock(URI_SELECT_NAME_SPARQL, objectsUris));
+        prepareQueryWithConcernedItemFilters(query, URI_SELECT_NAME_SPARQL, concernsRelationUri, null, null);
+        
+        query.appendSelect(URI_SELECT_NAME_SPARQL);
+        query.appendGroupBy(URI_SELECT_NAME_SPARQL);
+        appendConcernedItemsSelect(query);
+        
+        LOGGER.debug(SPARQL_QUERY + query.toString());
+        return query;
+    }
+    
+    /**
+     * Adds to a query the selection of the concerned items, with their type 
+     * and their labels.
+     * @param query
+     */
+    private static void appendConcernedItemsSelect(SPARQLQueryBuilder query) {
         query.appendSelect(CONCERNED_ITEM_URI_SELECT_NAME_SPARQL);
         query.appendGroupBy(CONCERNED_ITEM_URI_SELECT_NAME_SPARQL);
         
@@ -180,9 +230,6 @@ public class ConcernedItemDAO extends Rdf4jDAO<ConcernedItem> {
                 CONCERNED_ITEM_LABEL_SELECT_NAME_SPARQL, 
                 SPARQLQueryBuilder.GROUP_CONCAT_SEPARATOR, 
                 CONCERNED_ITEM_LABELS_SELECT_NAME_SPARQL);
-        
-        LOGGER.debug(SPARQL_QUERY + query.toString());
-        return query;
     }
     
     /**
@@ -223,6 +270,42 @@ public class ConcernedItemDAO extends Rdf4jDAO<ConcernedItem> {
         return concernedItems;
     }
     
+    /**
+     * Searches the concerned items of several objects, with one query by 
+     * block of VALUES_BLOCK_MAX_SIZE objects.
+     * @param objectsUris
+     * @return the concerned items of each object. The objects without 
+     * concerned items have an empty list
+     * @throws opensilex.service.dao.exception.DAOPersistenceException
+     */
+    public Map<String, ArrayList<ConcernedItem>> find(List<String> objectsUris) throws DAOPersistenceException {
+        Map<String, ArrayList<ConcernedItem>> concernedItemsByObject = new HashMap<>();
+        objectsUris.forEach((objectUri) -> {
+            concernedItemsByObject.put(objectUri, new ArrayList<>());
+        });
+        
+        for (List<String> objectsUrisBlock : splitInValuesBlocks(new ArrayList<>(concernedItemsByObject.keySet()))) {
+            SPARQLQueryBuilder concernedItemsQuery = prepareConcernedItemsSearchQuery(objectsUrisBlock);
+            TupleQuery concernedItemsTupleQuery = getConnection().prepareTupleQuery(
+                    QueryLanguage.SPARQL, 
+                    concernedItemsQuery.toString());
+
+            try (TupleQueryResult concernedItemsTupleQueryResult = concernedItemsTupleQuery.evaluate()) {
+                while(concernedItemsTupleQueryResult.hasNext()) {
+                    BindingSet bindingSet = concernedItemsTupleQueryResult.next();
+                    String objectUri = getStringValueOfSelectNameFromBindingSet(URI, bindingSet);
+                    ConcernedItem concernedItem = getConcernedItemFromBindingSet(bindingSet, objectUri);
+                    if (concernedItem.getUri() != null) {
+                        concernedItemsByObject.get(objectUri).add(concernedItem);
+                    }
+                }
+            } catch (RepositoryException|MalformedQueryException|QueryEvaluationException ex) {
+                handleTriplestoreException(ex);
+            }
+        }
+        return concernedItemsByObject;
+    }
+    
     /**
      * Adds statements to an update builder to insert concerned items. 
      * @param updateBuilder
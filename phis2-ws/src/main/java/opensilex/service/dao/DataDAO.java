@@ -16,31 +16,48 @@ import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BsonField;
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.IndexModel;
 import com.mongodb.client.model.Sorts;
+import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import javax.ws.rs.core.Response;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAOPersistenceException;
 import opensilex.service.dao.exception.ResourceAccessDeniedException;
 import org.bson.Document;
 import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import opensilex.service.PropertiesFileManager;
 import opensilex.service.configuration.DateFormat;
+import opensilex.service.configuration.TimeBuckets;
 import opensilex.service.dao.manager.MongoDAO;
+import opensilex.service.datasource.MongoIndexRegistry;
+import opensilex.service.datasource.MongoIndexRegistry.CollectionIndexes;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.ontology.Oeso;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.utils.UriGenerator;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.model.Data;
+import opensilex.service.model.DataAggregate;
 
 /**
  * Data DAO.
@@ -58,6 +75,29 @@ public class DataDAO extends MongoDAO<Data> {
     private final static String DB_FIELD_DATE = "date";
     private final static String DB_FIELD_VALUE = "value";
     private final static String DB_FIELD_SENSOR = "sensor";
+    private final static String DB_FIELD_ID = "_id";
+    
+    // Default maximum number of data sent in one insert request
+    private final static int DEFAULT_INSERT_BATCH_SIZE = 1000;
+    
+    // Number of documents fetched by each cursor request of a data stream
+    private final static int STREAM_BATCH_SIZE = 1000;
+    
+    // Indexes of the variables collections. The unique index rejects the 
+    // duplicated data, the (date, _id) and (object, date, _id) indexes avoid
+    // an in memory sort of the data streams
+    private final static CollectionIndexes DATA_INDEXES = MongoIndexRegistry.declare("data",
+            new IndexModel(Indexes.ascending(DB_FIELD_DATE, DB_FIELD_OBJECT, DB_FIELD_VARIABLE, DB_FIELD_PROVENANCE), new IndexOptions().unique(true)),
+            new IndexModel(Indexes.ascending(DB_FIELD_DATE, DB_FIELD_ID)),
+            new IndexModel(Indexes.ascending(DB_FIELD_OBJECT, DB_FIELD_DATE, DB_FIELD_ID)),
+            new IndexModel(Indexes.ascending(DB_FIELD_URI)));
+    
+    // Fields of the aggregation results
+    private final static String AGGREGATE_COUNT = "count";
+    private final static String AGGREGATE_MIN = "min";
+    private final static String AGGREGATE_MAX = "max";
+    private final static String AGGREGATE_MEAN = "mean";
+    private final static String AGGREGATE_VALUES = "values";
     
     public String variableUri;
     public String startDate;
@@ -69,6 +109,8 @@ public class DataDAO extends MongoDAO<Data> {
 
     /**
      * Checks the given list of data.
+     * The variables, objects and provenances are checked in bulk: one query 
+     * is sent for all the distinct URIs of each kind.
      * @param dataList
      * @return the check result with the founded errors
      */
@@ -76,32 +118,46 @@ public class DataDAO extends MongoDAO<Data> {
         POSTResultsReturn checkResult;
         List<Status> checkStatus = new ArrayList<>();
 
-        boolean dataOk = true;
+        // Distinct URIs to check, in the order of the data
+        Set<String> variablesUris = new LinkedHashSet<>();
+        Set<String> objectsUris = new LinkedHashSet<>();
+        Set<String> provenancesUris = new LinkedHashSet<>();
+        for (Data data : dataList) {
+            variablesUris.add(data.getVariableUri());
+            objectsUris.add(data.getObjectUri());
+            provenancesUris.add(data.getProvenanceUri());
+        }
 
         VariableDAO variableDAO = new VariableDAO();
         ProvenanceDAO provenanceDAO = new ProvenanceDAO();
 
-        for (Data data : dataList) {
-            // 1. Check if the variableUri exist and is a variable
-            if (!variableDAO.existAndIsVariable(data.getVariableUri())) {
-                dataOk = false;
+        // 1. Check if the variables uris exist and are variables
+        Set<String> existingVariables = variableDAO.getExistingVariables(variablesUris);
+        // 2. Check if the objects uris exist
+        Set<String> existingObjects = variableDAO.getExistingUris(objectsUris);
+        // 3. Check if the provenances uris exist and are provenances
+        Set<String> existingProvenances = provenanceDAO.getExistingProvenanceUris(provenancesUris);
+        
+        for (String variableUri : variablesUris) {
+            if (!existingVariables.contains(variableUri)) {
                 checkStatus.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR,
-                        "Unknown variable : " + data.getVariableUri()));
-            } 
-            // 2. Check if the object uri exist
-            if (!variableDAO.existUri(data.getObjectUri())) {
-                dataOk = false;
+                        "Unknown variable : " + variableUri));
+            }
+        }
+        for (String objectUri : objectsUris) {
+            if (!existingObjects.contains(objectUri)) {
                 checkStatus.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR,
-                        "Unknown object : " + data.getObjectUri()));
+                        "Unknown object : " + objectUri));
             }
-            // 3. Check if the provenance uri exist and is a provenance
-            if (!provenanceDAO.existProvenanceUri(data.getProvenanceUri())) {
-                dataOk = false;
+        }
+        for (String provenanceUri : provenancesUris) {
+            if (!existingProvenances.contains(provenanceUri)) {
                 checkStatus.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, 
-                    "Unknown provenance : " + data.getProvenanceUri()));
+                    "Unknown provenance : " + provenanceUri));
             }
         }
-
+        
+        boolean dataOk = checkStatus.isEmpty();
         checkResult = new POSTResultsReturn(dataOk, null, dataOk);
         checkResult.statusList = checkStatus;
         return checkResult;
@@ -109,6 +165,10 @@ public class DataDAO extends MongoDAO<Data> {
 
     /**
      * Generates the query to insert a new data in the MongoDB database.
+     * The existence of the generated URI is not checked: it contains a random 
+     * UUID, so that a collision is unlikely. The URI index of the collection 
+     * is not unique: its unique index is on (date, object, variable, 
+     * provenance) and only rejects the duplicated data.
      * @param data
      * @return the document to insert, representing the given data
      * @throws ParseException
@@ -120,10 +180,6 @@ public class DataDAO extends MongoDAO<Data> {
         try {
             UriGenerator uriGenerator = new UriGenerator();
             String uri = uriGenerator.generateNewInstanceUri(Oeso.CONCEPT_DATA.toString(), null, key);
-
-            while (uriExists(data.getVariableUri(), uri)) {
-                uri = uriGenerator.generateNewInstanceUri(Oeso.CONCEPT_DATA.toString(), null, key);
-            }
             
             data.setUri(uri);
             
@@ -134,7 +190,7 @@ public class DataDAO extends MongoDAO<Data> {
             document.append(DB_FIELD_PROVENANCE, data.getProvenanceUri());
             document.append(DB_FIELD_VALUE, data.getValue());
 
-            LOGGER.debug(document.toJson());
+            LOGGER.trace(document.toJson());
         } catch (Exception e) {
             LOGGER.error("Exception while generating uri, should never append", e);
         }
@@ -154,10 +210,24 @@ public class DataDAO extends MongoDAO<Data> {
         return split[split.length - 1];
     }
 
+    /**
+     * Gets the collection of the data of a variable. Its indexes are created 
+     * on its first use.
+     * @param variableUri
+     * @return the collection
+     */
+    private MongoCollection<Document> getVariableCollection(String variableUri) {
+        String collectionName = getCollectionFromVariable(variableUri);
+        ensureIndexesIfExists(collectionName, DATA_INDEXES);
+        return database.getCollection(collectionName);
+    }
+
     /**
      * Inserts the given data in the MongoDB database.
+     * The data are inserted by batches of insertBatchSize documents. The 
+     * documents of a batch are only generated when the batch is sent.
      * @param dataList
-     * @return the insertion result
+     * @return the insertion result, with a status for each inserted batch
      */
     private POSTResultsReturn insert(List<Data> dataList) {
         //SILEX:information
@@ -171,84 +241,84 @@ public class DataDAO extends MongoDAO<Data> {
 
         POSTResultsReturn result = null;
         List<Status> status = new ArrayList<>();
-        List<String> createdResources = new ArrayList<>();
-
-        HashMap<String, List<Document>> dataListToInsertByVariable = new HashMap<>();
+        List<String> createdResources = new ArrayList<>(dataList.size());
 
-        //1. Prepare all the documents to insert (we will do one insert by variable)
+        //1. Sort the data by variable (we will do the inserts variable by variable)
+        Map<String, List<Data>> dataListToInsertByVariable = new LinkedHashMap<>();
         for (Data data : dataList) {
-            Document createData = prepareInsertDataDocument(data);
-
-            List<Document> dataByVariable;
-            if (dataListToInsertByVariable.containsKey(data.getVariableUri())) {
-                dataByVariable = dataListToInsertByVariable.get(data.getVariableUri());
-            } else {
-                dataByVariable = new ArrayList<>();
-            }
+            dataListToInsertByVariable
+                    .computeIfAbsent(data.getVariableUri(), (variableUri) -> new ArrayList<>())
+                    .add(data);
+        }
 
-            createdResources.add(data.getUri());
-            
-            dataByVariable.add(createData);
-            dataListToInsertByVariable.put(data.getVariableUri(), dataByVariable);
-        }
-
-        //2. Create unique index on sensor/variable/date for each variable collection
-        //   Mongo won't create index if it already exists
-        Bson indexFields = Indexes.ascending(
-                DB_FIELD_DATE,
-                DB_FIELD_OBJECT,
-                DB_FIELD_VARIABLE,
-                DB_FIELD_PROVENANCE
-        );
-        IndexOptions indexOptions = new IndexOptions().unique(true);
+        //2. Create the indexes of each new variable collection
         dataListToInsertByVariable.keySet().forEach((variableUri) -> {
-            database.getCollection(getCollectionFromVariable(variableUri))
-                    .createIndex(indexFields, indexOptions);
+            ensureIndexes(getCollectionFromVariable(variableUri), DATA_INDEXES);
         });
 
-        //3. Insert all the data
-        // Use of AtomicBoolean to use it inside the lambda loop (impossible with a standart boolean)
-        // @see: https://stackoverflow.com/questions/46713854/which-is-the-best-way-to-set-drop-boolean-flag-inside-lambda-function
-        AtomicBoolean hasError = new AtomicBoolean(false);
-        dataListToInsertByVariable.entrySet().forEach((dataToInsert) -> {
+        //3. Insert all the data, batch by batch. Stop at the first error, the 
+        //   transaction will be aborted
+        int batchSize = getInsertBatchSize();
+        boolean hasError = false;
+        for (Map.Entry<String, List<Data>> dataToInsert : dataListToInsertByVariable.entrySet()) {
+            if (hasError) {
+                break;
+            }
             MongoCollection<Document> dataVariableCollection = database.getCollection(getCollectionFromVariable(dataToInsert.getKey()));
-
-            try {
-                dataVariableCollection.insertMany(session, dataToInsert.getValue());
-                status.add(new Status(
-                        StatusCodeMsg.RESOURCES_CREATED,
-                        StatusCodeMsg.INFO,
-                        StatusCodeMsg.DATA_INSERTED + " for the variable " + dataToInsert.getKey()
-                ));
-
-            } catch (MongoException ex) {
-                // Define that an error occurs
-                hasError.set(true);
-
-                // Error check if it's because of a duplicated data error
-                // Add status according to the error type (duplication or unexpected)
-                if (ex.getCode() == MongoDAO.DUPLICATE_KEY_ERROR_CODE) {
-                    status.add(new Status(
-                            StatusCodeMsg.ALREADY_EXISTING_DATA,
-                            StatusCodeMsg.ERR,
-                            ex.getMessage()
-                    ));
-                } else {
-                    // Add the original exception message for debugging
+            List<Data> variableDataList = dataToInsert.getValue();
+            int batchesNumber = (variableDataList.size() + batchSize - 1) / batchSize;
+            
+            for (int batch = 0; batch < batchesNumber && !hasError; batch++) {
+                List<Data> batchDataList = variableDataList.subList(
+                        batch * batchSize, 
+                        Math.min((batch + 1) * batchSize, variableDataList.size()));
+                List<Document> batchDocuments = new ArrayList<>(batchDataList.size());
+                for (Data data : batchDataList) {
+                    batchDocuments.add(prepareInsertDataDocument(data));
+                }
+                String batchDescription = " for the variable " + dataToInsert.getKey() 
+                        + " (batch " + (batch + 1) + "/" + batchesNumber + ", " + batchDocuments.size() + " data)";
+                
+                try {
+                    dataVariableCollection.insertMany(session, batchDocuments);
+                    batchDataList.forEach((data) -> {
+                        createdResources.add(data.getUri());
+                    });
                     status.add(new Status(
-                            StatusCodeMsg.UNEXPECTED_ERROR,
-                            StatusCodeMsg.ERR,
-                            StatusCodeMsg.DATA_REJECTED + " for the variable: " + dataToInsert.getKey() + " - " + ex.getMessage()
+                            StatusCodeMsg.RESOURCES_CREATED,
+                            StatusCodeMsg.INFO,
+                            StatusCodeMsg.DATA_INSERTED + batchDescription
                     ));
+                    
+                } catch (MongoException ex) {
+                    // Define that an error occurs
+                    hasError = true;
+
+                    // Error check if it's because of a duplicated data error
+                    // Add status according to the error type (duplication or unexpected)
+                    if (ex.getCode() == MongoDAO.DUPLICATE_KEY_ERROR_CODE) {
+                        status.add(new Status(
+                                StatusCodeMsg.ALREADY_EXISTING_DATA,
+                                StatusCodeMsg.ERR,
+                                ex.getMessage()
+                        ));
+                    } else {
+                        // Add the original exception message for debugging
+                        status.add(new Status(
+                                StatusCodeMsg.UNEXPECTED_ERROR,
+                                StatusCodeMsg.ERR,
+                                StatusCodeMsg.DATA_REJECTED + batchDescription + " - " + ex.getMessage()
+                        ));
+                    }
                 }
             }
-        });
+        }
 
         //4. Prepare result to return
-        result = new POSTResultsReturn(hasError.get());
+        result = new POSTResultsReturn(hasError);
         result.statusList = status;
 
-        if (!hasError.get()) {
+        if (!hasError) {
             // If no errors commit transaction
             session.commitTransaction();
             result.setHttpStatus(Response.Status.CREATED);
@@ -263,6 +333,14 @@ public class DataDAO extends MongoDAO<Data> {
         session.close();
         return result;
     }
+    
+    /**
+     * @return the maximum number of data sent in one insert request
+     */
+    private int getInsertBatchSize() {
+        int batchSize = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILENAME, "dataInsertBatchSize", DEFAULT_INSERT_BATCH_SIZE);
+        return batchSize > 0 ? batchSize : DEFAULT_INSERT_BATCH_SIZE;
+    }
 
     /**
      * Checks the given data and insert them if no errors found.
@@ -280,8 +358,7 @@ public class DataDAO extends MongoDAO<Data> {
 
     public ArrayList<Data> allPaginate() {
         // Get the collection corresponding to variable uri
-        String variableCollection = this.getCollectionFromVariable(variableUri);
-        MongoCollection<Document> dataVariableCollection = database.getCollection(variableCollection);
+        MongoCollection<Document> dataVariableCollection = getVariableCollection(variableUri);
 
         // Get the filter query
         BasicDBObject query = prepareSearchQuery();
@@ -392,8 +469,7 @@ public class DataDAO extends MongoDAO<Data> {
      */
     public int count() {
         // Get the collection corresponding to variable uri
-        String variableCollection = this.getCollectionFromVariable(variableUri);
-        MongoCollection<Document> dataVariableCollection = database.getCollection(variableCollection);
+        MongoCollection<Document> dataVariableCollection = getVariableCollection(variableUri);
 
         // Get the filter query
         BasicDBObject query = prepareSearchQuery();
@@ -488,7 +564,7 @@ public class DataDAO extends MongoDAO<Data> {
      * @return the number of data.
      */
     public int count(String variableUri, String startDate, String endDate, List<String> objectsUris, List<String> provenancesUris) {
-        MongoCollection<Document> dataCollection = database.getCollection(getCollectionFromVariable(variableUri));
+        MongoCollection<Document> dataCollection = getVariableCollection(variableUri);
         
         BasicDBObject query = prepareSearchQuery(variableUri, startDate, endDate, objectsUris, provenancesUris);
         
@@ -502,12 +578,10 @@ public class DataDAO extends MongoDAO<Data> {
      * @return true if the URI exists and false otherwise
      */
     public boolean uriExists(String variableUri, String uri) {
-        String variableCollection = getCollectionFromVariable(variableUri);
-        
         BasicDBObject query = new BasicDBObject();
         query.append(DB_FIELD_URI, uri);
         
-        return database.getCollection(variableCollection).countDocuments(query) > 0; 
+        return getVariableCollection(variableUri).countDocuments(query) > 0; 
     }
     
     /**
@@ -523,8 +597,7 @@ public class DataDAO extends MongoDAO<Data> {
      */
     public List<Data> find(Integer page, Integer pageSize, String variableUri, String startDate, String endDate, List<String> objectsUris, List<String> provenancesUris) {
         // Get the collection corresponding to variable uri
-        String variableCollection = this.getCollectionFromVariable(variableUri);
-        MongoCollection<Document> dataVariableCollection = database.getCollection(variableCollection);
+        MongoCollection<Document> dataVariableCollection = getVariableCollection(variableUri);
         
         // Get the filter query
         BasicDBObject query = prepareSearchQuery(variableUri, startDate, endDate, objectsUris, provenancesUris);
@@ -582,6 +655,358 @@ public class DataDAO extends MongoDAO<Data> {
         return dataList;
     }
 
+    /**
+     * Reads, in constant memory, the data corresponding to the given search 
+     * parameters and gives them one by one to the consumer.
+     * The data are sorted by date and by id. Instead of a page, the reading 
+     * starts after the data identified by the given cursor, which can be any 
+     * cursor previously given to the consumer.
+     * @param variableUri
+     * @param startDate
+     * @param endDate
+     * @param objectsUris
+     * @param provenancesUris
+     * @param cursor cursor of the last data already read. Null to start from the first data
+     * @param limit maximum number of data to read. Null or 0 for no limit
+     * @param consumer
+     * @throws IOException if the consumer fails
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    public void stream(String variableUri, String startDate, String endDate, List<String> objectsUris, List<String> provenancesUris, 
+            String cursor, Integer limit, DataStreamConsumer consumer) throws IOException {
+        // Get the collection corresponding to variable uri
+        MongoCollection<Document> dataVariableCollection = getVariableCollection(variableUri);
+        
+        // Get the filter query, continued after the cursor if needed
+        Bson query = prepareSearchQuery(variableUri, startDate, endDate, objectsUris, provenancesUris);
+        if (cursor != null) {
+            Object[] cursorValues = decodeCursor(cursor);
+            Date cursorDate = (Date) cursorValues[0];
+            ObjectId cursorId = (ObjectId) cursorValues[1];
+            Bson afterCursor;
+            if (dateSortAsc) {
+                afterCursor = Filters.or(
+                        Filters.gt(DB_FIELD_DATE, cursorDate),
+                        Filters.and(Filters.eq(DB_FIELD_DATE, cursorDate), Filters.gt(DB_FIELD_ID, cursorId)));
+            } else {
+                afterCursor = Filters.or(
+                        Filters.lt(DB_FIELD_DATE, cursorDate),
+                        Filters.and(Filters.eq(DB_FIELD_DATE, cursorDate), Filters.lt(DB_FIELD_ID, cursorId)));
+            }
+            query = Filters.and(query, afterCursor);
+        }
+        
+        FindIterable<Document> dataMongo = dataVariableCollection.find(query)
+                .sort(dateSortAsc 
+                        ? Sorts.ascending(DB_FIELD_DATE, DB_FIELD_ID) 
+                        : Sorts.descending(DB_FIELD_DATE, DB_FIELD_ID))
+                .batchSize(STREAM_BATCH_SIZE);
+        if (limit != null && limit > 0) {
+            dataMongo = dataMongo.limit(limit);
+        }
+        
+        try (MongoCursor<Document> measuresCursor = dataMongo.iterator()) {
+            while (measuresCursor.hasNext()) {
+                Document dataDocument = measuresCursor.next();
+                
+                Data data = new Data();
+                data.setVariableUri(variableUri);
+                data.setUri(dataDocument.getString(DB_FIELD_URI));
+                data.setDate(dataDocument.getDate(DB_FIELD_DATE));
+                data.setValue(dataDocument.get(DB_FIELD_VALUE));
+                data.setObjectUri(dataDocument.getString(DB_FIELD_OBJECT));
+                if (dataDocument.getString(DB_FIELD_PROVENANCE) != null) {
+                    data.setProvenanceUri(dataDocument.getString(DB_FIELD_PROVENANCE));
+                } else {
+                    data.setProvenanceUri(dataDocument.getString(DB_FIELD_SENSOR));
+                }
+                
+                consumer.accept(data, encodeCursor(data.getDate(), dataDocument.getObjectId(DB_FIELD_ID)));
+            }
+        }
+    }
+
+    /**
+     * Counts, with one query by variable collection, the data of the given
+     * objects.
+     * @param variablesUris
+     * @param objectsUris
+     * @return the number of data by variable, in the order of the given
+     * variables. The variables without data of the objects are not returned
+     */
+    public Map<String, Long> countByVariable(List<String> variablesUris, List<String> objectsUris) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (objectsUris.isEmpty()) {
+            return counts;
+        }
+
+        for (String variableUri : variablesUris) {
+            MongoCollection<Document> dataVariableCollection = getVariableCollection(variableUri);
+            long count = dataVariableCollection.countDocuments(prepareObjectsQuery(variableUri, objectsUris));
+            if (count > 0) {
+                counts.put(variableUri, count);
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Reads a page of the data of the given objects for the given variables
+     * and gives them one by one to the consumer, without cursor.
+     * Each variable collection is queried once. The data are sorted by object,
+     * date, variable (in the order of the given variables) and id: each
+     * collection returns its data in this order, and the collections results
+     * are merged.
+     * The skipped data can't be known before the merge, so each collection
+     * returns at most (offset + limit) data, and the first offset data of the
+     * merge are skipped.
+     * @param variablesUris
+     * @param objectsUris
+     * @param offset number of data to skip
+     * @param limit maximum number of data to read
+     * @param consumer
+     * @example query of each collection
+     * {"variable": "http://www.opensilex.org/opensilex/id/variables/v001", "object": {"$in": ["http://www.opensilex.org/opensilex/2019/o19000001", "http://www.opensilex.org/opensilex/2019/o19000002"]}}
+     * sorted by {"object": 1, "date": 1, "_id": 1}
+     * @throws IOException if the consumer fails
+     */
+    public void streamByObjects(List<String> variablesUris, List<String> objectsUris, int offset, int limit,
+            DataStreamConsumer consumer) throws IOException {
+        if (objectsUris.isEmpty() || variablesUris.isEmpty() || limit <= 0) {
+            return;
+        }
+
+        List<MongoCursor<Document>> cursors = new ArrayList<>();
+        try {
+            // Next data of each variable collection, sorted by object, date,
+            // variable and id
+            PriorityQueue<MergedDocument> nextDocuments = new PriorityQueue<>();
+            for (int i = 0; i < variablesUris.size(); i++) {
+                String variableUri = variablesUris.get(i);
+                MongoCollection<Document> dataVariableCollection = getVariableCollection(variableUri);
+
+                MongoCursor<Document> cursor = dataVariableCollection.find(prepareObjectsQuery(variableUri, objectsUris))
+                        .sort(Sorts.ascending(DB_FIELD_OBJECT, DB_FIELD_DATE, DB_FIELD_ID))
+                        .limit(offset + limit)
+                        .batchSize(Math.min(offset + limit, STREAM_BATCH_SIZE))
+                        .iterator();
+                cursors.add(cursor);
+                if (cursor.hasNext()) {
+                    nextDocuments.add(new MergedDocument(cursor.next(), i));
+                }
+            }
+
+            int read = 0;
+            while (!nextDocuments.isEmpty() && read < offset + limit) {
+                MergedDocument nextDocument = nextDocuments.poll();
+                MongoCursor<Document> cursor = cursors.get(nextDocument.variableIndex);
+                if (cursor.hasNext()) {
+                    nextDocuments.add(new MergedDocument(cursor.next(), nextDocument.variableIndex));
+                }
+
+                if (read >= offset) {
+                    Document dataDocument = nextDocument.document;
+                    Data data = new Data();
+                    data.setVariableUri(variablesUris.get(nextDocument.variableIndex));
+                    data.setUri(dataDocument.getString(DB_FIELD_URI));
+                    data.setDate(dataDocument.getDate(DB_FIELD_DATE));
+                    data.setValue(dataDocument.get(DB_FIELD_VALUE));
+                    data.setObjectUri(dataDocument.getString(DB_FIELD_OBJECT));
+                    if (dataDocument.getString(DB_FIELD_PROVENANCE) != null) {
+                        data.setProvenanceUri(dataDocument.getString(DB_FIELD_PROVENANCE));
+                    } else {
+                        data.setProvenanceUri(dataDocument.getString(DB_FIELD_SENSOR));
+                    }
+
+                    consumer.accept(data, null);
+                }
+                read++;
+            }
+        } finally {
+            cursors.forEach(MongoCursor::close);
+        }
+    }
+
+    /**
+     * Generates the query to search the data of a variable for a list of
+     * objects.
+     * @param variableUri
+     * @param objectsUris
+     * @return the generated query
+     */
+    private Bson prepareObjectsQuery(String variableUri, List<String> objectsUris) {
+        Bson query = Filters.and(
+                Filters.eq(DB_FIELD_VARIABLE, variableUri),
+                Filters.in(DB_FIELD_OBJECT, objectsUris));
+        LOGGER.debug(getTraceabilityLogs() + " query : " + query.toString());
+        return query;
+    }
+
+    /**
+     * Document read from a variable collection, waiting to be merged with the
+     * documents of the other collections.
+     */
+    private static class MergedDocument implements Comparable<MergedDocument> {
+
+        private final Document document;
+        private final int variableIndex;
+
+        MergedDocument(Document document, int variableIndex) {
+            this.document = document;
+            this.variableIndex = variableIndex;
+        }
+
+        @Override
+        public int compareTo(MergedDocument other) {
+            int comparison = document.getString(DB_FIELD_OBJECT).compareTo(other.document.getString(DB_FIELD_OBJECT));
+            if (comparison == 0) {
+                comparison = document.getDate(DB_FIELD_DATE).compareTo(other.document.getDate(DB_FIELD_DATE));
+            }
+            if (comparison == 0) {
+                comparison = Integer.compare(variableIndex, other.variableIndex);
+            }
+            if (comparison == 0) {
+                comparison = document.getObjectId(DB_FIELD_ID).compareTo(other.document.getObjectId(DB_FIELD_ID));
+            }
+            return comparison;
+        }
+    }
+
+    /**
+     * Computes, inside MongoDB, the statistics of the numeric data 
+     * corresponding to the given search parameters, by object, provenance 
+     * and time bucket. The non numeric values are ignored.
+     * The percentiles are computed from the values of each bucket, sorted 
+     * once they have been grouped by MongoDB.
+     * @param variableUri
+     * @param startDate
+     * @param endDate
+     * @param objectsUris
+     * @param provenancesUris
+     * @param timeBucket
+     * @param percentiles the percentiles to compute, between 0 and 100
+     * @example pipeline
+     * [
+     *   {"$match": {"variable": "http://www.opensilex.org/opensilex/id/variables/v001", "value": {"$type": "number"}}},
+     *   {"$group": {
+     *      "_id": {"object": "$object", "provenance": {"$ifNull": ["$provenance", "$sensor"]}, 
+     *              "date": {"$subtract": ["$date", {"$mod": [{"$subtract": ["$date", new Date(0)]}, 3600000]}]}},
+     *      "count": {"$sum": 1}, "min": {"$min": "$value"}, "max": {"$max": "$value"}, "mean": {"$avg": "$value"}}},
+     *   {"$sort": {"_id.object": 1, "_id.provenance": 1, "_id.date": 1}}
+     * ]
+     * @return the statistics, sorted by object, provenance and date
+     */
+    public List<DataAggregate> aggregate(String variableUri, String startDate, String endDate, List<String> objectsUris, List<String> provenancesUris, 
+            TimeBuckets timeBucket, List<Double> percentiles) {
+        MongoCollection<Document> dataVariableCollection = getVariableCollection(variableUri);
+        
+        Bson query = Filters.and(
+                prepareSearchQuery(variableUri, startDate, endDate, objectsUris, provenancesUris),
+                Filters.type(DB_FIELD_VALUE, "number"));
+        
+        // Start of the bucket: the date minus the time elapsed in the bucket
+        Document elapsedTime = new Document("$subtract", Arrays.asList("$" + DB_FIELD_DATE, new Date(0)));
+        Document bucketStart = new Document("$subtract", Arrays.asList(
+                "$" + DB_FIELD_DATE, 
+                new Document("$mod", Arrays.asList(elapsedTime, timeBucket.getDuration()))));
+        Document groupId = new Document(DB_FIELD_OBJECT, "$" + DB_FIELD_OBJECT)
+                .append(DB_FIELD_PROVENANCE, new Document("$ifNull", Arrays.asList("$" + DB_FIELD_PROVENANCE, "$" + DB_FIELD_SENSOR)))
+                .append(DB_FIELD_DATE, bucketStart);
+        
+        List<BsonField> accumulators = new ArrayList<>();
+        accumulators.add(Accumulators.sum(AGGREGATE_COUNT, 1));
+        accumulators.add(Accumulators.min(AGGREGATE_MIN, "$" + DB_FIELD_VALUE));
+        accumulators.add(Accumulators.max(AGGREGATE_MAX, "$" + DB_FIELD_VALUE));
+        accumulators.add(Accumulators.avg(AGGREGATE_MEAN, "$" + DB_FIELD_VALUE));
+        if (!percentiles.isEmpty()) {
+            accumulators.add(Accumulators.push(AGGREGATE_VALUES, "$" + DB_FIELD_VALUE));
+        }
+        
+        List<Bson> pipeline = Arrays.asList(
+                Aggregates.match(query),
+                Aggregates.group(groupId, accumulators),
+                Aggregates.sort(Sorts.ascending(
+                        "_id." + DB_FIELD_OBJECT, 
+                        "_id." + DB_FIELD_PROVENANCE, 
+                        "_id." + DB_FIELD_DATE)));
+        LOGGER.debug(getTraceabilityLogs() + " aggregation : " + pipeline.toString());
+        
+        List<DataAggregate> dataAggregates = new ArrayList<>();
+        // The groups and their values may exceed the memory limit of a stage
+        try (MongoCursor<Document> aggregatesCursor = dataVariableCollection.aggregate(pipeline)
+                .allowDiskUse(true)
+                .iterator()) {
+            while (aggregatesCursor.hasNext()) {
+                Document aggregateDocument = aggregatesCursor.next();
+                Document id = aggregateDocument.get(DB_FIELD_ID, Document.class);
+                
+                DataAggregate dataAggregate = new DataAggregate();
+                dataAggregate.setVariableUri(variableUri);
+                dataAggregate.setObjectUri(id.getString(DB_FIELD_OBJECT));
+                dataAggregate.setProvenanceUri(id.getString(DB_FIELD_PROVENANCE));
+                dataAggregate.setDate(id.getDate(DB_FIELD_DATE));
+                dataAggregate.setCount(toDouble(aggregateDocument.get(AGGREGATE_COUNT)).longValue());
+                dataAggregate.setMin(toDouble(aggregateDocument.get(AGGREGATE_MIN)));
+                dataAggregate.setMax(toDouble(aggregateDocument.get(AGGREGATE_MAX)));
+                dataAggregate.setMean(toDouble(aggregateDocument.get(AGGREGATE_MEAN)));
+                
+                if (!percentiles.isEmpty()) {
+                    List<?> values = aggregateDocument.get(AGGREGATE_VALUES, List.class);
+                    double[] sortedValues = new double[values.size()];
+                    for (int i = 0; i < sortedValues.length; i++) {
+                        sortedValues[i] = toDouble(values.get(i));
+                    }
+                    Arrays.sort(sortedValues);
+                    for (Double percentile : percentiles) {
+                        dataAggregate.addPercentile(percentile, getPercentile(sortedValues, percentile));
+                    }
+                }
+                
+                dataAggregates.add(dataAggregate);
+            }
+        }
+        
+        return dataAggregates;
+    }
+    
+    /**
+     * @param value a numeric value read from MongoDB
+     * @return the value as a double
+     */
+    private static Double toDouble(Object value) {
+        if (value instanceof Decimal128) {
+            return ((Decimal128) value).bigDecimalValue().doubleValue();
+        }
+        return ((Number) value).doubleValue();
+    }
+    
+    /**
+     * Gets a percentile of sorted values, with the nearest rank method.
+     * @param sortedValues
+     * @param percentile between 0 and 100
+     * @return the percentile value
+     */
+    private static double getPercentile(double[] sortedValues, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100 * sortedValues.length);
+        return sortedValues[Math.min(Math.max(rank, 1), sortedValues.length) - 1];
+    }
+    
+    /**
+     * Consumer of the data read by the stream method.
+     * @see DataDAO#stream(java.lang.String, java.lang.String, java.lang.String, java.util.List, java.util.List, java.lang.String, java.lang.Integer, opensilex.service.dao.DataDAO.DataStreamConsumer) 
+     */
+    @FunctionalInterface
+    public interface DataStreamConsumer {
+        /**
+         * @param data the read data
+         * @param cursor the cursor to use to continue the stream after this data.
+         * Null for the data read by page
+         * @throws IOException 
+         */
+        void accept(Data data, String cursor) throws IOException;
+    }
+
     @Override
     public List<Data> create(List<Data> objects) throws DAOPersistenceException, Exception {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
@@ -19,7 +19,6 @@ import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
-import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Sorts;
 import java.io.File;
 import java.text.ParseException;
@@ -158,6 +157,7 @@ public class DataFileDAO extends MongoDAO<FileDescription> {
     ) {
          // Get the collection corresponding to rdf type uri
         String typeCollection = this.getCollectionFromFileType(rdfType);
+        ensureIndexesIfExists(typeCollection, FileDescriptionDAO.INDEXES);
         MongoCollection<FileDescription> dataVariableCollection = database.getCollection(typeCollection, FileDescription.class);
 
         // Get the filter query
@@ -220,6 +220,7 @@ public class DataFileDAO extends MongoDAO<FileDescription> {
         boolean dateSortAsc   
     ) {
         String typeCollection = this.getCollectionFromFileType(rdfType);
+        ensureIndexesIfExists(typeCollection, FileDescriptionDAO.INDEXES);
         MongoCollection<Document> dataVariableCollection = database.getCollection(typeCollection);
 
         // Get the filter query
@@ -314,12 +315,10 @@ public class DataFileDAO extends MongoDAO<FileDescription> {
         List<Status> status = new ArrayList<>();
         List<String> createdResources = new ArrayList<>();
 
-        // 2. Create unique index on uri for file rdf type collection
-        //   Mongo won't create index if it already exists
-        IndexOptions indexOptions = new IndexOptions().unique(true);
+        // 2. Create unique index on uri for each new file rdf type collection
         String fileCollectionName = getCollectionFromFileType(fileDescription.getRdfType());
+        ensureIndexes(fileCollectionName, FileDescriptionDAO.INDEXES);
         MongoCollection<FileDescription> fileDescriptionCollection = database.getCollection(fileCollectionName, FileDescription.class);
-        fileDescriptionCollection.createIndex(new BasicDBObject(DB_FIELD_URI, 1), indexOptions);
         
         boolean hasError = false;
             
@@ -450,6 +449,7 @@ public class DataFileDAO extends MongoDAO<FileDescription> {
         BasicDBObject query = new BasicDBObject();
         query.append(DB_FIELD_URI, uri);
         
+        ensureIndexesIfExists(variableCollection, FileDescriptionDAO.INDEXES);
         return database.getCollection(variableCollection).countDocuments(query) > 0; 
     }
 
@@ -464,6 +464,7 @@ public class DataFileDAO extends MongoDAO<FileDescription> {
          
         String[] uriParts = fileUri.split("/");
         String collection = uriParts[uriParts.length - 2];
+        ensureIndexesIfExists(collection, FileDescriptionDAO.INDEXES);
         MongoCollection<FileDescription> datafileCollection = database.getCollection(collection, FileDescription.class);
 
         // Get paginated documents
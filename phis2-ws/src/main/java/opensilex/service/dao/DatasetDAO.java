@@ -14,6 +14,8 @@ import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Indexes;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -29,6 +31,8 @@ import org.slf4j.LoggerFactory;
 import opensilex.service.PropertiesFileManager;
 import opensilex.service.configuration.DateFormats;
 import opensilex.service.dao.manager.MongoDAO;
+import opensilex.service.datasource.MongoIndexRegistry;
+import opensilex.service.datasource.MongoIndexRegistry.CollectionIndexes;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.resource.dto.AgronomicalDataDTO;
 import opensilex.service.resource.dto.DatasetDTO;
@@ -54,7 +58,8 @@ public class DatasetDAO extends MongoDAO<Dataset> {
     /**
      * MongoDB data collection
      */
-    private final MongoCollection<Document> dataCollection = database.getCollection(PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "data"));
+    private final String dataCollectionName = PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "data");
+    private final MongoCollection<Document> dataCollection = database.getCollection(dataCollectionName);
     
     /**
      * Experiment URI concerned by the dataset
@@ -137,6 +142,17 @@ public class DatasetDAO extends MongoDAO<Dataset> {
     // MongoDB documents label for the incertitude of data
     private final static String DB_FIELDS_INCERTITUDE = "incertitude";  
     
+    // Indexes of the data collection, for the searches by variable or by 
+    // scientific object sorted by date
+    private final static CollectionIndexes INDEXES = MongoIndexRegistry.declare("dataset",
+            new IndexModel(Indexes.ascending(DB_FIELD_VARIABLE, DB_FIELD_DATE)),
+            new IndexModel(Indexes.ascending(DB_FIELD_SCIENTIFIC_OBJECT, DB_FIELD_DATE)));
+    
+    @Override
+    public void ensureIndexes() {
+        ensureIndexes(dataCollectionName, INDEXES);
+    }
+    
     /**
      * Searches by variable, start date, end date, scientific object.
      * @return the search query
@@ -8,23 +8,34 @@
 package opensilex.service.dao;
 
 import com.mongodb.BasicDBObject;
-import com.mongodb.gridfs.GridFSDBFile;
-import com.mongodb.gridfs.GridFSInputFile;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import com.mongodb.MongoException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import com.mongodb.client.gridfs.GridFSUploadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Indexes;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAOPersistenceException;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import opensilex.service.PropertiesFileManager;
 import opensilex.service.dao.manager.MongoDAO;
+import opensilex.service.datasource.MongoIndexRegistry;
+import opensilex.service.datasource.MongoIndexRegistry.CollectionIndexes;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.view.brapi.Status;
@@ -32,9 +43,33 @@ import opensilex.service.model.Document;
 
 /**
  * Documents DAO for MongoDB.
+ * The files are stored in GridFS and streamed from and to it, without any 
+ * local copy.
  * @author Morgane Vidal <morgane.vidal@inra.fr>
  */
 public class DocumentMongoDAO extends MongoDAO<Document> { 
+    
+    final static Logger LOGGER = LoggerFactory.getLogger(DocumentMongoDAO.class);
+    
+    // The file URI is saved in the file metadata. The files saved before the
+    // bucket API have it at the root of the file document.
+    private final static String DB_FIELD_URI = "uri";
+    private final static String DB_FIELD_METADATA_URI = "metadata.uri";
+    
+    // Default GridFS bucket ("fs"), used by the documents since the beginning
+    private final static GridFSBucket DOCUMENTS_BUCKET = GridFSBuckets.create(getMongoClient()
+            .getDatabase(PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "db")));
+    
+    // Indexes of the files collection of the bucket, searched by their URI.
+    // GridFS only creates the index on the file name and upload date
+    private final static CollectionIndexes FILES_INDEXES = MongoIndexRegistry.declare("documentFiles",
+            new IndexModel(Indexes.ascending(DB_FIELD_METADATA_URI)),
+            new IndexModel(Indexes.ascending(DB_FIELD_URI)));
+
+    @Override
+    public void ensureIndexes() {
+        ensureIndexes(DOCUMENTS_BUCKET.getBucketName() + ".files", FILES_INDEXES);
+    }
 
     @Override
     protected BasicDBObject prepareSearchQuery() {
@@ -42,54 +77,76 @@ public class DocumentMongoDAO extends MongoDAO<Document> {
     }
     
     /**
-     * Inserts a file.
+     * Inserts a file, streamed to GridFS. Its MD5 checksum is calculated 
+     * during the transfer: if it is not the expected one, the file is not 
+     * saved.
      * @param fileUri
-     * @param file
+     * @param fileName
+     * @param file file content
+     * @param checksum expected MD5 checksum of the file, not checked if null
      * @return POSTResultsReturn
      */
-    public POSTResultsReturn insertFile(String fileUri, File file) {
-        POSTResultsReturn result = null;
+    public POSTResultsReturn insertFile(String fileUri, String fileName, InputStream file, String checksum) {
+        POSTResultsReturn result;
         List<Status> insertStatusList = new ArrayList<>();
+        
+        GridFSUploadOptions options = new GridFSUploadOptions()
+                .metadata(new org.bson.Document(DB_FIELD_URI, fileUri));
+        GridFSUploadStream uploadStream = DOCUMENTS_BUCKET.openUploadStream(fileName, options);
         try {
-            GridFSInputFile in = gridFS.createFile(file);
-            in.put("uri", fileUri);
-            in.save();
-            result = new POSTResultsReturn(true, true, true);
-            insertStatusList.add(new Status("File saved", StatusCodeMsg.INFO, "File saved in mongodb"));
-            result.statusList = insertStatusList;
-            file.delete();
-        } catch (IOException ex) {
+            DigestInputStream digestStream = new DigestInputStream(file, MessageDigest.getInstance("MD5"));
+            IOUtils.copyLarge(digestStream, uploadStream);
+            
+            String hash = Hex.encodeHexString(digestStream.getMessageDigest().digest()); // e.g 106fa487baa1728083747de1c6df73e9
+            if (checksum != null && !checksum.equals(hash)) {
+                // Removes the chunks already saved
+                uploadStream.abort();
+                // Bad request
+                result = new POSTResultsReturn(false, true, false);
+                insertStatusList.add(new Status("MD5 error", "Error", "Checksum MD5 doesn't match. Corrupted File."));
+            } else {
+                uploadStream.close();
+                result = new POSTResultsReturn(true, true, true);
+                insertStatusList.add(new Status("File saved", StatusCodeMsg.INFO, "File saved in mongodb"));
+            }
+        } catch (IOException | MongoException | NoSuchAlgorithmException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            uploadStream.abort();
             result = new POSTResultsReturn(false, false, false);
             insertStatusList.add(new Status("File exception", StatusCodeMsg.ERR, "Error while loading the file"));
-            result.statusList = insertStatusList;
-            Logger.getLogger(DocumentMongoDAO.class.getName()).log(Level.SEVERE, null, ex);
         }
+        result.statusList = insertStatusList;
         return result;
     }
     
     /**
-     * Gets a document.
+     * Gets the description of a document file.
      * @param documentURI
-     * @return the document or null if not found
+     * @return the file description (name, length, MD5...) or null if not found
      */
-    public File getDocument(String documentURI) {
-        GridFSDBFile out = (GridFSDBFile) gridFS.findOne(new BasicDBObject("uri", documentURI));
-        InputStream is = out.getInputStream();
-        
-        File file = new File(PropertiesFileManager.getConfigFileProperty("service", "uploadFileServerDirectory") + out.get("filename"));
-        
-        try {
-            OutputStream outputStream = new FileOutputStream(file);
-            IOUtils.copy(is, outputStream);
-        } catch (FileNotFoundException ex) {
-            Logger.getLogger(DocumentMongoDAO.class.getName()).log(Level.SEVERE, null, ex);
-            return null;
-        } catch (IOException ex) {
-            Logger.getLogger(DocumentMongoDAO.class.getName()).log(Level.SEVERE, null, ex);
-            return null;
+    public GridFSFile getDocument(String documentURI) {
+        return DOCUMENTS_BUCKET.find(Filters.or(
+                Filters.eq(DB_FIELD_METADATA_URI, documentURI),
+                Filters.eq(DB_FIELD_URI, documentURI)))
+                .first();
+    }
+    
+    /**
+     * Writes a part of a document file, read from the GridFS chunks.
+     * Only the chunks containing the part are read.
+     * @param file the file description
+     * @param output
+     * @param offset position of the first byte to write
+     * @param length number of bytes to write
+     * @throws IOException 
+     */
+    public void writeDocument(GridFSFile file, OutputStream output, long offset, long length) throws IOException {
+        try (GridFSDownloadStream downloadStream = DOCUMENTS_BUCKET.openDownloadStream(file.getObjectId())) {
+            // The GridFS stream skips directly to the chunk of the offset,
+            // IOUtils would read the skipped bytes
+            downloadStream.skip(offset);
+            IOUtils.copyLarge(downloadStream, output, 0, length);
         }
-        
-        return file;
     }
 
     @Override
@@ -8,11 +8,12 @@
 //******************************************************************************
 package opensilex.service.dao;
 
-import java.io.File;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAOPersistenceException;
 import org.apache.jena.arq.querybuilder.UpdateBuilder;
@@ -160,13 +161,19 @@ public class DocumentRdf4jDAO extends Rdf4jDAO<Document> {
     
     /**
      * Save the document in mongodb
-     * @param filePath the file path of the document to save in mongodb
+     * @param fileURI
+     * @param documentMetadata metadata of the document, with its checksum
+     * @param file the file content
      * @return true document saved in mongodb
      *         false an error occurred
      */
-    private POSTResultsReturn saveFileInMongoDB(String fileURI, File file) {
+    private POSTResultsReturn saveFileInMongoDB(String fileURI, DocumentMetadataDTO documentMetadata, InputStream file) {
         DocumentMongoDAO documentDaoMongo = new DocumentMongoDAO();
-        return documentDaoMongo.insertFile(fileURI, file);
+        String fileName = fileURI.substring(fileURI.lastIndexOf("/") + 1);
+        if (documentMetadata.getExtension() != null) {
+            fileName += "." + documentMetadata.getExtension();
+        }
+        return documentDaoMongo.insertFile(fileURI, fileName, file, documentMetadata.getChecksum());
     }
     
     /**
@@ -281,11 +288,12 @@ public class DocumentRdf4jDAO extends Rdf4jDAO<Document> {
     
     /**
      * Insert document's metadata in the triplestore and the file in mongo
-     * @param documentsMetadata
-     * @param file
+     * The file is only saved if its checksum is the one given in the metadata.
+     * @param documentMetadata
+     * @param file the file content, streamed to mongo
      * @return the insert result, with each error or information
      */
-    public POSTResultsReturn insert(List<DocumentMetadataDTO> documentsMetadata, File file) {
+    public POSTResultsReturn insert(DocumentMetadataDTO documentMetadata, InputStream file) {
         List<Status> insertStatus = new ArrayList<>(); // returned status, Failed or Info
         List<String> createdResourcesURIs = new ArrayList<>();
 
@@ -296,59 +304,55 @@ public class DocumentRdf4jDAO extends Rdf4jDAO<Document> {
         boolean documentsMetadataState = true; // true if all the metadata is valid
         boolean AnnotationInsert = true; // true if the insertion has been done
 
-        final Iterator<DocumentMetadataDTO> itAnot = documentsMetadata.iterator();
-
-        while (itAnot.hasNext() && AnnotationInsert) {
-            DocumentMetadataDTO annotObject = itAnot.next();
-            
-            //1. Save document in mongodb
-            final String documentName = generateDocumentsURI(); 
-            
-            annotObject.setUri(documentName);
-            POSTResultsReturn saveFileResult = saveFileInMongoDB(documentName, file);
-            insertStatus.addAll(saveFileResult.statusList);
-            
-            //Document has been save
-            if (saveFileResult.getResultState()) { 
-                //2. Save document's metadata
-                //SILEX:conception
-                // Here, the triplet corresponding to the concerned element which
-                // does not exist should be added
-                //\SILEX:conception
-                //Document's metadata are correct and can be savec in triplestore                  
-                //3. Save metadata in triplestore
-                UpdateRequest query = prepareInsertQuery(annotObject);
+        //1. Save document in mongodb
+        final String documentName = generateDocumentsURI(); 
+        
+        documentMetadata.setUri(documentName);
+        POSTResultsReturn saveFileResult = saveFileInMongoDB(documentName, documentMetadata, file);
+        if (!saveFileResult.getResultState()) {
+            // Corrupted file or file transfer error
+            return saveFileResult;
+        }
+        insertStatus.addAll(saveFileResult.statusList);
+        
+        //Document has been save
+        //2. Save document's metadata
+        //SILEX:conception
+        // Here, the triplet corresponding to the concerned element which
+        // does not exist should be added
+        //\SILEX:conception
+        //Document's metadata are correct and can be savec in triplestore                  
+        //3. Save metadata in triplestore
+        UpdateRequest query = prepareInsertQuery(documentMetadata);
 
-                try {
-                    // transaction begining
-                    this.getConnection().begin();
-                    Update prepareUpdate = this.getConnection().prepareUpdate(QueryLanguage.SPARQL, query.toString());
-                    LOGGER.trace(getTraceabilityLogs() + " query : " + prepareUpdate.toString());
-                    prepareUpdate.execute();
-
-                    createdResourcesURIs.add(documentName);
-                } catch (MalformedQueryException e) {
-                    LOGGER.error(e.getMessage(), e);
-                    AnnotationInsert = false;
-                    insertStatus.add(new Status(StatusCodeMsg.QUERY_ERROR, StatusCodeMsg.ERR, StatusCodeMsg.MALFORMED_CREATE_QUERY + " : " + e.getMessage()));
-                }
+        try {
+            // transaction begining
+            this.getConnection().begin();
+            Update prepareUpdate = this.getConnection().prepareUpdate(QueryLanguage.SPARQL, query.toString());
+            LOGGER.trace(getTraceabilityLogs() + " query : " + prepareUpdate.toString());
+            prepareUpdate.execute();
+
+            createdResourcesURIs.add(documentName);
+        } catch (MalformedQueryException e) {
+            LOGGER.error(e.getMessage(), e);
+            AnnotationInsert = false;
+            insertStatus.add(new Status(StatusCodeMsg.QUERY_ERROR, StatusCodeMsg.ERR, StatusCodeMsg.MALFORMED_CREATE_QUERY + " : " + e.getMessage()));
+        }
 
-                 // JSON bien formé et pas de problème avant l'insertion
-                if (AnnotationInsert && documentsMetadataState) {
-                    resultState = true;
-                    try {
-                        this.getConnection().commit();
-                    } catch (RepositoryException ex) {
-                        LOGGER.error("Error during commit Triplestore statements: ", ex);
-                    }
-                } else {
-                    // retour en arrière sur la transaction
-                    try {
-                        this.getConnection().rollback();
-                    } catch (RepositoryException ex) {
-                        LOGGER.error("Error during rollback Triplestore statements : ", ex);
-                    }
-                }
+         // JSON bien formé et pas de problème avant l'insertion
+        if (AnnotationInsert && documentsMetadataState) {
+            resultState = true;
+            try {
+                this.getConnection().commit();
+            } catch (RepositoryException ex) {
+                LOGGER.error("Error during commit Triplestore statements: ", ex);
+            }
+        } else {
+            // retour en arrière sur la transaction
+            try {
+                this.getConnection().rollback();
+            } catch (RepositoryException ex) {
+                LOGGER.error("Error during rollback Triplestore statements : ", ex);
             }
         }
             
@@ -536,17 +540,25 @@ public class DocumentRdf4jDAO extends Rdf4jDAO<Document> {
     }
     
     /**
-     * Prepare the query to search the elements which are concerned by the document
-     * @param uriDocument
+     * Prepare the query to search the elements which are concerned by several documents
+     * @param documentsUris
+     * @example
+     * SELECT DISTINCT ?uri ?concernedItemUri ?concernedItemType WHERE {
+     * GRAPH <http://www.phenome-fppn.fr/phis2/documents> { 
+     *  VALUES ?uri { <http://www.phenome-fppn.fr/phis2/documents/documente597f57ba71d421a86277d830f4b9885> <http://www.phenome-fppn.fr/phis2/documents/document90f3a36cb6e64b33b2afdd1ddbbcad79> }
+     *  ?uri  <http://www.opensilex.org/vocabulary/oeso#concerns>  ?concernedItemUri  . 
+     *  ?concernedItemUri  rdf:type  ?concernedItemType  . 
+     * }}
      * @return the search query
      */
-    private SPARQLQueryBuilder prepareSearchConcernedItemsQuery(String uriDocument) {
+    private SPARQLQueryBuilder prepareSearchConcernedItemsQuery(List<String> documentsUris) {
         SPARQLQueryBuilder sparqlQuery = new SPARQLQueryBuilder();
         sparqlQuery.appendDistinct(true);
         sparqlQuery.appendGraph(Contexts.DOCUMENTS.toString());
 
-        sparqlQuery.appendSelect(" ?" + CONCERNED_ITEM_URI + " ?" + CONCERNED_ITEM_TYPE);
-        sparqlQuery.appendTriplet(uriDocument, Oeso.RELATION_CONCERNS.toString(), "?" + CONCERNED_ITEM_URI, null);
+        sparqlQuery.appendSelect("?" + URI + " ?" + CONCERNED_ITEM_URI + " ?" + CONCERNED_ITEM_TYPE);
+        sparqlQuery.appendToBody(prepareValuesBlock("?" + URI, documentsUris));
+        sparqlQuery.appendTriplet("?" + URI, Oeso.RELATION_CONCERNS.toString(), "?" + CONCERNED_ITEM_URI, null);
         sparqlQuery.appendTriplet("?" + CONCERNED_ITEM_URI, Rdf.RELATION_TYPE.toString(), "?" + CONCERNED_ITEM_TYPE, null);
 
         LOGGER.debug(SPARQL_QUERY + sparqlQuery.toString());
@@ -640,6 +652,8 @@ public class DocumentRdf4jDAO extends Rdf4jDAO<Document> {
         SPARQLQueryBuilder sparqlQuery = prepareSearchQuery();
         TupleQuery tupleQuery = this.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, sparqlQuery.toString());
         ArrayList<Document> documents = new ArrayList<>();
+        // Found documents by URI, in the order of the search query
+        Map<String, Document> foundDocuments = new LinkedHashMap<>();
         
         try (TupleQueryResult result = tupleQuery.evaluate()) {
             while (result.hasNext()) {
@@ -708,26 +722,33 @@ public class DocumentRdf4jDAO extends Rdf4jDAO<Document> {
                         } 
                     }
 
-                    //Check if document is linked to other elements
-                    SPARQLQueryBuilder sparqlQueryConcernedItem = prepareSearchConcernedItemsQuery(document.getUri());
-                    TupleQuery tupleQueryConcernedItem = this.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, sparqlQueryConcernedItem.toString());
-                    TupleQueryResult resultConcernedItem = tupleQueryConcernedItem.evaluate();
-                    while (resultConcernedItem.hasNext()) {
-                        BindingSet bindingSetConcernedItem = resultConcernedItem.next();
-                        if (bindingSetConcernedItem.getValue(CONCERNED_ITEM_URI) != null) {
-                            ConcernedItemDTO concernedItem = new ConcernedItemDTO();
-                            concernedItem.setTypeURI(bindingSetConcernedItem.getValue(CONCERNED_ITEM_TYPE).stringValue());
-                            concernedItem.setUri(bindingSetConcernedItem.getValue(CONCERNED_ITEM_URI).stringValue());
-                            document.addConcernedItem(concernedItem);
-                        }
-                    }
-
-                    if (canUserSeeDocument(user, document)) {
-                        documents.add(document);
+                    foundDocuments.put(document.getUri(), document);
+                }
+            }
+        }
+        
+        //Check if documents are linked to other elements, for the whole page at once
+        for (List<String> documentsUris : splitInValuesBlocks(new ArrayList<>(foundDocuments.keySet()))) {
+            SPARQLQueryBuilder sparqlQueryConcernedItem = prepareSearchConcernedItemsQuery(documentsUris);
+            TupleQuery tupleQueryConcernedItem = this.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, sparqlQueryConcernedItem.toString());
+            try (TupleQueryResult resultConcernedItem = tupleQueryConcernedItem.evaluate()) {
+                while (resultConcernedItem.hasNext()) {
+                    BindingSet bindingSetConcernedItem = resultConcernedItem.next();
+                    if (bindingSetConcernedItem.getValue(CONCERNED_ITEM_URI) != null) {
+                        ConcernedItemDTO concernedItem = new ConcernedItemDTO();
+                        concernedItem.setTypeURI(bindingSetConcernedItem.getValue(CONCERNED_ITEM_TYPE).stringValue());
+                        concernedItem.setUri(bindingSetConcernedItem.getValue(CONCERNED_ITEM_URI).stringValue());
+                        foundDocuments.get(bindingSetConcernedItem.getValue(URI).stringValue()).addConcernedItem(concernedItem);
                     }
                 }
             }
         }
+        
+        for (Document document : foundDocuments.values()) {
+            if (canUserSeeDocument(user, document)) {
+                documents.add(document);
+            }
+        }
         return documents;
     }
     
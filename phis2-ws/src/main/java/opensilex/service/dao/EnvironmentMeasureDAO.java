@@ -15,27 +15,48 @@ import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Set;
+import java.util.TreeSet;
 import javax.ws.rs.core.Response;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAOPersistenceException;
 import org.bson.Document;
 import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.configuration.DateFormat;
-import opensilex.service.configuration.DateFormats;
+import opensilex.service.configuration.TimeBuckets;
 import opensilex.service.dao.manager.MongoDAO;
+import opensilex.service.datasource.MongoIndexRegistry;
+import opensilex.service.datasource.MongoIndexRegistry.CollectionIndexes;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.view.brapi.Status;
@@ -54,6 +75,36 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
     private final static String DB_FIELD_VARIABLE = "variable";
     private final static String DB_FIELD_DATE = "date";
     private final static String DB_FIELD_VALUE = "value";
+    private final static String DB_FIELD_ID = "_id";
+    
+    // Fields of the rollups documents
+    private final static String DB_FIELD_COUNT = "count";
+    private final static String DB_FIELD_SUM = "sum";
+    private final static String DB_FIELD_MIN = "min";
+    private final static String DB_FIELD_MAX = "max";
+    
+    // Indexes of the measures collections (one by variable) and of their 
+    // rollups collections. The unique indexes reject the duplicated measures
+    private final static CollectionIndexes MEASURES_INDEXES = MongoIndexRegistry.declare("environmentMeasures",
+            new IndexModel(Indexes.ascending(DB_FIELD_DATE, DB_FIELD_SENSOR, DB_FIELD_VARIABLE), new IndexOptions().unique(true)),
+            new IndexModel(Indexes.ascending(DB_FIELD_SENSOR, DB_FIELD_DATE)));
+    private final static CollectionIndexes ROLLUPS_INDEXES = MongoIndexRegistry.declare("environmentRollups",
+            new IndexModel(Indexes.ascending(DB_FIELD_DATE, DB_FIELD_SENSOR), new IndexOptions().unique(true)),
+            new IndexModel(Indexes.ascending(DB_FIELD_SENSOR, DB_FIELD_DATE)));
+    
+    /**
+     * Resolutions of the rollups, from the finest to the coarsest.
+     */
+    private final static List<TimeBuckets> ROLLUPS_RESOLUTIONS = Arrays.asList(TimeBuckets.HOUR, TimeBuckets.DAY);
+    
+    /**
+     * Locks of the rollups, by variable. The inserts, which increment the 
+     * rollups, share the lock of their variables and a rebuild of the rollups
+     * takes it alone, so that the measures inserted during a rebuild aren't 
+     * lost or counted twice. The rollups of a variable must not be rebuilt by
+     * several webservice instances at the same time.
+     */
+    private final static Map<String, ReadWriteLock> ROLLUPS_LOCKS = new ConcurrentHashMap<>();
     
     /**
      * Variable URI when querying for environment measures (required)
@@ -84,20 +135,111 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
      */
     public boolean dateSortAsc = true;
     
+    /**
+     * Resolution of the measures: null for the measures themselves, an hour 
+     * or a day for their rollups (optional).
+     */
+    public TimeBuckets resolution;
+    
+    /**
+     * Creates the indexes of the existing rollups collections and of their
+     * measures collections, recognized by the suffix of the rollups.
+     */
+    @Override
+    public void ensureIndexes() {
+        Set<String> existingCollections = getExistingCollections();
+        for (String collectionName : existingCollections) {
+            for (TimeBuckets rollupResolution : ROLLUPS_RESOLUTIONS) {
+                String suffix = "_" + rollupResolution.toString();
+                if (collectionName.endsWith(suffix)) {
+                    ensureIndexes(collectionName, ROLLUPS_INDEXES);
+                    String measuresCollection = collectionName.substring(0, collectionName.length() - suffix.length());
+                    if (existingCollections.contains(measuresCollection)) {
+                        ensureIndexes(measuresCollection, MEASURES_INDEXES);
+                    }
+                }
+            }
+        }
+    }
+    
     /**
      * Gets document count according to the prepareSearchQuery.
      * @return the document count
      */
     public int count() {
-        // Get the collection corresponding to variable uri
-        String variableCollection = this.getEnvironmentCollectionFromVariable(variableUri);
-        MongoCollection<Document> environmentMeasureVariableCollection = database.getCollection(variableCollection);
+        // Get the collection corresponding to variable uri and resolution
+        ensureIndexesIfExists(getSearchedCollection(), resolution == null ? MEASURES_INDEXES : ROLLUPS_INDEXES);
+        MongoCollection<Document> environmentMeasureVariableCollection = database.getCollection(getSearchedCollection());
 
         // Get the filter query
         BasicDBObject query = prepareSearchQuery();
         
         // Return the document count
-        return (int)environmentMeasureVariableCollection.count(query);
+        return (int)environmentMeasureVariableCollection.countDocuments(query);
+    }
+    
+    /**
+     * Chooses the resolution of the searched measures: the measures 
+     * themselves if there are no more than maxPoints, otherwise the finest 
+     * rollup with no more than maxPoints, or the daily rollup.
+     * A rollup is only used if it is complete for the search, i.e. if its 
+     * rollups count all the measures of their periods: a rollup missing or 
+     * partly filled (e.g. measures inserted before the rollups existed and 
+     * not rebuilt yet) is skipped, the coarsest complete resolution being 
+     * kept, so that the measures are returned rather than wrong means.
+     * @param maxPoints
+     * @return the number of measures or rollups at this resolution
+     */
+    public int chooseResolution(int maxPoints) {
+        resolution = null;
+        int count = count();
+        TimeBuckets chosenResolution = null;
+        int chosenCount = count;
+        for (TimeBuckets rollupResolution : ROLLUPS_RESOLUTIONS) {
+            if (chosenCount <= maxPoints) {
+                break;
+            }
+            resolution = rollupResolution;
+            count = count();
+            if (count > 0 && isSearchedRollupComplete()) {
+                chosenResolution = rollupResolution;
+                chosenCount = count;
+            } else {
+                LOGGER.info("Rollups " + getSearchedCollection() + " incomplete for the search, they have to be rebuilt");
+            }
+        }
+        resolution = chosenResolution;
+        return chosenCount;
+    }
+    
+    /**
+     * Checks that the searched rollups count all the measures of their 
+     * periods. The measures are counted with the (sensor, date) or the 
+     * (date, sensor, variable) index.
+     * @return true if the measures count of the searched rollups is the 
+     * number of measures of their periods
+     */
+    private boolean isSearchedRollupComplete() {
+        Document rollupsCount = database.getCollection(getSearchedCollection())
+                .aggregate(Arrays.asList(
+                        Aggregates.match(prepareSearchQuery()),
+                        Aggregates.group(null, Accumulators.sum(DB_FIELD_COUNT, "$" + DB_FIELD_COUNT))))
+                .first();
+        long rollupsMeasuresCount = rollupsCount == null ? 0 : rollupsCount.get(DB_FIELD_COUNT, Number.class).longValue();
+        
+        long measuresCount = database.getCollection(getEnvironmentCollectionFromVariable(variableUri))
+                .countDocuments(prepareSearchQuery(resolution, true));
+        return rollupsMeasuresCount == measuresCount;
+    }
+    
+    /**
+     * @return the name of the collection of the searched measures
+     */
+    private String getSearchedCollection() {
+        if (resolution == null) {
+            return getEnvironmentCollectionFromVariable(variableUri);
+        }
+        return getRollupCollection(variableUri, resolution);
     }
 
     /**
@@ -116,6 +258,18 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
      */
     @Override
     protected BasicDBObject prepareSearchQuery() {
+        return prepareSearchQuery(resolution, false);
+    }
+    
+    /**
+     * Prepares the search query of the measures or of the rollups.
+     * @param bucketsResolution resolution of the rollups whose periods bound
+     * the dates, null to search the measures dates
+     * @param wholeBuckets true to search the measures of the whole periods of
+     * the rollups containing the start and the end dates
+     * @return the search query
+     */
+    private BasicDBObject prepareSearchQuery(TimeBuckets bucketsResolution, boolean wholeBuckets) {
         BasicDBObject query = new BasicDBObject();
         
         try {
@@ -124,11 +278,21 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
             // Define date filter depending if start date and/or end date are defined
             if (startDate != null) {
                 Date start = df.parse(startDate);
+                if (bucketsResolution != null) {
+                    // The rollup containing the start date is included
+                    start = getBucketStart(start, bucketsResolution);
+                }
 
                 if (endDate != null) {
                     // In case of start date AND end date defined
                     Date end = df.parse(endDate);
-                    query.append(DB_FIELD_DATE, BasicDBObjectBuilder.start("$gte", start).add("$lte", end).get());
+                    if (wholeBuckets) {
+                        // Up to the end of the rollup containing the end date
+                        end = new Date(getBucketStart(end, bucketsResolution).getTime() + bucketsResolution.getDuration());
+                        query.append(DB_FIELD_DATE, BasicDBObjectBuilder.start("$gte", start).add("$lt", end).get());
+                    } else {
+                        query.append(DB_FIELD_DATE, BasicDBObjectBuilder.start("$gte", start).add("$lte", end).get());
+                    }
                 } else {
                     // In case of start date ONLY is defined
                     query.append(DB_FIELD_DATE, BasicDBObjectBuilder.start("$gte", start).get());
@@ -136,7 +300,12 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
             } else if (endDate != null) {
                 // In case of end date ONLY is defined
                 Date end = df.parse(endDate);
-                query.append(DB_FIELD_DATE, BasicDBObjectBuilder.start("$lte", end).get());
+                if (wholeBuckets) {
+                    end = new Date(getBucketStart(end, bucketsResolution).getTime() + bucketsResolution.getDuration());
+                    query.append(DB_FIELD_DATE, BasicDBObjectBuilder.start("$lt", end).get());
+                } else {
+                    query.append(DB_FIELD_DATE, BasicDBObjectBuilder.start("$lte", end).get());
+                }
             }
         } catch (ParseException ex) {
             LOGGER.error("Invalid date format", ex);
@@ -160,9 +329,9 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
      * @return List of measures
      */
     public ArrayList<EnvironmentMeasure> allPaginate() {
-        // Get the collection corresponding to variable uri
-        String variableCollection = this.getEnvironmentCollectionFromVariable(variableUri);
-        MongoCollection<Document> environmentMeasureVariableCollection = database.getCollection(variableCollection);
+        // Get the collection corresponding to variable uri and resolution
+        ensureIndexesIfExists(getSearchedCollection(), resolution == null ? MEASURES_INDEXES : ROLLUPS_INDEXES);
+        MongoCollection<Document> environmentMeasureVariableCollection = database.getCollection(getSearchedCollection());
 
         // Get the filter query
         BasicDBObject query = prepareSearchQuery();
@@ -175,17 +344,19 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
         // If dateSortAsc=true, sort by date ascending
         // If dateSortAsc=false, sort by date descending
         //\SILEX:info
+        // The rollups of a date are also sorted by sensor, as in their index
         if (dateSortAsc) {
-            measuresMongo = measuresMongo.sort(Sorts.ascending(DB_FIELD_DATE));
+            measuresMongo = measuresMongo.sort(resolution == null 
+                    ? Sorts.ascending(DB_FIELD_DATE) : Sorts.ascending(DB_FIELD_DATE, DB_FIELD_SENSOR));
         } else {
-            measuresMongo = measuresMongo.sort(Sorts.descending(DB_FIELD_DATE));
+            measuresMongo = measuresMongo.sort(resolution == null 
+                    ? Sorts.descending(DB_FIELD_DATE) : Sorts.descending(DB_FIELD_DATE, DB_FIELD_SENSOR));
         }
         
         // Define pagination for the request
         measuresMongo = measuresMongo.skip(page * pageSize).limit(pageSize);
 
         ArrayList<EnvironmentMeasure> measures = new ArrayList<>();
-        SimpleDateFormat df = new SimpleDateFormat(DateFormats.YMDHMSZ_FORMAT);
         
         // For each document, create a EnvironmentMeasure Instance and add it to the result list
         try (MongoCursor<Document> measuresCursor = measuresMongo.iterator()) {
@@ -196,8 +367,17 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
                 EnvironmentMeasure measure = new EnvironmentMeasure();
                 measure.setVariableUri(variableUri);
                 measure.setDate(measureDocument.getDate(DB_FIELD_DATE));
-                measure.setValue(new BigDecimal(measureDocument.get(DB_FIELD_VALUE).toString()));
                 measure.setSensorUri(measureDocument.getString(DB_FIELD_SENSOR));
+                if (resolution == null) {
+                    measure.setValue(toBigDecimal(measureDocument.get(DB_FIELD_VALUE)));
+                } else {
+                    // The value of a rollup is the mean of its measures
+                    long count = measureDocument.get(DB_FIELD_COUNT, Number.class).longValue();
+                    measure.setCount(count);
+                    measure.setValue(toBigDecimal(measureDocument.get(DB_FIELD_SUM)).divide(BigDecimal.valueOf(count), MathContext.DECIMAL64));
+                    measure.setMin(toBigDecimal(measureDocument.get(DB_FIELD_MIN)));
+                    measure.setMax(toBigDecimal(measureDocument.get(DB_FIELD_MAX)));
+                }
                 
                 // Add the measure to the list
                 measures.add(measure);
@@ -207,6 +387,19 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
         return measures;
     }
     
+    /**
+     * @param value a numeric value read from MongoDB
+     * @return the value as a BigDecimal, without rounding
+     */
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Decimal128) {
+            return ((Decimal128) value).bigDecimalValue();
+        } else if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        }
+        return BigDecimal.valueOf(((Number) value).longValue());
+    }
+    
     /**
      * Checks the given list of environmental measures.
      * @param environmentMeasures
@@ -289,11 +482,167 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
     }
     
     /**
-     * Inserts the given environmental measures in the MongoDB database.
+     * Gets the name of the rollups collection of a variable.
+     * @param variableUri
+     * @param resolution
+     * @example collection name : v001_hour
+     * @return the collection name
+     */
+    private String getRollupCollection(String variableUri, TimeBuckets resolution) {
+        return getEnvironmentCollectionFromVariable(variableUri) + "_" + resolution.toString();
+    }
+    
+    /**
+     * @param date
+     * @param resolution
+     * @return the start of the rollup containing the date
+     */
+    private static Date getBucketStart(Date date, TimeBuckets resolution) {
+        return new Date(date.getTime() - Math.floorMod(date.getTime(), resolution.getDuration()));
+    }
+    
+    /**
+     * Adds inserted measures to the rollups of their variables.
+     * Each rollup (sensor, date) is upserted once with the count, the sum, 
+     * the minimum and the maximum of its new measures.
+     * @param environmentMeasures 
+     */
+    private void updateRollups(List<EnvironmentMeasure> environmentMeasures) {
+        for (TimeBuckets rollupResolution : ROLLUPS_RESOLUTIONS) {
+            // Rollups of the new measures, by variable and (sensor, date)
+            Map<String, Map<List<Object>, EnvironmentMeasureRollup>> rollupsByVariable = new HashMap<>();
+            for (EnvironmentMeasure measure : environmentMeasures) {
+                List<Object> rollupKey = Arrays.asList(measure.getSensorUri(), getBucketStart(measure.getDate(), rollupResolution));
+                rollupsByVariable.computeIfAbsent(measure.getVariableUri(), (variable) -> new HashMap<>())
+                        .computeIfAbsent(rollupKey, (key) -> new EnvironmentMeasureRollup())
+                        .add(measure.getValue());
+            }
+            
+            rollupsByVariable.forEach((variable, rollups) -> {
+                ensureIndexes(getRollupCollection(variable, rollupResolution), ROLLUPS_INDEXES);
+                MongoCollection<Document> rollupCollection = database.getCollection(getRollupCollection(variable, rollupResolution));
+                
+                List<UpdateOneModel<Document>> updates = new ArrayList<>();
+                rollups.forEach((rollupKey, rollup) -> {
+                    Bson filter = Filters.and(Filters.eq(DB_FIELD_DATE, rollupKey.get(1)), Filters.eq(DB_FIELD_SENSOR, rollupKey.get(0)));
+                    Bson update = Updates.combine(
+                            Updates.setOnInsert(DB_FIELD_VARIABLE, variable),
+                            Updates.inc(DB_FIELD_COUNT, rollup.count),
+                            Updates.inc(DB_FIELD_SUM, new Decimal128(rollup.sum)),
+                            Updates.min(DB_FIELD_MIN, new Decimal128(rollup.min)),
+                            Updates.max(DB_FIELD_MAX, new Decimal128(rollup.max)));
+                    updates.add(new UpdateOneModel<>(filter, update, new UpdateOptions().upsert(true)));
+                });
+                rollupCollection.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+            });
+        }
+    }
+    
+    /**
+     * Rebuilds the rollups of a variable from its measures, e.g. after 
+     * measures have been inserted by another application. Each rollups 
+     * collection is replaced by the result of an aggregation. The inserts of 
+     * measures of the variable wait for the end of the rebuild.
+     * @param variableUri 
+     */
+    public void rebuildRollups(String variableUri) {
+        Lock lock = getRollupsLock(variableUri).writeLock();
+        lock.lock();
+        try {
+            ensureIndexesIfExists(getEnvironmentCollectionFromVariable(variableUri), MEASURES_INDEXES);
+            MongoCollection<Document> measuresCollection = database.getCollection(getEnvironmentCollectionFromVariable(variableUri));
+        
+            for (TimeBuckets rollupResolution : ROLLUPS_RESOLUTIONS) {
+                String rollupCollection = getRollupCollection(variableUri, rollupResolution);
+            
+                // Start of the rollup: the date minus the time elapsed in the rollup
+                Document elapsedTime = new Document("$subtract", Arrays.asList("$" + DB_FIELD_DATE, new Date(0)));
+                Document rollupStart = new Document("$subtract", Arrays.asList(
+                        "$" + DB_FIELD_DATE, 
+                        new Document("$mod", Arrays.asList(elapsedTime, rollupResolution.getDuration()))));
+                Document groupId = new Document(DB_FIELD_SENSOR, "$" + DB_FIELD_SENSOR).append(DB_FIELD_DATE, rollupStart);
+            
+                List<Bson> pipeline = Arrays.asList(
+                        Aggregates.match(Filters.eq(DB_FIELD_VARIABLE, variableUri)),
+                        Aggregates.group(groupId, 
+                                Accumulators.sum(DB_FIELD_COUNT, 1),
+                                Accumulators.sum(DB_FIELD_SUM, "$" + DB_FIELD_VALUE),
+                                Accumulators.min(DB_FIELD_MIN, "$" + DB_FIELD_VALUE),
+                                Accumulators.max(DB_FIELD_MAX, "$" + DB_FIELD_VALUE)),
+                        Aggregates.project(Projections.fields(
+                                Projections.excludeId(),
+                                Projections.computed(DB_FIELD_SENSOR, "$" + DB_FIELD_ID + "." + DB_FIELD_SENSOR),
+                                Projections.computed(DB_FIELD_VARIABLE, new Document("$literal", variableUri)),
+                                Projections.computed(DB_FIELD_DATE, "$" + DB_FIELD_ID + "." + DB_FIELD_DATE),
+                                Projections.include(DB_FIELD_COUNT, DB_FIELD_SUM, DB_FIELD_MIN, DB_FIELD_MAX))),
+                        Aggregates.out(rollupCollection));
+            
+                LOGGER.info("Rebuilding the rollups " + rollupCollection);
+                // $out is only run when the result is iterated
+                measuresCollection.aggregate(pipeline).allowDiskUse(true).toCollection();
+                // $out keeps the indexes of the collection it replaces: only a 
+                // new rollups collection has to get its indexes
+                ensureIndexes(rollupCollection, ROLLUPS_INDEXES);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * @param variableUri
+     * @return the lock of the rollups of the variable
+     */
+    private static ReadWriteLock getRollupsLock(String variableUri) {
+        return ROLLUPS_LOCKS.computeIfAbsent(variableUri, (variable) -> new ReentrantReadWriteLock());
+    }
+    
+    /**
+     * Statistics of new measures of a rollup.
+     */
+    private static class EnvironmentMeasureRollup {
+        private long count = 0;
+        private BigDecimal sum = BigDecimal.ZERO;
+        private BigDecimal min;
+        private BigDecimal max;
+        
+        private void add(BigDecimal value) {
+            count++;
+            sum = sum.add(value);
+            min = min == null ? value : min.min(value);
+            max = max == null ? value : max.max(value);
+        }
+    }
+    
+    /**
+     * Inserts the given environmental measures in the MongoDB database, 
+     * holding the rollups locks of their variables.
      * @param environmentMeasures
      * @return the insertion result
      */
     private POSTResultsReturn insert(List<EnvironmentMeasure> environmentMeasures) {
+        // The locks are always taken in the same order
+        Set<String> variables = new TreeSet<>();
+        environmentMeasures.forEach((environmentMeasure) -> variables.add(environmentMeasure.getVariableUri()));
+        List<Lock> locks = new ArrayList<>();
+        try {
+            for (String variable : variables) {
+                Lock lock = getRollupsLock(variable).readLock();
+                lock.lock();
+                locks.add(lock);
+            }
+            return insertAndUpdateRollups(environmentMeasures);
+        } finally {
+            locks.forEach(Lock::unlock);
+        }
+    }
+    
+    /**
+     * Inserts the given environmental measures and adds them to their rollups.
+     * @param environmentMeasures
+     * @return the insertion result
+     */
+    private POSTResultsReturn insertAndUpdateRollups(List<EnvironmentMeasure> environmentMeasures) {
         //SILEX:information
         //We create a collection for each variable. The environment measures are sorted by variable
         //\SILEX:information
@@ -324,17 +673,9 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
             environmentsToInsertByVariable.put(environmentMeasure.getVariableUri(), environmentsByVariable);
         });
 
-        //2. Create unique index on sensor/variable/date for each variable collection
-        //   Mongo won't create index if it already exists
-        Bson indexFields = Indexes.ascending(
-            DB_FIELD_DATE,
-            DB_FIELD_SENSOR,
-            DB_FIELD_VARIABLE
-        );
-        IndexOptions indexOptions = new IndexOptions().unique(true);
+        //2. Create unique index on sensor/variable/date for each new variable collection
         environmentsToInsertByVariable.keySet().forEach((variableUri) -> {
-            database.getCollection(getEnvironmentCollectionFromVariable(variableUri))
-                    .createIndex(indexFields, indexOptions);
+            ensureIndexes(getEnvironmentCollectionFromVariable(variableUri), MEASURES_INDEXES);
         });
         
         //3. Insert all the environment measures
@@ -385,6 +726,14 @@ public class EnvironmentMeasureDAO extends MongoDAO<EnvironmentMeasure> {
             session.commitTransaction();
             result.setHttpStatus(Response.Status.CREATED);
             result.createdResources = createdResources;
+            
+            // The rollups can't be created in the transaction. If they 
+            // can't be updated, they have to be rebuilt
+            try {
+                updateRollups(environmentMeasures);
+            } catch (MongoException ex) {
+                LOGGER.error("Environment measures rollups not updated", ex);
+            }
         } else {
             // If errors abort transaction
             session.abortTransaction();
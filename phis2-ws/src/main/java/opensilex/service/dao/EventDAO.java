@@ -8,7 +8,9 @@
 package opensilex.service.dao;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import org.apache.jena.arq.querybuilder.UpdateBuilder;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.NodeFactory;
@@ -39,6 +41,7 @@ import opensilex.service.ontology.Rdfs;
 import opensilex.service.ontology.Time;
 import opensilex.service.utils.UriGenerator;
 import opensilex.service.utils.sparql.SPARQLQueryBuilder;
+import opensilex.service.model.ConcernedItem;
 import opensilex.service.model.Event;
 import opensilex.service.model.Instant;
 import opensilex.service.ontology.Xsd;
@@ -256,7 +259,9 @@ public class EventDAO extends Rdf4jDAO<Event> {
     }
     
     /**
-     * Searches events stored
+     * Searches events stored.
+     * The properties and the concerned items of the found events are 
+     * searched for the whole page at once.
      * @param searchUri
      * @param searchType
      * @param searchConcernedItemLabel
@@ -291,32 +296,35 @@ public class EventDAO extends Rdf4jDAO<Event> {
                 Contexts.EVENTS.toString(), 
                 Oeev.concerns.getURI());
         
-        // for each event, set its properties and concerned Items
-        try {
-            TupleQueryResult eventsResult = eventsTupleQuery.evaluate();
+        // set the properties and concerned items of the whole page at once
+        try (TupleQueryResult eventsResult = eventsTupleQuery.evaluate()) {
             while (eventsResult.hasNext()) {
                 BindingSet bindingSet = eventsResult.next();
                 Event event = getEventFromBindingSet(bindingSet);
 
-                    // Instant
-                    event.setInstant(getInstantFromBindingSet(
-                            bindingSet,
-                            INSTANT_SELECT_NAME, 
-                            DATETIMESTAMP_SELECT_NAME));
-
-                    // Properties
-                    setEventProperties(event);
+                // Instant
+                event.setInstant(getInstantFromBindingSet(
+                        bindingSet,
+                        INSTANT_SELECT_NAME, 
+                        DATETIMESTAMP_SELECT_NAME));
 
-                    // Concerned items
-                    event.setConcernedItems(concernedItemDao.find(
-                            event.getUri(), 
-                            null, 
-                            null, 
-                            0, 
-                            pageSizeMaxValue));
+                events.add(event);
+            }
+            
+            if (!events.isEmpty()) {
+                // Properties
+                setEventsProperties(events);
 
-                    events.add(event);
-                }
+                // Concerned items
+                List<String> eventsUris = new ArrayList<>();
+                events.forEach((event) -> {
+                    eventsUris.add(event.getUri());
+                });
+                Map<String, ArrayList<ConcernedItem>> concernedItems = concernedItemDao.find(eventsUris);
+                events.forEach((event) -> {
+                    event.setConcernedItems(concernedItems.get(event.getUri()));
+                });
+            }
         } catch (RepositoryException|MalformedQueryException|QueryEvaluationException ex) {
             handleTriplestoreException(ex);
         }
@@ -441,11 +449,13 @@ public class EventDAO extends Rdf4jDAO<Event> {
     @Override
     public List<Event> create(List<Event> events) throws DAOPersistenceException, Exception {  
         setNewUris(events);
+        List<UpdateBuilder> updateBuilders = new ArrayList<>();
         for (Event event : events) {
             UpdateBuilder updateBuilder = new UpdateBuilder();
             addInsertToUpdateBuilder(updateBuilder, event);
-            executeUpdateRequest(updateBuilder);
+            updateBuilders.add(updateBuilder);
         }
+        executeInsertRequests(updateBuilders);
         return events;
     }
     
@@ -527,12 +537,27 @@ public class EventDAO extends Rdf4jDAO<Event> {
     private void setEventProperties(Event event) throws DAOPersistenceException {
         PropertyDAO propertyDAO = new PropertyDAO();
         propertyDAO.getAllPropertiesWithLabelsExceptThoseSpecified(
-            event, null, new ArrayList() {
-                {
-                    add(Rdf.RELATION_TYPE.toString());
-                    add(Time.hasTime.getURI());
-                    add(Oeev.concerns.getURI());
-                }});
+            event, null, getPropertiesRelationsToIgnore());
+    }
+    
+    /**
+     * Searches the properties of several events at once and set them to them
+     * @param events 
+     */
+    private void setEventsProperties(List<Event> events) throws DAOPersistenceException {
+        PropertyDAO propertyDAO = new PropertyDAO();
+        propertyDAO.getAllPropertiesWithLabelsExceptThoseSpecified(
+            events, null, getPropertiesRelationsToIgnore());
+    }
+    
+    /**
+     * @return the relations of an event which are not returned as properties
+     */
+    private static ArrayList<String> getPropertiesRelationsToIgnore() {
+        return new ArrayList<>(Arrays.asList(
+                Rdf.RELATION_TYPE.toString(),
+                Time.hasTime.getURI(),
+                Oeev.concerns.getURI()));
     }
 
     /**
@@ -11,8 +11,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +33,7 @@ import opensilex.service.resource.dto.experiment.ExperimentDTO;
 import opensilex.service.resource.dto.experiment.ExperimentPostDTO;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.utils.UriGenerator;
+import opensilex.service.utils.cache.AuthorizationCache;
 import opensilex.service.utils.sql.JoinAttributes;
 import opensilex.service.utils.sql.SQLQueryBuilder;
 import opensilex.service.model.Contact;
@@ -200,95 +201,74 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
      * @return the list of the experiments founded in the database
      */
     public ArrayList<Experiment> getAllExperimentsForAcquisitionSessionFile() {
-        ResultSet queryResult = null;
-        Connection connection = null;
-        Statement statement = null;
-        ArrayList<Experiment> experiments = new ArrayList();
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
+        
+        // Queries database            
+        Map<String, String> sqlFields = relationFieldsJavaSQLObject();
+
+        query.appendFrom(table, tableAlias);
+        query.appendSelect(sqlFields.get("uri") + ", " + sqlFields.get("alias") + ", " + sqlFields.get("cropSpecies"));
+        query.appendLimit(String.valueOf(pageSize));
+        query.appendOffset(Integer.toString(this.getPage()* this.getPageSize()));
         
         try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            SQLQueryBuilder query = new SQLQueryBuilder();
-            
-            // Queries database            
-            Map<String, String> sqlFields = relationFieldsJavaSQLObject();
-           
-            query.appendFrom(table, tableAlias);
-            query.appendSelect(sqlFields.get("uri") + ", " + sqlFields.get("alias") + ", " + sqlFields.get("cropSpecies"));
-            query.appendLimit(String.valueOf(pageSize));
-            query.appendOffset(Integer.toString(this.getPage()* this.getPageSize()));
-            
-            queryResult = statement.executeQuery(query.toString());
-            
-            // Manipulates database results
-            while (queryResult.next()) {
-                Experiment experiment = new Experiment();
-                experiment.setUri(queryResult.getString(sqlFields.get("uri")));
-                experiment.setAlias(queryResult.getString(sqlFields.get("alias")));
-                experiment.setCropSpecies(queryResult.getString(sqlFields.get("cropSpecies")));
-                experiments.add(experiment);
-            }
+            return selectQuery(query, (queryResult) -> {
+                ArrayList<Experiment> experiments = new ArrayList<>();
+                // Manipulates database results
+                while (queryResult.next()) {
+                    Experiment experiment = new Experiment();
+                    experiment.setUri(queryResult.getString(sqlFields.get("uri")));
+                    experiment.setAlias(queryResult.getString(sqlFields.get("alias")));
+                    experiment.setCropSpecies(queryResult.getString(sqlFields.get("cropSpecies")));
+                    experiments.add(experiment);
+                }
+                return experiments;
+            });
         } catch (SQLException ex) {
             java.util.logging.Logger.getLogger(ExperimentSQLDAO.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            try {
-                if (queryResult != null) {
-                    queryResult.close();
-                }
-                if (statement != null) {
-                    statement.close();
-                }
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                java.util.logging.Logger.getLogger(ExperimentSQLDAO.class.getName()).log(Level.SEVERE, null, ex);
-            }
+            return new ArrayList<>();
         }
-        return experiments;
     }
 
     @Override
     public ArrayList<Experiment> allPaginate() {
-        ResultSet queryResult = null;
-        Connection connection = null;
-        Statement statement = null;
-        ArrayList<Experiment> experiments = new ArrayList();
-        try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            SQLQueryBuilder query = new SQLQueryBuilder();
-            
-            // Adds conditions in query
-            query.appendFrom(table, tableAlias);
-            addFilters(query);
-            
-            query.appendLimit(String.valueOf(pageSize));
-            query.appendOffset(Integer.toString(this.getPage() * this.getPageSize()));
-            
-            queryResult = statement.executeQuery(query.toString());
-            
-            LOGGER.debug (query.toString());
-            
+        ArrayList<Experiment> experiments = new ArrayList<>();
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
+
+        // Adds conditions in query
+        query.appendFrom(table, tableAlias);
+        addFilters(query);
+
+        query.appendLimit(String.valueOf(pageSize));
+        query.appendOffset(Integer.toString(this.getPage() * this.getPageSize()));
+        
+        // The experiments, their contacts and their projects are read with
+        // the same connection
+        try (Connection connection = dataSource.getConnection()) {
             UserDAO userDao = new UserDAO();
             userDao.isAdmin(user);
             boolean isAdmin = (user.getAdmin().equals("t") || user.getAdmin().equals("true"));
 
-            while (queryResult.next()) {
-                //SILEX:access
-                Experiment experiment = get(queryResult);
-                if (isAdmin || canUserSeeExperiment(user, experiment)) {
-                    experiments.add(get(queryResult));
+            experiments = selectQuery(connection, query, (queryResult) -> {
+                ArrayList<Experiment> foundExperiments = new ArrayList<>();
+                while (queryResult.next()) {
+                    //SILEX:access
+                    Experiment experiment = get(queryResult);
+                    if (isAdmin || canUserSeeExperiment(user, experiment)) {
+                        foundExperiments.add(experiment);
+                    }
+                    //\SILEX:access
                 }
-                //\SILEX:access
-            }
+                return foundExperiments;
+            });
             
             //SILEX:dbjoin
-            experiments = getExperimentsContacts(experiments, statement);
+            experiments = getExperimentsContacts(experiments, connection);
             //\SILEX:dbjoin
-            experiments = getExperimentsProjects(experiments, statement);
+            experiments = getExperimentsProjects(experiments, connection);
+            AuthorizationCache.Snapshot authorizations = GroupDAO.getAuthorizations();
             for (Experiment experiment : experiments) {
-                experiment.setGroupList(this.getExperimentGroups(experiment));
+                experiment.setGroupList(authorizations.getExperimentGroups(experiment.getUri()));
             }
             
             // Gets experiments variables
@@ -302,20 +282,6 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
             
         } catch (SQLException ex) {
             java.util.logging.Logger.getLogger(ExperimentSQLDAO.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            try {
-                if (queryResult != null) {
-                    queryResult.close();
-                }
-                if (statement != null) {
-                    statement.close();
-                }
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                java.util.logging.Logger.getLogger(ExperimentSQLDAO.class.getName()).log(Level.SEVERE, null, ex);
-            }
         }
         return experiments;
     }
@@ -324,56 +290,58 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
      * Gets experiments projects.
      * @param experiments ArrayList<Experiment> list of experiments for which 
      * the list of projects is also needed
-     * @param statement Statement
+     * @param connection Connection
      * @return the list given in parameter with the project list for each
      * experiment
      * @throws SQLException 
      */
-    private ArrayList<Experiment> getExperimentsProjects(ArrayList<Experiment> experiments, Statement statement) 
+    private ArrayList<Experiment> getExperimentsProjects(ArrayList<Experiment> experiments, Connection connection) 
             throws SQLException {
         for (Experiment experiment : experiments) {
-            SQLQueryBuilder query = new SQLQueryBuilder();
+            SQLQueryBuilder query = new SQLQueryBuilder(true);
             query.appendSelect("p.acronyme, p.uri");
             query.appendFrom("at_trial_project", "tp");
             query.appendANDWhereConditionIfNeeded("trial_uri", experiment.getUri(), "=", null, "tp");
             query.appendJoin(JoinAttributes.INNERJOIN, "project", "p", "p.uri = tp.project_uri");
             
-            ResultSet queryResult = statement.executeQuery(query.toString());
-            while (queryResult.next()) {
-                Project project = new Project(queryResult.getString("uri"));
-                project.setAcronyme(queryResult.getString("acronyme"));
-                experiment.addProject(project);
-            }
+            selectQuery(connection, query, (queryResult) -> {
+                while (queryResult.next()) {
+                    Project project = new Project(queryResult.getString("uri"));
+                    project.setAcronyme(queryResult.getString("acronyme"));
+                    experiment.addProject(project);
+                }
+                return null;
+            });
         }
         return experiments;
     }
     
     /**
      * Gets the contacts of an experiment.
-     * @param statement Statement
+     * @param connection Connection
      * @param experiments ArrayList<Experiment> experiment list
      * @return the experiment list with the contact list for each experiment
      */
-    private ArrayList<Experiment> getExperimentsContacts(ArrayList<Experiment> experiments, Statement statement) 
+    private ArrayList<Experiment> getExperimentsContacts(ArrayList<Experiment> experiments, Connection connection) 
             throws SQLException {
         for (Experiment experiment : experiments) {
-            SQLQueryBuilder query = new SQLQueryBuilder();
+            SQLQueryBuilder query = new SQLQueryBuilder(true);
             query.appendSelect("u.email, u.first_name, u.family_name, tu.type");
             query.appendFrom("at_trial_users", "tu");
             query.appendANDWhereConditionIfNeeded("trial_uri", experiment.getUri(), "=", null, "tu");
             query.appendJoin(JoinAttributes.INNERJOIN, "users", "u", "u.email = tu.users_email");
             
-            LOGGER.debug(query.toString());
-            
-            ResultSet queryResult = statement.executeQuery(query.toString());
-            while (queryResult.next()) {
-                Contact contact = new Contact();
-                contact.setEmail(queryResult.getString("email"));
-                contact.setFirstName(queryResult.getString("first_name"));
-                contact.setFamilyName(queryResult.getString("family_name"));
-                contact.setType(queryResult.getString("type"));
-                experiment.addContact(contact);
-            }
+            selectQuery(connection, query, (queryResult) -> {
+                while (queryResult.next()) {
+                    Contact contact = new Contact();
+                    contact.setEmail(queryResult.getString("email"));
+                    contact.setFirstName(queryResult.getString("first_name"));
+                    contact.setFamilyName(queryResult.getString("family_name"));
+                    contact.setType(queryResult.getString("type"));
+                    experiment.addContact(contact);
+                }
+                return null;
+            });
         }
         
         return experiments;
@@ -402,7 +370,7 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
     
     @Override
     public Integer count() {
-        SQLQueryBuilder query = new SQLQueryBuilder();
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
         query.appendCount();
         query.appendDistinct();
         query.appendSelect(tableAlias + ".uri");
@@ -414,37 +382,11 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
         
         addFilters(query);
 
-        Connection connection = null;
-        ResultSet resultSet = null;
-        Statement statement = null;
-
         try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement();
-            resultSet = statement.executeQuery(query.toString());
-
-            if (resultSet.next()) {
-                return resultSet.getInt(1);
-            } else {
-                return 0;
-            }
+            return selectQuery(query, (resultSet) -> resultSet.next() ? resultSet.getInt(1) : 0);
         } catch (SQLException e) {
             LOGGER.error(e.getMessage(), e);
             return null;
-        } finally {
-            try {
-                if (statement != null) {
-                    statement.close();
-                }
-                if (resultSet != null) {
-                    resultSet.close();
-                }
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                LOGGER.error(ex.getMessage(), ex);
-            }
         }
     }
 
@@ -593,6 +535,7 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
                 }
                 
                 con.commit(); //Envoi des données ds bd
+                AuthorizationCache.invalidate();
                 
                 // WARNING, checking to re-check
                 // If data inserted and existing
@@ -689,46 +632,7 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
      * @throws java.sql.SQLException
      */
     public ArrayList<Group> getExperimentGroups(Experiment experiment) throws SQLException {
-        ResultSet result = null;
-        Connection connection = null;
-        Statement statement = null;
-        ArrayList<Group> experimentGroups = new ArrayList<>();
-        
-        try {
-            if (this.existInDB(experiment)) {
-                // Get groups from at_group_trial and group tables 
-                SQLQueryBuilder query = new SQLQueryBuilder();
-                query.appendSelect("gp.uri, gp.level, gp.name");
-                query.appendFrom("at_group_trial", "gt");
-                query.appendANDWhereConditionIfNeeded("trial_uri", experiment.getUri(), "=", null, "gt");
-                query.appendJoin(JoinAttributes.INNERJOIN, "group", "gp", "gt.group_uri = gp.uri");
-                
-                connection = dataSource.getConnection();
-                statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY,ResultSet.HOLD_CURSORS_OVER_COMMIT);
-
-                result = statement.executeQuery(query.toString());
-                while (result.next()) {
-                    Group group = new Group(result.getString("uri"));
-                    group.setLevel(result.getString("level"));
-                    group.setName(result.getString("name"));
-                    experimentGroups.add(group);
-                }
-            }
-        } catch (Exception ex) {
-            java.util.logging.Logger.getLogger(ExperimentSQLDAO.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            if (connection != null) {
-                connection.close();
-            }
-            if (statement != null) {
-                statement.close();
-            }
-            if (result != null) {
-                result.close();
-            }
-        }
-        
-        return experimentGroups;
+        return GroupDAO.getAuthorizations().getExperimentGroups(experiment.getUri());
     }
     
     /**
@@ -741,23 +645,8 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
      */
     public boolean canUserSeeExperiment(User user, Experiment experiment) {
         try {
-            UserDAO userDao = new UserDAO();
-
-            ArrayList<Group> experimentGroups = this.getExperimentGroups(experiment);
-            
             // when the trial isn't in any group, it is public so the user can consult it
-            if (experimentGroups.isEmpty()) { 
-                return true;
-            } else {
-                ArrayList<Group> userGroups = userDao.getUserGroups(user);
-                for (Group userGroup : userGroups) {
-                    for (Group experimentGroup : experimentGroups) {
-                        if (userGroup.getUri().equals(experimentGroup.getUri())) {
-                            return true;
-                        }
-                    }
-                }
-            }
+            return GroupDAO.getAuthorizations().canSee(user.getEmail(), experiment.getUri());
         } catch (SQLException ex) {
             java.util.logging.Logger.getLogger(ExperimentSQLDAO.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -779,21 +668,7 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
             return true;
         }
         
-        ArrayList<Group> userGroups = userDao.getUserGroups(user);
-        ArrayList<Group> experimentGroups = this.getExperimentGroups(experiment);
-        
-        if (!experimentGroups.isEmpty() || !userGroups.isEmpty()) {
-            for (Group userGroup : userGroups) {
-                for (Group experimentGroup : experimentGroups) {
-                    if ( userGroup.getLevel().equals("Owner")
-                            && userGroup.getUri().equals(experimentGroup.getUri())) {
-
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;                
+        return GroupDAO.getAuthorizations().isOwner(user.getEmail(), experiment.getUri());
     }
     
     /**
@@ -950,6 +825,7 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
                 }
                 
                 connection.commit(); // Send data to storage
+                AuthorizationCache.invalidate();
                 
                 insertStatusList.add(new Status("Data updated", StatusCodeMsg.INFO, "experiments updated"));
                 results = new POSTResultsReturn(true, true, allExperimentsAlreadyInDB);
@@ -1180,45 +1056,24 @@ public class ExperimentSQLDAO extends PhisDAO<Experiment, ExperimentDTO> {
      * Use a regex to get only experiments corresponding to our current experiments uri format.
      */
     public Integer getCampaignLastExperimentUri(String campaign) {
-        String query = "SELECT uri, regexp_matches(uri, '.*" + campaign + "-[0-9]{1,2}$') "
+        String query = "SELECT uri, regexp_matches(uri, ?) "
                      + "FROM trial "
-                     + "WHERE campaign = '" + campaign + "';";
+                     + "WHERE campaign = ?";
         
-        Connection connection = null;
-        ResultSet resultSet = null;
-        Statement statement = null;
-
         try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement();
-            LOGGER.debug("query: " + query);
-            resultSet = statement.executeQuery(query);
-            Integer maxExperimentNumber = 0;
-            while(resultSet.next()) {
-                String[] foundedUriSplit = resultSet.getString("uri").split("-");
-                if (Integer.parseInt(foundedUriSplit[foundedUriSplit.length-1]) > maxExperimentNumber) {
-                    maxExperimentNumber = Integer.parseInt(foundedUriSplit[foundedUriSplit.length-1]);
+            return selectQuery(query, Arrays.asList(".*" + campaign + "-[0-9]{1,2}$", campaign), (resultSet) -> {
+                Integer maxExperimentNumber = 0;
+                while(resultSet.next()) {
+                    String[] foundedUriSplit = resultSet.getString("uri").split("-");
+                    if (Integer.parseInt(foundedUriSplit[foundedUriSplit.length-1]) > maxExperimentNumber) {
+                        maxExperimentNumber = Integer.parseInt(foundedUriSplit[foundedUriSplit.length-1]);
+                    }
                 }
-            }
-            
-            return maxExperimentNumber;
+                return maxExperimentNumber;
+            });
         } catch (SQLException e) {
             LOGGER.error(e.getMessage(), e);
             return null;
-        } finally {
-            try {
-                if (statement != null) {
-                    statement.close();
-                }
-                if (resultSet != null) {
-                    resultSet.close();
-                }
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                LOGGER.error(ex.getMessage(), ex);
-            }
         }
     }
 
@@ -20,6 +20,8 @@ import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.Sorts;
 import java.io.File;
 import java.sql.Timestamp;
@@ -38,6 +40,8 @@ import org.slf4j.LoggerFactory;
 import opensilex.service.PropertiesFileManager;
 import opensilex.service.configuration.DateFormat;
 import opensilex.service.dao.manager.MongoDAO;
+import opensilex.service.datasource.MongoIndexRegistry;
+import opensilex.service.datasource.MongoIndexRegistry.CollectionIndexes;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.ontology.Oeso;
 import opensilex.service.utils.FileUploader;
@@ -61,6 +65,14 @@ public class FileDescriptionDAO extends MongoDAO<FileDescription> {
     private final static String DB_FIELD_RDF_TYPE = "rdfType";
     private final static String DB_FIELD_CONCERNED_ITEM_URI = "concernedItems.uri";
     
+    // Indexes of the file descriptions collections (one by file type). The 
+    // unique index on the uri rejects the duplicated files
+    final static CollectionIndexes INDEXES = MongoIndexRegistry.declare("fileDescriptions",
+            new IndexModel(Indexes.ascending(DB_FIELD_URI), new IndexOptions().unique(true)),
+            new IndexModel(Indexes.ascending(DB_FIELD_DATE)),
+            new IndexModel(Indexes.ascending(DB_FIELD_CONCERNED_ITEM_URI, DB_FIELD_DATE)),
+            new IndexModel(Indexes.ascending(DB_FIELD_PROVENANCE, DB_FIELD_DATE)));
+    
     /**
      * Prepares and returns the data file description search query with the given parameters
      * @param rdfType
@@ -159,6 +171,7 @@ public class FileDescriptionDAO extends MongoDAO<FileDescription> {
     ) {
          // Get the collection corresponding to rdf type uri
         String typeCollection = this.getCollectionFromFileType(rdfType);
+        ensureIndexesIfExists(typeCollection, INDEXES);
         MongoCollection<FileDescription> dataVariableCollection = database.getCollection(typeCollection, FileDescription.class);
 
         // Get the filter query
@@ -221,6 +234,7 @@ public class FileDescriptionDAO extends MongoDAO<FileDescription> {
         boolean dateSortAsc   
     ) {
         String typeCollection = this.getCollectionFromFileType(rdfType);
+        ensureIndexesIfExists(typeCollection, INDEXES);
         MongoCollection<Document> dataVariableCollection = database.getCollection(typeCollection);
 
         // Get the filter query
@@ -291,12 +305,10 @@ public class FileDescriptionDAO extends MongoDAO<FileDescription> {
             boolean hasError = false;
             
             for (FileDescription fileDescription : fileDescriptions) {
-                // 2. Create unique index on uri for file rdf type collection
-                //   Mongo won't create index if it already exists
-                IndexOptions indexOptions = new IndexOptions().unique(true);
+                // 2. Create unique index on uri for each new file rdf type collection
                 String fileCollectionName = getCollectionFromFileType(fileDescription.getRdfType());
+                ensureIndexes(fileCollectionName, INDEXES);
                 MongoCollection<FileDescription> fileDescriptionCollection = database.getCollection(fileCollectionName, FileDescription.class);
-                fileDescriptionCollection.createIndex(new BasicDBObject(DB_FIELD_URI, 1), indexOptions);
                 
                 try {
                     UriGenerator uriGenerator = new UriGenerator();
@@ -442,12 +454,10 @@ public class FileDescriptionDAO extends MongoDAO<FileDescription> {
         List<Status> status = new ArrayList<>();
         List<String> createdResources = new ArrayList<>();
 
-        // 2. Create unique index on uri for file rdf type collection
-        //   Mongo won't create index if it already exists
-        IndexOptions indexOptions = new IndexOptions().unique(true);
+        // 2. Create unique index on uri for each new file rdf type collection
         String fileCollectionName = getCollectionFromFileType(fileDescription.getRdfType());
+        ensureIndexes(fileCollectionName, INDEXES);
         MongoCollection<FileDescription> fileDescriptionCollection = database.getCollection(fileCollectionName, FileDescription.class);
-        fileDescriptionCollection.createIndex(new BasicDBObject(DB_FIELD_URI, 1), indexOptions);
         
         boolean hasError = false;
             
@@ -578,6 +588,7 @@ public class FileDescriptionDAO extends MongoDAO<FileDescription> {
         BasicDBObject query = new BasicDBObject();
         query.append(DB_FIELD_URI, uri);
         
+        ensureIndexesIfExists(variableCollection, INDEXES);
         return database.getCollection(variableCollection).countDocuments(query) > 0; 
     }
 
@@ -592,6 +603,7 @@ public class FileDescriptionDAO extends MongoDAO<FileDescription> {
          
         String[] uriParts = fileUri.split("/");
         String collection = uriParts[uriParts.length - 2];
+        ensureIndexesIfExists(collection, INDEXES);
         MongoCollection<FileDescription> datafileCollection = database.getCollection(collection, FileDescription.class);
 
         // Get paginated documents
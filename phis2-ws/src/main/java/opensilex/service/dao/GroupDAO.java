@@ -11,7 +11,6 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +30,7 @@ import opensilex.service.resource.dto.group.GroupDTO;
 import opensilex.service.resource.dto.group.GroupPostDTO;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.utils.UriGenerator;
+import opensilex.service.utils.cache.AuthorizationCache;
 import opensilex.service.utils.sql.JoinAttributes;
 import opensilex.service.utils.sql.SQLQueryBuilder;
 import opensilex.service.view.brapi.Status;
@@ -158,6 +158,7 @@ public class GroupDAO extends PhisDAO<Group, GroupDTO> {
                     insertPreparedStatementGroupUser.executeBatch();
                 }
                 connection.commit();
+                AuthorizationCache.invalidate();
 
                 /**
                  * //SILEX:todo
@@ -270,6 +271,58 @@ public class GroupDAO extends PhisDAO<Group, GroupDTO> {
         
         return group;
     }
+    
+    /**
+     * Gets the groups memberships of the users and of the experiments, 
+     * loaded from the database if they are not in cache.
+     * @return the authorizations snapshot
+     * @throws SQLException 
+     */
+    public static AuthorizationCache.Snapshot getAuthorizations() throws SQLException {
+        return AuthorizationCache.getSnapshot(() -> new GroupDAO().loadAuthorizations());
+    }
+    
+    /**
+     * Loads the groups and their users and experiments.
+     * @return the authorizations snapshot
+     * @throws SQLException 
+     */
+    private AuthorizationCache.Snapshot loadAuthorizations() throws SQLException {
+        AuthorizationCache.Snapshot authorizations = new AuthorizationCache.Snapshot();
+        
+        SQLQueryBuilder groupsQuery = new SQLQueryBuilder(true);
+        groupsQuery.appendSelect("uri, level, name");
+        groupsQuery.appendFrom(table, null);
+        selectQuery(groupsQuery, (result) -> {
+            while (result.next()) {
+                authorizations.addGroup(result.getString("uri"), result.getString("level"), result.getString("name"));
+            }
+            return null;
+        });
+        
+        SQLQueryBuilder usersQuery = new SQLQueryBuilder(true);
+        usersQuery.appendSelect("users_email, group_uri");
+        usersQuery.appendFrom("at_group_users", null);
+        selectQuery(usersQuery, (result) -> {
+            while (result.next()) {
+                authorizations.addUserGroup(result.getString("users_email"), result.getString("group_uri"));
+            }
+            return null;
+        });
+        
+        SQLQueryBuilder experimentsQuery = new SQLQueryBuilder(true);
+        experimentsQuery.appendSelect("trial_uri, group_uri");
+        experimentsQuery.appendFrom("at_group_trial", null);
+        selectQuery(experimentsQuery, (result) -> {
+            while (result.next()) {
+                authorizations.addExperimentGroup(result.getString("trial_uri"), result.getString("group_uri"));
+            }
+            return null;
+        });
+        
+        LOGGER.debug(authorizations.getGroupsCount() + " groups authorizations loaded");
+        return authorizations;
+    }
 
     /**
      * 
@@ -278,59 +331,39 @@ public class GroupDAO extends PhisDAO<Group, GroupDTO> {
      * @throws SQLException 
      */
     public ArrayList<User> getGroupUsers(Group group) throws SQLException {
-        ResultSet result = null;
-        Connection connection = null;
-        Statement statement = null;
         ArrayList<User> groupUsers = new ArrayList<>();
         
         try {
             if (this.existInDB(group)) {
-              // users recovery in at_group and users tables
-              SQLQueryBuilder query = new SQLQueryBuilder();
-              query.appendSelect("u.email, u.first_name, u.family_name");
-              query.appendFrom("at_group_users", "gu");
-              query.appendANDWhereConditionIfNeeded("group_uri", group.getUri(), "=", null, "gu");
-              query.appendJoin(JoinAttributes.INNERJOIN, "users", "u", "gu.users_email = u.email");
-              
-              connection = dataSource.getConnection();
-              statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY,ResultSet.HOLD_CURSORS_OVER_COMMIT);
-              
-              result = statement.executeQuery(query.toString());
-              while(result.next()) {
-                  User u = new User(result.getString("email"));
-                  u.setFirstName(result.getString("first_name"));
-                  u.setFamilyName(result.getString("family_name"));
-                  groupUsers.add(u);
-              }
+                // users recovery in at_group and users tables
+                SQLQueryBuilder query = new SQLQueryBuilder(true);
+                query.appendSelect("u.email, u.first_name, u.family_name");
+                query.appendFrom("at_group_users", "gu");
+                query.appendANDWhereConditionIfNeeded("group_uri", group.getUri(), "=", null, "gu");
+                query.appendJoin(JoinAttributes.INNERJOIN, "users", "u", "gu.users_email = u.email");
+                
+                selectQuery(query, (result) -> {
+                    while(result.next()) {
+                        User u = new User(result.getString("email"));
+                        u.setFirstName(result.getString("first_name"));
+                        u.setFamilyName(result.getString("family_name"));
+                        groupUsers.add(u);
+                    }
+                    return null;
+                });
             }
         } catch (Exception ex) {
             java.util.logging.Logger.getLogger(GroupDAO.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            if (connection != null) {
-                connection.close();
-            }
-            if (statement != null) {
-                statement.close();
-            }
-            if (result != null) {
-                result.close();
-            }
         }
         return groupUsers;
     }
     
     @Override
     public ArrayList<Group> allPaginate() {
-        ResultSet queryResult = null;
-        Connection connection = null;
-        Statement statement = null;
-        
         ArrayList<Group> groups = new ArrayList<>();
         
         try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            SQLQueryBuilder query = new SQLQueryBuilder();
+            SQLQueryBuilder query = new SQLQueryBuilder(true);
             
             Map<String, String> sqlFields = relationFieldsJavaSQLObject();
             
@@ -343,38 +376,25 @@ public class GroupDAO extends PhisDAO<Group, GroupDTO> {
             query.appendLimit(String.valueOf(pageSize));
             query.appendOffset(Integer.toString(this.getPage() * this.getPageSize()));
             
-            queryResult = statement.executeQuery(query.toString());
-            
-            while(queryResult.next()) {
-                groups.add(get(queryResult));
-            }
+            selectQuery(query, (queryResult) -> {
+                while(queryResult.next()) {
+                    groups.add(get(queryResult));
+                }
+                return null;
+            });
             
             for (Group group : groups) {
                 group.setUserList(this.getGroupUsers(group));
             }
         } catch (SQLException ex) {
             java.util.logging.Logger.getLogger(GroupDAO.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            try {
-                if (queryResult != null) {
-                    queryResult.close();
-                }
-                if (statement != null) {
-                    statement.close();
-                } 
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                java.util.logging.Logger.getLogger(GroupDAO.class.getName()).log(Level.SEVERE, null, ex);
-            }
         }
         return groups;
     }
 
     @Override
     public Integer count() {
-        SQLQueryBuilder query = new SQLQueryBuilder();
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
         query.appendCount();
         query.appendDistinct();
         query.appendSelect(tableAlias + ".uri");
@@ -384,37 +404,11 @@ public class GroupDAO extends PhisDAO<Group, GroupDTO> {
             query.appendANDWhereConditionIfNeeded("uri", uri, "=", null, tableAlias);
         }
         
-        Connection connection = null;
-        ResultSet resultSet = null;
-        Statement statement = null;
-        
         try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement();
-            resultSet = statement.executeQuery(query.toString());
-            
-            if (resultSet.next()) {
-                return resultSet.getInt(1);
-            } else {
-                return 0;
-            }
+            return selectQuery(query, (resultSet) -> resultSet.next() ? resultSet.getInt(1) : 0);
         } catch (SQLException ex) {
             LOGGER.error(ex.getMessage(), ex);
             return null;
-        } finally {
-            try {
-                if (statement != null) {
-                    statement.close();
-                }
-                if (resultSet != null) {
-                    resultSet.close();
-                }
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                LOGGER.error(ex.getMessage(), ex);
-            }
         }
     }
 
@@ -519,6 +513,7 @@ public class GroupDAO extends PhisDAO<Group, GroupDTO> {
                 }
 
                 connection.commit();
+                AuthorizationCache.invalidate();
 
                 insertStatusList.add(new Status("Data inserted", StatusCodeMsg.INFO, "groups updated"));
                 results = new POSTResultsReturn(true, true, allGroupsAlreadyInDB);
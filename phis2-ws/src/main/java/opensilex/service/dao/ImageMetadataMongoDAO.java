@@ -13,6 +13,11 @@ import com.mongodb.BasicDBObjectBuilder;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
 import java.sql.Timestamp;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -25,10 +30,14 @@ import javax.ws.rs.core.Response;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAOPersistenceException;
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.PropertiesFileManager;
 import opensilex.service.configuration.DateFormats;
+import opensilex.service.datasource.MongoIndexRegistry;
+import opensilex.service.datasource.MongoIndexRegistry.CollectionIndexes;
 import opensilex.service.dao.manager.MongoDAO;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.ontology.Contexts;
@@ -72,7 +81,19 @@ public class ImageMetadataMongoDAO extends MongoDAO<ImageMetadata> {
      */
     public ArrayList<String> concernedItems = new ArrayList<>();
     
-    private final MongoCollection<Document> imagesCollection = database.getCollection(PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "images"));
+    /**
+     * Cursor of the last image already read, to read the next page. 
+     * @see #getNextCursor()
+     */
+    public String cursor;
+    
+    /**
+     * Cursor of the last image of the page read
+     */
+    private String nextCursor;
+    
+    private final String imagesCollectionName = PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "images");
+    private final MongoCollection<Document> imagesCollection = database.getCollection(imagesCollectionName);
     
     //Represents the mongodb documents label for the image uri
     final static String DB_FIELDS_IMAGE_URI = "uri";
@@ -84,8 +105,28 @@ public class ImageMetadataMongoDAO extends MongoDAO<ImageMetadata> {
     final static String DB_FIELDS_CONCERNED_ITEMS = "concernedItems";
     //Represents the mongodb documents label for the shooting configurations
     final static String DB_FIELDS_SHOOTING_CONFIGURATION = "shootingConfiguration";
-        //Represents the mongodb documents label for the storage
+    //Represents the mongodb documents label for the storage
     final static String DB_FIELDS_STORAGE = "storage";
+    //Represents the mongodb documents label for the shooting date
+    final static String DB_FIELDS_DATE = DB_FIELDS_SHOOTING_CONFIGURATION + "." + ShootingConfigurationDAO.DB_FIELDS_DATE;
+    //Represents the mongodb documents label for the sensor
+    final static String DB_FIELDS_SENSOR = DB_FIELDS_SHOOTING_CONFIGURATION + "." + ShootingConfigurationDAO.DB_FIELDS_SENSOR;
+    
+    //Fields of the images metadata returned by the search
+    private final static Bson LIST_PROJECTION = Projections.include(
+            DB_FIELDS_IMAGE_URI, DB_FIELDS_RDF_TYPE, DB_FIELDS_CONCERNED_ITEMS, DB_FIELDS_SHOOTING_CONFIGURATION, DB_FIELDS_STORAGE);
+    
+    //SILEX:info
+    //The search results are sorted by date and by id, so each search index 
+    //ends with them and the sort is done by the index. The concerned items 
+    //index is a multikey index.
+    //\SILEX:info
+    private final static CollectionIndexes INDEXES = MongoIndexRegistry.declare("images",
+            new IndexModel(Indexes.ascending(DB_FIELDS_DATE, DB_FIELD_ID)),
+            new IndexModel(Indexes.ascending(DB_FIELDS_CONCERNED_ITEMS + "." + DB_FIELDS_CONCERNED_ITEM_URI, DB_FIELDS_DATE, DB_FIELD_ID)),
+            new IndexModel(Indexes.ascending(DB_FIELDS_RDF_TYPE, DB_FIELDS_DATE, DB_FIELD_ID)),
+            new IndexModel(Indexes.ascending(DB_FIELDS_SENSOR, DB_FIELDS_DATE, DB_FIELD_ID)),
+            new IndexModel(Indexes.ascending(DB_FIELDS_IMAGE_URI)));
 
     
     /**
@@ -141,14 +182,14 @@ public class ImageMetadataMongoDAO extends MongoDAO<ImageMetadata> {
                SimpleDateFormat df = new SimpleDateFormat(DateFormats.YMD_FORMAT);
                Date start = df.parse(startDate);
                Date end = df.parse(endDate);
-               query.append(DB_FIELDS_SHOOTING_CONFIGURATION + "." + ShootingConfigurationDAO.DB_FIELDS_DATE, 
+               query.append(DB_FIELDS_DATE, 
                        BasicDBObjectBuilder.start(MONGO_GTE, start).add(MONGO_LTE, end).get());
            } catch (ParseException ex) {
                java.util.logging.Logger.getLogger(ImageMetadataMongoDAO.class.getName()).log(Level.SEVERE, null, ex);
            }
        }
        if (sensor != null) {
-           query.append(DB_FIELDS_SHOOTING_CONFIGURATION + "." + ShootingConfigurationDAO.DB_FIELDS_SENSOR, sensor);
+           query.append(DB_FIELDS_SENSOR, sensor);
        }
        LOGGER.debug(getTraceabilityLogs() + " query : " + query.toString());
        
@@ -172,14 +213,47 @@ public class ImageMetadataMongoDAO extends MongoDAO<ImageMetadata> {
         return concernedItemsToReturn;
     }
 
+    /**
+     * Prepares the search query, continued after the image identified by the 
+     * cursor if there is one.
+     * @return the search query
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    private Bson prepareSearchQueryAfterCursor() {
+        Bson query = prepareSearchQuery();
+        if (cursor != null) {
+            Object[] cursorValues = decodeCursor(cursor);
+            Date cursorDate = (Date) cursorValues[0];
+            ObjectId cursorId = (ObjectId) cursorValues[1];
+            query = Filters.and(query, Filters.or(
+                    Filters.gt(DB_FIELDS_DATE, cursorDate),
+                    Filters.and(Filters.eq(DB_FIELDS_DATE, cursorDate), Filters.gt(DB_FIELD_ID, cursorId))));
+        }
+        return query;
+    }
+
+    /**
+     * Searches the images metadata corresponding to the search parameters, 
+     * sorted by date and by id.
+     * If a cursor is given, the page starts after the image it identifies 
+     * and the page number is ignored. 
+     * @return the images metadata of the page
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
     public ArrayList<ImageMetadata> allPaginate() {
-        BasicDBObject searchQuery = prepareSearchQuery();
-       
-        FindIterable<Document> imagesMetadataMongo = imagesCollection.find(searchQuery);
-        //sort by date
-        imagesMetadataMongo.sort(new BasicDBObject(DB_FIELDS_SHOOTING_CONFIGURATION + "." + ShootingConfigurationDAO.DB_FIELDS_DATE, 1));
+        // Indexes created now if MongoDB wasn't reachable at startup
+        ensureIndexes();
+        FindIterable<Document> imagesMetadataMongo = imagesCollection.find(prepareSearchQueryAfterCursor())
+                .projection(LIST_PROJECTION)
+                .sort(Sorts.ascending(DB_FIELDS_DATE, DB_FIELD_ID));
+        
+        if (cursor == null) {
+            imagesMetadataMongo.skip(getPage() * getPageSize());
+        }
+        imagesMetadataMongo.limit(getPageSize());
         
         ArrayList<ImageMetadata> imagesMetadata = new ArrayList<>();
+        nextCursor = null;
         
         try (MongoCursor<Document> imagesMetadataCursor = imagesMetadataMongo.iterator()) {
             //for each found image metadata, 
@@ -204,12 +278,39 @@ public class ImageMetadataMongoDAO extends MongoDAO<ImageMetadata> {
                 imageMetadata.setFileInformations(FileInformationDAO.mongoDocumentToFileInformation(fileInformationsDocument));
                 
                 imagesMetadata.add(imageMetadata);
+                
+                nextCursor = encodeCursor(shootingConfigurationDocument.getDate(ShootingConfigurationDAO.DB_FIELDS_DATE), 
+                        imageMetadataDocument.getObjectId(DB_FIELD_ID));
             }
         }
         
         return imagesMetadata;
     }
     
+    /**
+     * Counts the images metadata corresponding to the search parameters. 
+     * The count uses the same filter, so the same indexes, as the search.
+     * @return the number of images metadata
+     */
+    public long count() {
+        ensureIndexes();
+        return imagesCollection.countDocuments(prepareSearchQuery());
+    }
+    
+    /**
+     * Gets the cursor of the last image of the page read by 
+     * {@link #allPaginate()}, to read the next page.
+     * @return the cursor, null if the page was empty
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    @Override
+    public void ensureIndexes() {
+        ensureIndexes(imagesCollectionName, INDEXES);
+    }
+    
     /**
      * Checks if the images metadata are correct.
      * (rules, image type, concerned items)
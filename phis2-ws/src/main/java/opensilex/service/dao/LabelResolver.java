@@ -0,0 +1,137 @@
+//******************************************************************************
+//                              LabelResolver.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import opensilex.service.PropertiesFileManager;
+import opensilex.service.datasource.TriplestoreCache;
+import opensilex.service.utils.cache.ExpiringLruCache;
+
+/**
+ * Resolves the labels of a set of URIs at once.
+ * The labels are read from a cache shared by all the requests. The missing
+ * ones are fetched with one query per batch of URIs and then cached.
+ * The triplestore resources labels are kept in the triplestore labels cache,
+ * invalidated by the triplestore updates.
+ * The cache size and the time to live of its entries are read at startup in
+ * the service configuration file.
+ * @see TriplestoreCache#getResourcesLabels()
+ * @see opensilex.service.dao.manager.Rdf4jDAO#findLabelsForUris(java.util.Collection)
+ * @see ProvenanceDAO#findLabelsByUris(java.util.Collection)
+ */
+public class LabelResolver {
+
+    private static final String PROPERTY_FILE_NAME = "service";
+
+    private static final int DEFAULT_CACHE_MAX_SIZE = 100000;
+    // In seconds
+    private static final int DEFAULT_CACHE_TIME_TO_LIVE = 600;
+
+    /**
+     * Labels of the provenances, by URI.
+     */
+    private static final ExpiringLruCache<String, String> PROVENANCES_LABELS = new ExpiringLruCache<>(
+            "provenancesLabels", getCacheMaxSize(), getCacheTimeToLive());
+
+    private LabelResolver() {
+    }
+
+    private static int getCacheMaxSize() {
+        return PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "labelCacheMaxSize", DEFAULT_CACHE_MAX_SIZE);
+    }
+
+    private static long getCacheTimeToLive() {
+        return PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "labelCacheTimeToLive", DEFAULT_CACHE_TIME_TO_LIVE) * 1000L;
+    }
+
+    /**
+     * Gets the labels of the given triplestore resources.
+     * @param uris
+     * @return the labels by URI. Each given URI is in the map, with an empty
+     * list if it has no label.
+     */
+    public static Map<String, List<String>> getLabels(Collection<String> uris) {
+        Set<String> searchedUris = new LinkedHashSet<>(uris);
+        searchedUris.remove(null);
+
+        ExpiringLruCache<String, List<String>> resourcesLabels = TriplestoreCache.getResourcesLabels();
+        Map<String, List<String>> urisLabels = new HashMap<>(resourcesLabels.getAll(searchedUris));
+        searchedUris.removeAll(urisLabels.keySet());
+
+        if (!searchedUris.isEmpty()) {
+            UriDAO uriDAO = new UriDAO();
+            Map<String, List<String>> foundLabels = uriDAO.findLabelsForUris(searchedUris);
+            for (String uri : searchedUris) {
+                List<String> labels = Collections.unmodifiableList(foundLabels.getOrDefault(uri, new ArrayList<>()));
+                urisLabels.put(uri, labels);
+                resourcesLabels.put(uri, labels);
+            }
+        }
+
+        return urisLabels;
+    }
+
+    /**
+     * Gets the labels of a triplestore resource.
+     * @param uri
+     * @return the labels, an empty list if the resource has no label
+     */
+    public static List<String> getLabels(String uri) {
+        return getLabels(Collections.singleton(uri)).getOrDefault(uri, Collections.emptyList());
+    }
+
+    /**
+     * Gets the labels of the given provenances.
+     * @param uris
+     * @return the labels by URI. The unknown provenances have a null label.
+     */
+    public static Map<String, String> getProvenancesLabels(Collection<String> uris) {
+        Set<String> searchedUris = new LinkedHashSet<>(uris);
+        searchedUris.remove(null);
+
+        Map<String, String> provenancesLabels = new HashMap<>();
+        // The unknown provenances are not cached: they may be created later
+        PROVENANCES_LABELS.getAll(searchedUris).forEach((uri, label) -> {
+            provenancesLabels.put(uri, label);
+        });
+        searchedUris.removeAll(provenancesLabels.keySet());
+
+        if (!searchedUris.isEmpty()) {
+            ProvenanceDAO provenanceDAO = new ProvenanceDAO();
+            Map<String, String> foundLabels = provenanceDAO.findLabelsByUris(searchedUris);
+            PROVENANCES_LABELS.putAll(foundLabels);
+            for (String uri : searchedUris) {
+                provenancesLabels.put(uri, foundLabels.get(uri));
+            }
+        }
+
+        return provenancesLabels;
+    }
+
+    /**
+     * Removes the cached label of a provenance.
+     * @param uri
+     */
+    public static void invalidateProvenance(String uri) {
+        PROVENANCES_LABELS.invalidate(uri);
+    }
+
+    /**
+     * @return the provenances labels cache
+     */
+    public static ExpiringLruCache<String, String> getProvenancesLabels() {
+        return PROVENANCES_LABELS;
+    }
+}
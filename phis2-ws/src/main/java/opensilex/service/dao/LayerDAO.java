@@ -7,18 +7,19 @@
 //******************************************************************************
 package opensilex.service.dao;
 
+import com.google.gson.stream.JsonWriter;
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.logging.Level;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
@@ -33,6 +34,8 @@ import opensilex.service.ontology.Oeso;
 import opensilex.service.ontology.Rdfs;
 import opensilex.service.resource.dto.LayerDTO;
 import opensilex.service.utils.POSTResultsReturn;
+import opensilex.service.utils.ResourcesUtils;
+import opensilex.service.utils.cache.LayerCache;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.model.ScientificObject;
 import opensilex.service.model.Property;
@@ -115,6 +118,8 @@ public class LayerDAO extends DAO<LayerDTO>{
     }
     /**
      * Generates the GeoSon file corresponding to the layer.
+     * The file is not generated again if its content has not changed since
+     * its last generation.
      * @param layerDTO
      * @return 
      * @throws java.io.IOException 
@@ -124,84 +129,57 @@ public class LayerDAO extends DAO<LayerDTO>{
         List<Status> createStatusList = new ArrayList<>();
         List<String> createdResourcesFilesPaths = new ArrayList<>();
         boolean createLayerFileOk = true;
+        
+        String[] splitUri = layerDTO.getObjectUri().split("/");
+        String layerName = splitUri[splitUri.length-1];
+        String filename = layerName + ".geojson";
+        filePath = LAYER_FILE_SERVER_DIRECTORY + "/" + filename;
+        fileWebPath = LAYER_FILE_SERVER_ADDRESS + "/" + filename;
+        boolean depth = ResourcesUtils.getStringBooleanValue(layerDTO.getDepth());
+        
+        if (LayerCache.isUpToDate(layerDTO.getObjectUri(), depth, filePath)) {
+            createdResourcesFilesPaths.add(filePath);
+            createStatusList.add(new Status("Resources created", StatusCodeMsg.INFO, "Layer file already up to date"));
+            createLayerFile = new POSTResultsReturn(true, true, true);
+            createLayerFile.statusList = createStatusList;
+            return createLayerFile;
+        }
+        
         try {
+            final long contentVersion = LayerCache.getContentVersion();
+            
             //1. Get the descendant to put in the layer
             searchAndUpdateChildren(layerDTO);
             
             //2. Create file
-            String[] splitUri = layerDTO.getObjectUri().split("/");
-            String layerName = splitUri[splitUri.length-1];
-            String filename = layerName + ".geojson";
-            filePath = LAYER_FILE_SERVER_DIRECTORY + "/" + filename;
-            
-            try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filePath))) {
-                //1. Write parent and file start
-                //SILEX:todo
-                //code to improve
-                writer.write("{");
-                writer.write("\"type\" : \"FeatureCollection\",");
-                writer.write("\"features\" : [");
-                int nbChild = 0;
-                for (Entry<String, ScientificObject> child : children.entrySet()) {
-                    // Write each child
-                    writer.write("{\"type\" : \"Feature\",");
-
-                    writer.write("\"geometry\" : " + child.getValue().getGeometry() + ",");
-                    writer.write("\"properties\" : {");
-                    writer.write("\"uri\" : \"" + child.getValue().getUri()+ "\",");
-                    
-                    //SILEX:conception
-                    // A more generic way could be done (in URINamespaces, a HashMap with corespondancies URI type/relation --> property type ?)
-                    // Add properties corresponding to the AO (vartiety, repetition, ...)
-                    HashMap<String, String> typesByRelationOrConcept = getTypesByURIRelationOrConcept();
-                    int nbProperties = 0;
-                    for (Property property : child.getValue().getProperties()) {
-                        // We deduct the name of the property from the type or relation of the concept
-                         if (property.getRdfType() != null) {
-                            writer.write("\"" + typesByRelationOrConcept.get(property.getRdfType()) + "\" : \"" + property.getValue() + "\"");
-                        } else {
-                            writer.write("\"" + typesByRelationOrConcept.get(property.getRelation()) + "\" : \"" + property.getValue() + "\"");
-                        }
-                        nbProperties ++;
-                        if (nbProperties < child.getValue().getProperties().size()) {
-                            writer.write(",");
-                        }
-                    }
-                    //\SILEX:conception
-                    
-                    writer.write("}}");
-                    nbChild++;
-                    if (nbChild < children.size()) {
-                        writer.write(",");
-                    }
+            // The file is written next to the layer file then moved, so that the
+            // layer file is never read while being written
+            java.nio.file.Path path = Paths.get(filePath);
+            java.nio.file.Path temporaryPath = Files.createTempFile(path.getParent(), layerName, ".geojson.tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8);
+                        JsonWriter jsonWriter = new JsonWriter(writer)) {
+                    writeLayer(jsonWriter);
                 }
-                
-                writer.write("]}");
-                
+
                 //SILEX:warning ///!\ To uncomment in PROD
-//                java.nio.file.Path path = Paths.get(filePath);
 //                UserPrincipalLookupService lookupService = FileSystems.getDefault().getUserPrincipalLookupService();
 //                UserPrincipal up = lookupService.lookupPrincipalByName("www-data");
 //                Files.setOwner(path, up); 
                 //\SILEX:warning
-                
-                File f = new File(filePath);
+
                 final Set<PosixFilePermission> perms = PosixFilePermissions.fromString("rw-rw-r--");
-                Files.setPosixFilePermissions(f.toPath(), perms);
-                
-                fileWebPath = LAYER_FILE_SERVER_ADDRESS + "/" + filename;
-                
-                createdResourcesFilesPaths.add(filePath);
-                createStatusList.add(new Status("Resources created", StatusCodeMsg.INFO, createdResourcesFilesPaths.size() + " new resources created"));
-                //\SILEX:test
-                // The file is normally closed automatically
-            } catch (IOException ex) {
-                java.util.logging.Logger.getLogger(LayerDAO.class.getName()).log(Level.SEVERE, null, ex);
-                createLayerFileOk = false;
-                createStatusList.add(new Status("Error while create layer file", StatusCodeMsg.ERR, new StringBuilder().append(StatusCodeMsg.ERR).toString()));
+                Files.setPosixFilePermissions(temporaryPath, perms);
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporaryPath);
             }
             
-        } catch (SQLException ex) {
+            LayerCache.put(layerDTO.getObjectUri(), depth, children.keySet(), contentVersion);
+
+            createdResourcesFilesPaths.add(filePath);
+            createStatusList.add(new Status("Resources created", StatusCodeMsg.INFO, createdResourcesFilesPaths.size() + " new resources created"));
+        } catch (IOException | SQLException ex) {
             java.util.logging.Logger.getLogger(LayerDAO.class.getName()).log(Level.SEVERE, null, ex);
             createLayerFileOk = false;
             createStatusList.add(new Status("Error while create layer file", StatusCodeMsg.ERR, new StringBuilder().append(StatusCodeMsg.ERR).toString()));
@@ -211,6 +189,43 @@ public class LayerDAO extends DAO<LayerDTO>{
         createLayerFile.statusList = createStatusList;
         return createLayerFile;
     }
+    
+    /**
+     * Writes the layer children as a GeoJSON feature collection.
+     * @param jsonWriter
+     * @throws IOException 
+     */
+    private void writeLayer(JsonWriter jsonWriter) throws IOException {
+        //SILEX:conception
+        // A more generic way could be done (in URINamespaces, a HashMap with corespondancies URI type/relation --> property type ?)
+        HashMap<String, String> typesByRelationOrConcept = getTypesByURIRelationOrConcept();
+        //\SILEX:conception
+        
+        jsonWriter.beginObject();
+        jsonWriter.name("type").value("FeatureCollection");
+        jsonWriter.name("features").beginArray();
+        for (ScientificObject child : children.values()) {
+            // Write each child
+            jsonWriter.beginObject();
+            jsonWriter.name("type").value("Feature");
+            // The geometry is already in GeoJSON
+            jsonWriter.name("geometry").jsonValue(child.getGeometry());
+            jsonWriter.name("properties").beginObject();
+            jsonWriter.name("uri").value(child.getUri());
+            // Add properties corresponding to the AO (vartiety, repetition, ...)
+            for (Property property : child.getProperties()) {
+                // We deduct the name of the property from the type or relation of the concept
+                String propertyName = property.getRdfType() != null 
+                        ? typesByRelationOrConcept.get(property.getRdfType())
+                        : typesByRelationOrConcept.get(property.getRelation());
+                jsonWriter.name(String.valueOf(propertyName)).value(property.getValue());
+            }
+            jsonWriter.endObject();
+            jsonWriter.endObject();
+        }
+        jsonWriter.endArray();
+        jsonWriter.endObject();
+    }
 
     @Override
     public List<LayerDTO> create(List<LayerDTO> objects) throws DAOPersistenceException, Exception {
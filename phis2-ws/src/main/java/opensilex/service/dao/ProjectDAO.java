@@ -11,7 +11,6 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -325,27 +324,29 @@ public class ProjectDAO extends PhisDAO<Project, ProjectDTO> {
 
     /**
      * @param projects ArrayList<Project> projects from which the contacts are requested
-     * @param statement
+     * @param connection
      * @return the projects containing their contacts
      * @throws SQLException
      */
-    private ArrayList<Project> getProjectsContacts(ArrayList<Project> projects, Statement statement) throws SQLException{
+    private ArrayList<Project> getProjectsContacts(ArrayList<Project> projects, Connection connection) throws SQLException{
         for (Project project : projects) {
-            SQLQueryBuilder query = new SQLQueryBuilder();
+            SQLQueryBuilder query = new SQLQueryBuilder(true);
             query.appendSelect("u.email, u.first_name, u.family_name, pu.type");
             query.appendFrom("at_project_users", "pu");
             query.appendANDWhereConditionIfNeeded("project_uri", project.getUri(), "=", null, "pu");
             query.appendJoin(JoinAttributes.INNERJOIN, "users", "u", "u.email = pu.users_email");
             
-            ResultSet queryResult = statement.executeQuery(query.toString());
-            while (queryResult.next()) {
-                Contact contact = new Contact();
-                contact.setEmail(queryResult.getString("email"));
-                contact.setFirstName(queryResult.getString("first_name"));
-                contact.setFamilyName(queryResult.getString("family_name"));
-                contact.setType(queryResult.getString("type"));
-                project.addContact(contact);
-            }
+            selectQuery(connection, query, (queryResult) -> {
+                while (queryResult.next()) {
+                    Contact contact = new Contact();
+                    contact.setEmail(queryResult.getString("email"));
+                    contact.setFirstName(queryResult.getString("first_name"));
+                    contact.setFamilyName(queryResult.getString("family_name"));
+                    contact.setType(queryResult.getString("type"));
+                    project.addContact(contact);
+                }
+                return null;
+            });
         }
         
         return projects;
@@ -353,46 +354,29 @@ public class ProjectDAO extends PhisDAO<Project, ProjectDTO> {
     
     @Override
     public ArrayList<Project> allPaginate() {
-        ResultSet queryResult = null;
-        Connection connection = null;
-        Statement statement = null;
         ArrayList<Project> projects = new ArrayList<>();
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
+
+        // Add request filters
+        query.appendFrom(table, tableAlias);
+        addFilters(query);
+
+        query.appendLimit(String.valueOf(pageSize));
+        query.appendOffset(Integer.toString(this.getPage() * this.getPageSize()));
         
-        try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            SQLQueryBuilder query = new SQLQueryBuilder();
-            
-            // Add request filters
-            query.appendFrom(table, tableAlias);
-            addFilters(query);
-            
-            query.appendLimit(String.valueOf(pageSize));
-            query.appendOffset(Integer.toString(this.getPage() * this.getPageSize()));
-            
-            queryResult = statement.executeQuery(query.toString());
-            
-            while (queryResult.next()) {
-                projects.add(get(queryResult));
-            }
+        // The projects and their contacts are read with the same connection
+        try (Connection connection = dataSource.getConnection()) {
+            projects = selectQuery(connection, query, (queryResult) -> {
+                ArrayList<Project> foundProjects = new ArrayList<>();
+                while (queryResult.next()) {
+                    foundProjects.add(get(queryResult));
+                }
+                return foundProjects;
+            });
             
-            projects = getProjectsContacts(projects, statement);
+            projects = getProjectsContacts(projects, connection);
         } catch (SQLException ex) {
             java.util.logging.Logger.getLogger(ProjectDAO.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            try {
-                if (queryResult != null) {
-                    queryResult.close();
-                }
-                if (statement != null) {
-                    statement.close();
-                } 
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                java.util.logging.Logger.getLogger(ProjectDAO.class.getName()).log(Level.SEVERE, null, ex);
-            }
         }
         return projects;
     }
@@ -421,7 +405,7 @@ public class ProjectDAO extends PhisDAO<Project, ProjectDTO> {
     
     @Override
     public Integer count() {
-        SQLQueryBuilder query = new SQLQueryBuilder();
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
         query.appendCount();
         query.appendDistinct();
         query.appendSelect(tableAlias + ".uri");
@@ -429,38 +413,12 @@ public class ProjectDAO extends PhisDAO<Project, ProjectDTO> {
         //Add request filters
         query.appendFrom(table, tableAlias);
         addFilters(query);
-            
-        Connection connection = null;
-        ResultSet resultSet = null;
-        Statement statement = null;
         
         try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement();
-            resultSet = statement.executeQuery(query.toString());
-            
-            if (resultSet.next()) {
-                return resultSet.getInt(1);
-            } else {
-                return 0;
-            }
+            return selectQuery(query, (resultSet) -> resultSet.next() ? resultSet.getInt(1) : 0);
         } catch (SQLException ex) {
             LOGGER.error(ex.getMessage(), ex);
             return null;
-        } finally {
-            try {
-                if (statement != null) {
-                    statement.close();
-                }
-                if (resultSet != null) {
-                    resultSet.close();
-                }
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                LOGGER.error(ex.getMessage(), ex);
-            }
         }
     }
 
@@ -8,7 +8,9 @@
 package opensilex.service.dao;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
@@ -35,6 +37,7 @@ import org.eclipse.rdf4j.repository.RepositoryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.dao.manager.Rdf4jDAO;
+import opensilex.service.datasource.TriplestoreCache;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.ontology.Owl;
 import opensilex.service.ontology.Rdf;
@@ -197,6 +200,11 @@ public class PropertyDAO extends Rdf4jDAO<Property> {
      * @throws opensilex.service.dao.exception.DAOPersistenceException
      */
     public ArrayList<String> getPropertyDomain(String relationUri) throws DAOPersistenceException {
+        List<String> cachedDomains = TriplestoreCache.getPropertiesDomains().get(relationUri);
+        if (cachedDomains != null) {
+            return new ArrayList<>(cachedDomains);
+        }
+        
         SPARQLQueryBuilder query = prepareGetDomainQuery(relationUri);
         ArrayList<String> propertyDomains = new ArrayList<>();
         
@@ -207,6 +215,7 @@ public class PropertyDAO extends Rdf4jDAO<Property> {
                 BindingSet bindingSet = result.next();
                 propertyDomains.add(bindingSet.getValue(DOMAIN).toString());
             }
+            TriplestoreCache.getPropertiesDomains().put(relationUri, Collections.unmodifiableList(new ArrayList<>(propertyDomains)));
         } catch (RepositoryException|MalformedQueryException|QueryEvaluationException ex) {
             handleTriplestoreException(ex);
         }
@@ -221,6 +230,11 @@ public class PropertyDAO extends Rdf4jDAO<Property> {
      * @throws opensilex.service.dao.exception.DAOPersistenceException
      */
     public ArrayList<String> getPropertyRange(String relationUri) throws DAOPersistenceException {
+        List<String> cachedRanges = TriplestoreCache.getPropertiesRanges().get(relationUri);
+        if (cachedRanges != null) {
+            return new ArrayList<>(cachedRanges);
+        }
+        
         SPARQLQueryBuilder query = prepareGetRangeQuery(relationUri);
         ArrayList<String> propertyRangeList = new ArrayList<>();
         
@@ -231,6 +245,7 @@ public class PropertyDAO extends Rdf4jDAO<Property> {
                 BindingSet bindingSet = result.next();
                 propertyRangeList.add(bindingSet.getValue(RANGE).toString());
             }
+            TriplestoreCache.getPropertiesRanges().put(relationUri, Collections.unmodifiableList(new ArrayList<>(propertyRangeList)));
         } catch (RepositoryException|MalformedQueryException|QueryEvaluationException ex) {
             handleTriplestoreException(ex);
         }
@@ -711,10 +726,52 @@ public class PropertyDAO extends Rdf4jDAO<Property> {
      * }
      */
     protected SPARQLQueryBuilder prepareSearchPropertiesQuery(String objectUri, String language, ArrayList<String> relationsToIgnore) {
+        return prepareSearchPropertiesQuery("<" + objectUri + ">", null, language, relationsToIgnore);
+    }
+    
+    /**
+     * Prepares the query to get the list of properties and their relations, 
+     * with labels, of several URIs at once. The URIs are given in a VALUES 
+     * block and returned in the ?uri column.
+     * @param objectsUris
+     * @param language specify in which language labels should be returned
+     * @param relationsToIgnore some relations sometimes must not be considered as properties so we ignore them
+     * @return the builded query
+     * @example
+     * SELECT DISTINCT  
+     *     ?uri ?relation ?relationPrefLabel ?relationLabel 
+     *     ?property ?propertyPrefLabel ?propertyLabel 
+     *     ?propertyType ?propertyTypePrefLabel ?propertyTypeLabel 
+     * WHERE {
+     *     VALUES ?uri { <http://www.opensilex.org/id/event/96e72788-6bdc-4f8e-abd1-ce9329371e8e> <http://www.opensilex.org/id/event/0e92c41b-93df-4395-bc24-6e5373022be7> }
+     *     OPTIONAL {
+     *         ?uri ?relation ?property 
+     *         ...
+     *     } 
+     * }
+     */
+    protected SPARQLQueryBuilder prepareSearchPropertiesQuery(List<String> objectsUris, String language, ArrayList<String> relationsToIgnore) {
+        return prepareSearchPropertiesQuery(URI_SELECT_NAME_SPARQL, objectsUris, language, relationsToIgnore);
+    }
+    
+    /**
+     * Prepares the query to get the list of properties of a subject.
+     * @param subject the subject of the properties: an URI between angle 
+     * brackets, or the ?uri variable bound to the given objects URIs
+     * @param objectsUris the URIs of the VALUES block. Null for a single URI
+     * @param language
+     * @param relationsToIgnore
+     * @return the builded query
+     */
+    private SPARQLQueryBuilder prepareSearchPropertiesQuery(String subject, List<String> objectsUris, String language, ArrayList<String> relationsToIgnore) {
         
         SPARQLQueryBuilder query = new SPARQLQueryBuilder();
         query.appendDistinct(Boolean.TRUE);
 
+        if (objectsUris != null) {
+            query.appendSelect(URI_SELECT_NAME_SPARQL);
+            query.appendToBody(prepareValuesBlock(URI_SELECT_NAME_SPARQL, objectsUris));
+        }
         query.appendSelect("?" + RELATION);
         query.appendSelect("?" + RELATION_PREF_LABEL);
         query.appendSelect("?" + RELATION_LABEL);
@@ -726,7 +783,7 @@ public class PropertyDAO extends Rdf4jDAO<Property> {
         query.appendSelect("?" + PROPERTY_TYPE_LABEL);
         
         // 1. Select every relation and property linked to the given uri
-        String optional = "<" + objectUri + "> ?" + RELATION + " ?" + PROPERTY;
+        String optional = subject + " ?" + RELATION + " ?" + PROPERTY;
         // 2. Select property label in the requested language if exists
         optional +=" OPTIONAL {";
         optional += "?" + PROPERTY + " <" + Rdfs.RELATION_LABEL + "> ?" + PROPERTY_LABEL;
@@ -784,7 +841,7 @@ public class PropertyDAO extends Rdf4jDAO<Property> {
 
         // 8. If subClassOf is specified, add filter on uri rdf:type
         if (subClassOf != null) {
-            query.appendTriplet("<" + objectUri + ">", Rdf.RELATION_TYPE.toString(), "?" + RDF_TYPE, null);
+            query.appendTriplet(subject, Rdf.RELATION_TYPE.toString(), "?" + RDF_TYPE, null);
             query.appendTriplet(
                     "?" + RDF_TYPE, "<" + Rdfs.RELATION_SUBCLASS_OF.toString() + ">*", 
                     "<" + subClassOf + ">", 
@@ -855,83 +912,131 @@ public class PropertyDAO extends Rdf4jDAO<Property> {
         
             definition.setUri(objectUri);
         
-            try {
-                TupleQueryResult result = tupleQuery.evaluate();
+            try (TupleQueryResult result = tupleQuery.evaluate()) {
+                while (result.hasNext()) {
+                    addPropertyFromBindingSet(definition, result.next());
+                }
+            } catch (RepositoryException|MalformedQueryException|QueryEvaluationException ex) {
+                handleTriplestoreException(ex);
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+    
+    /**
+     * Searches, with one query by block of VALUES_BLOCK_MAX_SIZE definitions,
+     * all the properties of the given definitions and fills them with the 
+     * values and labels.
+     * Unlike the search for a single definition, the existence of the URIs is 
+     * not checked: the definitions without properties are left unchanged.
+     * @param definitions The definitions which will be filled
+     * @param language specify in which language labels should be returned.
+     * @param propertiesRelationsToIgnore some relations sometimes must not be 
+     * considered as properties so we ignore them
+     * @throws opensilex.service.dao.exception.DAOPersistenceException
+     */
+    public void getAllPropertiesWithLabelsExceptThoseSpecified(List<? extends RdfResourceDefinition> definitions, String language, ArrayList<String> propertiesRelationsToIgnore) 
+            throws DAOPersistenceException {
+        Map<String, RdfResourceDefinition> definitionsByUri = new LinkedHashMap<>();
+        definitions.forEach((definition) -> {
+            definitionsByUri.put(definition.getUri(), definition);
+        });
+        
+        for (List<String> objectsUris : splitInValuesBlocks(new ArrayList<>(definitionsByUri.keySet()))) {
+            SPARQLQueryBuilder query = prepareSearchPropertiesQuery(objectsUris, language, propertiesRelationsToIgnore);
+            TupleQuery tupleQuery = getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query.toString());
+            
+            try (TupleQueryResult result = tupleQuery.evaluate()) {
                 while (result.hasNext()) {
                     BindingSet bindingSet = result.next();
+                    addPropertyFromBindingSet(definitionsByUri.get(bindingSet.getValue(URI).stringValue()), bindingSet);
+                }
+            } catch (RepositoryException|MalformedQueryException|QueryEvaluationException ex) {
+                handleTriplestoreException(ex);
+            }
+        }
+    }
+    
+    /**
+     * Adds to a definition the property of a result of a properties search 
+     * query, or merges its labels with the ones of the existing property.
+     * The results without property are ignored.
+     * @param definition
+     * @param bindingSet
+     */
+    private void addPropertyFromBindingSet(RdfResourceDefinition definition, BindingSet bindingSet) {
+        // The properties are optional: an URI without property is returned 
+        // in an empty result
+        if (!bindingSet.hasBinding(RELATION)) {
+            return;
+        }
+        
+        Property property = new Property();
 
-                    Property property = new Property();
-
-                    // 1. Affect the property
-                    property.setValue(bindingSet.getValue(PROPERTY).stringValue());
+        // 1. Affect the property
+        property.setValue(bindingSet.getValue(PROPERTY).stringValue());
 
-                    // 2. Affect the relation
-                    property.setRelation(bindingSet.getValue(RELATION).stringValue());
-                    if (property.getRelation().equals(RDFS.label.toString())) {
-                        definition.setLabel(property.getValue());
-                    }
-                    
-                    // 3. affect the RDF type of the property if exists
-                    if (bindingSet.hasBinding(PROPERTY_TYPE)) {
-                        property.setRdfType(bindingSet.getValue(PROPERTY_TYPE).stringValue());
-                    }
+        // 2. Affect the relation
+        property.setRelation(bindingSet.getValue(RELATION).stringValue());
+        if (property.getRelation().equals(RDFS.label.toString())) {
+            definition.setLabel(property.getValue());
+        }
+        
+        // 3. affect the RDF type of the property if exists
+        if (bindingSet.hasBinding(PROPERTY_TYPE)) {
+            property.setRdfType(bindingSet.getValue(PROPERTY_TYPE).stringValue());
+        }
 
-                    // 4. Add property label if exists
-                    if (bindingSet.hasBinding(PROPERTY_LABEL)) {
-                        property.addLastValueLabel(bindingSet.getValue(PROPERTY_LABEL).stringValue());
-                    }
-                    
-                    // 5. Add relation label if exists
-                    if (bindingSet.hasBinding(RELATION_LABEL)) {
-                        property.addLastRelationLabel(bindingSet.getValue(RELATION_LABEL).stringValue());
-                    }
-                    
-                    // 6. Add property rdf type label if exists
-                    if (bindingSet.hasBinding(PROPERTY_TYPE_LABEL)) {
-                        property.addLastRdfTypeLabel(bindingSet.getValue(PROPERTY_TYPE_LABEL).stringValue());
-                    }
+        // 4. Add property label if exists
+        if (bindingSet.hasBinding(PROPERTY_LABEL)) {
+            property.addLastValueLabel(bindingSet.getValue(PROPERTY_LABEL).stringValue());
+        }
+        
+        // 5. Add relation label if exists
+        if (bindingSet.hasBinding(RELATION_LABEL)) {
+            property.addLastRelationLabel(bindingSet.getValue(RELATION_LABEL).stringValue());
+        }
+        
+        // 6. Add property rdf type label if exists
+        if (bindingSet.hasBinding(PROPERTY_TYPE_LABEL)) {
+            property.addLastRdfTypeLabel(bindingSet.getValue(PROPERTY_TYPE_LABEL).stringValue());
+        }
 
-                    /* 7. If definition already own the property, add current property labels to the existing property 
-                    otherwise define prefered labels and add property to definition */
-                    if (definition.hasProperty(property)) {
-                        // Retrieve the existing property
-                        Property existingProperty = definition.getProperty(property);
+        /* 7. If definition already own the property, add current property labels to the existing property 
+        otherwise define prefered labels and add property to definition */
+        if (definition.hasProperty(property)) {
+            // Retrieve the existing property
+            Property existingProperty = definition.getProperty(property);
 
-                        /* Prefered label are ignored in this case because they already are defined in the existing 
-                        property */
-                        
-                        // Merge new labels with previous existing
-                        existingProperty.addRdfTypeLabels(property.getRdfTypeLabels());
-                        existingProperty.addRelationLabels(property.getRelationLabels());
-                        existingProperty.addValueLabels(property.getValueLabels());
-                        
-                        // Set the property variable with the existing property to add prefered labels if exists
-                    } else {
-                        // If property prefered label exists add it at the begining of labels array
-                        if (bindingSet.hasBinding(PROPERTY_PREF_LABEL)) {
-                            property.addFirstValueLabel(bindingSet.getValue(PROPERTY_PREF_LABEL).stringValue());
-                        }
+            /* Prefered label are ignored in this case because they already are defined in the existing 
+            property */
+            
+            // Merge new labels with previous existing
+            existingProperty.addRdfTypeLabels(property.getRdfTypeLabels());
+            existingProperty.addRelationLabels(property.getRelationLabels());
+            existingProperty.addValueLabels(property.getValueLabels());
+            
+            // Set the property variable with the existing property to add prefered labels if exists
+        } else {
+            // If property prefered label exists add it at the begining of labels array
+            if (bindingSet.hasBinding(PROPERTY_PREF_LABEL)) {
+                property.addFirstValueLabel(bindingSet.getValue(PROPERTY_PREF_LABEL).stringValue());
+            }
 
-                        // If relation prefered label exists add it at the begining of labels array
-                        if (bindingSet.hasBinding(RELATION_PREF_LABEL)) {
-                            property.addFirstRelationLabel(bindingSet.getValue(RELATION_PREF_LABEL).stringValue());
-                        }
+            // If relation prefered label exists add it at the begining of labels array
+            if (bindingSet.hasBinding(RELATION_PREF_LABEL)) {
+                property.addFirstRelationLabel(bindingSet.getValue(RELATION_PREF_LABEL).stringValue());
+            }
 
-                        // If property type prefered label exists add it at the begining of labels array
-                        if (bindingSet.hasBinding(PROPERTY_TYPE_PREF_LABEL)) {
-                            property.addFirstRdfTypeLabel(bindingSet.getValue(PROPERTY_TYPE_PREF_LABEL).stringValue());
-                        }
-                        
-                        // Add property to definition
-                        definition.addProperty(property);                    
-                    }
-                }
-            } catch (RepositoryException|MalformedQueryException|QueryEvaluationException ex) {
-                handleTriplestoreException(ex);
+            // If property type prefered label exists add it at the begining of labels array
+            if (bindingSet.hasBinding(PROPERTY_TYPE_PREF_LABEL)) {
+                property.addFirstRdfTypeLabel(bindingSet.getValue(PROPERTY_TYPE_PREF_LABEL).stringValue());
             }
-            return true;
-        } else {
-            return false;
+            
+            // Add property to definition
+            definition.addProperty(property);                    
         }
     }
     
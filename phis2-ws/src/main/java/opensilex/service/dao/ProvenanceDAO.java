@@ -14,12 +14,18 @@ import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.Projections;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 import javax.ws.rs.core.Response;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
@@ -31,6 +37,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.PropertiesFileManager;
 import opensilex.service.dao.manager.MongoDAO;
+import opensilex.service.datasource.MongoIndexRegistry;
+import opensilex.service.datasource.MongoIndexRegistry.CollectionIndexes;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.ontology.Oeso;
 import opensilex.service.utils.POSTResultsReturn;
@@ -54,6 +62,15 @@ public class ProvenanceDAO extends MongoDAO<Provenance> {
     private final static String DB_FIELD_LABEL = "label";
     private final static String DB_FIELD_COMMENT = "comment";
     private final static String DB_FIELD_METADATA = "metadata";
+    
+    //Indexes of the provenance collection
+    private final static CollectionIndexes INDEXES = MongoIndexRegistry.declare("provenance",
+            new IndexModel(Indexes.ascending(DB_FIELD_URI), new IndexOptions().unique(true)));
+
+    @Override
+    public void ensureIndexes() {
+        ensureIndexes(provenanceCollectionName, INDEXES);
+    }
 
     @Override
     protected BasicDBObject prepareSearchQuery() {
@@ -170,12 +187,8 @@ public class ProvenanceDAO extends MongoDAO<Provenance> {
         boolean hasError = false;
         MongoCollection<Document> provenanceCollection = database.getCollection(provenanceCollectionName);
         
-        //2. Create index on the provenance uri
-        Bson indexFields = Indexes.ascending(
-            DB_FIELD_URI
-        );
-        IndexOptions indexOptions = new IndexOptions().unique(true);
-        provenanceCollection.createIndex(indexFields, indexOptions);
+        //2. Create index on the provenance uri if not done at startup
+        ensureIndexes();
 
         //3. Insert all the provenances
         try {
@@ -252,6 +265,37 @@ public class ProvenanceDAO extends MongoDAO<Provenance> {
         return numberOfProvenancesCorresponding > 0;
     }
     
+    /**
+     * Gets, among the given URIs, the ones of the existing provenances, with 
+     * one query.
+     * @param uris
+     * @example 
+     * {"uri": {"$in": ["http://www.opensilex.org/demo/id/provenance/0193759540", "http://www.opensilex.org/demo/id/provenance/0193759541"]}}
+     * @return the existing provenances URIs
+     */
+    public Set<String> getExistingProvenanceUris(Collection<String> uris) {
+        Set<String> existingUris = new HashSet<>();
+        List<String> searchedUris = new ArrayList<>(new HashSet<>(uris));
+        searchedUris.remove(null);
+        if (searchedUris.isEmpty()) {
+            return existingUris;
+        }
+        
+        MongoCollection<Document> provenanceCollection = database.getCollection(provenanceCollectionName);
+        Bson query = Filters.in(DB_FIELD_URI, searchedUris);
+        LOGGER.debug(query.toString());
+        
+        try (MongoCursor<Document> cursor = provenanceCollection.find(query)
+                .projection(Projections.include(DB_FIELD_URI))
+                .iterator()) {
+            while (cursor.hasNext()) {
+                existingUris.add(cursor.next().getString(DB_FIELD_URI));
+            }
+        }
+        
+        return existingUris;
+    }
+    
     /**
      * Checks the given provenance.
      * @param provenances
@@ -364,6 +408,10 @@ public class ProvenanceDAO extends MongoDAO<Provenance> {
             session.commitTransaction();
             result.setHttpStatus(Response.Status.CREATED);
             result.createdResources = updatedResources;
+            // The labels of the updated provenances may have changed
+            updatedResources.forEach((uri) -> {
+                LabelResolver.invalidateProvenance(uri);
+            });
         } else {
             // If errors abort transaction
             session.abortTransaction();
@@ -483,6 +531,37 @@ public class ProvenanceDAO extends MongoDAO<Provenance> {
         }
     }
 
+    /**
+     * Finds the labels of the given provenances, with one query.
+     * @param uris
+     * @example
+     * {"uri": {"$in": ["http://www.opensilex.org/opensilex/id/provenance/1552386023784", "http://www.opensilex.org/opensilex/id/provenance/1552386023785"]}}
+     * @return the labels of the existing provenances, by URI
+     */
+    public Map<String, String> findLabelsByUris(Collection<String> uris) {
+        Map<String, String> provenancesLabels = new HashMap<>();
+        List<String> searchedUris = new ArrayList<>(new HashSet<>(uris));
+        searchedUris.remove(null);
+        if (searchedUris.isEmpty()) {
+            return provenancesLabels;
+        }
+        
+        MongoCollection<Document> provenanceCollection = database.getCollection(provenanceCollectionName);
+        Bson query = Filters.in(DB_FIELD_URI, searchedUris);
+        LOGGER.debug(query.toString());
+        
+        try (MongoCursor<Document> provenanceCursor = provenanceCollection.find(query)
+                .projection(Projections.include(DB_FIELD_URI, DB_FIELD_LABEL))
+                .iterator()) {
+            while (provenanceCursor.hasNext()) {
+                Document provenanceDocument = provenanceCursor.next();
+                provenancesLabels.put(provenanceDocument.getString(DB_FIELD_URI), provenanceDocument.getString(DB_FIELD_LABEL));
+            }
+        }
+        
+        return provenancesLabels;
+    }
+
     @Override
     public List<Provenance> create(List<Provenance> objects) throws DAOPersistenceException, Exception {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
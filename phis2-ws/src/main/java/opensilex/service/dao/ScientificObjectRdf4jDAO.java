@@ -17,7 +17,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.logging.Level;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAOPersistenceException;
@@ -30,6 +29,7 @@ import org.apache.jena.rdf.model.ResourceFactory;
 import org.apache.jena.update.UpdateRequest;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
+import org.apache.jena.shared.JenaException;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.BooleanQuery;
 import org.eclipse.rdf4j.query.MalformedQueryException;
@@ -38,7 +38,7 @@ import org.eclipse.rdf4j.query.TupleQuery;
 import org.eclipse.rdf4j.query.TupleQueryResult;
 import org.eclipse.rdf4j.query.Update;
 import org.eclipse.rdf4j.repository.RepositoryException;
-import org.eclipse.rdf4j.repository.http.HTTPRepository;
+import org.eclipse.rdf4j.RDF4JException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.dao.manager.Rdf4jDAO;
@@ -53,6 +53,7 @@ import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.utils.ResourcesUtils;
 import opensilex.service.utils.UriGenerator;
 import opensilex.service.utils.sparql.SPARQLQueryBuilder;
+import opensilex.service.utils.sparql.SPARQLInsertBatcher;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.model.ScientificObject;
 import opensilex.service.model.Property;
@@ -74,9 +75,13 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
     private final String PROPERTY_RELATION = "propertyRelation";
     private final String PROPERTY_TYPE = "propertyType";
     private final String CHILD = "child";
+    private final String PARENT = "parent";
     private final String RELATION = "relation";
     
     private static final String URI_CODE_SCIENTIFIC_OBJECT = "o";
+    
+    // Number of scientific objects whose descendants are searched in a single query
+    private static final int DESCENDANTS_SEARCH_CHUNK_SIZE = 500;
 
     public ScientificObjectRdf4jDAO() {
         super();
@@ -326,6 +331,39 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
         return sparqlQuery;
     }
     
+    /**
+     * Generates a query to get all the scientific objects contained in the given scientific objects (geo:contains),
+     * in a single query.
+     * @param objectsURIs
+     * @example
+     * SELECT DISTINCT  ?child ?rdfType 
+     * WHERE {
+     *      VALUES ?parent { <http://www.opensilex.org/opensilex/2019/o19000030> <http://www.opensilex.org/opensilex/2019/o19000031> }
+     *      ?parent  <http://www.opengis.net/ont/geosparql#contains*>  ?child  . 
+     *      ?child  <http://www.w3.org/1999/02/22-rdf-syntax-ns#type>  ?rdfType  . 
+     * }
+     * @return the query enabling to select all the elements contained (geo:contains) in the given objects.
+     */
+    private SPARQLQueryBuilder prepareSearchDescendantsWithContains(List<String> objectsURIs) {
+        SPARQLQueryBuilder sparqlQuery = new SPARQLQueryBuilder();
+        sparqlQuery.appendDistinct(true);
+        sparqlQuery.appendSelect("?" + CHILD + " ?" + RDF_TYPE);
+        
+        StringBuilder values = new StringBuilder("VALUES ?" + PARENT + " {");
+        objectsURIs.forEach((objectURI) -> {
+            values.append(" <").append(objectURI).append(">");
+        });
+        values.append(" }\n");
+        sparqlQuery.appendToBody(values.toString());
+        
+        sparqlQuery.appendTriplet("?" + PARENT, GeoSPARQL.RELATION_CONTAINS_MULTIPLE.toString(), "?" + CHILD, null);
+        sparqlQuery.appendTriplet("?" + CHILD, Rdf.RELATION_TYPE.toString(), "?" + RDF_TYPE, null);
+        
+        LOGGER.debug(SPARQL_QUERY + sparqlQuery.toString());
+
+        return sparqlQuery;
+    }
+    
     /**
      * Generates the query to get the first scientific objects contained by a given scientific object (geo:contains).
      * @param objectURI
@@ -354,22 +392,12 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
         
         /* If it's an experiment, the link name isn't the same so we get the direct descendants first*/
         if (layerDTO.getObjectType().equals(Oeso.CONCEPT_EXPERIMENT.toString())) {
-            //SILEX:test
-            //For pool connection issues
-            rep = new HTTPRepository(SESAME_SERVER, REPOSITORY_ID); //Stockage triplestore Sesame
-            rep.initialize();
-            setConnection(rep.getConnection());
-            //\SILEX:test
             
             SPARQLQueryBuilder sparqlQuery = prepareSearchExperimentScientificObjects(layerDTO.getObjectUri());
             TupleQuery tupleQuery = this.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, sparqlQuery.toString());
             
             TupleQueryResult result = tupleQuery.evaluate();
                         
-            //SILEX:test
-            //For pool connection issues
-            getConnection().close();
-            //\SILEX:test
             while (result.hasNext()) {
                 BindingSet bindingSet = result.next();
                 ScientificObject scientificObject = children.get(bindingSet.getValue(CHILD).stringValue());
@@ -406,52 +434,36 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
             // Particular treatment if descendants of a trial
             if (layerDTO.getObjectType().equals(Oeso.CONCEPT_EXPERIMENT.toString())) {
                 // Get all descendants of the plots of the previously retrieved experimentations
-                    //SILEX:test
-                    //For pool connection issues
-                    rep = new HTTPRepository(SESAME_SERVER, REPOSITORY_ID);
-                    rep.initialize();
-                    setConnection(rep.getConnection());
-                    //\SILEX:test
-                for (Entry<String, ScientificObject> child : children.entrySet()) {
-                   
-                    SPARQLQueryBuilder sparqlQuery = prepareSearchChildrenWithContains(
-                            child.getKey(), 
-                            child.getValue().getRdfType());
+                // The plots are sent by chunks instead of one query per plot
+                List<String> experimentChildrenURIs = new ArrayList<>(children.keySet());
+                for (int from = 0; from < experimentChildrenURIs.size(); from += DESCENDANTS_SEARCH_CHUNK_SIZE) {
+                    List<String> parentsURIs = experimentChildrenURIs.subList(
+                            from, 
+                            Math.min(from + DESCENDANTS_SEARCH_CHUNK_SIZE, experimentChildrenURIs.size()));
+                    
+                    SPARQLQueryBuilder sparqlQuery = prepareSearchDescendantsWithContains(parentsURIs);
                     TupleQuery tupleQuery = this.getConnection()
                             .prepareTupleQuery(QueryLanguage.SPARQL, sparqlQuery.toString());
-                    TupleQueryResult result = tupleQuery.evaluate();
-                   
-                    while (result.hasNext()) {
-                        BindingSet bindingSet = result.next();
-                        if (!children.containsKey(bindingSet.getValue(CHILD).stringValue())) {
-                            ScientificObject scientificObject = new ScientificObject();
-                            scientificObject.setUri(bindingSet.getValue(CHILD).stringValue());
-                            scientificObject.setRdfType(bindingSet.getValue(RDF_TYPE).stringValue());
-                            
-                            children.put(bindingSet.getValue(CHILD).stringValue(), scientificObject);
+                    
+                    try (TupleQueryResult result = tupleQuery.evaluate()) {
+                        while (result.hasNext()) {
+                            BindingSet bindingSet = result.next();
+                            if (!children.containsKey(bindingSet.getValue(CHILD).stringValue())) {
+                                ScientificObject scientificObject = new ScientificObject();
+                                scientificObject.setUri(bindingSet.getValue(CHILD).stringValue());
+                                scientificObject.setRdfType(bindingSet.getValue(RDF_TYPE).stringValue());
+
+                                children.put(bindingSet.getValue(CHILD).stringValue(), scientificObject);
+                            }
                         }
                     }
                 }
-                    //SILEX:test
-                    //For pool connection issues
-                    getConnection().close();
-                    //\SILEX:test
             } else { // if standard object
-                //SILEX:test
-                //For pool connection issues
-                rep = new HTTPRepository(SESAME_SERVER, REPOSITORY_ID); //Stockage triplestore Sesame
-                rep.initialize();
-                setConnection(rep.getConnection());
-                //\SILEX:test
                 SPARQLQueryBuilder sparqlQuery = 
                         prepareSearchChildrenWithContains(layerDTO.getObjectUri(), layerDTO.getObjectType());
                 TupleQuery tupleQuery = 
                         this.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, sparqlQuery.toString());
                 TupleQueryResult result = tupleQuery.evaluate();
-                //SILEX:test
-                //For pool connection issues
-                getConnection().close();
-                //\SILEX:test
                 
                 
                 while (result.hasNext()) {
@@ -466,19 +478,9 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
                 
         } else if (!layerDTO.getObjectType().equals(Oeso.CONCEPT_EXPERIMENT.toString())) { 
             // If only direct descendants needed and not an experimentation
-            //SILEX:test
-            //For pool connection issues
-            rep = new HTTPRepository(SESAME_SERVER, REPOSITORY_ID);
-            rep.initialize();
-            setConnection(rep.getConnection());
-            //\SILEX:test
             SPARQLQueryBuilder sparqlQuery = prepareSearchFirstChildrenWithContains(layerDTO.getObjectUri());
             TupleQuery tupleQuery = this.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, sparqlQuery.toString());
             TupleQueryResult result = tupleQuery.evaluate();
-            //SILEX:test
-            //For pool connection issues
-            getConnection().close();
-            //\SILEX:test
             
             while (result.hasNext()) {
                 BindingSet bindingSet = result.next();
@@ -563,12 +565,6 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
     public ArrayList<ScientificObject> find(Integer page, Integer pageSize, String uri, String rdfType, String experiment, String alias) {
         try {
             SPARQLQueryBuilder sparqlQuery = prepareSearchQuery(false, page, pageSize, uri, rdfType, experiment, alias);
-            //SILEX:test
-            //For pool connection issues
-            rep = new HTTPRepository(SESAME_SERVER, REPOSITORY_ID);
-            rep.initialize();
-            setConnection(rep.getConnection());
-            //\SILEX:test
             
             TupleQuery tupleQuery = getConnection().prepareTupleQuery(QueryLanguage.SPARQL, sparqlQuery.toString());
             Map<String, ScientificObject> foundedScientificObjects = new HashMap<>();
@@ -754,98 +750,104 @@ public class ScientificObjectRdf4jDAO extends Rdf4jDAO<ScientificObject> {
         
         UriGenerator uriGenerator = new UriGenerator();
         
-        while (iteratorScientificObjects.hasNext() && annotationInsert) {
-            ScientificObject scientificObject = iteratorScientificObjects.next();
+        // The scientific objects are inserted in one transaction, their 
+        // statements sent by batches
+        SPARQLInsertBatcher batcher = new SPARQLInsertBatcher(getConnection());
+        this.getConnection().begin();
+        
+        try {
+            while (iteratorScientificObjects.hasNext() && annotationInsert) {
+                ScientificObject scientificObject = iteratorScientificObjects.next();
             
-            try {
-                //1. Generates scientific object URI.
-                scientificObject.setUri(uriGenerator.generateNewInstanceUri(scientificObject.getRdfType(), scientificObject.getYear(), null));
-            } catch (Exception ex) { // In the scientific object case, no exception should be raised
-                annotationInsert = false;
-            }
+                try {
+                    //1. Generates scientific object URI.
+                    scientificObject.setUri(uriGenerator.generateNewInstanceUri(scientificObject.getRdfType(), scientificObject.getYear(), null));
+                } catch (Exception ex) { // In the scientific object case, no exception should be raised
+                    annotationInsert = false;
+                }
             
-            //2. Register in triplestore
-            UpdateBuilder spql = new UpdateBuilder();
+                //2. Register in triplestore
+                UpdateBuilder spql = new UpdateBuilder();
             
-            Resource scientificObjectUri = ResourceFactory.createResource(scientificObject.getUri());
-            Node scientificObjectType = NodeFactory.createURI(scientificObject.getRdfType());
+                Resource scientificObjectUri = ResourceFactory.createResource(scientificObject.getUri());
+                Node scientificObjectType = NodeFactory.createURI(scientificObject.getRdfType());
             
-            Node graph = null;
-            if (scientificObject.getUriExperiment() != null) {
-                graph = NodeFactory.createURI(scientificObject.getUriExperiment());
+                Node graph = null;
+                if (scientificObject.getUriExperiment() != null) {
+                    graph = NodeFactory.createURI(scientificObject.getUriExperiment());
                 
-                // Add participates in (scientific object participates in experiment)
-                Node participatesIn = NodeFactory.createURI(Oeso.RELATION_PARTICIPATES_IN.toString());
-                spql.addInsert(graph, scientificObjectUri, participatesIn, graph);
-            } else {
-                graph = NodeFactory.createURI(Contexts.SCIENTIFIC_OBJECTS.toString());
-            }
+                    // Add participates in (scientific object participates in experiment)
+                    Node participatesIn = NodeFactory.createURI(Oeso.RELATION_PARTICIPATES_IN.toString());
+                    spql.addInsert(graph, scientificObjectUri, participatesIn, graph);
+                } else {
+                    graph = NodeFactory.createURI(Contexts.SCIENTIFIC_OBJECTS.toString());
+                }
             
-            spql.addInsert(graph, scientificObjectUri, RDF.type, scientificObjectType);
+                spql.addInsert(graph, scientificObjectUri, RDF.type, scientificObjectType);
             
-            // Properties associated to the scientific object
-            for (Property property : scientificObject.getProperties()) {
-                if (property.getRdfType() != null && !property.getRdfType().equals("")) {//Typed properties
-                    if (property.getRdfType().equals(Oeso.CONCEPT_VARIETY.toString())) {
+                // Properties associated to the scientific object
+                for (Property property : scientificObject.getProperties()) {
+                    if (property.getRdfType() != null && !property.getRdfType().equals("")) {//Typed properties
+                        if (property.getRdfType().equals(Oeso.CONCEPT_VARIETY.toString())) {
                         
-                        String propertyURI;
-                        try {
-                            propertyURI = uriGenerator.generateNewInstanceUri(Oeso.CONCEPT_VARIETY.toString(), null, property.getValue());
-                            Node propertyNode = NodeFactory.createURI(propertyURI);
+                            String propertyURI;
+                            try {
+                                propertyURI = uriGenerator.generateNewInstanceUri(Oeso.CONCEPT_VARIETY.toString(), null, property.getValue());
+                                Node propertyNode = NodeFactory.createURI(propertyURI);
+                                Node propertyType = NodeFactory.createURI(property.getRdfType());
+                                org.apache.jena.rdf.model.Property propertyRelation = ResourceFactory.createProperty(property.getRelation());
+                            
+                                spql.addInsert(graph, propertyNode, RDF.type, propertyType);
+                                spql.addInsert(graph, scientificObjectUri, propertyRelation, propertyNode);
+                            } catch (Exception ex) { //In the variety case, no exception should be raised
+                                annotationInsert = false;
+                            }
+                        } else {
+                            Node propertyNode = NodeFactory.createURI(property.getValue());
                             Node propertyType = NodeFactory.createURI(property.getRdfType());
                             org.apache.jena.rdf.model.Property propertyRelation = ResourceFactory.createProperty(property.getRelation());
-                            
+                        
                             spql.addInsert(graph, propertyNode, RDF.type, propertyType);
                             spql.addInsert(graph, scientificObjectUri, propertyRelation, propertyNode);
-                        } catch (Exception ex) { //In the variety case, no exception should be raised
-                            annotationInsert = false;
                         }
                     } else {
-                        Node propertyNode = NodeFactory.createURI(property.getValue());
-                        Node propertyType = NodeFactory.createURI(property.getRdfType());
+                        Literal propertyLiteral = ResourceFactory.createStringLiteral(property.getValue());
                         org.apache.jena.rdf.model.Property propertyRelation = ResourceFactory.createProperty(property.getRelation());
-                        
-                        spql.addInsert(graph, propertyNode, RDF.type, propertyType);
-                        spql.addInsert(graph, scientificObjectUri, propertyRelation, propertyNode);
-                    }
-                } else {
-                    Literal propertyLiteral = ResourceFactory.createStringLiteral(property.getValue());
-                    org.apache.jena.rdf.model.Property propertyRelation = ResourceFactory.createProperty(property.getRelation());
 
-                    spql.addInsert(graph, scientificObjectUri, propertyRelation, propertyLiteral);         
-                }
+                        spql.addInsert(graph, scientificObjectUri, propertyRelation, propertyLiteral);         
+                    }
                 
-            }
+                }
             
-            //isPartOf : the object which has part the element must not be a plot    
-            if (scientificObject.getIsPartOf()!= null) {
-                Node agronomicalObjectPartOf = NodeFactory.createURI(scientificObject.getIsPartOf());
-                org.apache.jena.rdf.model.Property relationIsPartOf = ResourceFactory.createProperty(Oeso.RELATION_IS_PART_OF.toString());
+                //isPartOf : the object which has part the element must not be a plot    
+                if (scientificObject.getIsPartOf()!= null) {
+                    Node agronomicalObjectPartOf = NodeFactory.createURI(scientificObject.getIsPartOf());
+                    org.apache.jena.rdf.model.Property relationIsPartOf = ResourceFactory.createProperty(Oeso.RELATION_IS_PART_OF.toString());
                 
-                spql.addInsert(graph, scientificObjectUri, relationIsPartOf, agronomicalObjectPartOf);  
-            }
+                    spql.addInsert(graph, scientificObjectUri, relationIsPartOf, agronomicalObjectPartOf);  
+                }
             
-            this.getConnection().begin();
-            Update prepareUpdate = this.getConnection().prepareUpdate(QueryLanguage.SPARQL, spql.buildRequest().toString());
-            LOGGER.debug(getTraceabilityLogs() + SPARQL_QUERY + prepareUpdate.toString());
-            prepareUpdate.execute();
-
+                LOGGER.debug(getTraceabilityLogs() + " insert of the scientific object " + scientificObject.getUri());
+                batcher.add(spql);
+            }
+        
             if (annotationInsert) {
+                batcher.flush();
                 resultState = true;
                 this.getConnection().commit();
             } else {
                 // Rollback on the transaction.
                 this.getConnection().rollback();
             }
-            
-            //3. insert in postgresql
-            ScientificObjectSQLDAO scientificObjectDAO = new ScientificObjectSQLDAO();
-            ArrayList<ScientificObject> aos = new ArrayList<>();
-            aos.add(scientificObject);
-            scientificObjectDAO.checkAndInsertListAO(aos);
+        } catch (RDF4JException | JenaException ex) {
+            this.getConnection().rollback();
+            throw ex;
         }
         
+        //3. insert in postgresql
         if (resultState) {
+            ScientificObjectSQLDAO scientificObjectDAO = new ScientificObjectSQLDAO();
+            scientificObjectDAO.checkAndInsertListAO(scientificObjects);
             return scientificObjects;
         } else {
             return new ArrayList<>();
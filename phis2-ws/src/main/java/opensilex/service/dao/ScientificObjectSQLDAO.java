@@ -7,12 +7,13 @@
 //******************************************************************************
 package opensilex.service.dao;
 
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import opensilex.service.dao.manager.PhisDAO;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.utils.POSTResultsReturn;
+import opensilex.service.utils.cache.LayerCache;
 import opensilex.service.utils.sql.SQLQueryBuilder;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.model.ScientificObject;
@@ -47,6 +49,9 @@ public class ScientificObjectSQLDAO extends PhisDAO<ScientificObject, Object> {
     public String namedGraph;
     private final String NAMED_GRAPH = "named_graph";
     
+    // Number of URIs sent in each geometries query
+    private static final int GEOMETRIES_CHUNK_SIZE = 1000;
+    
     public ScientificObjectSQLDAO() {
         super();
         setTable("agronomical_object");
@@ -111,6 +116,13 @@ public class ScientificObjectSQLDAO extends PhisDAO<ScientificObject, Object> {
                 
                 connection.commit();
                 
+                // The layers containing the new geometries have to be generated again
+                List<String> scientificObjectsUris = new ArrayList<>();
+                newScientificObjects.forEach((scientificObject) -> {
+                    scientificObjectsUris.add(scientificObject.getUri());
+                });
+                LayerCache.invalidate(scientificObjectsUris);
+                
                 /**
                  * //SILEX:todo
                  *  Tests to review
@@ -240,43 +252,44 @@ public class ScientificObjectSQLDAO extends PhisDAO<ScientificObject, Object> {
      * @param scientificObjectsURIs URIs for which the geometry is requested
      * @return the geometry associated to each URI in GeoSON 
      *          ex : {"type":"Polygon","coordinates":[[[0,0],[10,0],[10,10],[0,10],[0,0]]]}
+     *          The URIs are sent by chunks of GEOMETRIES_CHUNK_SIZE, as arrays 
+     *          bound to a single prepared statement.
+     * @example
+     * SELECT ST_AsGeoJSON(ST_Transform(geometry, 4326)), ao.uri 
+     * FROM agronomical_object AS ao 
+     * WHERE ao.uri = ANY(?)
      * @throws java.sql.SQLException
      */
-    public HashMap<String, String> getGeometries(ArrayList<String> scientificObjectsURIs) throws SQLException {
-        Connection connection = null;
-        Statement statement = null;
-        try {    
-            connection = dataSource.getConnection();
-            statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-
-            SQLQueryBuilder query = new SQLQueryBuilder();
-            query.appendSelect("ST_AsGeoJSON(ST_Transform(" + GEOMETRY + ", 4326)), ao." + URI);
-            query.appendFrom(table, tableAlias);
-
-            for (String scientificObjectURI : scientificObjectsURIs) {
-                query.appendORWhereConditionIfNeeded(URI, scientificObjectURI, "=", null, tableAlias);
-            }
-
-            LOGGER.debug(getTraceabilityLogs() + " quert : " + query.toString());
-
-            ResultSet queryResult = statement.executeQuery(query.toString());
+    public HashMap<String, String> getGeometries(List<String> scientificObjectsURIs) throws SQLException {
+        final String selectGeometries = "SELECT ST_AsGeoJSON(ST_Transform(" + GEOMETRY + ", 4326)), " + tableAlias + "." + URI
+                + " FROM \"" + table + "\" AS " + tableAlias
+                + " WHERE " + tableAlias + "." + URI + " = ANY(?)";
+        
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(selectGeometries)) {
             HashMap<String, String> geometries = new HashMap<>();
-
-            while (queryResult.next()) {
-                geometries.put(queryResult.getString(URI), queryResult.getString("st_asgeojson"));
+            
+            for (int from = 0; from < scientificObjectsURIs.size(); from += GEOMETRIES_CHUNK_SIZE) {
+                List<String> chunk = scientificObjectsURIs.subList(
+                        from, 
+                        Math.min(from + GEOMETRIES_CHUNK_SIZE, scientificObjectsURIs.size()));
+                Array urisArray = connection.createArrayOf("text", chunk.toArray());
+                statement.setArray(1, urisArray);
+                
+                LOGGER.debug(getTraceabilityLogs() + " quert : " + selectGeometries + " (" + chunk.size() + " uris)");
+                
+                try (ResultSet queryResult = statement.executeQuery()) {
+                    while (queryResult.next()) {
+                        geometries.put(queryResult.getString(URI), queryResult.getString("st_asgeojson"));
+                    }
+                }
+                urisArray.free();
             }
 
             return geometries;                
         } catch (SQLException ex) {
             java.util.logging.Logger.getLogger(ScientificObjectSQLDAO.class.getName()).log(Level.SEVERE, null, ex);
             return null;
-        } finally {
-            if (statement != null) {
-                statement.close();
-            }
-            if (connection != null)  {
-                connection.close();
-            }
         }
     }
     
@@ -287,20 +300,15 @@ public class ScientificObjectSQLDAO extends PhisDAO<ScientificObject, Object> {
      */
     public String getNumberOfScientificObjectForYear(String year) {
         try {
-            String toReturn;
-            try (Connection connection = dataSource.getConnection(); 
-                    Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT)) {
-                SQLQueryBuilder query = new SQLQueryBuilder();
-                query.appendSelect("count(*)");
-                query.appendFrom(table, tableAlias);
-                query.appendANDWhereConditionIfNeeded(URI, "/" + year + "/", "~*", null, tableAlias);
-                LOGGER.debug(getTraceabilityLogs() + " quert : " + query.toString());
-                ResultSet queryResult = statement.executeQuery(query.toString());
+            SQLQueryBuilder query = new SQLQueryBuilder(true);
+            query.appendSelect("count(*)");
+            query.appendFrom(table, tableAlias);
+            query.appendANDWhereConditionIfNeeded(URI, "/" + year + "/", "~*", null, tableAlias);
+            LOGGER.debug(getTraceabilityLogs() + " quert : " + query.toString());
+            return selectQuery(query, (queryResult) -> {
                 queryResult.next();
-                toReturn = queryResult.getString("count");
-            }
-            
-            return toReturn;
+                return queryResult.getString("count");
+            });
         } catch (SQLException ex) {
             java.util.logging.Logger.getLogger(ScientificObjectSQLDAO.class.getName()).log(Level.SEVERE, null, ex);
             return null;
@@ -323,32 +331,21 @@ public class ScientificObjectSQLDAO extends PhisDAO<ScientificObject, Object> {
     public ScientificObject updateOneGeometry(String uri, String geometry, String rdfType, String experiment) throws Exception {
         ScientificObject scientificObject = new ScientificObject(uri);
         scientificObject.setGeometry(geometry);
-        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
-            if (geometry == null || geometry.isEmpty()) {
-                if (!existInDB(scientificObject)) { //The scientific object must be delete from the database.
-                    String deleteScientificObject = "DELETE FROM \"" + table + "\" WHERE \"" + URI + "\" = '" + uri + "'";
-                    LOGGER.debug(deleteScientificObject);
-                    statement.execute(deleteScientificObject);
-                }
-            } else {
-                if (!existInDB(scientificObject)) { //The scientific object must be inserted in the database.
-                    String insertScientificObject = "INSERT INTO \"" + table + "\" (\"" + URI + "\", \"" + TYPE + "\", \"" + GEOMETRY + "\", \"" + NAMED_GRAPH + "\") "
-                            + "VALUES (\"" + uri + "\", \"" + rdfType + "\", ST_GeomFromText(\"" + geometry + "\", 4326), \"" + experiment + "\")";
-                    
-                    LOGGER.debug(insertScientificObject);
-                    statement.execute(insertScientificObject);
-                } else { //The scientific object already exist in the database and must be updated.
-                    String updateGeometry = "UPDATE \"" + table + "\" "
-                            + "SET \"" + GEOMETRY + "\" = ST_GeomFromText('" + geometry + "', 4326) "
-                            + "WHERE \"" + URI + "\" = '" + uri + "'";
-                    
-                    LOGGER.debug(updateGeometry);
-                    statement.executeUpdate(updateGeometry);
-                }
+        if (geometry == null || geometry.isEmpty()) {
+            if (!existInDB(scientificObject)) { //The scientific object must be delete from the database.
+                updateQuery("DELETE FROM \"" + table + "\" WHERE \"" + URI + "\" = ?", uri);
+            }
+        } else {
+            if (!existInDB(scientificObject)) { //The scientific object must be inserted in the database.
+                updateQuery("INSERT INTO \"" + table + "\" (\"" + URI + "\", \"" + TYPE + "\", \"" + GEOMETRY + "\", \"" + NAMED_GRAPH + "\") "
+                        + "VALUES (?, ?, ST_GeomFromText(?, 4326), ?)", uri, rdfType, geometry, experiment);
+            } else { //The scientific object already exist in the database and must be updated.
+                updateQuery("UPDATE \"" + table + "\" "
+                        + "SET \"" + GEOMETRY + "\" = ST_GeomFromText(?, 4326) "
+                        + "WHERE \"" + URI + "\" = ?", geometry, uri);
             }
-            statement.close();
-            connection.close();
         }
+        LayerCache.invalidate(Collections.singletonList(uri));
         
         return scientificObject;
     }
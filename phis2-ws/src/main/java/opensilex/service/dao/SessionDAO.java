@@ -7,10 +7,8 @@
 //******************************************************************************
 package opensilex.service.dao;
 
-import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -96,98 +94,54 @@ public class SessionDAO extends PhisDAO<Session, Object> {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
     }
 
+    /**
+     * Registers a new session.
+     * @param session
+     * @throws SQLException 
+     */
+    public void insertSession(Session session) throws SQLException {
+        updateQuery("INSERT INTO " + table + " (email, id, date) VALUES (?, ?, now())", session.getName(), session.getId());
+    }
+
+    /**
+     * Ends a session.
+     * @param sessionId 
+     */
     public void endSession(String sessionId) {
-        Statement statement = null;
-        Connection con = null;
-        ResultSet rs = null;
         try {
-            con = dataSource.getConnection();
-            statement = con.createStatement();
-            String query = "UPDATE " + table + " SET date_end = now() WHERE id = '" + sessionId + "'";
-//            logger.debug(query);
-            statement.executeUpdate(query);
+            updateQuery("UPDATE " + table + " SET date_end = now() WHERE id = ?", sessionId);
         } catch (SQLException e) {
             LOGGER.error(e.getMessage(), e);
-        } finally {
-
-            if (rs != null) {
-                try {
-                    rs.close();
-                } catch (SQLException e) {
-                    LOGGER.error(e.getMessage(), e);
-                }
-
-            }
-            if (statement != null) {
-                try {
-                    statement.close();
-                } catch (SQLException e) {
-                    LOGGER.error(e.getMessage(), e);
-                }
-            }
-
-            if (con != null) {
-                try {
-                    con.close();
-                } catch (SQLException e) {
-                    LOGGER.error(e.getMessage(), e);
-                }
-            }
         }
     }
     
-     public void reloadActiveSession() { 
-        Statement statement = null; 
-        Connection con = null; 
-        ResultSet rs = null; 
-        try { 
-            con = dataSource.getConnection(); 
-            statement = con.createStatement(); 
-            SQLQueryBuilder query = new SQLQueryBuilder(); 
-            query.appendFrom(table, null); 
-            query.addISNULL("date_end"); 
-            rs = statement.executeQuery(query.toString()); 
-            if (rs != null) { 
-                while (rs.next()) { 
-                    if (rs.getString("email") != null) { 
-                        String email = rs.getString("email"); 
-                        User u = new User(email); 
-                        u = loadFromDB(u); 
-                        Session s = new Session(rs.getString("id"), email, u); 
-                        if (u != null ) { 
-                            TokenManager.Instance().createTokenFromBD(s); 
-                        } 
-                    } 
-                } 
-            } 
-        } catch (SQLException e) { 
-            LOGGER.error(e.getMessage(), e); 
-        } finally { 
- 
-            if (rs != null) { 
-                try { 
-                    rs.close(); 
-                } catch (SQLException e) { 
-                    LOGGER.error(e.getMessage(), e); 
-                } 
-            } 
-            if (statement != null) { 
-                try { 
-                    statement.close(); 
-                } catch (SQLException e) { 
-                    LOGGER.error(e.getMessage(), e); 
-                } 
-            } 
-            if (con != null) { 
-                try { 
-                    con.close(); 
-                } catch (SQLException e) { 
-                    LOGGER.error(e.getMessage(), e); 
-                } 
-            } 
-        } 
-    } 
- 
+    /**
+     * Recreates the tokens of the sessions which have not ended.
+     */
+    public void reloadActiveSession() {
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
+        query.appendFrom(table, null);
+        query.addISNULL("date_end");
+        try {
+            selectQuery(query, (rs) -> {
+                while (rs.next()) {
+                    if (rs.getString("email") != null) {
+                        String email = rs.getString("email");
+                        User u = new User(email);
+                        u = loadFromDB(u);
+                        Session s = new Session(rs.getString("id"), email, u);
+                        if (u != null) {
+                            TokenManager.Instance().createTokenFromBD(s);
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+    }
+
     /** 
      * Loads user attributes
      * @param user with email and password
@@ -8,10 +8,7 @@
 
 package opensilex.service.dao;
 
-import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -92,12 +89,9 @@ public class StudyDAO extends DAO<StudyDetails>{
      */
     public ArrayList<Experiment> getExperimentsList() {
         ExperimentSQLDAO experimentDAO = new ExperimentSQLDAO();
-        ArrayList<Experiment> expList = new ArrayList();
         
-        try (final Connection connection = experimentDAO.getDataSource().getConnection();
-                final Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            ) {            
-            SQLQueryBuilder query = new SQLQueryBuilder();
+        try {
+            SQLQueryBuilder query = new SQLQueryBuilder(true);
             Map<String, String> sqlFields = relationFieldsObject();
             
             //SILEX:info
@@ -106,24 +100,26 @@ public class StudyDAO extends DAO<StudyDetails>{
             query.appendANDWhereConditionIfNeeded(sqlFields.get("studyDbId"), studyDbId, "ILIKE", null, "tr");           
             //\SILEX:info
             
-            try (final ResultSet queryResult = statement.executeQuery(query.toString())) {
-                UserDAO userDao = new UserDAO();
-                userDao.isAdmin(user);
-                boolean isAdmin = (user.getAdmin().equals("t") || user.getAdmin().equals("true"));
+            UserDAO userDao = new UserDAO();
+            userDao.isAdmin(user);
+            boolean isAdmin = (user.getAdmin().equals("t") || user.getAdmin().equals("true"));
 
+            return experimentDAO.selectQuery(query, (queryResult) -> {
+                ArrayList<Experiment> expList = new ArrayList<>();
                 while (queryResult.next()) {
                     //SILEX:access
                     Experiment study = experimentDAO.get(queryResult);                    
                     if (isAdmin || experimentDAO.canUserSeeExperiment(user, study)) {
-                        expList.add(experimentDAO.get(queryResult));
+                        expList.add(study);
                     }
                     //\SILEX:access
                 }
-            }            
+                return expList;
+            });
         } catch (SQLException ex) {
             java.util.logging.Logger.getLogger(StudyDAO.class.getName()).log(Level.SEVERE, null, ex);
         }        
-        return expList;
+        return new ArrayList<>();
     }
     
     /**
@@ -185,16 +181,13 @@ public class StudyDAO extends DAO<StudyDetails>{
     private StudyDetails getStudyContacts(StudyDetails study) throws SQLException {
         ExperimentSQLDAO experimentDAO = new ExperimentSQLDAO();      
 
-        try (final Connection connection = experimentDAO.getDataSource().getConnection();
-                final Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            ) {             
-            SQLQueryBuilder query = new SQLQueryBuilder();
-            query.appendSelect("u.email, u.first_name, u.family_name, tu.type, u.affiliation, u.orcid");
-            query.appendFrom("at_trial_users", "tu");
-            query.appendANDWhereConditionIfNeeded("trial_uri", study.getStudyDbId(), "=", null, "tu");
-            query.appendJoin(JoinAttributes.INNERJOIN, "users", "u", "u.email = tu.users_email");
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
+        query.appendSelect("u.email, u.first_name, u.family_name, tu.type, u.affiliation, u.orcid");
+        query.appendFrom("at_trial_users", "tu");
+        query.appendANDWhereConditionIfNeeded("trial_uri", study.getStudyDbId(), "=", null, "tu");
+        query.appendJoin(JoinAttributes.INNERJOIN, "users", "u", "u.email = tu.users_email");
 
-            ResultSet queryResult = statement.executeQuery(query.toString());
+        experimentDAO.selectQuery(query, (queryResult) -> {
             while (queryResult.next()) {
                 ContactBrapi contact = new ContactBrapi();
                 contact.setContactDbId(queryResult.getString("email"));
@@ -205,8 +198,9 @@ public class StudyDAO extends DAO<StudyDetails>{
                 contact.setInstituteName(queryResult.getString("affiliation"));
                 contact.setOrcid(queryResult.getString("orcid"));
                 study.addContact(contact);
-            }            
-        }
+            }
+            return null;
+        });
         return study;
     }
 
@@ -217,15 +211,12 @@ public class StudyDAO extends DAO<StudyDetails>{
     private StudyDetails getStudyActive(StudyDetails study) throws SQLException {
         ExperimentSQLDAO experimentDAO = new ExperimentSQLDAO();
         
-            try (final Connection connection = experimentDAO.getDataSource().getConnection();
-            final Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            ) {             
-            SQLQueryBuilder query = new SQLQueryBuilder();
-            query.appendSelect("t.uri, t.start_date, t.end_date");
-            query.appendFrom("trial", "t");
-            query.appendANDWhereConditionIfNeeded("uri", study.getStudyDbId(), "=", null, "t");
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
+        query.appendSelect("t.uri, t.start_date, t.end_date");
+        query.appendFrom("trial", "t");
+        query.appendANDWhereConditionIfNeeded("uri", study.getStudyDbId(), "=", null, "t");
 
-            ResultSet queryResult = statement.executeQuery(query.toString());
+        experimentDAO.selectQuery(query, (queryResult) -> {
             while (queryResult.next()) {
                 Timestamp startDate = queryResult.getTimestamp("start_date");
                 Timestamp endDate = queryResult.getTimestamp("end_date");
@@ -235,8 +226,9 @@ public class StudyDAO extends DAO<StudyDetails>{
                 } else {
                     study.setActive(false);                        
                 }
-            }            
-        }
+            }
+            return null;
+        });
         return study;        
     }
 
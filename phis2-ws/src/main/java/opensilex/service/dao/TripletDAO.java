@@ -10,7 +10,6 @@ package opensilex.service.dao;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -23,10 +22,9 @@ import org.apache.jena.graph.NodeFactory;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.shared.JenaException;
 import org.apache.jena.update.UpdateRequest;
 import org.eclipse.rdf4j.query.MalformedQueryException;
-import org.eclipse.rdf4j.query.QueryLanguage;
-import org.eclipse.rdf4j.query.Update;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +36,7 @@ import opensilex.service.ontology.Rdfs;
 import opensilex.service.resource.dto.TripletDTO;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.utils.UriGenerator;
+import opensilex.service.utils.sparql.SPARQLInsertBatcher;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.model.Triplet;
 
@@ -205,10 +204,12 @@ public class TripletDAO extends Rdf4jDAO<Triplet> {
     }
     
     /**
-     * Registers the triplets in the triplestore in the given graph.
+     * Adds the triplets to the batch of insertion, in their given graph.
+     * @param batcher
      * @param tripletsGroup
+     * @return the URIs of the subjects of the triplets
      */
-    private ArrayList<String> registerTripletsInGivenGraphs(ArrayList<TripletDTO> tripletsGroup) {
+    private ArrayList<String> registerTripletsInGivenGraphs(SPARQLInsertBatcher batcher, ArrayList<TripletDTO> tripletsGroup) {
         HashMap<String, ArrayList<TripletDTO>> tripletsByGraph = new HashMap<>();
         ArrayList<String> createdResourcesUris = new ArrayList<>();
 
@@ -230,121 +231,84 @@ public class TripletDAO extends Rdf4jDAO<Triplet> {
             }
         }
 
-        //2. save each group of triplets
+        //2. add each group of triplets
         for (Map.Entry<String,ArrayList<TripletDTO>> triplets : tripletsByGraph.entrySet()) {
-            UpdateRequest insertInGivenGraph = prepareInsertQuery(triplets.getValue(), triplets.getKey());
-            LOGGER.debug(SPARQL_QUERY + insertInGivenGraph.toString());
-            Update prepareInsertInGivenGraph = this.getConnection().prepareUpdate(QueryLanguage.SPARQL, insertInGivenGraph.toString());
-            prepareInsertInGivenGraph.execute();
+            batcher.add(prepareInsertQuery(triplets.getValue(), triplets.getKey()));
         }
 
         return createdResourcesUris;
     }
     
     /**
-     * Inserts a group of triplets in the triplestore.
+     * Replaces the subjects to generate of a group of triplets by the 
+     * generated URI.
      * @param tripletsGroup
-     * @param graphUri
-     * @return the insertion result with the resources created or the errors
+     * @return false if the URI can't be generated
      */
-    public POSTResultsReturn insertTripletsGroup(ArrayList<TripletDTO> tripletsGroup, String graphUri) {
-        //SILEX:todo
-        //add transaction
-        //\SILEX:todo
-        List<Status> insertStatus = new ArrayList<>();
-        List<String> createdResourcesUris = new ArrayList<>();
-        boolean tripletInserted = true;
-        boolean resultState = false;
-
-        final Iterator<TripletDTO> iteratorTriplets = tripletsGroup.iterator();
-
+    private boolean setGeneratedUri(ArrayList<TripletDTO> tripletsGroup) {
         String generatedUri = generateUriIfNeeded(tripletsGroup);
 
-        while(iteratorTriplets.hasNext() && tripletInserted) {
-            TripletDTO tripletDTO = iteratorTriplets.next();
-
+        for (TripletDTO tripletDTO : tripletsGroup) {
             if (tripletDTO.getS().equals(REQUEST_GENERATION_URI_STRING)) {
                 if (generatedUri != null) {
                     tripletDTO.setS(generatedUri);
                 } else { //error (blank node unimplemented yet)
-                    POSTResultsReturn result = new POSTResultsReturn(false, false, false);
-                    insertStatus.add(new Status(StatusCodeMsg.ERR, StatusCodeMsg.ERR, "Cannot generate uri, unknown type or given type uri generator not implemetend yet."));
-                    result.statusList = insertStatus;
-                    return result;
+                    return false;
                 }
             }
         }
-        try {
-            this.getConnection().begin();
-
-            //Register triplet in the triplestore, in the graph created at the request reception
-            UpdateRequest insertQuery = prepareInsertQuery(tripletsGroup, graphUri);
-            LOGGER.debug(SPARQL_QUERY + insertQuery.toString());
-            Update prepareInsert = this.getConnection().prepareUpdate(QueryLanguage.SPARQL, insertQuery.toString());
-            prepareInsert.execute();
-
-            //Register triplets in the triplestore, in the given graphs
-            createdResourcesUris = registerTripletsInGivenGraphs(tripletsGroup);
-
-            if (tripletInserted) {
-                resultState = true;
-                getConnection().commit();
-            } else {
-                getConnection().rollback();
-            }
-
-//            //SILEX:test
-//            //For the pool connection problems
-//            getConnection().close();
-//            //\SILEX:test
-        } catch (RepositoryException ex) {
-                LOGGER.error(StatusCodeMsg.COMMIT_TRIPLESTORE_ERROR, ex);
-        } catch (MalformedQueryException e) {
-               LOGGER.error(e.getMessage(), e);
-               tripletInserted = false;
-               insertStatus.add(new Status(StatusCodeMsg.QUERY_ERROR, StatusCodeMsg.ERR, StatusCodeMsg.MALFORMED_CREATE_QUERY + " : " + e.getMessage()));
-        }
-
-        POSTResultsReturn result = new POSTResultsReturn(resultState, tripletInserted, true);
-        result.statusList = insertStatus;
-        result.setCreatedResources(createdResourcesUris);
-        if (resultState && !createdResourcesUris.isEmpty()) {
-            result.createdResources = createdResourcesUris;
-            result.statusList.add(new Status(StatusCodeMsg.RESOURCES_CREATED, StatusCodeMsg.INFO, createdResourcesUris.size() + " " + StatusCodeMsg.RESOURCES_CREATED));
-        }
-
-        return result;
+        return true;
     }
     
     /**
      * Creates triplets in the storage.
+     * The groups of triplets are inserted in one transaction, their triplets 
+     * sent by batches: if a group can't be inserted, none is.
      * @param graphUri
      * @see POSTResultsReturn
-     * @see TripletDAO#insertTripletsGroup(java.utils.ArrayList)
+     * @see SPARQLInsertBatcher
      * @param triplets
      * @return the insertion result. Contains the list of created resources
      */
     public POSTResultsReturn insert(ArrayList<ArrayList<TripletDTO>> triplets, String graphUri) {
-        //SILEX:todo
-        //add transaction
-        //\SILEX:todo
         List<Status> insertStatus = new ArrayList<>();
         List<String> createdResourcesUris = new ArrayList<>();
         boolean tripletInserted = true;
         
-        final Iterator<ArrayList<TripletDTO>> iteratorTripletsGroups = triplets.iterator();
-        while (iteratorTripletsGroups.hasNext() && tripletInserted) {
-            ArrayList<TripletDTO> tripletsGroup = iteratorTripletsGroups.next();
-            //insert group in triplestore
-            POSTResultsReturn insertionGroupResult = insertTripletsGroup(tripletsGroup, graphUri);
-            if (insertionGroupResult.getInsertState()) { //insertion has been done
-                createdResourcesUris.addAll(insertionGroupResult.getCreatedResources());
-                insertStatus.addAll(insertionGroupResult.getStatusList());
-            } else {
-                tripletInserted = false;
+        //1. generate the URIs of the new resources
+        for (ArrayList<TripletDTO> tripletsGroup : triplets) {
+            if (!setGeneratedUri(tripletsGroup)) {
+                POSTResultsReturn result = new POSTResultsReturn(false, false, false);
+                insertStatus.add(new Status(StatusCodeMsg.ERR, StatusCodeMsg.ERR, "Cannot generate uri, unknown type or given type uri generator not implemetend yet."));
+                result.statusList = insertStatus;
+                return result;
             }
         }
         
+        //2. insert the groups in triplestore
+        SPARQLInsertBatcher batcher = new SPARQLInsertBatcher(getConnection());
+        try {
+            this.getConnection().begin();
+            
+            for (ArrayList<TripletDTO> tripletsGroup : triplets) {
+                //Register triplets in the graph created at the request reception
+                batcher.add(prepareInsertQuery(tripletsGroup, graphUri));
+                //Register triplets in the given graphs
+                ArrayList<String> groupCreatedResourcesUris = registerTripletsInGivenGraphs(batcher, tripletsGroup);
+                createdResourcesUris.addAll(groupCreatedResourcesUris);
+                insertStatus.add(new Status(StatusCodeMsg.RESOURCES_CREATED, StatusCodeMsg.INFO, groupCreatedResourcesUris.size() + " " + StatusCodeMsg.RESOURCES_CREATED));
+            }
+            
+            batcher.flush();
+            getConnection().commit();
+        } catch (RepositoryException | MalformedQueryException | JenaException ex) {
+            LOGGER.error(StatusCodeMsg.COMMIT_TRIPLESTORE_ERROR, ex);
+            getConnection().rollback();
+            tripletInserted = false;
+            insertStatus.clear();
+            insertStatus.add(new Status(StatusCodeMsg.QUERY_ERROR, StatusCodeMsg.ERR, StatusCodeMsg.MALFORMED_CREATE_QUERY + " : " + ex.getMessage()));
+        }
+        
         POSTResultsReturn insertResult = new POSTResultsReturn(tripletInserted, tripletInserted, true);
         insertResult.setStatusList(insertStatus);
         if (tripletInserted && !createdResourcesUris.isEmpty()) {
@@ -11,6 +11,7 @@ package opensilex.service.dao;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
@@ -25,6 +26,8 @@ import org.eclipse.rdf4j.query.TupleQueryResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.dao.manager.Rdf4jDAO;
+import opensilex.service.datasource.ClassHierarchyIndex;
+import opensilex.service.datasource.TriplestoreCache;
 import opensilex.service.ontology.Rdf;
 import opensilex.service.ontology.Rdfs;
 import opensilex.service.utils.sparql.SPARQLQueryBuilder;
@@ -113,40 +116,6 @@ public class UriDAO extends Rdf4jDAO<Uri> {
         return query;
     }
 
-    /**
-     * Searches siblings of concept. 
-     * @example 
-     * SELECT DISTINCT ?class 
-     * WHERE {
-     *    contextURI rdfs:subClassOf ?parent .
-     *    ?class rdfs:subClassOf ?parent 
-     * }
-     * @return SPARQLQueryBuilder
-     */
-    protected SPARQLQueryBuilder prepareSiblingsQuery() {
-        //SILEX:warning
-        //Siblings take ScientificDocument for exemple but it's different that all the other concept GET
-        //where could this can be change?
-        //\SILEX:warning
-
-        SPARQLQueryBuilder query = new SPARQLQueryBuilder();
-        query.appendDistinct(Boolean.TRUE);
-
-        String contextURI;
-
-        if (uri != null) {
-            contextURI = "<" + uri + ">";
-        } else {
-            contextURI = "?uri";
-            query.appendSelect("?uri");
-        }
-        query.appendSelect(" ?class ");
-        query.appendTriplet(contextURI, Rdfs.RELATION_SUBCLASS_OF.toString(), " ?parent ", null);
-        query.appendTriplet("?class", Rdfs.RELATION_SUBCLASS_OF.toString(), "?parent", null);
-        LOGGER.debug(query.toString());
-        return query;
-    }
-
     /**
      * Asks if an URI is in the triplestore.
      * @return the ask query 
@@ -226,61 +195,6 @@ public class UriDAO extends Rdf4jDAO<Uri> {
         return query;
     }
 
-    /**
-     * Searches ancestors of a concept.
-     * @return SPARQLQueryBuilder the query
-     * @example
-     * SELECT DISTINCT ?class 
-     * WHERE {
-     *    contextURI rdfs:subClassOf* ?class 
-     * }
-     */
-    protected SPARQLQueryBuilder prepareAncestorsQuery() {
-        SPARQLQueryBuilder query = new SPARQLQueryBuilder();
-        query.appendDistinct(Boolean.TRUE);
-
-        String contextURI;
-
-        if (uri != null) {
-            contextURI = "<" + uri + ">";
-        } else {
-            contextURI = "?uri";
-            query.appendSelect("?uri");
-        }
-        query.appendSelect(" ?class ");
-        query.appendTriplet(contextURI, Rdfs.RELATION_SUBCLASS_OF.toString(), " ?class ", null);
-        LOGGER.debug(query.toString());
-        return query;
-    }
-
-    /**
-     * Searches descendants of a concept.
-     * @return SPARQLQueryBuilder  the query 
-     * @example : 
-     * SELECT DISTINCT ?class 
-     * WHERE {
-     *    ?class rdfs:subClassOf* contextURI 
-     * }
-     */
-    protected SPARQLQueryBuilder prepareDescendantsQuery() {
-        SPARQLQueryBuilder query = new SPARQLQueryBuilder();
-        query.appendDistinct(Boolean.TRUE);
-
-        String contextURI;
-
-        if (uri != null) {
-            contextURI = "<" + uri + ">";
-        } else {
-            contextURI = "?uri";
-            query.appendSelect("?uri");
-        }
-        query.appendSelect(" ?class ");
-        query.appendTriplet(" ?class ", "<" + Rdfs.RELATION_SUBCLASS_OF.toString() + ">*", contextURI, null);
-        LOGGER.debug(query.toString());
-
-        return query;
-    }
-
     /**
      * Creates the query that returns the type of an URI.
      * @return SPARQLQueryBuilder the query
@@ -393,22 +307,8 @@ public class UriDAO extends Rdf4jDAO<Uri> {
      * @return the ancestors info all paginate
      */
     public ArrayList<Uri> ancestorsAllPaginate() {
-
-        SPARQLQueryBuilder query = prepareAncestorsQuery();
-        TupleQuery tupleQuery = getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query.toString());
-        ArrayList<Uri> concepts = new ArrayList();
-
-        try (TupleQueryResult result = tupleQuery.evaluate()) {
-
-            while (result.hasNext()) {
-                Uri concept = new Uri();
-                BindingSet bindingSet = result.next();
-                concept.setUri(bindingSet.getValue(TRIPLESTORE_FIELDS_CLASS).stringValue());
-                concepts.add(concept);
-            }
-
-        }
-        return concepts;
+        // Direct superclasses, as in the ancestors query
+        return toConcepts(ClassHierarchyIndex.getInstance().getParents(uri));
     }
 
     /**
@@ -416,21 +316,8 @@ public class UriDAO extends Rdf4jDAO<Uri> {
      * @return the siblings info all paginate
      */
     public ArrayList<Uri> siblingsAllPaginate() {
-
-        SPARQLQueryBuilder query = prepareSiblingsQuery();
-        TupleQuery tupleQuery = getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query.toString());
-        ArrayList<Uri> concepts = new ArrayList();
-
-        try (TupleQueryResult result = tupleQuery.evaluate()) {
-
-            while (result.hasNext()) {
-                Uri concept = new Uri();
-                BindingSet bindingSet = result.next();
-                concept.setUri(bindingSet.getValue(TRIPLESTORE_FIELDS_CLASS).stringValue());
-                concepts.add(concept);
-            }
-        }
-        return concepts;
+        // Subclasses of the direct superclasses, the class included
+        return toConcepts(ClassHierarchyIndex.getInstance().getSiblings(uri));
     }
 
     /**
@@ -438,20 +325,22 @@ public class UriDAO extends Rdf4jDAO<Uri> {
      * @return the descendants info all paginate
      */
     public ArrayList<Uri> descendantsAllPaginate() {
+        // rdfs:subClassOf*, the class included
+        return toConcepts(ClassHierarchyIndex.getInstance().getDescendants(uri));
+    }
 
-        SPARQLQueryBuilder query = prepareDescendantsQuery();
-        TupleQuery tupleQuery = getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query.toString());
+    /**
+     * Converts classes URIs to concepts.
+     * @param classes
+     * @return the concepts
+     */
+    private ArrayList<Uri> toConcepts(List<String> classes) {
         ArrayList<Uri> concepts = new ArrayList<>();
-
-        try (TupleQueryResult result = tupleQuery.evaluate()) {
-
-            while (result.hasNext()) {
-                Uri concept = new Uri();
-                BindingSet bindingSet = result.next();
-                concept.setUri(bindingSet.getValue(TRIPLESTORE_FIELDS_CLASS).stringValue());
-                concepts.add(concept);
-            }
-        }
+        classes.forEach((classUri) -> {
+            Uri concept = new Uri();
+            concept.setUri(classUri);
+            concepts.add(concept);
+        });
         return concepts;
     }
 
@@ -482,28 +371,6 @@ public class UriDAO extends Rdf4jDAO<Uri> {
         return uris;
     }
 
-    /**
-     * Generates an ask query to know if the given rdfSubType is a subclass of
-     * rdfType.
-     * @param rdfSubType
-     * @param rdfType
-     * @return the query. 
-     * @example
-     * ASK {
-     *    <http://www.opensilex.org/vocabulary/oeso#HemisphericalCamera>  rdfs:subClassOf* <http://www.opensilex.org/vocabulary/oeso#SensingDevice> 
-     * }
-     */
-    private SPARQLQueryBuilder prepareIsSubclassOf(String rdfSubType, String rdfType) {
-        SPARQLQueryBuilder query = new SPARQLQueryBuilder();
-        query.appendDistinct(Boolean.TRUE);
-
-        query.appendTriplet("<" + rdfSubType + ">", "<" + Rdfs.RELATION_SUBCLASS_OF.toString() + ">*", "<" + rdfType + ">", null);
-
-        query.appendAsk(""); //any = anything
-        LOGGER.debug(query.toString());
-        return query;
-    }
-
     /**
      * Generates an ask query to know if the given instance URI is an instance
      * of rdfType.
@@ -543,10 +410,7 @@ public class UriDAO extends Rdf4jDAO<Uri> {
      *         false if not
      */
     public boolean isSubClassOf(String rdfSubType, String rdfType) {
-        SPARQLQueryBuilder query = prepareIsSubclassOf(rdfSubType, rdfType);
-
-        BooleanQuery booleanQuery = getConnection().prepareBooleanQuery(QueryLanguage.SPARQL, query.toString());
-        return booleanQuery.evaluate();
+        return ClassHierarchyIndex.getInstance().isSubClassOf(rdfSubType, rdfType);
     }
 
     /**
@@ -563,9 +427,17 @@ public class UriDAO extends Rdf4jDAO<Uri> {
         if (rdfType == null) {
             return false;
         }
+        List<String> cacheKey = Arrays.asList(instanceUri, rdfType);
+        Boolean cachedResult = TriplestoreCache.getInstances().get(cacheKey);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+        
         SPARQLQueryBuilder query = prepareIsInstanceOf(instanceUri, rdfType);
         BooleanQuery booleanQuery = getConnection().prepareBooleanQuery(QueryLanguage.SPARQL, query.toString());
-        return booleanQuery.evaluate();
+        boolean isInstance = booleanQuery.evaluate();
+        TriplestoreCache.getInstances().put(cacheKey, isInstance);
+        return isInstance;
     }
 
     /**
@@ -621,6 +493,11 @@ public class UriDAO extends Rdf4jDAO<Uri> {
      * ]
      */
     public Multimap<String, String> getLabels() {
+        Multimap<String, String> cachedLabels = TriplestoreCache.getResourcesLanguagesLabels().get(uri);
+        if (cachedLabels != null) {
+            return ArrayListMultimap.create(cachedLabels);
+        }
+        
         SPARQLQueryBuilder query = prepareGetLabels();
         Multimap<String, String> labels = ArrayListMultimap.create();
 
@@ -638,6 +515,7 @@ public class UriDAO extends Rdf4jDAO<Uri> {
                 }
             }
         }
+        TriplestoreCache.getResourcesLanguagesLabels().put(uri, ArrayListMultimap.create(labels));
         return labels;
     }
 
@@ -13,12 +13,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Level;
 import javax.ws.rs.core.Response;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAOPersistenceException;
@@ -31,7 +29,7 @@ import opensilex.service.resource.dto.UserDTO;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.utils.ResourcesUtils;
 import opensilex.service.utils.UriGenerator;
-import opensilex.service.utils.sql.JoinAttributes;
+import opensilex.service.utils.cache.AuthorizationCache;
 import opensilex.service.utils.sql.SQLQueryBuilder;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.model.Group;
@@ -80,43 +78,15 @@ public class UserDAO extends PhisDAO<User, UserDTO> {
      * @return the password corresponding to the user's email sent
      */
     public String getPasswordFromDb(String userEmail) {
-        ResultSet result = null;
-        Connection con = null;
-        Statement stat = null;
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
+        query.appendSelect("password");
+        query.appendFrom(table, null);
+        query.appendANDWhereConditions("email", userEmail, "=", null, null);
         try {
-            con = dataSource.getConnection();
-            String query = "SELECT password FROM users WHERE email = '" + userEmail + "'";
-            stat = con.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            result = stat.executeQuery(query);
-            while (result.next()) {
-                return result.getString("password");
-            }
+            return selectQuery(query, (result) -> result.next() ? result.getString("password") : "");
         } catch (SQLException ex) {
-            java.util.logging.Logger.getLogger(UserDAO.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            if (result != null) {
-                try {
-                    result.close();
-                } catch (SQLException ex) {
-                    LOGGER.error(ex.getMessage(), ex);
-                }
-            }
-            if (stat != null) {
-                try {
-                    stat.close();
-                } catch (SQLException ex) {
-                    LOGGER.error(ex.getMessage(), ex);
-                }
-            }
-            if (con != null) {
-                try {
-                    con.close();
-                } catch (SQLException ex) {
-                    LOGGER.error(ex.getMessage(), ex);
-                }
-            }
+            LOGGER.error(ex.getMessage(), ex);
         }
-
         return "";
     }
 
@@ -127,49 +97,23 @@ public class UserDAO extends PhisDAO<User, UserDTO> {
      */
     public Boolean isAdmin(User user) {
         if (user.getAdmin() == null) {
-            ResultSet result = null;
-            Connection con = null;
-            Statement stat = null;
+            SQLQueryBuilder query = new SQLQueryBuilder(true);
+            query.appendSelect("isadmin");
+            query.appendFrom(table, null);
+            query.appendANDWhereConditions("email", user.getEmail(), "=", null, null);
             try {
-                con = dataSource.getConnection();
-                String query = "SELECT isadmin FROM users WHERE email='" + user.getEmail() + "'";
-                stat = con.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-                result = stat.executeQuery(query);
-
-                while (result.next()) {
-                    user.setAdmin(result.getString("isadmin"));
-                }
-
-                return ResourcesUtils.getStringBooleanValue(user.getAdmin());
+                selectQuery(query, (result) -> {
+                    while (result.next()) {
+                        user.setAdmin(result.getString("isadmin"));
+                    }
+                    return null;
+                });
             } catch (SQLException ex) {
                 LOGGER.error(ex.getMessage(), ex);
-            } finally {
-                if (result != null) {
-                    try {
-                        result.close();
-                    } catch (SQLException ex) {
-                        LOGGER.error(ex.getMessage(), ex);
-                    }
-                }
-                if (stat != null) {
-                    try {
-                        stat.close();
-                    } catch (SQLException ex) {
-                        LOGGER.error(ex.getMessage(), ex);
-                    }
-                }
-                if (con != null) {
-                    try {
-                        con.close();
-                    } catch (SQLException ex) {
-                        LOGGER.error(ex.getMessage(), ex);
-                    }
-                }
+                return false;
             }
-        } else {
-            return ResourcesUtils.getStringBooleanValue(user.getAdmin());
         }
-        return false;
+        return ResourcesUtils.getStringBooleanValue(user.getAdmin());
     }
 
     /**
@@ -179,49 +123,22 @@ public class UserDAO extends PhisDAO<User, UserDTO> {
      *                 false if not
      */
     public Boolean existUserUri(String userUri) {
-        boolean valid = false;
-        ResultSet result = null;
-        Connection con;
-        Statement stat = null;
+        SQLQueryBuilder sqlQueryBuilder = new SQLQueryBuilder(true);
+        sqlQueryBuilder.appendSelect("1");
+        sqlQueryBuilder.appendFrom(table, tableAlias);
+        sqlQueryBuilder.appendANDWhereConditionIfNeeded("uri", userUri, "=", null, tableAlias);
+        sqlQueryBuilder.appendLimit("1");
         try {
-            con = dataSource.getConnection();
-            SQLQueryBuilder sqlQueryBuilder = new SQLQueryBuilder();
-            sqlQueryBuilder.appendSelect("*");
-            sqlQueryBuilder.appendFrom(table, tableAlias);
-            sqlQueryBuilder.appendANDWhereConditionIfNeeded("uri", userUri, "=", null, tableAlias);
-            
-            stat = con.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            result = stat.executeQuery(sqlQueryBuilder.toString());
-            LOGGER.debug(SQL_SELECT_QUERY + " " + sqlQueryBuilder.toString());
-            if (result.next()) {
-                valid = true;
-            }
-
+            return selectQuery(sqlQueryBuilder, ResultSet::next);
         } catch (SQLException ex) {
             LOGGER.error(ex.getMessage(), ex);
-        } finally {
-            if (result != null) {
-                try {
-                    result.close();
-                } catch (SQLException ex) {
-                    LOGGER.error(ex.getMessage(), ex);
-                }
-            }
-            if (stat != null) {
-                try {
-                    stat.close();
-                } catch (SQLException ex) {
-                    LOGGER.error(ex.getMessage(), ex);
-                }
-            }
         }
-
-        return valid;
+        return false;
     }
 
     @Override
     public Integer count() {
-        SQLQueryBuilder query = new SQLQueryBuilder();
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
         query.appendCount();
         query.appendDistinct();
         query.appendSelect(tableAlias + ".email");
@@ -245,38 +162,11 @@ public class UserDAO extends PhisDAO<User, UserDTO> {
             query.appendANDWhereConditionIfNeeded(sqlFields.get("uri"), String.valueOf(uri), "=", null, tableAlias);
         }
 
-        Connection connection = null;
-        ResultSet resultSet = null;
-        Statement statement = null;
-
         try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement();
-            LOGGER.trace(SQL_SELECT_QUERY + query.toString());
-            resultSet = statement.executeQuery(query.toString());
-
-            if (resultSet.next()) {
-                return resultSet.getInt(1);
-            } else {
-                return 0;
-            }
+            return selectQuery(query, (resultSet) -> resultSet.next() ? resultSet.getInt(1) : 0);
         } catch (SQLException ex) {
             LOGGER.error(ex.getMessage(), ex);
             return null;
-        } finally {
-            try {
-                if (statement != null) {
-                    statement.close();
-                }
-                if (resultSet != null) {
-                    resultSet.close();
-                }
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                LOGGER.error(ex.getMessage(), ex);
-            }
         }
     }
 
@@ -342,112 +232,71 @@ public class UserDAO extends PhisDAO<User, UserDTO> {
      * @return the list of the users
      */
     public ArrayList<User> getAllUsersEmails() {
-        ResultSet queryResult = null;
-        Connection connection = null;
-        Statement statement = null;
-
-        ArrayList<User> users = new ArrayList<>();
-        try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            SQLQueryBuilder query = new SQLQueryBuilder();
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
 
-            Map<String, String> sqlFields = relationFieldsJavaSQLObject();
-            
-            //Query database
-            query.appendFrom(table, tableAlias);
-            query.appendSelect(sqlFields.get("email"));
-            query.appendLimit(String.valueOf(pageSize));
-            query.appendOffset(Integer.toString(this.getPage()* this.getPageSize()));
+        Map<String, String> sqlFields = relationFieldsJavaSQLObject();
 
-            queryResult = statement.executeQuery(query.toString());
+        //Query database
+        query.appendFrom(table, tableAlias);
+        query.appendSelect(sqlFields.get("email"));
+        query.appendLimit(String.valueOf(pageSize));
+        query.appendOffset(Integer.toString(this.getPage()* this.getPageSize()));
 
+        try {
             //Manipulates result
-            while (queryResult.next()) {
-                User u = new User(queryResult.getString("email"));
-                users.add(u);
-            }
-        } catch (SQLException ex) {
-            java.util.logging.Logger.getLogger(UserDAO.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            try {
-                if (queryResult != null) {
-                    queryResult.close();
-                }
-                if (statement != null) {
-                    statement.close();
+            return selectQuery(query, (queryResult) -> {
+                ArrayList<User> users = new ArrayList<>();
+                while (queryResult.next()) {
+                    users.add(new User(queryResult.getString("email")));
                 }
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                java.util.logging.Logger.getLogger(UserDAO.class.getName()).log(Level.SEVERE, null, ex);
-            }
+                return users;
+            });
+        } catch (SQLException ex) {
+            LOGGER.error(ex.getMessage(), ex);
         }
-        return users;
+        return new ArrayList<>();
     }
     
     @Override
     public ArrayList<User> allPaginate() {
-        ResultSet queryResult = null;
-        Connection connection = null;
-        Statement statement = null;
+        SQLQueryBuilder query = new SQLQueryBuilder(true);
 
-        ArrayList<User> users = new ArrayList<>();
-
-        try {
-            connection = dataSource.getConnection();
-            statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            SQLQueryBuilder query = new SQLQueryBuilder();
-
-            Map<String, String> sqlFields = relationFieldsJavaSQLObject();
-
-            //Ajout des conditions à la requête
-            query.appendFrom(table, tableAlias);
-            query.appendANDWhereConditionIfNeeded(sqlFields.get("email"), email, "ILIKE", null, tableAlias);
-            query.appendANDWhereConditionIfNeeded(sqlFields.get("firstName"), firstName, "ILIKE", null, tableAlias);
-            query.appendANDWhereConditionIfNeeded(sqlFields.get("familyName"), familyName, "ILIKE", null, tableAlias);
-            query.appendANDWhereConditionIfNeeded(sqlFields.get("address"), address, "ILIKE", null, tableAlias);
-            query.appendANDWhereConditionIfNeeded(sqlFields.get("phone"), phone, "ILIKE", null, tableAlias);
-            query.appendANDWhereConditionIfNeeded(sqlFields.get("affiliation"), affiliation, "ILIKE", null, tableAlias);
-            query.appendANDWhereConditionIfNeeded(sqlFields.get("orcid"), orcid, "ILIKE", null, tableAlias);
-            if (admin != null) {
-                query.appendANDWhereConditionIfNeeded(sqlFields.get("admin"), String.valueOf(admin), "=", null, tableAlias);
-            }
-            if (available != null) {
-                query.appendANDWhereConditionIfNeeded(sqlFields.get("available"), String.valueOf(available), "=", null, tableAlias);
-            }
-            if (uri != null) {
-                query.appendANDWhereConditionIfNeeded(sqlFields.get("uri"), String.valueOf(uri), "=", null, tableAlias);
-            }
-            query.appendLimit(String.valueOf(pageSize));
-            query.appendOffset(Integer.toString(this.getPage() * this.getPageSize()));
+        Map<String, String> sqlFields = relationFieldsJavaSQLObject();
 
-            queryResult = statement.executeQuery(query.toString());
+        //Ajout des conditions à la requête
+        query.appendFrom(table, tableAlias);
+        query.appendANDWhereConditionIfNeeded(sqlFields.get("email"), email, "ILIKE", null, tableAlias);
+        query.appendANDWhereConditionIfNeeded(sqlFields.get("firstName"), firstName, "ILIKE", null, tableAlias);
+        query.appendANDWhereConditionIfNeeded(sqlFields.get("familyName"), familyName, "ILIKE", null, tableAlias);
+        query.appendANDWhereConditionIfNeeded(sqlFields.get("address"), address, "ILIKE", null, tableAlias);
+        query.appendANDWhereConditionIfNeeded(sqlFields.get("phone"), phone, "ILIKE", null, tableAlias);
+        query.appendANDWhereConditionIfNeeded(sqlFields.get("affiliation"), affiliation, "ILIKE", null, tableAlias);
+        query.appendANDWhereConditionIfNeeded(sqlFields.get("orcid"), orcid, "ILIKE", null, tableAlias);
+        if (admin != null) {
+            query.appendANDWhereConditionIfNeeded(sqlFields.get("admin"), String.valueOf(admin), "=", null, tableAlias);
+        }
+        if (available != null) {
+            query.appendANDWhereConditionIfNeeded(sqlFields.get("available"), String.valueOf(available), "=", null, tableAlias);
+        }
+        if (uri != null) {
+            query.appendANDWhereConditionIfNeeded(sqlFields.get("uri"), String.valueOf(uri), "=", null, tableAlias);
+        }
+        query.appendLimit(String.valueOf(pageSize));
+        query.appendOffset(Integer.toString(this.getPage() * this.getPageSize()));
 
-            while (queryResult.next()) {
-                users.add(get(queryResult));
-            }
+        ArrayList<User> users = new ArrayList<>();
+        try {
+            users = selectQuery(query, (queryResult) -> {
+                ArrayList<User> result = new ArrayList<>();
+                while (queryResult.next()) {
+                    result.add(get(queryResult));
+                }
+                return result;
+            });
 
-            for (User u : users) {
-                u.setGroupList(this.getUserGroups(u));
-            }
+            setUsersGroups(users);
         } catch (SQLException ex) {
-            java.util.logging.Logger.getLogger(UserDAO.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            try {
-                if (queryResult != null) {
-                    queryResult.close();
-                }
-                if (statement != null) {
-                    statement.close();
-                }
-                if (connection != null) {
-                    connection.close();
-                }
-            } catch (SQLException ex) {
-                java.util.logging.Logger.getLogger(UserDAO.class.getName()).log(Level.SEVERE, null, ex);
-            }
+            LOGGER.error(ex.getMessage(), ex);
         }
         return users;
     }
@@ -458,61 +307,24 @@ public class UserDAO extends PhisDAO<User, UserDTO> {
     }
 
     /**
-     *
      * @param user
      * @return the groups to which the user belongs
      * @throws SQLException
      */
     public ArrayList<Group> getUserGroups(User user) throws SQLException {
-        ResultSet result = null;
-        ResultSet resultDefaultGroup = null;
-        Connection connection = null;
-        Statement statement = null;
-        Statement statementDefaultGroup = null;
-        ArrayList<Group> userGroups = new ArrayList<>();
-
-        try {
-            if (this.existInDB(user)) {
-                //Récupération des groupes dans la table at_group_users
-                SQLQueryBuilder query = new SQLQueryBuilder();
-                query.appendSelect("gp.uri, gp.level, gp.name");
-                query.appendFrom("at_group_users", "gu");
-                query.appendANDWhereConditions("users_email", user.getEmail(), "=", null, null);
-                query.appendJoin(JoinAttributes.INNERJOIN, "group", "gp", "gu.group_uri = gp.uri");
+        return GroupDAO.getAuthorizations().getUserGroups(user.getEmail());
+    }
 
-                connection = dataSource.getConnection();
-                statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-
-                result = statement.executeQuery(query.toString());
-                while (result.next()) {
-                    Group gp = new Group();
-                    gp.setUri(result.getString("uri"));
-                    gp.setLevel(result.getString("level"));
-                    gp.setName(result.getString("name"));
-                    userGroups.add(gp);
-                }
-            }
-        } catch (Exception ex) {
-            java.util.logging.Logger.getLogger(UserDAO.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            if (connection != null) {
-                connection.close();
-            }
-            if (statement != null) {
-                statement.close();
-            }
-            if (result != null) {
-                result.close();
-            }
-            if (resultDefaultGroup != null) {
-                resultDefaultGroup.close();
-            }
-            if (statementDefaultGroup != null) {
-                statementDefaultGroup.close();
-            }
+    /**
+     * Sets the groups of users, with a single authorizations snapshot.
+     * @param users
+     * @throws SQLException
+     */
+    public void setUsersGroups(List<User> users) throws SQLException {
+        AuthorizationCache.Snapshot authorizations = GroupDAO.getAuthorizations();
+        for (User u : users) {
+            u.setGroupList(authorizations.getUserGroups(u.getEmail()));
         }
-
-        return userGroups;
     }
 
     @Override
@@ -630,6 +442,7 @@ public class UserDAO extends PhisDAO<User, UserDTO> {
                     insertPreparedStatementAtGroupUsers.executeBatch();
                 }
                 connection.commit(); //Envoi des données dans la BD
+                AuthorizationCache.invalidate();
 
                 /**
                  * //SILEX:todo
@@ -825,6 +638,7 @@ public class UserDAO extends PhisDAO<User, UserDTO> {
                 }
 
                 connection.commit();
+                AuthorizationCache.invalidate();
 
                 insertStatusList.add(new Status("Data updated", StatusCodeMsg.INFO, "users updated"));
                 results = new POSTResultsReturn(true, true, allUsersAlreadyInDB);
@@ -8,8 +8,10 @@
 package opensilex.service.dao;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import javax.ws.rs.NotFoundException;
 import opensilex.service.dao.exception.DAODataErrorAggregateException;
 import opensilex.service.dao.exception.DAOPersistenceException;
@@ -32,10 +34,8 @@ import org.eclipse.rdf4j.query.TupleQuery;
 import org.eclipse.rdf4j.query.TupleQueryResult;
 import org.eclipse.rdf4j.query.Update;
 import org.eclipse.rdf4j.repository.RepositoryException;
-import org.eclipse.rdf4j.repository.http.HTTPRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import opensilex.service.PropertiesFileManager;
 import opensilex.service.dao.manager.Rdf4jDAO;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.model.BrapiMethod;
@@ -202,33 +202,18 @@ public class VariableDAO extends Rdf4jDAO<Variable> {
     public int getLastId() {
         SPARQLQueryBuilder query = prepareGetLastId();
         
-        //SILEX:test
-        //All the triplestore connection has to been checked and updated
-        //This is an unclean hot fix
-        String tripleStoreServer = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "sesameServer");
-        String repositoryID = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "repositoryID");
-        rep = new HTTPRepository(tripleStoreServer, repositoryID); //Stockage triplestore
-        rep.initialize();
-        this.setConnection(rep.getConnection());
-        this.getConnection().begin();
-        //\SILEX:test
-
         //get last variable uri inserted
         TupleQuery tupleQuery = this.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query.toString());
-        TupleQueryResult result = tupleQuery.evaluate();
-
-        //SILEX:test
-        //For the pool connection problems
-        getConnection().commit();
-        getConnection().close();
-        //\SILEX:test
         
         String uriVariable = null;
         
-        if (result.hasNext()) {
-            BindingSet bindingSet = result.next();
-            uriVariable = bindingSet.getValue(URI).stringValue();
+        try (TupleQueryResult result = tupleQuery.evaluate()) {
+            if (result.hasNext()) {
+                BindingSet bindingSet = result.next();
+                uriVariable = bindingSet.getValue(URI).stringValue();
+            }
         }
+        getConnection().close();
         
         if (uriVariable == null) {
             return 0;
@@ -404,18 +389,10 @@ public class VariableDAO extends Rdf4jDAO<Variable> {
             // Register
             UpdateRequest spqlInsert = prepareInsertQuery(variableDTO);
             try {
-                //SILEX:todo
-                // storage connection to review: dirty hotfix
-                String tripleStoreServer = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "sesameServer");
-                String repositoryID = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "repositoryID");
-                rep = new HTTPRepository(tripleStoreServer, repositoryID); //Stockage triplestore
-                rep.initialize();
-                this.setConnection(rep.getConnection());
                 this.getConnection().begin();
                 Update prepareUpdate = this.getConnection().prepareUpdate(QueryLanguage.SPARQL, spqlInsert.toString());
                 LOGGER.debug(getTraceabilityLogs() + " query : " + prepareUpdate.toString());
                 prepareUpdate.execute();
-                //\SILEX:todo
 
                 createdResourcesURIList.add(variableDTO.getUri());
 
@@ -750,6 +727,23 @@ public class VariableDAO extends Rdf4jDAO<Variable> {
         }
     }
     
+    /**
+     * Gets, among the given URIs, the ones which are variables, with one query.
+     * @param uris
+     * @example
+     * SELECT DISTINCT ?r WHERE {
+     *  VALUES ?r { <http://www.opensilex.org/demo/id/variables/v001> <http://www.opensilex.org/demo/id/variables/v002> }
+     *  ?r <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> ?rdfType . 
+     *  ?rdfType <http://www.w3.org/2000/01/rdf-schema#subClassOf>* <http://www.opensilex.org/vocabulary/oeso#Variable> . 
+     * }
+     * @return the URIs corresponding to a variable
+     */
+    public Set<String> getExistingVariables(Collection<String> uris) {
+        return selectValuesUris(uris, 
+                "?r <" + Rdf.RELATION_TYPE.toString() + "> ?" + RDF_TYPE + " . "
+                + "?" + RDF_TYPE + " <" + Rdfs.RELATION_SUBCLASS_OF.toString() + ">* <" + Oeso.CONCEPT_VARIABLE.toString() + "> . ");
+    }
+    
     /**
      * Get the list of brapi variables from the the DAO
      * @return the list of brapi variables
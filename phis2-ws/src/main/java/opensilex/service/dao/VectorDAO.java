@@ -29,7 +29,6 @@ import org.eclipse.rdf4j.query.TupleQuery;
 import org.eclipse.rdf4j.query.TupleQueryResult;
 import org.eclipse.rdf4j.query.Update;
 import org.eclipse.rdf4j.repository.RepositoryException;
-import org.eclipse.rdf4j.repository.http.HTTPRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.dao.manager.Rdf4jDAO;
@@ -102,22 +101,13 @@ public class VectorDAO extends Rdf4jDAO<Vector> {
      */
     public int getNumberOfVectors(String year) {
         SPARQLQueryBuilder queryNumberVectors = prepareGetVectorsNumber(year);
-        //SILEX:test
-        //for the pool connection problems. 
-        //WARNING this is a quick fix
-        rep = new HTTPRepository(SESAME_SERVER, REPOSITORY_ID); //Stockage triplestore
-        rep.initialize();
-        setConnection(rep.getConnection());
-        //\SILEX:test
         TupleQuery tupleQuery = this.getConnection().prepareTupleQuery(QueryLanguage.SPARQL, queryNumberVectors.toString());
-        TupleQueryResult result = tupleQuery.evaluate();        
-        //SILEX:test
-        //for the pool connection problems.
+        String numberVectors;
+        try (TupleQueryResult result = tupleQuery.evaluate()) {
+            BindingSet bindingSet = result.next();
+            numberVectors = bindingSet.getValue("count").stringValue();
+        }
         getConnection().close();
-        //\SILEX:test
-        
-        BindingSet bindingSet = result.next();
-        String numberVectors = bindingSet.getValue("count").stringValue();
         
         return Integer.parseInt(numberVectors);
     }
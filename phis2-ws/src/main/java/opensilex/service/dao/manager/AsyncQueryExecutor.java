@@ -0,0 +1,131 @@
+//******************************************************************************
+//                           AsyncQueryExecutor.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.dao.manager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import opensilex.service.PropertiesFileManager;
+import opensilex.service.datasource.TriplestoreDataSource;
+import opensilex.service.utils.metrics.BackendMetrics;
+import opensilex.service.utils.metrics.BackendMetrics.RequestDurations;
+
+/**
+ * Runs the DAO queries asynchronously on a bounded pool of threads, so that
+ * the independent queries of a request are run at the same time.
+ * A DAO instance is not thread safe: each query run at the same time as
+ * another one must use its own DAO instance.
+ * The triplestore connections borrowed by a query are given back to the pool
+ * at the end of the query. The time spent in the databases by a query is 
+ * added to the request which has run it.
+ * When all the threads are busy and the queue is full, the query is rejected:
+ * the returned future fails with a RejectedExecutionException.
+ * The pool and queue sizes are read at startup in the service configuration
+ * file.
+ * @example
+ * CompletableFuture<Integer> count = AsyncQueryExecutor.supplyAsync(() -> new DataDAO().count(...));
+ * CompletableFuture<List<Data>> data = AsyncQueryExecutor.supplyAsync(() -> new DataDAO().find(...));
+ */
+public final class AsyncQueryExecutor {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(AsyncQueryExecutor.class);
+
+    private static final String PROPERTY_FILE_NAME = "service";
+
+    private static final int DEFAULT_POOL_SIZE = 32;
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+    // In seconds
+    private static final long KEEP_ALIVE_TIME = 60;
+
+    private static final AtomicLong REJECTED_COUNT = new AtomicLong();
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private AsyncQueryExecutor() {
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        int poolSize = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "asyncQueryPoolSize", DEFAULT_POOL_SIZE);
+        int queueSize = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "asyncQueryQueueSize", DEFAULT_QUEUE_SIZE);
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                KEEP_ALIVE_TIME, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                (runnable) -> {
+                    Thread thread = new Thread(runnable, "async-query-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        LOGGER.info("Asynchronous query executor initialized (poolSize=" + poolSize + ", queueSize=" + queueSize + ")");
+        return executor;
+    }
+
+    /**
+     * Runs a query asynchronously.
+     * @param <T> the query result type
+     * @param query
+     * @return the future result of the query
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> query) {
+        // The dependent stages run in the query thread are counted too
+        RequestDurations requestDurations = BackendMetrics.getRequestDurations();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return query.get();
+                } finally {
+                    TriplestoreDataSource.releaseThreadConnections();
+                }
+            }, (task) -> EXECUTOR.execute(() -> BackendMetrics.runInRequest(requestDurations, task)));
+        } catch (RejectedExecutionException ex) {
+            REJECTED_COUNT.incrementAndGet();
+            LOGGER.warn("Asynchronous query rejected: " + EXECUTOR.getActiveCount() + " running, "
+                    + EXECUTOR.getQueue().size() + " waiting");
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(ex);
+            return rejected;
+        }
+    }
+
+    /**
+     * @return the number of threads running a query
+     */
+    public static int getActiveCount() {
+        return EXECUTOR.getActiveCount();
+    }
+
+    /**
+     * @return the number of queries waiting for a thread
+     */
+    public static int getQueueSize() {
+        return EXECUTOR.getQueue().size();
+    }
+
+    public static int getPoolSize() {
+        return EXECUTOR.getMaximumPoolSize();
+    }
+
+    public static long getCompletedCount() {
+        return EXECUTOR.getCompletedTaskCount();
+    }
+
+    public static long getRejectedCount() {
+        return REJECTED_COUNT.get();
+    }
+}
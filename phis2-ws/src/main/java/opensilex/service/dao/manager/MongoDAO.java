@@ -9,18 +9,24 @@ package opensilex.service.dao.manager;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoClientURI;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
-import com.mongodb.gridfs.GridFS;
+import java.util.Date;
+import java.util.Set;
 import org.bson.Document;
 import org.bson.codecs.configuration.CodecProvider;
 import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
 import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.codecs.pojo.PojoCodecProvider;
+import org.bson.types.ObjectId;
 import opensilex.service.PropertiesFileManager;
 import opensilex.service.configuration.DefaultBrapiPaginationValues;
+import opensilex.service.datasource.MongoIndexRegistry;
+import opensilex.service.datasource.MongoIndexRegistry.CollectionIndexes;
+import opensilex.service.datasource.MongoMetricsListener;
 import opensilex.service.model.User;
 
 /**
@@ -30,17 +36,19 @@ import opensilex.service.model.User;
  */
 public abstract class MongoDAO<T> extends DAO<T> {
 
+    protected static final String PROPERTY_FILENAME = "mongodb_nosql_config";
+
     /**
      * This block initialize MongoDB connection URL with user authentication or not 
      * depending of the configuration
      * @see mongodb_nosql_config.properties file
      */
     static {
-        String host = PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "host");
-        String port = PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "port");
-        String user = PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "user");
-        String password = PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "password");
-        String authdb = PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "authdb");
+        String host = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "host");
+        String port = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "port");
+        String user = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "user");
+        String password = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "password");
+        String authdb = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "authdb");
         String url = "mongodb://";
         if (!user.equals("")) {
             url += user + ":" + password + "@";
@@ -52,11 +60,24 @@ public abstract class MongoDAO<T> extends DAO<T> {
              url += "?authSource=" + authdb;
         }
         
-        MONGO_CLIENT = new MongoClient(new MongoClientURI(url));
+        // The listener records the commands durations and the connections 
+        // pool usage in the metrics
+        MongoMetricsListener metricsListener = new MongoMetricsListener();
+        MongoClientOptions.Builder options = MongoClientOptions.builder()
+                .addCommandListener(metricsListener)
+                .addConnectionPoolListener(metricsListener);
+        METRICS_LISTENER = metricsListener;
+        MONGO_CLIENT = new MongoClient(new MongoClientURI(url, options));
+        
+        // Add feature to automatically serialize/deserialize class object in mongodb
+        // @see http://mongodb.github.io/mongo-java-driver/3.10/bson/pojos/
+        CodecProvider pojoCodecProvider = PojoCodecProvider.builder().automatic(true).build();
+        POJO_CODEC_REGISTRY = fromRegistries(MongoClient.getDefaultCodecRegistry(), fromProviders(pojoCodecProvider));
     }
     private final static MongoClient MONGO_CLIENT;
+    private final static MongoMetricsListener METRICS_LISTENER;
+    private final static CodecRegistry POJO_CODEC_REGISTRY;
     
-    protected GridFS gridFS = new GridFS(MONGO_CLIENT.getDB(PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "db")));
     protected MongoDatabase database;
     protected MongoCollection<Document> collection;
 
@@ -75,23 +96,24 @@ public abstract class MongoDAO<T> extends DAO<T> {
     public final static String MONGO_AND = "$and";
     //error code send by mongo in case of duplicated data with unique indexes
     public final static int DUPLICATE_KEY_ERROR_CODE = 11000;
+    //separator of the date and the id in the cursors
+    private final static String CURSOR_SEPARATOR = "-";
     
     /**
      * @see service.properties file
      */
     public MongoDAO() {
-        // Add feature to automatically serialize/deserialize class object in mongodb
-        // @see http://mongodb.github.io/mongo-java-driver/3.10/bson/pojos/
-        CodecProvider pojoCodecProvider = PojoCodecProvider.builder().automatic(true).build();
-        CodecRegistry pojoCodecRegistry = fromRegistries(MongoClient.getDefaultCodecRegistry(), fromProviders(pojoCodecProvider));
-        
-        this.setDatabase(MONGO_CLIENT.getDatabase(PropertiesFileManager.getConfigFileProperty("mongodb_nosql_config", "db")).withCodecRegistry(pojoCodecRegistry));
+        this.setDatabase(MONGO_CLIENT.getDatabase(PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "db")).withCodecRegistry(POJO_CODEC_REGISTRY));
     }
 
     public static MongoClient getMongoClient() {
         return MONGO_CLIENT;
     }
 
+    public static MongoMetricsListener getMetricsListener() {
+        return METRICS_LISTENER;
+    }
+
     public MongoDatabase getDatabase() {
         return database;
     }
@@ -159,6 +181,88 @@ public abstract class MongoDAO<T> extends DAO<T> {
         this.pageSize = pageSize;
     }
 
+    /**
+     * Creates the indexes of the collections of the DAO which have a fixed 
+     * name, and of its existing collections it can recognize. Called at 
+     * startup.
+     * @see MongoIndexRegistry
+     */
+    public void ensureIndexes() {
+    }
+    
+    /**
+     * Gets the collections of the database which existed at startup.
+     * @return the collections names
+     */
+    protected Set<String> getExistingCollections() {
+        return MongoIndexRegistry.getInstance().loadExistingCollections(database);
+    }
+    
+    /**
+     * Creates the declared indexes of a collection, on its first use.
+     * @param collectionName
+     * @param indexes
+     */
+    protected void ensureIndexes(String collectionName, CollectionIndexes indexes) {
+        MongoIndexRegistry.getInstance().ensureIndexes(database, collectionName, indexes);
+    }
+    
+    /**
+     * Creates the declared indexes of a collection, on its first use, if the 
+     * collection exists. To be used before reading a collection.
+     * @param collectionName
+     * @param indexes
+     */
+    protected void ensureIndexesIfExists(String collectionName, CollectionIndexes indexes) {
+        MongoIndexRegistry.getInstance().ensureIndexesIfExists(database, collectionName, indexes);
+    }
+    
+    /**
+     * Generates the cursor of a document sorted by date and by id, from its 
+     * date and its id.
+     * @param date
+     * @param id
+     * @example 1552386023784-5c87a1e7e4b0d4a8e8b1c7a2
+     * @return the cursor
+     */
+    protected static String encodeCursor(Date date, ObjectId id) {
+        return Long.toString(date.getTime()) + CURSOR_SEPARATOR + id.toHexString();
+    }
+    
+    /**
+     * Gets the date and the id of the document identified by a cursor.
+     * @param cursor
+     * @return the date and the id
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    protected static Object[] decodeCursor(String cursor) {
+        int separatorIndex = cursor.lastIndexOf(CURSOR_SEPARATOR);
+        if (separatorIndex < 0) {
+            throw new IllegalArgumentException("Invalid cursor : " + cursor);
+        }
+        try {
+            Date date = new Date(Long.parseLong(cursor.substring(0, separatorIndex)));
+            ObjectId id = new ObjectId(cursor.substring(separatorIndex + 1));
+            return new Object[] {date, id};
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor : " + cursor, ex);
+        }
+    }
+    
+    /**
+     * Checks if a cursor can be used to continue a reading after a document.
+     * @param cursor
+     * @return true if the cursor is valid
+     */
+    public static boolean isValidCursor(String cursor) {
+        try {
+            decodeCursor(cursor);
+            return true;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
     /**
      * Prepares a search query.
      * @return BasicDBObject
@@ -14,15 +14,14 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.StringTokenizer;
 import java.util.logging.Level;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
@@ -34,10 +33,12 @@ import org.joda.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.postgis.Geometry;
+import opensilex.service.PropertiesFileManager;
 import opensilex.service.authentication.TokenManager;
 import opensilex.service.configuration.DefaultBrapiPaginationValues;
 import opensilex.service.datasource.PostgreSQLDataSource;
 import opensilex.service.utils.JsonConverter;
+import opensilex.service.utils.sql.ResultSetHandler;
 import opensilex.service.utils.sql.SQLQueryBuilder;
 
 /**
@@ -49,6 +50,7 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(PostgreSQLDAO.class);
     protected final static String DUPLICATE_KEY_ERROR_POSTGRE = "23505";
+    private final static int DEFAULT_FETCH_SIZE = 500;
 
     static final Map<String, DataSource> JWT_ISSUER_DATASOURCE;
     protected static final String PHIS_MODEL_DB_LOCATION = "Phis";
@@ -80,6 +82,13 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
      */
     protected final int batchSize = 1000;
     
+    /**
+     * Number of rows fetched at once by the select queries. The driver only
+     * uses it inside a transaction (see selectQuery).
+     * @see phis_sql_config.properties file
+     */
+    protected static final int FETCH_SIZE = PropertiesFileManager.getConfigFileIntProperty("phis_sql_config", "fetchSize", DEFAULT_FETCH_SIZE);
+    
     public DataSource getDataSource() {
         return dataSource;
     }
@@ -161,54 +170,129 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
     }
 
     /**
-     * Not practical the resources (statement and resultset) stay open. 
-     * Execute a search request from a DAO linked to a relational database.
+     * Prepares a select query with forward only and read only cursors, and 
+     * binds its parameters. The prepared statements are cached by the 
+     * connection pool (StatementCache interceptor).
+     * @param connection
+     * @param query the query, with "?" for each parameter
+     * @param parameters the parameters values, in their order in the query
+     * @return the prepared statement, to close by the caller
+     * @throws SQLException 
+     */
+    protected PreparedStatement prepareSelectStatement(Connection connection, String query, List<?> parameters) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(FETCH_SIZE);
+        bindParameters(statement, parameters);
+        return statement;
+    }
+    
+    /**
+     * Prepares a select query built with bind values.
+     * @param connection
      * @param query
-     * @return 
-     * @deprecated
-     * @throws SQLException
+     * @return the prepared statement, to close by the caller
+     * @throws SQLException 
+     * @see SQLQueryBuilder#SQLQueryBuilder(boolean) 
      */
-    public ResultSet selectQueryFromDAO(String query) throws SQLException {
-        Connection connection;
-        Statement statement;
-        connection = dataSource.getConnection();
-        statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-        return statement.executeQuery(query);
+    protected PreparedStatement prepareSelectStatement(Connection connection, SQLQueryBuilder query) throws SQLException {
+        return prepareSelectStatement(connection, query.toString(), query.getParameters());
     }
-
+    
+    /**
+     * Binds the parameters of a prepared statement. The strings are sent
+     * without type, so that PostgreSQL reads them as it reads quoted values
+     * (e.g. 'true' for a boolean column).
+     * @param statement
+     * @param parameters
+     * @throws SQLException 
+     */
+    private static void bindParameters(PreparedStatement statement, List<?> parameters) throws SQLException {
+        int parameterIndex = 1;
+        for (Object parameter : parameters) {
+            if (parameter instanceof String) {
+                statement.setObject(parameterIndex, parameter, Types.OTHER);
+            } else {
+                statement.setObject(parameterIndex, parameter);
+            }
+            parameterIndex++;
+        }
+    }
+    
     /**
-     * Runs a query from a DAO.
+     * Runs a select query built with bind values.
+     * The connection, the statement and the result set are closed when the 
+     * result has been read.
+     * @param <R> the result type
      * @param query
-     * @return 
-     * @throws SQLException
+     * @param resultSetHandler reads the result set
+     * @return the result read
+     * @throws SQLException 
      */
-    public Integer insertOrUpdateOrDeleteQueryFromDAO(String query) throws SQLException {
-        Connection connection = dataSource.getConnection();
-        Statement stat = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
-        Integer executeUpdate = stat.executeUpdate(query);
-        stat.close();
-        connection.close();
-        return executeUpdate;
+    public <R> R selectQuery(SQLQueryBuilder query, ResultSetHandler<R> resultSetHandler) throws SQLException {
+        return selectQuery(query.toString(), query.getParameters(), resultSetHandler);
     }
-
+    
+    /**
+     * Runs a select query.
+     * The connection, the statement and the result set are closed when the 
+     * result has been read.
+     * @param <R> the result type
+     * @param query the query, with "?" for each parameter
+     * @param parameters the parameters values, in their order in the query
+     * @param resultSetHandler reads the result set
+     * @return the result read
+     * @throws SQLException 
+     */
+    public <R> R selectQuery(String query, List<?> parameters, ResultSetHandler<R> resultSetHandler) throws SQLException {
+        LOGGER.debug(SQL_SELECT_QUERY + query);
+        try (Connection connection = dataSource.getConnection()) {
+            // The rows are fetched by FETCH_SIZE only in a transaction
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = prepareSelectStatement(connection, query, parameters);
+                    ResultSet resultSet = statement.executeQuery()) {
+                return resultSetHandler.handle(resultSet);
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+    
     /**
-     * Prepares a SQL query using a string with the following format: 
-     * "variable1, variable2".
-     * @param variables
-     * @param request
-     * @param column column to which the variables will be added
-     * @return The complete query string
-     *
+     * Runs a select query built with bind values on a connection, to run 
+     * several queries with the same connection. The statement and the result
+     * set are closed when the result has been read, the connection is left 
+     * open.
+     * @param <R> the result type
+     * @param connection
+     * @param query
+     * @param resultSetHandler reads the result set
+     * @return the result read
+     * @throws SQLException 
      */
-    public static String formatMultipleValueQuery(String variables, String column, String request) {
-        StringTokenizer stringTokenizer = new StringTokenizer(variables, ",");
-        String result = "(";
-        result = result + column + " = '" + stringTokenizer.nextToken() + "'";
-        while (stringTokenizer.hasMoreTokens()) {
-            result = result + " OR " + column + " = '" + stringTokenizer.nextToken() + "'";
+    protected <R> R selectQuery(Connection connection, SQLQueryBuilder query, ResultSetHandler<R> resultSetHandler) throws SQLException {
+        LOGGER.debug(SQL_SELECT_QUERY + query.toString());
+        try (PreparedStatement statement = prepareSelectStatement(connection, query);
+                ResultSet resultSet = statement.executeQuery()) {
+            return resultSetHandler.handle(resultSet);
+        }
+    }
+    
+    /**
+     * Runs an insert, update or delete query with bind values.
+     * @param query the query, with "?" for each parameter
+     * @param parameters the parameters values, in their order in the query
+     * @return the number of rows changed
+     * @throws SQLException 
+     */
+    public Integer updateQuery(String query, Object... parameters) throws SQLException {
+        LOGGER.debug(SQL_SELECT_QUERY + query);
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(query)) {
+            bindParameters(statement, Arrays.asList(parameters));
+            return statement.executeUpdate();
         }
-        result = result + ")";
-        return request + " AND " + result;
     }
 
     /**
@@ -219,11 +303,12 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
      * @throws Exception
      */
     public boolean existInDB(T objectToSearch) throws Exception {
+        List<Object> parameters = new ArrayList<>();
         String query = new StringBuilder("SELECT * ")
                 .append("FROM ")
                 .append("\"").append(table).append("\"")
                 .append(" WHERE ")
-                .append(makeFindSQLConditionQuery(objectToSearch, false)).toString();
+                .append(makeFindSQLConditionQuery(objectToSearch, false, parameters)).toString();
         ResultSet resultSet = null;
         PreparedStatement statement = null;
         Connection connection = null;
@@ -231,7 +316,7 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
         LOGGER.debug(query);
         try {
             connection = dataSource.getConnection();
-            statement = connection.prepareStatement(query);
+            statement = prepareSelectStatement(connection, query, parameters);
             resultSet = statement.executeQuery();
             if (resultSet != null) {
                 return resultSet.next();
@@ -267,14 +352,15 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
     @Override
     public T find(T objectToFind) throws Exception {
         StringBuilder strSQLBuilder = new StringBuilder();
+        List<Object> parameters = new ArrayList<>();
         // Requete SELECT préparée
         strSQLBuilder.append("SELECT * ")
                 .append("FROM ")
                 .append("\"").append(table).append("\"")
                 .append(" WHERE ")
-                .append(makeFindSQLConditionQuery(objectToFind, false));
+                .append(makeFindSQLConditionQuery(objectToFind, false, parameters));
         LOGGER.debug(strSQLBuilder.toString());
-        Statement Statement = null;
+        PreparedStatement Statement = null;
         ResultSet resultSet = null;
         Connection connection = null;
         Map<String, String> objectFields = relationFieldsJavaSQLObject();
@@ -282,12 +368,9 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
         LOGGER.debug(JsonConverter.ConvertToJson(objectToFind));
         try {
             connection = dataSource.getConnection();
-            Statement = connection.createStatement(
-                    ResultSet.TYPE_SCROLL_INSENSITIVE, 
-                    ResultSet.CONCUR_READ_ONLY, 
-                    ResultSet.HOLD_CURSORS_OVER_COMMIT);
-            resultSet = Statement.executeQuery(strSQLBuilder.toString());
-            if (resultSet != null && resultSet.first()) {
+            Statement = prepareSelectStatement(connection, strSQLBuilder.toString(), parameters);
+            resultSet = Statement.executeQuery();
+            if (resultSet != null && resultSet.next()) {
                 for (Field field : attributes) {
                     field.setAccessible(true);
                     if (objectFields.containsKey(field.getName())
@@ -388,12 +471,15 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
     public abstract Map<String, String> relationFieldsJavaSQLObject();
 
     /**
-     * Creates a query to get an element in a database from its primary key.
+     * Creates the condition to get an element in a database from its primary
+     * key. The values are replaced by "?" and added to the parameters, so 
+     * that the query is the same for all the elements.
      * @param object
      * @param like
-     * @return the query built
+     * @param parameters the list to which the values to bind are added
+     * @return the condition built
      */
-    public String makeFindSQLConditionQuery(T object, boolean like) {
+    public String makeFindSQLConditionQuery(T object, boolean like, List<Object> parameters) {
         final Map<String, String> pkeyLink = this.pkeySQLFieldLink();
         StringBuilder stringBuilder = new StringBuilder();
         List<Field> attributes = new ArrayList<>();
@@ -409,20 +495,26 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
                         stringBuilder.append(" AND ");
                     }
                     String sqlField = "\"" + pkeyLink.get(field.getName()) + "\"";
+                    // The values are bound as strings, read by PostgreSQL as the
+                    // quoted values were
                     if (fieldObject instanceof DateTime) {
                         if (like) {
                             final DateTimeFormatter fmt = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss");
                             final String finalDate = fmt.print((DateTime) fieldObject);
-                            stringBuilder.append(sqlField).append("::text LIKE '").append(finalDate).append("%'");
+                            stringBuilder.append(sqlField).append("::text LIKE ?");
+                            parameters.add(finalDate + "%");
                         } else {
                             final DateTimeFormatter fmt = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ssZ");
                             final String finalDate = fmt.print((DateTime) fieldObject).substring(0, 22);
-                            stringBuilder.append(sqlField).append("='").append(finalDate).append("'");
+                            stringBuilder.append(sqlField).append("=?");
+                            parameters.add(finalDate);
                         }
                     } else if (like) {
-                        stringBuilder.append(sqlField).append(" LIKE '").append(fieldObject).append("%'");
+                        stringBuilder.append(sqlField).append(" LIKE ?");
+                        parameters.add(fieldObject + "%");
                     } else {
-                        stringBuilder.append(sqlField).append("='").append(fieldObject).append("'");
+                        stringBuilder.append(sqlField).append("=?");
+                        parameters.add(fieldObject.toString());
                     }
                 }
             }
@@ -433,50 +525,6 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
         return stringBuilder.toString();
     }
 
-    /**
-     * Builds a query to insert an element in a database from its primary key.
-     * @param objectToInsert
-     * @return
-     */
-    public String makeCreateSQLConditionQuery(T objectToInsert) {
-        final Map<String, String> createSQLField = this.relationFieldsJavaSQLObject();
-        StringBuilder attributesBuilder = new StringBuilder();
-        StringBuilder valuesBuilder = new StringBuilder();
-        final Field[] attributes = objectToInsert.getClass().getDeclaredFields();
-        try {
-            for (Field field : attributes) {
-                field.setAccessible(true);
-                Object fieldObject = field.get(objectToInsert);
-                if (createSQLField.containsKey(field.getName())) {
-                    if (attributesBuilder.length() > 0) {
-                        attributesBuilder.append(", ");
-                    }
-                    String sqlField = createSQLField.get(field.getName());
-                    attributesBuilder.append(sqlField);
-
-                    if (valuesBuilder.length() > 0) {
-                        valuesBuilder.append(", ");
-                    }
-                    if (fieldObject == null) {
-                        valuesBuilder.append("NULL");
-                    } else if (fieldObject instanceof DateTime) {
-                        final DateTimeFormatter fmt = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ssZ");
-                        final String finalDate = fmt.print((DateTime) fieldObject).substring(0, 22);
-                        valuesBuilder.append("'").append(finalDate).append("'");
-                    } else {
-                        valuesBuilder.append("'").append(fieldObject).append("'");
-                    }
-                }
-            }
-        } catch (SecurityException | IllegalArgumentException | IllegalAccessException ex) {
-            LOGGER.error(ex.getMessage(), ex);
-            return null;
-        }
-        final String createSQLValuesQuery = "(" + attributesBuilder.toString() + ")"
-                + " VALUES (" + valuesBuilder.toString() + ")";
-        return createSQLValuesQuery;
-    }
-
     /**
      * Builds a query to insert an element in a database from its primary key.
      * @param connection
@@ -510,7 +558,6 @@ public abstract class PostgreSQLDAO<T> extends DAO<T> {
             final String createSQLValuesQuery = query + "(" + attributesBuilder.toString() + ")"
                     + " VALUES (" + valuesBuilder.toString() + ")";
 
-            connection = dataSource.getConnection();
             preparedStatement = connection.prepareStatement(createSQLValuesQuery);
             int fieldCount = 1;
             for (Field field : attributes) {
@@ -8,9 +8,15 @@
 package opensilex.service.dao.manager;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import org.apache.jena.arq.querybuilder.UpdateBuilder;
@@ -34,7 +40,6 @@ import org.eclipse.rdf4j.query.UpdateExecutionException;
 import org.eclipse.rdf4j.repository.Repository;
 import org.eclipse.rdf4j.repository.RepositoryConnection;
 import org.eclipse.rdf4j.repository.RepositoryException;
-import org.eclipse.rdf4j.repository.http.HTTPRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.PropertiesFileManager;
@@ -42,11 +47,14 @@ import opensilex.service.authentication.TokenManager;
 import opensilex.service.configuration.DateFormat;
 import opensilex.service.configuration.DefaultBrapiPaginationValues;
 import opensilex.service.configuration.URINamespaces;
+import opensilex.service.datasource.TriplestoreCache;
+import opensilex.service.datasource.TriplestoreDataSource;
 import opensilex.service.dao.exception.DAOPersistenceException;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.model.User;
 import opensilex.service.ontology.Rdf;
 import opensilex.service.ontology.Rdfs;
+import opensilex.service.utils.sparql.SPARQLInsertBatcher;
 import opensilex.service.utils.sparql.SPARQLQueryBuilder;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.view.brapi.form.ResponseFormPOST;
@@ -89,22 +97,24 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
      * For the moment we use only one page by taking the max value
      * //\SILEX:todo
      */    
-    protected int pageSizeMaxValue = Integer.parseInt(PropertiesFileManager
-            .getConfigFileProperty("service", "pageSizeMax"));
+    protected int pageSizeMaxValue = PropertiesFileManager
+            .getConfigFileIntProperty("service", "pageSizeMax");
     
-    //SILEX:test
-    // For the full connection pool issue
-    protected static final String SESAME_SERVER = PropertiesFileManager
-            .getConfigFileProperty(PROPERTY_FILENAME, "sesameServer");
-    protected static final String REPOSITORY_ID = PropertiesFileManager
-            .getConfigFileProperty(PROPERTY_FILENAME, "repositoryID");
-    //\SILEX:test
-
     // used for logger
     protected static final String SPARQL_QUERY = "SPARQL query: ";
     
     protected static final String COUNT_ELEMENT_QUERY = "count";
     
+    /**
+     * Maximum number of URIs sent in one VALUES block.
+     */
+    protected static final int VALUES_BLOCK_MAX_SIZE = 1000;
+    
+    /**
+     * Absolute IRI which can be written between angle brackets in a query.
+     */
+    private static final Pattern IRI_PATTERN = Pattern.compile("[a-zA-Z][a-zA-Z0-9+.-]*:[^\\s<>\"{}|^`\\\\]*");
+    
     /**
      * The following constants are SPARQL variables name used for each subclass 
      * to query the triplestore.
@@ -121,7 +131,10 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
     // Triplestore relations
     protected static final URINamespaces ONTOLOGIES = new URINamespaces();
 
-    protected static Repository rep;
+    /**
+     * Data source of the repository from which the connections are borrowed.
+     */
+    private final TriplestoreDataSource dataSource;
     private RepositoryConnection connection;
 
     protected static String resourceType;
@@ -130,18 +143,7 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
     protected Integer pageSize;
 
     public Rdf4jDAO() {
-        try {
-            String triplestoreServer = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "sesameServer");
-            String repositoryID = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "repositoryID");
-            rep = new HTTPRepository(triplestoreServer, repositoryID); //Stockage triplestore
-            rep.initialize();
-            setConnection(rep.getConnection());
-        } catch (RepositoryException e) {
-            ResponseFormPOST postForm = new ResponseFormPOST(
-                    new Status("Can't connect to triplestore", StatusCodeMsg.ERR, e.getMessage()));
-            throw new WebApplicationException(
-                    Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(postForm).build());
-        }
+        this.dataSource = TriplestoreDataSource.getInstance();
     }
 
     public Rdf4jDAO(User user) {
@@ -150,20 +152,25 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
     }
 
     public Rdf4jDAO(String repositoryID) {
-        try {
-            String tripleStoreServer = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "sesameServer");
-            rep = new HTTPRepository(tripleStoreServer, repositoryID); //Stockage triplestore
-            rep.initialize();
-            setConnection(rep.getConnection());
-        } catch (RepositoryException e) {
-            ResponseFormPOST postForm = new ResponseFormPOST(
-                    new Status("Can't connect to triplestore", StatusCodeMsg.ERR, e.getMessage()));
-            throw new WebApplicationException(
-                    Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(postForm).build());
-        }
+        this.dataSource = TriplestoreDataSource.getInstance(repositoryID);
     }
 
+    /**
+     * Gets the connection of the DAO. A connection is borrowed from the 
+     * triplestore data source if the DAO has no open connection.
+     * @return the connection
+     */
     public RepositoryConnection getConnection() {
+        if (connection == null || !connection.isOpen()) {
+            try {
+                setConnection(dataSource.getConnection());
+            } catch (RepositoryException e) {
+                ResponseFormPOST postForm = new ResponseFormPOST(
+                        new Status("Can't connect to triplestore", StatusCodeMsg.ERR, e.getMessage()));
+                throw new WebApplicationException(
+                        Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(postForm).build());
+            }
+        }
         return connection;
     }
 
@@ -172,7 +179,7 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
     }
 
     public static Repository getRepository() {
-        return rep;
+        return TriplestoreDataSource.getInstance().getRepository();
     }
 
     /**
@@ -229,6 +236,25 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
             handleTriplestoreException(ex);
         }
     }
+    
+    /**
+     * Executes the insert requests of update builders. Their statements are
+     * sent in a few INSERT DATA requests.
+     * @param updateBuilders
+     * @throws opensilex.service.dao.exception.DAOPersistenceException 
+     * @see SPARQLInsertBatcher
+     */
+    protected void executeInsertRequests(List<UpdateBuilder> updateBuilders) throws DAOPersistenceException {
+        try {
+            SPARQLInsertBatcher batcher = new SPARQLInsertBatcher(getConnection());
+            for (UpdateBuilder updateBuilder : updateBuilders) {
+                batcher.add(updateBuilder);
+            }
+            batcher.flush();
+        } catch (JenaException|RDF4JException ex) {
+            handleTriplestoreException(ex);
+        }
+    }
 
     /**
      * Checks if a subject exists by triplet.
@@ -292,6 +318,91 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
         }
     }
     
+    /**
+     * Gets, among the given URIs, the ones which exist in the triplestore. 
+     * Only one query is sent for up to VALUES_BLOCK_MAX_SIZE URIs.
+     * @param uris the URIs to test
+     * @example
+     * SELECT DISTINCT ?r WHERE {
+     *  VALUES ?r { <http://www.opensilex.org/demo/2018/o18000076> <http://www.opensilex.org/demo/2018/o18000077> }
+     *  FILTER (EXISTS { ?r ?p ?o } || EXISTS { ?s ?r ?o } || EXISTS { ?s ?p ?r })
+     * }
+     * @return the existing URIs
+     */
+    public Set<String> getExistingUris(Collection<String> uris) {
+        return selectValuesUris(uris, 
+                "FILTER (EXISTS { ?r ?p ?o } || EXISTS { ?s ?r ?o } || EXISTS { ?s ?p ?r })");
+    }
+    
+    /**
+     * Gets, among the given URIs, the ones matching the given graph pattern, 
+     * in which the URI is bound to the variable ?r.
+     * The URIs which are not valid IRIs are never returned. The URIs are sent 
+     * in a VALUES block, by blocks of VALUES_BLOCK_MAX_SIZE URIs.
+     * @param uris
+     * @param graphPattern
+     * @example ?r rdf:type ?rdfType
+     * @return the matching URIs
+     */
+    protected Set<String> selectValuesUris(Collection<String> uris, String graphPattern) {
+        Set<String> matchingUris = new HashSet<>();
+        List<String> validUris = new ArrayList<>();
+        for (String uri : new LinkedHashSet<>(uris)) {
+            if (uri != null && IRI_PATTERN.matcher(uri).matches()) {
+                validUris.add(uri);
+            }
+        }
+        
+        for (int from = 0; from < validUris.size(); from += VALUES_BLOCK_MAX_SIZE) {
+            List<String> block = validUris.subList(from, Math.min(from + VALUES_BLOCK_MAX_SIZE, validUris.size()));
+            StringBuilder query = new StringBuilder("SELECT DISTINCT ?r WHERE {\n  VALUES ?r {");
+            block.forEach((uri) -> {
+                query.append(" <").append(uri).append(">");
+            });
+            query.append(" }\n  ").append(graphPattern).append("\n}");
+            
+            LOGGER.debug(SPARQL_QUERY + query.toString());
+            TupleQuery tupleQuery = getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query.toString());
+            try (TupleQueryResult result = tupleQuery.evaluate()) {
+                while (result.hasNext()) {
+                    matchingUris.add(result.next().getValue("r").stringValue());
+                }
+            }
+        }
+        return matchingUris;
+    }
+
+    /**
+     * Generates a VALUES block binding a SPARQL variable to the given URIs,
+     * to query several resources at once.
+     * @param selectNameSparql
+     * @param uris
+     * @example VALUES ?uri { <http://www.opensilex.org/demo/2018/o18000076> <http://www.opensilex.org/demo/2018/o18000077> }
+     * @return the VALUES block
+     */
+    protected static String prepareValuesBlock(String selectNameSparql, Collection<String> uris) {
+        StringBuilder values = new StringBuilder("VALUES " + selectNameSparql + " {");
+        uris.forEach((uri) -> {
+            values.append(" <").append(uri).append(">");
+        });
+        values.append(" }\n");
+        return values.toString();
+    }
+
+    /**
+     * Splits a list of URIs in blocks of at most VALUES_BLOCK_MAX_SIZE URIs,
+     * each block being sent in one query.
+     * @param uris
+     * @return the blocks of URIs
+     */
+    protected static List<List<String>> splitInValuesBlocks(List<String> uris) {
+        List<List<String>> blocks = new ArrayList<>();
+        for (int from = 0; from < uris.size(); from += VALUES_BLOCK_MAX_SIZE) {
+            blocks.add(uris.subList(from, Math.min(from + VALUES_BLOCK_MAX_SIZE, uris.size())));
+        }
+        return blocks;
+    }
+
     /**
      * Check if a given URI exist in a given Graph in the triplestore.
      * @param uri the uri to test
@@ -557,6 +668,8 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
     
     /**
      * Get the list of labels for a given uri.
+     * The labels are cached.
+     * @see TriplestoreCache#getResourcesLabels() 
      * @param uri
      * @example 
      * SELECT DISTINCT  ?label 
@@ -566,6 +679,11 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
      * @return the list of labels.
      */
     public List<String> findLabelsForUri(String uri) {
+        List<String> cachedLabels = TriplestoreCache.getResourcesLabels().get(uri);
+        if (cachedLabels != null) {
+            return new ArrayList<>(cachedLabels);
+        }
+        
         //1. Generate the query
         SPARQLQueryBuilder query = new SPARQLQueryBuilder();
         query.appendSelect("?" + LABEL);
@@ -584,17 +702,70 @@ public abstract class Rdf4jDAO<T> extends DAO<T> {
             }
         }
         
+        TriplestoreCache.getResourcesLabels().put(uri, Collections.unmodifiableList(new ArrayList<>(labels)));
         return labels;
     }
 
+    /**
+     * Gets the labels of the given URIs, with one query for up to 
+     * VALUES_BLOCK_MAX_SIZE URIs.
+     * @param uris
+     * @example 
+     * SELECT ?uri ?label WHERE {
+     *  VALUES ?uri { <http://www.opensilex.org/opensilex/2019/o19000060> <http://www.opensilex.org/opensilex/2019/o19000061> }
+     *  ?uri <http://www.w3.org/2000/01/rdf-schema#label> ?label .
+     * }
+     * @return the labels by URI. Each valid given URI is in the map, with an 
+     * empty list if it has no label.
+     */
+    public Map<String, List<String>> findLabelsForUris(Collection<String> uris) {
+        Map<String, List<String>> urisLabels = new HashMap<>();
+        List<String> validUris = new ArrayList<>();
+        for (String uri : new LinkedHashSet<>(uris)) {
+            if (uri != null && IRI_PATTERN.matcher(uri).matches()) {
+                validUris.add(uri);
+                urisLabels.put(uri, new ArrayList<>());
+            }
+        }
+        
+        for (int from = 0; from < validUris.size(); from += VALUES_BLOCK_MAX_SIZE) {
+            List<String> block = validUris.subList(from, Math.min(from + VALUES_BLOCK_MAX_SIZE, validUris.size()));
+            StringBuilder query = new StringBuilder("SELECT ?" + URI + " ?" + LABEL + " WHERE {\n  VALUES ?" + URI + " {");
+            block.forEach((uri) -> {
+                query.append(" <").append(uri).append(">");
+            });
+            query.append(" }\n  ?" + URI + " <" + Rdfs.RELATION_LABEL.toString() + "> ?" + LABEL + " .\n}");
+            
+            LOGGER.debug(SPARQL_QUERY + query.toString());
+            TupleQuery tupleQuery = getConnection().prepareTupleQuery(QueryLanguage.SPARQL, query.toString());
+            try (TupleQueryResult result = tupleQuery.evaluate()) {
+                while (result.hasNext()) {
+                    BindingSet bindingSet = result.next();
+                    List<String> labels = urisLabels.get(bindingSet.getValue(URI).stringValue());
+                    String label = bindingSet.getValue(LABEL).stringValue();
+                    if (labels != null && !labels.contains(label)) {
+                        labels.add(label);
+                    }
+                }
+            }
+        }
+        
+        return urisLabels;
+    }
+
     @Override
     protected void initConnection() {
         getConnection().begin();    
     }
 
+    /**
+     * Gives back the connection to the triplestore data source.
+     */
     @Override
     protected void closeConnection() {
-        getConnection().close();
+        if (connection != null) {
+            connection.close();
+        }
     }
 
     @Override
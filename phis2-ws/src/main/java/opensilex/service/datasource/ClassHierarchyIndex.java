@@ -0,0 +1,396 @@
+//******************************************************************************
+//                           ClassHierarchyIndex.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.datasource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import opensilex.service.PropertiesFileManager;
+import opensilex.service.ontology.Rdfs;
+
+/**
+ * In-memory index of the class hierarchy (rdfs:subClassOf) of the triplestore.
+ * The ancestors of each class are stored in a bitset, so that the subclass
+ * checks are answered in constant time. The descendants are found by walking
+ * the direct subclasses.
+ * The index is loaded on first use (or at startup) and reloaded when an update
+ * sent through a pooled triplestore connection changes the class hierarchy. As
+ * the updates of the other applications can't be seen, it is also reloaded
+ * after the ontology caches time to live.
+ * The reload is done on the next use of the index; the index is read from an
+ * immutable snapshot so that it is never seen half built.
+ * @see TriplestoreCache#invalidate(java.util.Collection)
+ */
+public class ClassHierarchyIndex {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(ClassHierarchyIndex.class);
+
+    private static final String PROPERTY_FILE_NAME = "service";
+    // In seconds
+    private static final int DEFAULT_TIME_TO_LIVE = 600;
+
+    private static final String CLASS = "class";
+    private static final String PARENT = "parent";
+
+    /**
+     * Current snapshot of the hierarchy. Null if it has to be (re)loaded.
+     */
+    private volatile Hierarchy hierarchy = null;
+
+    /**
+     * Set when the hierarchy changes during a load: the loaded snapshot may
+     * already be outdated.
+     */
+    private final AtomicBoolean changedDuringLoad = new AtomicBoolean(false);
+
+    private final Object loadLock = new Object();
+
+    /**
+     * Time to live of the loaded hierarchy, in milliseconds.
+     */
+    private final long timeToLive;
+
+    /**
+     * Safe thread initialization of the unique instance.
+     */
+    private static class ClassHierarchyIndexHolder {
+
+        final private static ClassHierarchyIndex instance = new ClassHierarchyIndex();
+    }
+
+    /**
+     * @return the class hierarchy index of the default repository
+     */
+    public static ClassHierarchyIndex getInstance() {
+        return ClassHierarchyIndexHolder.instance;
+    }
+
+    private ClassHierarchyIndex() {
+        timeToLive = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "ontologyCacheTimeToLive", DEFAULT_TIME_TO_LIVE) * 1000L;
+    }
+
+    /**
+     * Loads the index if it is not loaded yet.
+     */
+    public void load() {
+        getHierarchy();
+    }
+
+    /**
+     * Marks the index as outdated. It will be reloaded on its next use.
+     */
+    public void invalidate() {
+        changedDuringLoad.set(true);
+        hierarchy = null;
+    }
+
+    private Hierarchy getHierarchy() {
+        Hierarchy currentHierarchy = hierarchy;
+        if (currentHierarchy != null && !currentHierarchy.isExpired()) {
+            return currentHierarchy;
+        }
+        synchronized (loadLock) {
+            while (hierarchy == null || hierarchy.isExpired()) {
+                changedDuringLoad.set(false);
+                Hierarchy loadedHierarchy = loadHierarchy();
+                if (!changedDuringLoad.get()) {
+                    hierarchy = loadedHierarchy;
+                } else {
+                    // Used by this call only, the next one will reload it
+                    return loadedHierarchy;
+                }
+            }
+            return hierarchy;
+        }
+    }
+
+    /**
+     * Reads all the rdfs:subClassOf relations between two classes.
+     * @example
+     * SELECT ?class ?parent WHERE {
+     *   ?class <http://www.w3.org/2000/01/rdf-schema#subClassOf> ?parent .
+     *   FILTER (isIRI(?class) && isIRI(?parent))
+     * }
+     * @return the hierarchy
+     */
+    private Hierarchy loadHierarchy() {
+        long start = System.currentTimeMillis();
+        String query = "SELECT ?" + CLASS + " ?" + PARENT + " WHERE {\n"
+                + "  ?" + CLASS + " <" + Rdfs.RELATION_SUBCLASS_OF.toString() + "> ?" + PARENT + " .\n"
+                + "  FILTER (isIRI(?" + CLASS + ") && isIRI(?" + PARENT + "))\n"
+                + "}";
+        LOGGER.debug("SPARQL query: " + query);
+
+        Hierarchy.Builder builder = new Hierarchy.Builder();
+        try (RepositoryConnection connection = TriplestoreDataSource.getInstance().getConnection()) {
+            TupleQuery tupleQuery = connection.prepareTupleQuery(QueryLanguage.SPARQL, query);
+            try (TupleQueryResult result = tupleQuery.evaluate()) {
+                while (result.hasNext()) {
+                    BindingSet bindingSet = result.next();
+                    builder.addSubClassOf(
+                            bindingSet.getValue(CLASS).stringValue(),
+                            bindingSet.getValue(PARENT).stringValue());
+                }
+            }
+        }
+        Hierarchy loadedHierarchy = builder.build(System.currentTimeMillis() + timeToLive);
+        LOGGER.info("Class hierarchy loaded: " + loadedHierarchy.getClassesCount() + " classes in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return loadedHierarchy;
+    }
+
+    /**
+     * Checks if a class is a subclass of another one (rdfs:subClassOf*).
+     * As in SPARQL, a class is a subclass of itself.
+     * @param subClass
+     * @param parentClass
+     * @return true if subClass is parentClass or one of its descendants
+     */
+    public boolean isSubClassOf(String subClass, String parentClass) {
+        if (subClass == null || parentClass == null) {
+            return false;
+        }
+        if (subClass.equals(parentClass)) {
+            return true;
+        }
+        return getHierarchy().isSubClassOf(subClass, parentClass);
+    }
+
+    /**
+     * @param uri
+     * @return the direct parent classes of the class
+     */
+    public List<String> getParents(String uri) {
+        return getHierarchy().getParents(uri);
+    }
+
+    /**
+     * @param uri
+     * @return all the ancestors of the class, the class excluded
+     */
+    public List<String> getAncestors(String uri) {
+        return getHierarchy().getAncestors(uri);
+    }
+
+    /**
+     * @param uri
+     * @return the class and all its descendants (rdfs:subClassOf*)
+     */
+    public List<String> getDescendants(String uri) {
+        return getHierarchy().getDescendants(uri);
+    }
+
+    /**
+     * @param uri
+     * @return the classes having a direct parent in common with the class,
+     * the class included
+     */
+    public List<String> getSiblings(String uri) {
+        return getHierarchy().getSiblings(uri);
+    }
+
+    /**
+     * Immutable snapshot of the class hierarchy.
+     */
+    private static class Hierarchy {
+
+        private final Map<String, Integer> ids;
+        private final List<String> classes;
+        private final List<int[]> parents;
+        private final List<int[]> children;
+        private final BitSet[] ancestors;
+        private final long expirationTime;
+
+        private Hierarchy(Map<String, Integer> ids, List<String> classes, List<int[]> parents, List<int[]> children, long expirationTime) {
+            this.expirationTime = expirationTime;
+            this.ids = ids;
+            this.classes = classes;
+            this.parents = parents;
+            this.children = children;
+            this.ancestors = new BitSet[classes.size()];
+            for (int id = 0; id < classes.size(); id++) {
+                computeAncestors(id);
+            }
+        }
+
+        /**
+         * Computes the ancestors of a class from the ones of its parents,
+         * without recursion. The cycles are tolerated.
+         * @param id
+         */
+        private void computeAncestors(int id) {
+            if (ancestors[id] != null) {
+                return;
+            }
+            Deque<Integer> stack = new ArrayDeque<>();
+            BitSet inProgress = new BitSet(classes.size());
+            stack.push(id);
+            while (!stack.isEmpty()) {
+                int current = stack.peek();
+                if (ancestors[current] != null) {
+                    stack.pop();
+                    continue;
+                }
+                boolean parentsComputed = true;
+                if (!inProgress.get(current)) {
+                    inProgress.set(current);
+                    for (int parent : parents.get(current)) {
+                        if (ancestors[parent] == null && !inProgress.get(parent)) {
+                            stack.push(parent);
+                            parentsComputed = false;
+                        }
+                    }
+                }
+                if (parentsComputed) {
+                    BitSet currentAncestors = new BitSet(classes.size());
+                    for (int parent : parents.get(current)) {
+                        currentAncestors.set(parent);
+                        // Null for a parent in a cycle, whose ancestors are being computed
+                        if (ancestors[parent] != null) {
+                            currentAncestors.or(ancestors[parent]);
+                        }
+                    }
+                    ancestors[current] = currentAncestors;
+                    stack.pop();
+                }
+            }
+        }
+
+        private boolean isExpired() {
+            return expirationTime <= System.currentTimeMillis();
+        }
+
+        private int getClassesCount() {
+            return classes.size();
+        }
+
+        private boolean isSubClassOf(String subClass, String parentClass) {
+            Integer subClassId = ids.get(subClass);
+            Integer parentClassId = ids.get(parentClass);
+            return subClassId != null && parentClassId != null && ancestors[subClassId].get(parentClassId);
+        }
+
+        private List<String> toUris(int[] classesIds) {
+            List<String> uris = new ArrayList<>(classesIds.length);
+            for (int classId : classesIds) {
+                uris.add(classes.get(classId));
+            }
+            return uris;
+        }
+
+        private List<String> getParents(String uri) {
+            Integer id = ids.get(uri);
+            return id == null ? Collections.emptyList() : toUris(parents.get(id));
+        }
+
+        private List<String> getAncestors(String uri) {
+            Integer id = ids.get(uri);
+            if (id == null) {
+                return Collections.emptyList();
+            }
+            List<String> uris = new ArrayList<>();
+            BitSet classAncestors = ancestors[id];
+            for (int ancestor = classAncestors.nextSetBit(0); ancestor >= 0; ancestor = classAncestors.nextSetBit(ancestor + 1)) {
+                uris.add(classes.get(ancestor));
+            }
+            return uris;
+        }
+
+        private List<String> getDescendants(String uri) {
+            List<String> uris = new ArrayList<>();
+            uris.add(uri);
+            Integer id = ids.get(uri);
+            if (id == null) {
+                return uris;
+            }
+            BitSet visited = new BitSet(classes.size());
+            visited.set(id);
+            Deque<Integer> toVisit = new ArrayDeque<>();
+            toVisit.push(id);
+            while (!toVisit.isEmpty()) {
+                for (int child : children.get(toVisit.pop())) {
+                    if (!visited.get(child)) {
+                        visited.set(child);
+                        uris.add(classes.get(child));
+                        toVisit.push(child);
+                    }
+                }
+            }
+            return uris;
+        }
+
+        private List<String> getSiblings(String uri) {
+            Integer id = ids.get(uri);
+            if (id == null) {
+                return Collections.emptyList();
+            }
+            Set<String> siblings = new LinkedHashSet<>();
+            for (int parent : parents.get(id)) {
+                siblings.addAll(toUris(children.get(parent)));
+            }
+            return new ArrayList<>(siblings);
+        }
+
+        /**
+         * Builder of the hierarchy snapshot.
+         */
+        private static class Builder {
+
+            private final Map<String, Integer> ids = new HashMap<>();
+            private final List<String> classes = new ArrayList<>();
+            private final List<Set<Integer>> parents = new ArrayList<>();
+            private final List<Set<Integer>> children = new ArrayList<>();
+
+            private int getId(String uri) {
+                Integer id = ids.get(uri);
+                if (id == null) {
+                    id = classes.size();
+                    ids.put(uri, id);
+                    classes.add(uri);
+                    parents.add(new LinkedHashSet<>());
+                    children.add(new LinkedHashSet<>());
+                }
+                return id;
+            }
+
+            private void addSubClassOf(String subClass, String parentClass) {
+                int subClassId = getId(subClass);
+                int parentClassId = getId(parentClass);
+                parents.get(subClassId).add(parentClassId);
+                children.get(parentClassId).add(subClassId);
+            }
+
+            private static List<int[]> toArrays(List<Set<Integer>> sets) {
+                List<int[]> arrays = new ArrayList<>(sets.size());
+                sets.forEach((set) -> {
+                    arrays.add(set.stream().mapToInt(Integer::intValue).toArray());
+                });
+                return arrays;
+            }
+
+            private Hierarchy build(long expirationTime) {
+                return new Hierarchy(ids, classes, toArrays(parents), toArrays(children), expirationTime);
+            }
+        }
+    }
+}
@@ -0,0 +1,356 @@
+//******************************************************************************
+//                            MongoIndexRegistry.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.datasource;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the indexes of the MongoDB collections.
+ * Each Mongo DAO declares the indexes of its collections. The indexes of a
+ * collection are ensured once: at startup for the collections with a fixed
+ * name and the existing collections the DAO can recognize, on first use for
+ * the other collections created by variable or by file type.
+ * The existing collections are listed once at startup, then the collections
+ * are only created by the writes, which ensure their indexes, so that the 
+ * reads never list the collections. The collections whose indexes have been 
+ * ensured are kept in memory, so that the next uses don't send any command.
+ * @see opensilex.service.dao.manager.MongoDAO#ensureIndexes()
+ */
+public class MongoIndexRegistry {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(MongoIndexRegistry.class);
+
+    private static final String INDEX_STATS = "$indexStats";
+    private static final String INDEX_NAME = "name";
+    private static final String INDEX_KEY = "key";
+    private static final String INDEX_ACCESSES = "accesses";
+    private static final String INDEX_ACCESSES_OPS = "ops";
+    private static final String INDEX_ACCESSES_SINCE = "since";
+
+    /**
+     * Collections whose indexes have been ensured, by namespace.
+     */
+    private final Map<String, KnownCollection> knownCollections = new ConcurrentHashMap<>();
+
+    /**
+     * Collections which existed when the collections were listed, by 
+     * namespace. Null until they have been listed.
+     */
+    private volatile Set<String> existingCollections;
+
+    /**
+     * Safe thread initialization of the unique instance.
+     */
+    private static class MongoIndexRegistryHolder {
+
+        final private static MongoIndexRegistry instance = new MongoIndexRegistry();
+    }
+
+    private MongoIndexRegistry() {
+    }
+
+    public static MongoIndexRegistry getInstance() {
+        return MongoIndexRegistryHolder.instance;
+    }
+
+    /**
+     * Declares the indexes of a kind of collections.
+     * @param name name of the kind of collections (e.g. data)
+     * @param indexes
+     * @return the declaration, to be given when the collections are used
+     */
+    public static CollectionIndexes declare(String name, IndexModel... indexes) {
+        return new CollectionIndexes(name, Arrays.asList(indexes));
+    }
+
+    /**
+     * Lists the existing collections of the database, once at startup.
+     * @param database
+     * @return the names of the existing collections
+     * @throws MongoException if the collections can't be listed. They will be
+     * listed again on next read
+     */
+    public synchronized Set<String> loadExistingCollections(MongoDatabase database) {
+        if (existingCollections == null) {
+            Set<String> namespaces = ConcurrentHashMap.newKeySet();
+            for (String collectionName : database.listCollectionNames()) {
+                namespaces.add(database.getName() + "." + collectionName);
+            }
+            existingCollections = namespaces;
+            LOGGER.info(namespaces.size() + " existing collections in the database " + database.getName());
+        }
+        Set<String> collectionNames = new HashSet<>();
+        String prefix = database.getName() + ".";
+        for (String namespace : existingCollections) {
+            if (namespace.startsWith(prefix)) {
+                collectionNames.add(namespace.substring(prefix.length()));
+            }
+        }
+        return collectionNames;
+    }
+
+    /**
+     * Creates the declared indexes of a collection if it is used for the first
+     * time. Mongo won't create an index if it already exists.
+     * A thread using the collection before its indexes are known creates them
+     * itself and waits for them, so that unique indexes are always there 
+     * before an insert. The creation is done out of the known collections map,
+     * so that it doesn't block the other collections.
+     * @param database
+     * @param collectionName
+     * @param declaration
+     * @throws MongoException if an index can't be created. The creation will
+     * be tried again on next use
+     */
+    public void ensureIndexes(MongoDatabase database, String collectionName, CollectionIndexes declaration) {
+        String namespace = database.getName() + "." + collectionName;
+        if (knownCollections.containsKey(namespace)) {
+            return;
+        }
+        MongoCollection<Document> collection = database.getCollection(collectionName);
+        collection.createIndexes(declaration.getIndexes());
+        if (knownCollections.putIfAbsent(namespace, new KnownCollection(collection, declaration)) == null) {
+            LOGGER.info("Indexes " + declaration.getName() + " ensured on the collection " + namespace);
+        }
+        Set<String> existing = existingCollections;
+        if (existing != null) {
+            existing.add(namespace);
+        }
+    }
+
+    /**
+     * Creates the declared indexes of a collection if it already exists and
+     * is used for the first time. To be used by the reads, so that they don't
+     * create a collection. The collection exists if it was listed at startup
+     * or has been written since.
+     * @param database
+     * @param collectionName
+     * @param declaration
+     * @throws MongoException if an index can't be created
+     */
+    public void ensureIndexesIfExists(MongoDatabase database, String collectionName, CollectionIndexes declaration) {
+        String namespace = database.getName() + "." + collectionName;
+        if (knownCollections.containsKey(namespace)) {
+            return;
+        }
+        if (existingCollections == null) {
+            // The collections couldn't be listed at startup
+            loadExistingCollections(database);
+        }
+        if (existingCollections.contains(namespace)) {
+            ensureIndexes(database, collectionName, declaration);
+        }
+    }
+
+    /**
+     * Gets the indexes of the known collections, with their use since the
+     * MongoDB server start given by $indexStats. The declared indexes which
+     * don't exist are given with the missing status.
+     * @return the indexes of the known collections, sorted by collection
+     */
+    public List<IndexReport> getReport() {
+        List<IndexReport> report = new ArrayList<>();
+        List<String> namespaces = new ArrayList<>(knownCollections.keySet());
+        Collections.sort(namespaces);
+        for (String namespace : namespaces) {
+            KnownCollection knownCollection = knownCollections.get(namespace);
+            if (knownCollection == null) {
+                continue;
+            }
+            MongoCollection<Document> collection = knownCollection.getCollection();
+
+            // Use of each index. The stats need the indexStats privilege
+            Map<String, Document> accessesByIndex = new HashMap<>();
+            try {
+                for (Document stats : collection.aggregate(Arrays.asList(new Document(INDEX_STATS, new Document())))) {
+                    accessesByIndex.put(stats.getString(INDEX_NAME), (Document) stats.get(INDEX_ACCESSES));
+                }
+            } catch (MongoException e) {
+                LOGGER.warn("Can't get the indexes stats of the collection " + namespace + ": " + e.getMessage());
+            }
+
+            List<List<String>> existingIndexesFields = new ArrayList<>();
+            for (Document index : collection.listIndexes()) {
+                Document indexKey = (Document) index.get(INDEX_KEY);
+                existingIndexesFields.add(new ArrayList<>(indexKey.keySet()));
+                Document accesses = accessesByIndex.get(index.getString(INDEX_NAME));
+                report.add(new IndexReport(namespace, index.getString(INDEX_NAME), indexKey.toJson(),
+                        knownCollection.getDeclaration().declares(indexKey), false,
+                        accesses == null ? null : ((Number) accesses.get(INDEX_ACCESSES_OPS)).longValue(),
+                        accesses == null ? null : accesses.getDate(INDEX_ACCESSES_SINCE)));
+            }
+
+            for (IndexModel index : knownCollection.getDeclaration().getIndexes()) {
+                BsonDocument indexKey = CollectionIndexes.getKey(index);
+                if (!existingIndexesFields.contains(new ArrayList<>(indexKey.keySet()))) {
+                    LOGGER.error("Missing index on the collection " + namespace + ": " + indexKey.toJson());
+                    report.add(new IndexReport(namespace, null, indexKey.toJson(), true, true, null, null));
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Indexes declared for a kind of collections.
+     */
+    public static class CollectionIndexes {
+
+        private final String name;
+        private final List<IndexModel> indexes;
+
+        private CollectionIndexes(String name, List<IndexModel> indexes) {
+            this.name = name;
+            this.indexes = indexes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<IndexModel> getIndexes() {
+            return indexes;
+        }
+
+        /**
+         * Checks if an index is declared. The indexes are compared by their
+         * fields, as their values can have different numeric types.
+         * @param indexKey
+         * @return true if an index on the same fields is declared
+         */
+        public boolean declares(Document indexKey) {
+            List<String> indexFields = new ArrayList<>(indexKey.keySet());
+            for (IndexModel index : indexes) {
+                if (indexFields.equals(new ArrayList<>(getKey(index).keySet()))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static BsonDocument getKey(IndexModel index) {
+            return index.getKeys().toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry());
+        }
+    }
+
+    /**
+     * Collection whose indexes have been ensured.
+     */
+    private static class KnownCollection {
+
+        private final MongoCollection<Document> collection;
+        private final CollectionIndexes declaration;
+
+        KnownCollection(MongoCollection<Document> collection, CollectionIndexes declaration) {
+            this.collection = collection;
+            this.declaration = declaration;
+        }
+
+        MongoCollection<Document> getCollection() {
+            return collection;
+        }
+
+        CollectionIndexes getDeclaration() {
+            return declaration;
+        }
+    }
+
+    /**
+     * Index of a known collection.
+     */
+    public static class IndexReport {
+
+        private final String collection;
+        private final String name;
+        private final String key;
+        private final boolean declared;
+        private final boolean missing;
+        private final Long operations;
+        private final Date since;
+
+        IndexReport(String collection, String name, String key, boolean declared, boolean missing, Long operations, Date since) {
+            this.collection = collection;
+            this.name = name;
+            this.key = key;
+            this.declared = declared;
+            this.missing = missing;
+            this.operations = operations;
+            this.since = since;
+        }
+
+        /**
+         * @return the namespace of the collection
+         */
+        public String getCollection() {
+            return collection;
+        }
+
+        /**
+         * @return the name of the index, null if it is missing
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the fields of the index, in JSON
+         */
+        public String getKey() {
+            return key;
+        }
+
+        public boolean isDeclared() {
+            return declared;
+        }
+
+        public boolean isMissing() {
+            return missing;
+        }
+
+        /**
+         * @return the number of operations which have used the index, null if
+         * unknown
+         */
+        public Long getOperations() {
+            return operations;
+        }
+
+        /**
+         * @return the start of the operations count, null if unknown
+         */
+        public Date getSince() {
+            return since;
+        }
+
+        /**
+         * @return true if the index exists and hasn't been used since the
+         * start of its operations count
+         */
+        public boolean isUnused() {
+            return operations != null && operations == 0;
+        }
+    }
+}
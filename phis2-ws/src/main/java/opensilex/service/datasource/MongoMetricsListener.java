@@ -0,0 +1,143 @@
+//******************************************************************************
+//                           MongoMetricsListener.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.datasource;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionAddedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListenerAdapter;
+import com.mongodb.event.ConnectionPoolWaitQueueEnteredEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueExitedEvent;
+import com.mongodb.event.ConnectionRemovedEvent;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import opensilex.service.utils.metrics.BackendMetrics;
+import opensilex.service.utils.metrics.BackendMetrics.Backend;
+import opensilex.service.utils.metrics.QueryFingerprints;
+import opensilex.service.utils.metrics.QueryProfiler;
+import org.bson.BsonDocument;
+
+/**
+ * Listener of the MongoDB client recording the commands durations in the
+ * backend metrics and in the query profiles, and counting the connections of
+ * its pool.
+ * The command document can't be kept after its started event, so its
+ * fingerprint and its text are computed when it starts.
+ * The synchronous driver sends the events in the thread running the command,
+ * so that the commands are counted in the time of their request.
+ * @see opensilex.service.dao.manager.MongoDAO
+ */
+public class MongoMetricsListener extends ConnectionPoolListenerAdapter implements CommandListener {
+
+    // Fields of the commands which aren't logged: the inserted documents, the
+    // statements of the bulk updates and deletes and the session information
+    private static final Set<String> NOT_LOGGED_FIELDS = new HashSet<>(Arrays.asList(
+            "documents", "updates", "deletes", "lsid", "$clusterTime", "$db"));
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger checkedOut = new AtomicInteger();
+    private final AtomicInteger waitQueueSize = new AtomicInteger();
+
+    /**
+     * Fingerprint and text of the running commands, by request id.
+     */
+    private final Map<Integer, String[]> runningCommands = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonDocument command = event.getCommand();
+        BsonDocument loggedCommand = new BsonDocument();
+        command.forEach((field, value) -> {
+            if (!NOT_LOGGED_FIELDS.contains(field)) {
+                loggedCommand.put(field, value);
+            }
+        });
+        runningCommands.put(event.getRequestId(), new String[] {
+            QueryFingerprints.ofMongoCommand(event.getCommandName(), command),
+            loggedCommand.toJson()
+        });
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        record(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), true);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        record(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), false);
+    }
+
+    private void record(int requestId, String commandName, long nanoseconds, boolean success) {
+        BackendMetrics.record(Backend.MONGODB, commandName, nanoseconds, success);
+        String[] command = runningCommands.remove(requestId);
+        if (command != null) {
+            QueryProfiler.record(Backend.MONGODB, command[0], command[1], nanoseconds);
+        }
+    }
+
+    @Override
+    public void connectionAdded(ConnectionAddedEvent event) {
+        size.incrementAndGet();
+    }
+
+    @Override
+    public void connectionRemoved(ConnectionRemovedEvent event) {
+        size.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        checkedOut.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        checkedOut.decrementAndGet();
+    }
+
+    @Override
+    public void waitQueueEntered(ConnectionPoolWaitQueueEnteredEvent event) {
+        waitQueueSize.incrementAndGet();
+    }
+
+    @Override
+    public void waitQueueExited(ConnectionPoolWaitQueueExitedEvent event) {
+        waitQueueSize.decrementAndGet();
+    }
+
+    /**
+     * @return the number of open connections
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * @return the number of connections used by a command
+     */
+    public int getCheckedOut() {
+        return checkedOut.get();
+    }
+
+    /**
+     * @return the number of threads waiting for a connection
+     */
+    public int getWaitQueueSize() {
+        return waitQueueSize.get();
+    }
+}
@@ -0,0 +1,163 @@
+//******************************************************************************
+//                       PooledRepositoryConnection.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.datasource;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.rdf4j.query.BooleanQuery;
+import org.eclipse.rdf4j.query.GraphQuery;
+import org.eclipse.rdf4j.query.MalformedQueryException;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.Update;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.eclipse.rdf4j.repository.base.RepositoryConnectionWrapper;
+import opensilex.service.utils.metrics.BackendMetrics;
+import opensilex.service.utils.metrics.BackendMetrics.Backend;
+
+/**
+ * Triplestore connection borrowed from the triplestore data source.
+ * Closing it returns the underlying connection to the pool instead of closing it.
+ * The cached entries of the URIs mentioned by the updates are invalidated when 
+ * the update is prepared and again when it is committed or when the connection
+ * is closed, so that a value read during the update is not kept in cache.
+ * The prepared queries and updates record their duration in the backend 
+ * metrics and in the query profiles.
+ * @see TriplestoreDataSource
+ * @see TriplestoreCache
+ */
+public class PooledRepositoryConnection extends RepositoryConnectionWrapper {
+
+    private final TriplestoreDataSource dataSource;
+
+    /**
+     * Borrow time in milliseconds, used to detect abandoned connections.
+     */
+    private final long borrowTime;
+
+    /**
+     * Thread which borrowed the connection.
+     */
+    private final Thread owner;
+
+    /**
+     * Stack trace of the borrow, only kept if the abandoned connections are logged.
+     */
+    private final Throwable borrowTrace;
+
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    /**
+     * URIs mentioned by the updates prepared since the last commit.
+     */
+    private final Set<String> updatedUris = new HashSet<>();
+
+    PooledRepositoryConnection(TriplestoreDataSource dataSource, Repository repository, RepositoryConnection delegate, boolean traceBorrow) {
+        super(repository, delegate);
+        this.dataSource = dataSource;
+        this.borrowTime = System.currentTimeMillis();
+        this.owner = Thread.currentThread();
+        this.borrowTrace = traceBorrow ? new Throwable("Triplestore connection borrowed here") : null;
+    }
+
+    @Override
+    public Update prepareUpdate(QueryLanguage ql, String update, String baseURI) 
+            throws MalformedQueryException, RepositoryException {
+        Set<String> uris = TriplestoreCache.getMentionedUris(update);
+        TriplestoreCache.invalidate(uris);
+        updatedUris.addAll(uris);
+        return new TimedQueries.TimedUpdate(super.prepareUpdate(ql, update, baseURI), update);
+    }
+
+    @Override
+    public TupleQuery prepareTupleQuery(QueryLanguage ql, String query, String baseURI) 
+            throws MalformedQueryException, RepositoryException {
+        return new TimedQueries.TimedTupleQuery(super.prepareTupleQuery(ql, query, baseURI), query);
+    }
+
+    @Override
+    public BooleanQuery prepareBooleanQuery(QueryLanguage ql, String query, String baseURI) 
+            throws MalformedQueryException, RepositoryException {
+        return new TimedQueries.TimedBooleanQuery(super.prepareBooleanQuery(ql, query, baseURI), query);
+    }
+
+    @Override
+    public GraphQuery prepareGraphQuery(QueryLanguage ql, String query, String baseURI) 
+            throws MalformedQueryException, RepositoryException {
+        return new TimedQueries.TimedGraphQuery(super.prepareGraphQuery(ql, query, baseURI), query);
+    }
+
+    @Override
+    public void commit() throws RepositoryException {
+        // The updates of a transaction are sent on commit
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            super.commit();
+            success = true;
+        } finally {
+            BackendMetrics.record(Backend.RDF4J, TimedQueries.COMMIT, System.nanoTime() - start, success);
+        }
+        invalidateUpdatedUris();
+    }
+
+    /**
+     * Returns the connection to the pool.
+     * Calling this method more than once has no effect.
+     * @throws RepositoryException
+     */
+    @Override
+    public void close() throws RepositoryException {
+        if (released.compareAndSet(false, true)) {
+            invalidateUpdatedUris();
+            dataSource.release(this);
+        }
+    }
+
+    private void invalidateUpdatedUris() {
+        if (!updatedUris.isEmpty()) {
+            TriplestoreCache.invalidate(updatedUris);
+            updatedUris.clear();
+        }
+    }
+
+    @Override
+    public boolean isOpen() throws RepositoryException {
+        return !released.get() && getDelegate().isOpen();
+    }
+
+    /**
+     * Marks the connection as released without giving it back to the pool.
+     * @return true if the connection was still borrowed
+     */
+    boolean markReleased() {
+        return released.compareAndSet(false, true);
+    }
+
+    /**
+     * @return true if the connection has been closed or given up as abandoned
+     */
+    boolean isReleased() {
+        return released.get();
+    }
+
+    long getBorrowTime() {
+        return borrowTime;
+    }
+
+    Thread getOwner() {
+        return owner;
+    }
+
+    Throwable getBorrowTrace() {
+        return borrowTrace;
+    }
+}
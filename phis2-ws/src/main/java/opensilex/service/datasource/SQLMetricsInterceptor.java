@@ -0,0 +1,87 @@
+//******************************************************************************
+//                           SQLMetricsInterceptor.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.datasource;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.apache.tomcat.jdbc.pool.interceptor.AbstractQueryReport;
+import opensilex.service.utils.metrics.BackendMetrics;
+import opensilex.service.utils.metrics.BackendMetrics.Backend;
+import opensilex.service.utils.metrics.QueryProfiler;
+
+/**
+ * Connection pool interceptor recording the duration of the executed SQL
+ * statements in the backend metrics, by their first keyword (select, insert,
+ * update, delete...), and in the query profiles.
+ * The parameters of the prepared statements aren't known by the pool, so the
+ * slow prepared statements are logged with their placeholders.
+ * It has to be declared after the StatementCache interceptor in the
+ * jdbcInterceptors property, so that the cached statements are timed too.
+ * The pool measures the statements durations in milliseconds.
+ * @see phis_sql_config.properties file
+ */
+public class SQLMetricsInterceptor extends AbstractQueryReport {
+
+    private static final String OTHER_OPERATION = "other";
+
+    @Override
+    protected String reportQuery(String query, Object[] args, String name, long start, long delta) {
+        String sql = super.reportQuery(query, args, name, start, delta);
+        record(sql, TimeUnit.MILLISECONDS.toNanos(delta), true);
+        return sql;
+    }
+
+    @Override
+    protected String reportSlowQuery(String query, Object[] args, String name, long start, long delta) {
+        String sql = super.reportSlowQuery(query, args, name, start, delta);
+        record(sql, TimeUnit.MILLISECONDS.toNanos(delta), true);
+        return sql;
+    }
+
+    @Override
+    protected String reportFailedQuery(String query, Object[] args, String name, long start, Throwable t) {
+        String sql = super.reportFailedQuery(query, args, name, start, t);
+        record(sql, TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - start), false);
+        return sql;
+    }
+
+    private static void record(String sql, long nanoseconds, boolean success) {
+        BackendMetrics.record(Backend.POSTGRESQL, getOperation(sql), nanoseconds, success);
+        if (sql != null) {
+            QueryProfiler.record(Backend.POSTGRESQL, sql, nanoseconds);
+        }
+    }
+
+    @Override
+    public void closeInvoked() {
+    }
+
+    @Override
+    protected void prepareStatement(String sql, long time) {
+    }
+
+    @Override
+    protected void prepareCall(String query, long time) {
+    }
+
+    /**
+     * @param sql
+     * @return the first keyword of the statement, in lower case
+     */
+    private static String getOperation(String sql) {
+        if (sql == null) {
+            return OTHER_OPERATION;
+        }
+        String trimmedSql = sql.trim();
+        int end = 0;
+        while (end < trimmedSql.length() && Character.isLetter(trimmedSql.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? OTHER_OPERATION : trimmedSql.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+}
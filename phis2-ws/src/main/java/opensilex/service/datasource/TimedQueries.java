@@ -0,0 +1,322 @@
+//******************************************************************************
+//                               TimedQueries.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.datasource;
+
+import java.util.List;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.BooleanQuery;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.GraphQuery;
+import org.eclipse.rdf4j.query.GraphQueryResult;
+import org.eclipse.rdf4j.query.Operation;
+import org.eclipse.rdf4j.query.Query;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.TupleQueryResultHandler;
+import org.eclipse.rdf4j.query.TupleQueryResultHandlerException;
+import org.eclipse.rdf4j.query.Update;
+import org.eclipse.rdf4j.query.UpdateExecutionException;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import opensilex.service.utils.metrics.BackendMetrics;
+import opensilex.service.utils.metrics.BackendMetrics.Backend;
+import opensilex.service.utils.metrics.QueryProfiler;
+
+/**
+ * Triplestore queries recording their duration in the backend metrics and
+ * in the query profiles.
+ * The duration of a select query evaluated as a result is recorded when the
+ * result is closed, as the HTTP repository streams the results.
+ * @see PooledRepositoryConnection
+ */
+final class TimedQueries {
+
+    static final String SELECT = "select";
+    static final String ASK = "ask";
+    static final String CONSTRUCT = "construct";
+    static final String UPDATE = "update";
+    static final String COMMIT = "commit";
+
+    private TimedQueries() {
+    }
+
+    private static void record(String operation, String query, long start, boolean success) {
+        long duration = System.nanoTime() - start;
+        BackendMetrics.record(Backend.RDF4J, operation, duration, success);
+        QueryProfiler.record(Backend.RDF4J, query, duration);
+    }
+
+    /**
+     * Operation delegating its parameters to the prepared operation.
+     * @param <O> the operation type
+     */
+    private static abstract class TimedOperation<O extends Operation> implements Operation {
+
+        protected final O delegate;
+        protected final String query;
+
+        private TimedOperation(O delegate, String query) {
+            this.delegate = delegate;
+            this.query = query;
+        }
+
+        @Override
+        public void setBinding(String name, Value value) {
+            delegate.setBinding(name, value);
+        }
+
+        @Override
+        public void removeBinding(String name) {
+            delegate.removeBinding(name);
+        }
+
+        @Override
+        public void clearBindings() {
+            delegate.clearBindings();
+        }
+
+        @Override
+        public BindingSet getBindings() {
+            return delegate.getBindings();
+        }
+
+        @Override
+        public void setDataset(Dataset dataset) {
+            delegate.setDataset(dataset);
+        }
+
+        @Override
+        public Dataset getDataset() {
+            return delegate.getDataset();
+        }
+
+        @Override
+        public void setIncludeInferred(boolean includeInferred) {
+            delegate.setIncludeInferred(includeInferred);
+        }
+
+        @Override
+        public boolean getIncludeInferred() {
+            return delegate.getIncludeInferred();
+        }
+
+        @Override
+        public void setMaxExecutionTime(int maxExecTime) {
+            delegate.setMaxExecutionTime(maxExecTime);
+        }
+
+        @Override
+        public int getMaxExecutionTime() {
+            return delegate.getMaxExecutionTime();
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+
+    /**
+     * Query delegating its parameters to the prepared query.
+     * @param <Q> the query type
+     */
+    private static abstract class TimedQuery<Q extends Query> extends TimedOperation<Q> implements Query {
+
+        private TimedQuery(Q delegate, String query) {
+            super(delegate, query);
+        }
+
+        @Override
+        @Deprecated
+        public void setMaxQueryTime(int maxQueryTime) {
+            delegate.setMaxQueryTime(maxQueryTime);
+        }
+
+        @Override
+        @Deprecated
+        public int getMaxQueryTime() {
+            return delegate.getMaxQueryTime();
+        }
+    }
+
+    static class TimedTupleQuery extends TimedQuery<TupleQuery> implements TupleQuery {
+
+        TimedTupleQuery(TupleQuery delegate, String query) {
+            super(delegate, query);
+        }
+
+        @Override
+        public TupleQueryResult evaluate() throws QueryEvaluationException {
+            long start = System.nanoTime();
+            try {
+                return new TimedTupleQueryResult(delegate.evaluate(), query, start);
+            } catch (RuntimeException ex) {
+                record(SELECT, query, start, false);
+                throw ex;
+            }
+        }
+
+        @Override
+        public void evaluate(TupleQueryResultHandler handler) throws QueryEvaluationException, TupleQueryResultHandlerException {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                delegate.evaluate(handler);
+                success = true;
+            } finally {
+                record(SELECT, query, start, success);
+            }
+        }
+    }
+
+    /**
+     * Select query result recording the query duration once, when it has been
+     * read to the end, when reading it fails or when it is closed, as some 
+     * callers iterate the result without closing it.
+     */
+    private static class TimedTupleQueryResult implements TupleQueryResult {
+
+        private final TupleQueryResult delegate;
+        private final String query;
+        private final long start;
+        private boolean closed = false;
+
+        private TimedTupleQueryResult(TupleQueryResult delegate, String query, long start) {
+            this.delegate = delegate;
+            this.query = query;
+            this.start = start;
+        }
+
+        @Override
+        public List<String> getBindingNames() throws QueryEvaluationException {
+            return delegate.getBindingNames();
+        }
+
+        @Override
+        public boolean hasNext() throws QueryEvaluationException {
+            try {
+                boolean hasNext = delegate.hasNext();
+                if (!hasNext) {
+                    recordOnce(true);
+                }
+                return hasNext;
+            } catch (RuntimeException ex) {
+                recordOnce(false);
+                throw ex;
+            }
+        }
+
+        @Override
+        public BindingSet next() throws QueryEvaluationException {
+            try {
+                return delegate.next();
+            } catch (RuntimeException ex) {
+                recordOnce(false);
+                throw ex;
+            }
+        }
+
+        @Override
+        public void remove() throws QueryEvaluationException {
+            delegate.remove();
+        }
+
+        @Override
+        public void close() throws QueryEvaluationException {
+            try {
+                delegate.close();
+            } finally {
+                recordOnce(true);
+            }
+        }
+
+        private void recordOnce(boolean success) {
+            if (!closed) {
+                closed = true;
+                record(SELECT, query, start, success);
+            }
+        }
+    }
+
+    static class TimedBooleanQuery extends TimedQuery<BooleanQuery> implements BooleanQuery {
+
+        TimedBooleanQuery(BooleanQuery delegate, String query) {
+            super(delegate, query);
+        }
+
+        @Override
+        public boolean evaluate() throws QueryEvaluationException {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                boolean result = delegate.evaluate();
+                success = true;
+                return result;
+            } finally {
+                record(ASK, query, start, success);
+            }
+        }
+    }
+
+    /**
+     * Graph query recording the time to get its result. The graph queries
+     * are seldom used, so their results aren't wrapped.
+     */
+    static class TimedGraphQuery extends TimedQuery<GraphQuery> implements GraphQuery {
+
+        TimedGraphQuery(GraphQuery delegate, String query) {
+            super(delegate, query);
+        }
+
+        @Override
+        public GraphQueryResult evaluate() throws QueryEvaluationException {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                GraphQueryResult result = delegate.evaluate();
+                success = true;
+                return result;
+            } finally {
+                record(CONSTRUCT, query, start, success);
+            }
+        }
+
+        @Override
+        public void evaluate(RDFHandler handler) throws QueryEvaluationException, RDFHandlerException {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                delegate.evaluate(handler);
+                success = true;
+            } finally {
+                record(CONSTRUCT, query, start, success);
+            }
+        }
+    }
+
+    static class TimedUpdate extends TimedOperation<Update> implements Update {
+
+        TimedUpdate(Update delegate, String query) {
+            super(delegate, query);
+        }
+
+        @Override
+        public void execute() throws UpdateExecutionException {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                delegate.execute();
+                success = true;
+            } finally {
+                record(UPDATE, query, start, success);
+            }
+        }
+    }
+}
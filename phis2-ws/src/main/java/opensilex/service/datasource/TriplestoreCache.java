@@ -0,0 +1,230 @@
+//******************************************************************************
+//                            TriplestoreCache.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.datasource;
+
+import com.google.common.collect.Multimap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import opensilex.service.PropertiesFileManager;
+import opensilex.service.ontology.Owl;
+import opensilex.service.ontology.Rdf;
+import opensilex.service.ontology.Rdfs;
+import opensilex.service.utils.cache.ExpiringLruCache;
+import opensilex.service.utils.cache.LayerCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process caches of the triplestore facts which almost never change
+ * (labels, types, class hierarchy, properties domains and ranges).
+ * The entries of an URI are invalidated when an update sent through a pooled
+ * triplestore connection mentions this URI. As the updates of the other
+ * applications can't be seen, each entry also expires after a time to live.
+ * The caches sizes and time to live are read at startup in the service
+ * configuration file.
+ * The subclass checks are answered by the class hierarchy index.
+ * @see ClassHierarchyIndex
+ * @see PooledRepositoryConnection#prepareUpdate(org.eclipse.rdf4j.query.QueryLanguage, java.lang.String, java.lang.String)
+ */
+public final class TriplestoreCache {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(TriplestoreCache.class);
+
+    private static final String PROPERTY_FILE_NAME = "service";
+
+    private static final int DEFAULT_LABEL_CACHE_MAX_SIZE = 100000;
+    private static final int DEFAULT_ONTOLOGY_CACHE_MAX_SIZE = 10000;
+    // In seconds
+    private static final int DEFAULT_CACHE_TIME_TO_LIVE = 600;
+
+    /**
+     * IRI written between angle brackets in a SPARQL update.
+     */
+    private static final Pattern IRI_PATTERN = Pattern.compile("<([^<>\\s\"{}|^`\\\\]+)>");
+
+    /**
+     * Relations whose update changes the class hierarchy.
+     */
+    private static final List<String> CLASS_HIERARCHY_RELATIONS = Arrays.asList(
+            Rdfs.RELATION_SUBCLASS_OF.toString());
+
+    /**
+     * Relations whose update changes the domains and ranges of the properties.
+     */
+    private static final List<String> PROPERTY_DEFINITION_RELATIONS = Arrays.asList(
+            Rdfs.RELATION_DOMAIN.toString(),
+            Rdfs.RELATION_RANGE.toString(),
+            Owl.RELATION_UNION_OF.toString(),
+            Rdf.RELATION_FIRST.toString(),
+            Rdf.RELATION_REST.toString());
+
+    /**
+     * Relations above, by their prefixed name.
+     */
+    private static final Map<String, String> PREFIXED_RELATIONS = new HashMap<>();
+    static {
+        PREFIXED_RELATIONS.put("rdfs:subClassOf", Rdfs.RELATION_SUBCLASS_OF.toString());
+        PREFIXED_RELATIONS.put("rdfs:domain", Rdfs.RELATION_DOMAIN.toString());
+        PREFIXED_RELATIONS.put("rdfs:range", Rdfs.RELATION_RANGE.toString());
+        PREFIXED_RELATIONS.put("owl:unionOf", Owl.RELATION_UNION_OF.toString());
+        PREFIXED_RELATIONS.put("rdf:first", Rdf.RELATION_FIRST.toString());
+        PREFIXED_RELATIONS.put("rdf:rest", Rdf.RELATION_REST.toString());
+    }
+
+    /**
+     * Labels of the resources (rdfs:label), by URI.
+     */
+    private static final ExpiringLruCache<String, List<String>> RESOURCES_LABELS = new ExpiringLruCache<>(
+            "resourcesLabels", getCacheMaxSize("labelCacheMaxSize", DEFAULT_LABEL_CACHE_MAX_SIZE), getCacheTimeToLive("labelCacheTimeToLive"));
+
+    /**
+     * Labels of the resources (rdfs:label) by language, by URI.
+     */
+    private static final ExpiringLruCache<String, Multimap<String, String>> RESOURCES_LANGUAGES_LABELS = new ExpiringLruCache<>(
+            "resourcesLanguagesLabels", getCacheMaxSize("labelCacheMaxSize", DEFAULT_LABEL_CACHE_MAX_SIZE), getCacheTimeToLive("labelCacheTimeToLive"));
+
+    /**
+     * Results of the instance checks, by (instance, class).
+     */
+    private static final ExpiringLruCache<List<String>, Boolean> INSTANCES = new ExpiringLruCache<>(
+            "instanceOf", getCacheMaxSize("ontologyCacheMaxSize", DEFAULT_ONTOLOGY_CACHE_MAX_SIZE), getCacheTimeToLive("ontologyCacheTimeToLive"));
+
+    /**
+     * Domains of the properties, by property URI.
+     */
+    private static final ExpiringLruCache<String, List<String>> PROPERTIES_DOMAINS = new ExpiringLruCache<>(
+            "propertiesDomains", getCacheMaxSize("ontologyCacheMaxSize", DEFAULT_ONTOLOGY_CACHE_MAX_SIZE), getCacheTimeToLive("ontologyCacheTimeToLive"));
+
+    /**
+     * Ranges of the properties, by property URI.
+     */
+    private static final ExpiringLruCache<String, List<String>> PROPERTIES_RANGES = new ExpiringLruCache<>(
+            "propertiesRanges", getCacheMaxSize("ontologyCacheMaxSize", DEFAULT_ONTOLOGY_CACHE_MAX_SIZE), getCacheTimeToLive("ontologyCacheTimeToLive"));
+
+    private TriplestoreCache() {
+    }
+
+    private static int getCacheMaxSize(String property, int defaultMaxSize) {
+        return PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, property, defaultMaxSize);
+    }
+
+    private static long getCacheTimeToLive(String property) {
+        return PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, property, DEFAULT_CACHE_TIME_TO_LIVE) * 1000L;
+    }
+
+    public static ExpiringLruCache<String, List<String>> getResourcesLabels() {
+        return RESOURCES_LABELS;
+    }
+
+    public static ExpiringLruCache<String, Multimap<String, String>> getResourcesLanguagesLabels() {
+        return RESOURCES_LANGUAGES_LABELS;
+    }
+
+    public static ExpiringLruCache<List<String>, Boolean> getInstances() {
+        return INSTANCES;
+    }
+
+    public static ExpiringLruCache<String, List<String>> getPropertiesDomains() {
+        return PROPERTIES_DOMAINS;
+    }
+
+    public static ExpiringLruCache<String, List<String>> getPropertiesRanges() {
+        return PROPERTIES_RANGES;
+    }
+
+    /**
+     * @return all the triplestore caches
+     */
+    public static List<ExpiringLruCache<?, ?>> getCaches() {
+        List<ExpiringLruCache<?, ?>> caches = new ArrayList<>();
+        caches.add(RESOURCES_LABELS);
+        caches.add(RESOURCES_LANGUAGES_LABELS);
+        caches.add(INSTANCES);
+        caches.add(PROPERTIES_DOMAINS);
+        caches.add(PROPERTIES_RANGES);
+        return caches;
+    }
+
+    /**
+     * Gets the URIs mentioned in a SPARQL update. The relations of the class 
+     * hierarchy and of the properties definitions are also found when they 
+     * are written with their usual prefix.
+     * @param update
+     * @return the URIs
+     */
+    static Set<String> getMentionedUris(String update) {
+        Set<String> uris = new HashSet<>();
+        Matcher matcher = IRI_PATTERN.matcher(update);
+        while (matcher.find()) {
+            uris.add(matcher.group(1));
+        }
+        PREFIXED_RELATIONS.forEach((prefixedRelation, relation) -> {
+            if (update.contains(prefixedRelation)) {
+                uris.add(relation);
+            }
+        });
+        return uris;
+    }
+
+    /**
+     * Invalidates the cached entries which may have been changed by an update
+     * mentioning the given URIs.
+     * @param uris
+     */
+    public static void invalidate(Collection<String> uris) {
+        if (uris.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("Invalidating the cached entries of " + uris);
+
+        uris.forEach((uri) -> {
+            RESOURCES_LABELS.invalidate(uri);
+            RESOURCES_LANGUAGES_LABELS.invalidate(uri);
+        });
+        INSTANCES.invalidateIf((key) -> uris.contains(key.get(0)) || uris.contains(key.get(1)));
+
+        // The layers of the changed scientific objects
+        LayerCache.invalidate(uris);
+
+        // A change of the class hierarchy can change the subclass relation of
+        // classes which are not mentioned in the update
+        if (CLASS_HIERARCHY_RELATIONS.stream().anyMatch(uris::contains)) {
+            ClassHierarchyIndex.getInstance().invalidate();
+        }
+
+        // The domains and ranges may be defined through blank nodes (unions)
+        if (PROPERTY_DEFINITION_RELATIONS.stream().anyMatch(uris::contains)) {
+            PROPERTIES_DOMAINS.invalidateAll();
+            PROPERTIES_RANGES.invalidateAll();
+        } else {
+            uris.forEach((uri) -> {
+                PROPERTIES_DOMAINS.invalidate(uri);
+                PROPERTIES_RANGES.invalidate(uri);
+            });
+        }
+    }
+
+    /**
+     * Invalidates all the cached entries.
+     */
+    public static void invalidateAll() {
+        getCaches().forEach((cache) -> {
+            cache.invalidateAll();
+        });
+        ClassHierarchyIndex.getInstance().invalidate();
+        LayerCache.invalidateAll();
+    }
+}
@@ -0,0 +1,389 @@
+//******************************************************************************
+//                         TriplestoreDataSource.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.datasource;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.eclipse.rdf4j.repository.http.HTTPRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import opensilex.service.PropertiesFileManager;
+
+/**
+ * Triplestore data source.
+ * Holds one HTTP repository per repository ID for the whole application and a
+ * bounded pool of connections on it. The connections are borrowed with
+ * getConnection() and given back with their close() method.
+ * Idle connections are evicted and connections borrowed for too long are
+ * considered as abandoned: they are logged and destroyed, as their thread may
+ * still be using them.
+ * Connections still borrowed by a thread at the end of a request are given back
+ * by releaseThreadConnections().
+ * @see sesame_rdf_config.properties file
+ */
+public class TriplestoreDataSource {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(TriplestoreDataSource.class);
+
+    private static final String PROPERTY_FILENAME = "sesame_rdf_config";
+
+    // Default pool configuration, used if not defined in the configuration file
+    private static final int DEFAULT_MAX_ACTIVE = 100;
+    private static final int DEFAULT_MAX_IDLE = 20;
+    private static final long DEFAULT_MAX_WAIT = 20000;
+    private static final long DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS = 10000;
+    private static final long DEFAULT_MIN_EVICTABLE_IDLE_TIME_MILLIS = 60000;
+    private static final int DEFAULT_REMOVE_ABANDONED_TIMEOUT = 300;
+    private static final boolean DEFAULT_LOG_ABANDONED = false;
+
+    /**
+     * One data source per repository ID.
+     */
+    private static final Map<String, TriplestoreDataSource> DATA_SOURCES = new ConcurrentHashMap<>();
+
+    /**
+     * Single thread shared by all the data sources to evict idle connections
+     * and to detect abandoned ones.
+     */
+    private static final ScheduledExecutorService MAINTENANCE_EXECUTOR = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "triplestore-pool-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Connections borrowed by the current thread and not yet given back.
+     */
+    private static final ThreadLocal<List<PooledRepositoryConnection>> THREAD_CONNECTIONS = ThreadLocal.withInitial(ArrayList::new);
+
+    private final String repositoryID;
+    private final Repository repository;
+
+    private final int maxActive;
+    private final int maxIdle;
+    private final long maxWait;
+    private final long minEvictableIdleTimeMillis;
+    private final long removeAbandonedTimeoutMillis;
+    private final boolean logAbandoned;
+
+    /**
+     * Limits the number of connections borrowed at the same time.
+     */
+    private final Semaphore activePermits;
+
+    private final ConcurrentLinkedDeque<IdleConnection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final Set<PooledRepositoryConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+
+    // Pool statistics
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong borrowedCount = new AtomicLong();
+    private final AtomicLong returnedCount = new AtomicLong();
+    private final AtomicLong abandonedCount = new AtomicLong();
+    private final AtomicLong waitTimeoutCount = new AtomicLong();
+
+    private TriplestoreDataSource(String repositoryID) {
+        this.repositoryID = repositoryID;
+        this.maxActive = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILENAME, "maxActive", DEFAULT_MAX_ACTIVE);
+        this.maxIdle = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILENAME, "maxIdle", DEFAULT_MAX_IDLE);
+        this.maxWait = PropertiesFileManager.getConfigFileLongProperty(PROPERTY_FILENAME, "maxWait", DEFAULT_MAX_WAIT);
+        this.minEvictableIdleTimeMillis = PropertiesFileManager.getConfigFileLongProperty(
+                PROPERTY_FILENAME, "minEvictableIdleTimeMillis", DEFAULT_MIN_EVICTABLE_IDLE_TIME_MILLIS);
+        this.removeAbandonedTimeoutMillis = PropertiesFileManager.getConfigFileIntProperty(
+                PROPERTY_FILENAME, "removeAbandonedTimeout", DEFAULT_REMOVE_ABANDONED_TIMEOUT) * 1000L;
+        this.logAbandoned = PropertiesFileManager.getConfigFileBooleanProperty(PROPERTY_FILENAME, "logAbandoned", DEFAULT_LOG_ABANDONED);
+        long timeBetweenEvictionRunsMillis = PropertiesFileManager.getConfigFileLongProperty(
+                PROPERTY_FILENAME, "timeBetweenEvictionRunsMillis", DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS);
+
+        this.activePermits = new Semaphore(maxActive, true);
+
+        this.repository = new HTTPRepository(PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "sesameServer"), repositoryID);
+        this.repository.initialize();
+
+        MAINTENANCE_EXECUTOR.scheduleWithFixedDelay(
+                this::maintain,
+                timeBetweenEvictionRunsMillis,
+                timeBetweenEvictionRunsMillis,
+                TimeUnit.MILLISECONDS);
+
+        LOGGER.info("Triplestore data source initialized for repository " + repositoryID
+                + " (maxActive=" + maxActive + ", maxIdle=" + maxIdle + ", maxWait=" + maxWait + ")");
+    }
+
+    /**
+     * Gets the data source of the repository defined in the configuration file.
+     * @return the data source
+     */
+    public static TriplestoreDataSource getInstance() {
+        return DefaultDataSourceHolder.instance;
+    }
+
+    /**
+     * Gets the data source of the given repository.
+     * @param repositoryID
+     * @return the data source
+     */
+    public static TriplestoreDataSource getInstance(String repositoryID) {
+        return DATA_SOURCES.computeIfAbsent(repositoryID, TriplestoreDataSource::new);
+    }
+
+    /**
+     * Safe thread initialization of the default data source.
+     */
+    private static class DefaultDataSourceHolder {
+
+        final private static TriplestoreDataSource instance = getInstance(
+                PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "repositoryID"));
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    public String getRepositoryID() {
+        return repositoryID;
+    }
+
+    /**
+     * Borrows a connection from the pool.
+     * Waits at most maxWait milliseconds if maxActive connections are already borrowed.
+     * @return the connection, which has to be closed to be given back to the pool
+     * @throws RepositoryException if no connection can be borrowed
+     */
+    public RepositoryConnection getConnection() throws RepositoryException {
+        try {
+            if (!activePermits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                waitTimeoutCount.incrementAndGet();
+                throw new RepositoryException("Timeout waiting for a triplestore connection: "
+                        + maxActive + " connections already in use");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for a triplestore connection", ex);
+        }
+
+        RepositoryConnection delegate;
+        try {
+            delegate = takeIdleConnection();
+            if (delegate == null) {
+                delegate = repository.getConnection();
+                createdCount.incrementAndGet();
+            }
+        } catch (RuntimeException ex) {
+            activePermits.release();
+            throw ex;
+        }
+
+        PooledRepositoryConnection connection = new PooledRepositoryConnection(this, repository, delegate, logAbandoned);
+        borrowedConnections.add(connection);
+        List<PooledRepositoryConnection> threadConnections = THREAD_CONNECTIONS.get();
+        // The abandoned connections can't be removed by the maintenance thread
+        threadConnections.removeIf(PooledRepositoryConnection::isReleased);
+        threadConnections.add(connection);
+        borrowedCount.incrementAndGet();
+        return connection;
+    }
+
+    /**
+     * Gives back to the pool the connections borrowed by the current thread
+     * and not closed yet. Called at the end of each request.
+     */
+    public static void releaseThreadConnections() {
+        List<PooledRepositoryConnection> connections = THREAD_CONNECTIONS.get();
+        connections.removeIf(PooledRepositoryConnection::isReleased);
+        if (!connections.isEmpty()) {
+            LOGGER.debug(connections.size() + " triplestore connection(s) given back at the end of the request");
+            for (PooledRepositoryConnection connection : new ArrayList<>(connections)) {
+                connection.close();
+            }
+        }
+        THREAD_CONNECTIONS.remove();
+    }
+
+    /**
+     * Gives back a borrowed connection to the pool.
+     * @param connection
+     */
+    void release(PooledRepositoryConnection connection) {
+        if (!borrowedConnections.remove(connection)) {
+            return;
+        }
+        if (connection.getOwner() == Thread.currentThread()) {
+            THREAD_CONNECTIONS.get().remove(connection);
+        }
+        returnedCount.incrementAndGet();
+
+        RepositoryConnection delegate = connection.getDelegate();
+        try {
+            if (delegate.isActive()) {
+                // A transaction left open must not be seen by the next borrower
+                delegate.rollback();
+            }
+            if (delegate.isOpen() && idleConnections.size() < maxIdle) {
+                idleConnections.offerFirst(new IdleConnection(delegate));
+            } else {
+                destroy(delegate);
+            }
+        } catch (RepositoryException ex) {
+            LOGGER.warn("Triplestore connection could not be given back to the pool: " + ex.getMessage());
+            destroy(delegate);
+        } finally {
+            activePermits.release();
+        }
+    }
+
+    /**
+     * Destroys an abandoned connection. It is never given back to the pool, 
+     * as its thread may still be running a query or a transaction on it.
+     * @param connection
+     */
+    private void destroyAbandoned(PooledRepositoryConnection connection) {
+        if (!borrowedConnections.remove(connection)) {
+            return;
+        }
+        try {
+            destroy(connection.getDelegate());
+        } finally {
+            activePermits.release();
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection.
+     * @return the idle connection or null if there is no idle connection
+     */
+    private RepositoryConnection takeIdleConnection() {
+        IdleConnection idle;
+        while ((idle = idleConnections.pollFirst()) != null) {
+            if (idle.connection.isOpen()) {
+                return idle.connection;
+            }
+            destroy(idle.connection);
+        }
+        return null;
+    }
+
+    private void destroy(RepositoryConnection connection) {
+        try {
+            connection.close();
+        } catch (RepositoryException ex) {
+            LOGGER.debug("Error while closing a triplestore connection: " + ex.getMessage());
+        }
+        destroyedCount.incrementAndGet();
+    }
+
+    /**
+     * Evicts the connections idle for more than minEvictableIdleTimeMillis and
+     * destroys the connections borrowed for more than removeAbandonedTimeout.
+     */
+    private void maintain() {
+        try {
+            long now = System.currentTimeMillis();
+
+            Iterator<IdleConnection> idleIterator = idleConnections.descendingIterator();
+            while (idleIterator.hasNext()) {
+                IdleConnection idle = idleIterator.next();
+                if (now - idle.idleSince > minEvictableIdleTimeMillis && idleConnections.remove(idle)) {
+                    destroy(idle.connection);
+                }
+            }
+
+            for (PooledRepositoryConnection connection : borrowedConnections) {
+                if (now - connection.getBorrowTime() > removeAbandonedTimeoutMillis && connection.markReleased()) {
+                    abandonedCount.incrementAndGet();
+                    if (logAbandoned) {
+                        LOGGER.warn("Abandoned triplestore connection borrowed by thread "
+                                + connection.getOwner().getName() + " destroyed", connection.getBorrowTrace());
+                    } else {
+                        LOGGER.warn("Abandoned triplestore connection borrowed by thread "
+                                + connection.getOwner().getName() + " destroyed");
+                    }
+                    destroyAbandoned(connection);
+                }
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.error("Error during the triplestore connection pool maintenance", ex);
+        }
+    }
+
+    /**
+     * @return the number of borrowed connections
+     */
+    public int getActive() {
+        return borrowedConnections.size();
+    }
+
+    /**
+     * @return the number of idle connections
+     */
+    public int getIdle() {
+        return idleConnections.size();
+    }
+
+    public int getMaxActive() {
+        return maxActive;
+    }
+
+    /**
+     * @return the number of threads waiting for a connection
+     */
+    public int getWaitCount() {
+        return activePermits.getQueueLength();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount.get();
+    }
+
+    public long getBorrowedCount() {
+        return borrowedCount.get();
+    }
+
+    public long getReturnedCount() {
+        return returnedCount.get();
+    }
+
+    public long getAbandonedCount() {
+        return abandonedCount.get();
+    }
+
+    public long getWaitTimeoutCount() {
+        return waitTimeoutCount.get();
+    }
+
+    /**
+     * Connection kept in the pool with the time it was given back.
+     */
+    private static class IdleConnection {
+
+        private final RepositoryConnection connection;
+        private final long idleSince;
+
+        private IdleConnection(RepositoryConnection connection) {
+            this.connection = connection;
+            this.idleSince = System.currentTimeMillis();
+        }
+    }
+}
@@ -46,7 +46,7 @@ public final class DocumentationAnnotation {
         + "<li>"
         + "<b> 1. You must first retrieve an acces token using the \"token\" call (fill with your PHIS-SILEX username and password)</b> and after you will be able to use other service calls.</li>"
         + "<li>"
-        + "<b> 2. You must fill the sessionId parameter</b> with the created access token on each call. <p style=\"color: red;\">This token is available during " + Integer.valueOf(PropertiesFileManager.getConfigFileProperty("service", "sessionTime")) + " seconds.</p> This time will be reload at each use in order to keep the token valid without retrieve a new one.</li>"
+        + "<b> 2. You must fill the sessionId parameter</b> with the created access token on each call. <p style=\"color: red;\">This token is available during " + PropertiesFileManager.getConfigFileIntProperty("service", "sessionTime") + " seconds.</p> This time will be reload at each use in order to keep the token valid without retrieve a new one.</li>"
         + "</ol>"
         + "<br>"
         + "<i>The response call <b>example values shown</b> in this api documentation represent the <b>data array</b> which is located <b>in the response result object</b> <p style=\"color: red;\">except for the token call.</p><i/><br>"
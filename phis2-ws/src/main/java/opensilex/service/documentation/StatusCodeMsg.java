@@ -50,6 +50,7 @@ public final class StatusCodeMsg {
     public static final String REQUEST_ERROR = "Request error";
     public static final String RESOURCES_CREATED = "Resource(s) created";
     public static final String RESOURCES_UPDATED = "Resource(s) updated";
+    public static final String SERVICE_OVERLOADED = "Service overloaded, please retry later";
     public static final String SFTP_EXCEPTION = "sftp exception";
     public static final String TIMEOUT = "Timeout";
     public static final String TRIPLESTOR_ACCESS_ERROR = "Triplestore access error";
@@ -7,31 +7,37 @@
 //******************************************************************************
 package opensilex.service.json;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Priority;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
-
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
-import static java.nio.charset.StandardCharsets.UTF_8;
-import javax.ws.rs.ProcessingException;
-import javax.ws.rs.core.Response;
+import com.google.gson.stream.JsonWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.documentation.StatusCodeMsg;
@@ -41,12 +47,17 @@ import opensilex.service.model.Dataset;
 
 /**
  * Custom JSON handler.
+ * The Gson instances are built once and shared by all the requests: they are
+ * thread safe and keep the type adapters of the serialized classes. The
+ * entities are read and written as streams, without intermediate strings.
+ * The provider takes precedence over the Jackson one, also registered.
  * @author Arnaud Charleroy <arnaud.charleroy@inra.fr>
  * @param <T>
  */
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 @Provider
+@Priority(Priorities.ENTITY_CODER)
 public final class CustomJsonWriterReader<T> implements MessageBodyWriter<T>,
         MessageBodyReader<T> {
 
@@ -54,9 +65,53 @@ public final class CustomJsonWriterReader<T> implements MessageBodyWriter<T>,
      * Logs
      */
     final static Logger LOGGER = LoggerFactory.getLogger(CustomJsonWriterReader.class);
+    
+    /**
+     * Size of the buffer of the written entities, in chars.
+     */
+    private static final int WRITER_BUFFER_SIZE = 16 * 1024;
+    
+    /**
+     * Types read by the Jersey providers.
+     */
+    private static final List<Class<?>> NOT_READABLE_TYPES = Arrays.asList(
+            InputStream.class, Reader.class, File.class, byte[].class);
+    
+    /**
+     * Types written by the Jersey providers.
+     */
+    private static final List<Class<?>> NOT_WRITEABLE_TYPES = Arrays.asList(
+            InputStream.class, Reader.class, File.class, byte[].class, StreamingOutput.class);
+    
+    /**
+     * Gson used to read the entities.
+     */
+    private static final Gson READER_GSON = new Gson();
+    
+    /**
+     * Gson used to write the entities.
+     */
+    private static final Gson WRITER_GSON = new GsonBuilder()
+            .registerTypeAdapter(Dataset.class, new DatasetsSerializer())
+            // specific serializer for Annotation
+            .registerTypeAdapter(opensilex.service.model.Annotation.class, new AnnotationsSerializer())
+            .serializeNulls() // To serialize null values in JSON null values
+            //@see https://github.com/plantbreeding/documentation/wiki/Best-Practices-and-Conventions
+            .create();
+    
+    /**
+     * Checks if a type is one of the given types or one of their subtypes.
+     * @param type
+     * @param types
+     * @return true if it is
+     */
+    private static boolean isAssignableToOneOf(Class<?> type, List<Class<?>> types) {
+        return types.stream().anyMatch((excludedType) -> excludedType.isAssignableFrom(type));
+    }
 
     /**
-     * Permits to filter visible classes.
+     * Permits to filter visible classes. The streams and files are left to
+     * the Jersey providers.
      * @param type
      * @param genericType
      * @param annotations
@@ -66,7 +121,7 @@ public final class CustomJsonWriterReader<T> implements MessageBodyWriter<T>,
     @Override
     public boolean isReadable(Class<?> type, Type genericType,
             java.lang.annotation.Annotation[] annotations, MediaType mediaType) {
-        return true;
+        return !isAssignableToOneOf(type, NOT_READABLE_TYPES);
     }
 
     /**
@@ -85,10 +140,9 @@ public final class CustomJsonWriterReader<T> implements MessageBodyWriter<T>,
     public T readFrom(Class<T> type, Type genericType, Annotation[] annotations, MediaType mediaType,
             MultivaluedMap<String, String> httpHeaders, InputStream entityStream)
             throws IOException, WebApplicationException {
-        final Gson g = new Gson();
         try {
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(entityStream));
-            return g.fromJson(reader, genericType);
+            // The JSON reader has its own buffer
+            return READER_GSON.fromJson(new InputStreamReader(entityStream, UTF_8), genericType);
         } catch (JsonIOException | JsonSyntaxException e) {
             LOGGER.warn(e.getMessage(), e);
             final ResponseFormPOST postResponse = new ResponseFormPOST(new Status(
@@ -103,7 +157,8 @@ public final class CustomJsonWriterReader<T> implements MessageBodyWriter<T>,
     }
 
     /**
-     * Tells if a class is serializable. By default, they all are.
+     * Tells if a class is serializable. By default, they all are, except the 
+     * streams and files which are left to the Jersey providers.
      * @param type
      * @param genericType
      * @param annotations
@@ -112,7 +167,7 @@ public final class CustomJsonWriterReader<T> implements MessageBodyWriter<T>,
      */
     @Override
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-        return true;
+        return !isAssignableToOneOf(type, NOT_WRITEABLE_TYPES);
     }
 
     @Override
@@ -139,17 +194,11 @@ public final class CustomJsonWriterReader<T> implements MessageBodyWriter<T>,
             MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
             throws IOException, WebApplicationException {
         try {
-            Gson g = new GsonBuilder()
-                    .registerTypeAdapter(Dataset.class, new DatasetsSerializer())
-                    // specific serializer for Annotation
-                    .registerTypeAdapter(opensilex.service.model.Annotation.class, new AnnotationsSerializer())
-                   
-                    .serializeNulls() // To serialize null values in JSON null values
-                    //@see https://github.com/plantbreeding/documentation/wiki/Best-Practices-and-Conventions
-                    .create();
-            try (OutputStreamWriter writer = new OutputStreamWriter(entityStream, UTF_8)) {
-                g.toJson(t, genericType, writer);
-            }
+            // Written directly in the entity stream, which is closed by Jersey
+            JsonWriter writer = WRITER_GSON.newJsonWriter(
+                    new BufferedWriter(new OutputStreamWriter(entityStream, UTF_8), WRITER_BUFFER_SIZE));
+            WRITER_GSON.toJson(t, genericType != null ? genericType : type, writer);
+            writer.flush();
         } catch (JsonIOException | IOException gsonEx) {
             LOGGER.error(gsonEx.getMessage(), gsonEx);
             throw new ProcessingException(
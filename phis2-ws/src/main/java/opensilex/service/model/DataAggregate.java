@@ -0,0 +1,131 @@
+//******************************************************************************
+//                              DataAggregate.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.model;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statistics of the numeric data of an object and a provenance in a time
+ * bucket.
+ */
+public class DataAggregate {
+
+    /**
+     * Related scientific object URI.
+     * @example http://www.phenome-fppn.fr/mtp/2018/s18003
+     */
+    protected String objectUri;
+
+    /**
+     * Provenance URI from which data comes.
+     * @example http://www.opensilex.org/opensilex/id/provenance/1552386023784
+     */
+    protected String provenanceUri;
+
+    /**
+     * Measured variable URI.
+     * @example http://www.phenome-fppn.fr/mtp/id/variables/v002
+     */
+    protected String variableUri;
+
+    /**
+     * Start of the time bucket.
+     */
+    protected Date date;
+
+    /**
+     * Number of data in the bucket.
+     */
+    protected long count;
+
+    protected double min;
+
+    protected double max;
+
+    protected double mean;
+
+    /**
+     * Values of the requested percentiles, by percentile.
+     * @example 50.0 = 1.2
+     */
+    protected Map<Double, Double> percentiles = new LinkedHashMap<>();
+
+    public String getObjectUri() {
+        return objectUri;
+    }
+
+    public void setObjectUri(String objectUri) {
+        this.objectUri = objectUri;
+    }
+
+    public String getProvenanceUri() {
+        return provenanceUri;
+    }
+
+    public void setProvenanceUri(String provenanceUri) {
+        this.provenanceUri = provenanceUri;
+    }
+
+    public String getVariableUri() {
+        return variableUri;
+    }
+
+    public void setVariableUri(String variableUri) {
+        this.variableUri = variableUri;
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public void setMin(double min) {
+        this.min = min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void setMax(double max) {
+        this.max = max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public void setMean(double mean) {
+        this.mean = mean;
+    }
+
+    public Map<Double, Double> getPercentiles() {
+        return percentiles;
+    }
+
+    public void addPercentile(double percentile, double value) {
+        percentiles.put(percentile, value);
+    }
+}
@@ -44,6 +44,25 @@ public class EnvironmentMeasure {
      * //\SILEX:info
      */
     protected BigDecimal value;
+    
+    /**
+     * Number of measures of a rollup, null for a single measure. The value 
+     * of a rollup is the mean of its measures.
+     * @example 60
+     */
+    protected Long count;
+    
+    /**
+     * Minimum value of the measures of a rollup, null for a single measure.
+     * @example 0.8
+     */
+    protected BigDecimal min;
+    
+    /**
+     * Maximum value of the measures of a rollup, null for a single measure.
+     * @example 1.5
+     */
+    protected BigDecimal max;
 
     public String getSensorUri() {
         return sensorUri;
@@ -76,4 +95,28 @@ public class EnvironmentMeasure {
     public void setValue(BigDecimal value) {
         this.value = value;
     }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public void setMin(BigDecimal min) {
+        this.min = min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public void setMax(BigDecimal max) {
+        this.max = max;
+    }
 }
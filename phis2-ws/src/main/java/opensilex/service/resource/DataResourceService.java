@@ -17,11 +17,21 @@ import io.swagger.annotations.ApiResponses;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
@@ -36,20 +46,30 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 import opensilex.service.configuration.DateFormat;
 import opensilex.service.configuration.DefaultBrapiPaginationValues;
 import opensilex.service.configuration.GlobalWebserviceValues;
+import opensilex.service.configuration.TimeBuckets;
 import opensilex.service.dao.DataDAO;
+import opensilex.service.dao.manager.AsyncQueryExecutor;
 import opensilex.service.dao.FileDescriptionDAO;
+import opensilex.service.dao.LabelResolver;
 import opensilex.service.dao.ProvenanceDAO;
 import opensilex.service.dao.ScientificObjectRdf4jDAO;
 import opensilex.service.dao.VariableDAO;
 import opensilex.service.documentation.DocumentationAnnotation;
 import opensilex.service.documentation.StatusCodeMsg;
+import opensilex.service.resource.dto.data.DataAggregateDTO;
 import opensilex.service.resource.dto.data.DataDTO;
 import opensilex.service.resource.dto.data.DataPostDTO;
 import opensilex.service.resource.dto.data.FileDescriptionDTO;
@@ -57,12 +77,15 @@ import opensilex.service.resource.dto.data.FileDescriptionPostDTO;
 import opensilex.service.resource.validation.interfaces.Date;
 import opensilex.service.resource.validation.interfaces.Required;
 import opensilex.service.resource.validation.interfaces.URL;
+import opensilex.service.utils.Downsampling;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.view.brapi.form.AbstractResultForm;
+import opensilex.service.view.brapi.form.ResponseFormGET;
 import opensilex.service.view.brapi.form.ResponseFormPOST;
 import opensilex.service.result.ResultForm;
 import opensilex.service.model.Data;
+import opensilex.service.model.DataAggregate;
 import opensilex.service.model.FileDescription;
 import opensilex.service.ontology.Oeso;
 import opensilex.service.resource.dto.data.DataSearchDTO;
@@ -76,6 +99,14 @@ import opensilex.service.resource.dto.data.FileDescriptionWebPathPostDTO;
 @Path("/data")
 public class DataResourceService extends ResourceService {
     
+    // Header of the data exported in CSV
+    private static final String DATA_CSV_HEADER = "uri,variable,object,provenance,date,value,cursor\n";
+    
+    /**
+     * Gson used to write the streamed data, shared by the requests.
+     */
+    private static final Gson DATA_STREAM_GSON = new Gson();
+    
     /**
      * Service to insert data. 
      * @param data
@@ -688,7 +719,8 @@ public class DataResourceService extends ResourceService {
                           example = GlobalWebserviceValues.AUTHENTICATION_SCHEME + " ")
     })
     @Produces(MediaType.APPLICATION_JSON)  
-    public Response getDataSearch(
+    public void getDataSearch(
+        @Suspended final AsyncResponse asyncResponse,
         @ApiParam(value = DocumentationAnnotation.PAGE_SIZE) @QueryParam(GlobalWebserviceValues.PAGE_SIZE) @DefaultValue(DefaultBrapiPaginationValues.PAGE_SIZE) @Min(0) int pageSize,
         @ApiParam(value = DocumentationAnnotation.PAGE) @QueryParam(GlobalWebserviceValues.PAGE) @DefaultValue(DefaultBrapiPaginationValues.PAGE) @Min(0) int page,
         @ApiParam(value = "Search by variable uri", example = DocumentationAnnotation.EXAMPLE_VARIABLE_URI) @QueryParam("variableUri") @URL @Required String variableUri,
@@ -700,98 +732,477 @@ public class DataResourceService extends ResourceService {
         @ApiParam(value = "Search by provenance label", example = DocumentationAnnotation.EXAMPLE_PROVENANCE_LABEL) @QueryParam("provenanceLabel") String provenanceLabel,
         @ApiParam(value = "Date search result order ('true' for ascending and 'false' for descending)", example = "true") @QueryParam("dateSortAsc") boolean dateSortAsc
     ) {
-        ArrayList<DataSearchDTO> list = new ArrayList<>();
-        ArrayList<Status> statusList = new ArrayList<>();
-        ResultForm<DataSearchDTO> getResponse;
+        //1. Get list of objects uris corresponding to the label given if needed.
+        CompletableFuture<Map<String, List<String>>> objectsFuture = AsyncQueryExecutor.supplyAsync(() -> {
+            Map<String, List<String>> objectsUrisAndLabels = new HashMap<>();
+            if (objectUri != null && !objectUri.isEmpty()) {
+                objectsUrisAndLabels.put(objectUri, LabelResolver.getLabels(objectUri));
+            } else if (objectLabel != null && !objectLabel.isEmpty()) { //We need to get the list of the uris of the scientific object with this label (like)
+                ScientificObjectRdf4jDAO scientificObjectDAO = new ScientificObjectRdf4jDAO();
+                objectsUrisAndLabels.putAll(scientificObjectDAO.findUriAndLabelsByLabelAndRdfType(objectLabel, Oeso.CONCEPT_SCIENTIFIC_OBJECT.toString()));
+            }
+            return objectsUrisAndLabels;
+        });
         
-        DataDAO dataDAO = new DataDAO();
+        //2. Get list of provenances uris corresponding to the label given if needed.
+        CompletableFuture<Map<String, String>> provenancesFuture = AsyncQueryExecutor.supplyAsync(() -> {
+            Map<String, String> provenancesUrisAndLabels = new HashMap<>();
+            if ((provenanceUri == null || provenanceUri.isEmpty()) && provenanceLabel != null && !provenanceLabel.isEmpty()) { 
+                //If the provenance URI is empty and a label is given, we search the provenance(s) with the given label (like)
+                ProvenanceDAO provenanceDAO = new ProvenanceDAO();
+                provenancesUrisAndLabels.putAll(provenanceDAO.findUriAndLabelsByLabel(provenanceLabel));
+            }
+            return provenancesUrisAndLabels;
+        });
         
-        List<String> objectsUris = new ArrayList<>();
-        List<String> provenancesUris = new ArrayList<>();
+        //3. Get variable label, null if the variable doesn't exist
+        CompletableFuture<String> variableLabelFuture = AsyncQueryExecutor.supplyAsync(() -> {
+            VariableDAO variableDAO = new VariableDAO();
+            if (!variableDAO.existAndIsVariable(variableUri)) {
+                return null;
+            }
+            return LabelResolver.getLabels(variableUri).get(0);
+        });
         
-        Map<String, List<String>> objectsUrisAndLabels = new HashMap<>();
-        Map<String, String> provenancesUrisAndLabels = new HashMap<>();
+        //4. Get count and data, once the objects and provenances are known
+        CompletableFuture<Void> filtersFuture = CompletableFuture.allOf(objectsFuture, provenancesFuture);
+        CompletableFuture<Integer> countFuture = filtersFuture.thenCompose((filters) -> {
+            List<String> objectsUris = new ArrayList<>(objectsFuture.join().keySet());
+            List<String> provenancesUris = getSearchedProvenancesUris(provenanceUri, provenancesFuture.join());
+            return AsyncQueryExecutor.supplyAsync(() -> 
+                    new DataDAO().count(variableUri, startDate, endDate, objectsUris, provenancesUris));
+        });
+        CompletableFuture<List<Data>> dataFuture = filtersFuture.thenCompose((filters) -> {
+            List<String> objectsUris = new ArrayList<>(objectsFuture.join().keySet());
+            List<String> provenancesUris = getSearchedProvenancesUris(provenanceUri, provenancesFuture.join());
+            return AsyncQueryExecutor.supplyAsync(() -> 
+                    new DataDAO().find(page, pageSize, variableUri, startDate, endDate, objectsUris, provenancesUris));
+        });
         
-        //1. Get list of objects uris corresponding to the label given if needed.
-        ScientificObjectRdf4jDAO scientificObjectDAO = new ScientificObjectRdf4jDAO();
+        //5. Get the labels of the objects and of the provenances of the data
+        //which are not already known, all at once
+        CompletableFuture<Map<String, List<String>>> dataObjectsLabelsFuture = dataFuture.thenCombine(objectsFuture, (dataList, objectsUrisAndLabels) -> {
+            Set<String> objectsUrisWithoutLabels = new HashSet<>();
+            if (dataList != null) {
+                for (Data data : dataList) {
+                    if (data.getObjectUri() != null && !objectsUrisAndLabels.containsKey(data.getObjectUri())) { 
+                        objectsUrisWithoutLabels.add(data.getObjectUri());
+                    }
+                }
+            }
+            return objectsUrisWithoutLabels;
+        }).thenCompose((objectsUrisWithoutLabels) -> objectsUrisWithoutLabels.isEmpty()
+                ? CompletableFuture.completedFuture(new HashMap<>())
+                : AsyncQueryExecutor.supplyAsync(() -> LabelResolver.getLabels(objectsUrisWithoutLabels)));
+        CompletableFuture<Map<String, String>> dataProvenancesLabelsFuture = dataFuture.thenCombine(provenancesFuture, (dataList, provenancesUrisAndLabels) -> {
+            Set<String> provenancesUrisWithoutLabels = new HashSet<>();
+            if (dataList != null) {
+                for (Data data : dataList) {
+                    if (!provenancesUrisAndLabels.containsKey(data.getProvenanceUri())) {
+                        provenancesUrisWithoutLabels.add(data.getProvenanceUri());
+                    }
+                }
+            }
+            return provenancesUrisWithoutLabels;
+        }).thenCompose((provenancesUrisWithoutLabels) -> provenancesUrisWithoutLabels.isEmpty()
+                ? CompletableFuture.completedFuture(new HashMap<>())
+                : AsyncQueryExecutor.supplyAsync(() -> LabelResolver.getProvenancesLabels(provenancesUrisWithoutLabels)));
+        
+        //6. Return result
+        CompletableFuture<Response> responseFuture = CompletableFuture.allOf(
+                variableLabelFuture, countFuture, dataObjectsLabelsFuture, dataProvenancesLabelsFuture).thenApply((results) -> {
+            ArrayList<DataSearchDTO> list = new ArrayList<>();
+            ArrayList<Status> statusList = new ArrayList<>();
+            ResultForm<DataSearchDTO> getResponse;
+            
+            String variableLabel = variableLabelFuture.join();
+            List<Data> dataList = dataFuture.join();
+            if (variableLabel == null) {
+                // Request failure
+                getResponse = new ResultForm<>(0, 0, list, true, 0);
+                statusList.add(new Status(StatusCodeMsg.DATA_ERROR, StatusCodeMsg.ERR, "Unknown variable URI : " + variableUri));
+                getResponse.setStatus(statusList);
+                return Response.status(Response.Status.NOT_FOUND).entity(getResponse).build();
+            } else if (dataList == null) {
+                // Request failure
+                getResponse = new ResultForm<>(0, 0, list, true, 0);
+                return noResultFound(getResponse, statusList);
+            } else if (dataList.isEmpty()) {
+                // No results
+                getResponse = new ResultForm<>(0, 0, list, true, 0);
+                return noResultFound(getResponse, statusList);
+            } else {
+                Map<String, List<String>> objectsUrisAndLabels = new HashMap<>(objectsFuture.join());
+                objectsUrisAndLabels.putAll(dataObjectsLabelsFuture.join());
+                Map<String, String> provenancesUrisAndLabels = new HashMap<>(provenancesFuture.join());
+                provenancesUrisAndLabels.putAll(dataProvenancesLabelsFuture.join());
+                
+                // Convert all data object to DTO's
+                for (Data data : dataList) {
+                    //Get provenance label
+                    String dataProvenanceLabel = provenancesUrisAndLabels.get(data.getProvenanceUri());
+                    //Get object labels
+                    List<String> dataObjectLabels = new ArrayList<>();
+                    if (objectsUrisAndLabels.get(data.getObjectUri()) != null) {
+                        dataObjectLabels = objectsUrisAndLabels.get(data.getObjectUri());
+                    }
+
+                    list.add(new DataSearchDTO(data, dataProvenanceLabel, dataObjectLabels, variableLabel));
+                }
+
+                // Return list of DTO
+                getResponse = new ResultForm<>(pageSize, page, list, true, countFuture.join());
+                getResponse.setStatus(statusList);
+                return Response.status(Response.Status.OK).entity(getResponse).build();
+            }
+        });
+        
+        resume(asyncResponse, responseFuture);
+    }
+    
+    /**
+     * Service to get the statistics of the numeric data corresponding to the 
+     * search parameters, by object, provenance and time bucket. The 
+     * statistics are computed by the database, so that the charts don't 
+     * need the raw data.
+     * @param variableUri
+     * @param startDate
+     * @param endDate
+     * @param objectUri
+     * @param provenanceUri
+     * @param bucket time bucket: minute, hour or day
+     * @param percentiles comma separated percentiles to compute
+     * @param maxPoints maximum number of buckets by object and provenance
+     * @example
+     * {
+     *      "metadata": {
+     *          "pagination": null,
+     *          "status": [],
+     *          "datafiles": []
+     *      },
+     *      "result": {
+     *          "data": [
+     *              {
+     *                  "objectUri": "http://www.opensilex.org/opensilex/2019/o19000060",
+     *                  "provenanceUri": "http://www.opensilex.org/opensilex/id/provenance/1552386023784",
+     *                  "date": "2014-01-04T00:00:00+0000",
+     *                  "count": 24,
+     *                  "min": 12.5,
+     *                  "max": 19,
+     *                  "mean": 15.3,
+     *                  "percentiles": {"50": 15, "90": 18.5}
+     *              }
+     *          ]
+     *      }
+     * }
+     * @return the statistics, sorted by object, provenance and date
+     */
+    @GET
+    @Path("aggregate")
+    @ApiOperation(value = "Get the statistics of the data corresponding to the search parameters given, by time bucket.",
+                  notes = "Compute the count, minimum, maximum, mean and the requested percentiles of the numeric data "
+                          + "by object, provenance and time bucket (minute, hour or day, in UTC)."
+                          + "<br/>With maxPoints, the buckets of each object and provenance are downsampled "
+                          + "with the Largest-Triangle-Three-Buckets algorithm on their mean."
+                          + "<br/>Date parameters could be either a datetime like: " + DocumentationAnnotation.EXAMPLE_XSDDATETIME 
+                          + "<br/>or simply a date like: " + DocumentationAnnotation.EXAMPLE_DATE)
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Retrieve the data statistics", response = DataAggregateDTO.class, responseContainer = "List"),
+        @ApiResponse(code = 400, message = DocumentationAnnotation.BAD_USER_INFORMATION),
+        @ApiResponse(code = 401, message = DocumentationAnnotation.USER_NOT_AUTHORIZED),
+        @ApiResponse(code = 500, message = DocumentationAnnotation.ERROR_FETCH_DATA)
+    })
+    @ApiImplicitParams({
+        @ApiImplicitParam(name = GlobalWebserviceValues.AUTHORIZATION, required = true,
+                          dataType = GlobalWebserviceValues.DATA_TYPE_STRING, paramType = GlobalWebserviceValues.HEADER,
+                          value = DocumentationAnnotation.ACCES_TOKEN,
+                          example = GlobalWebserviceValues.AUTHENTICATION_SCHEME + " ")
+    })
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getDataAggregate(
+        @ApiParam(value = "Search by variable uri", example = DocumentationAnnotation.EXAMPLE_VARIABLE_URI) @QueryParam("variableUri") @URL @Required String variableUri,
+        @ApiParam(value = "Search by minimal date", example = DocumentationAnnotation.EXAMPLE_XSDDATETIME) @QueryParam("startDate") @Date({DateFormat.YMDTHMSZ, DateFormat.YMD}) String startDate,
+        @ApiParam(value = "Search by maximal date", example = DocumentationAnnotation.EXAMPLE_XSDDATETIME) @QueryParam("endDate") @Date({DateFormat.YMDTHMSZ, DateFormat.YMD}) String endDate,
+        @ApiParam(value = "Search by object uri", example = DocumentationAnnotation.EXAMPLE_SCIENTIFIC_OBJECT_URI) @QueryParam("objectUri") @URL String objectUri,
+        @ApiParam(value = "Search by provenance uri", example = DocumentationAnnotation.EXAMPLE_PROVENANCE_URI) @QueryParam("provenanceUri") @URL String provenanceUri,
+        @ApiParam(value = "Time bucket", allowableValues = "minute,hour,day", example = "hour") @QueryParam("bucket") @DefaultValue("hour") String bucket,
+        @ApiParam(value = "Comma separated percentiles to compute, between 0 and 100", example = "50,90") @QueryParam("percentiles") String percentiles,
+        @ApiParam(value = "Maximum number of buckets by object and provenance (0 for all the buckets)", example = "500") @QueryParam("maxPoints") @DefaultValue("0") @Min(0) int maxPoints
+    ) {
+        ArrayList<Status> statusList = new ArrayList<>();
+        
+        //1. Check the parameters
+        TimeBuckets timeBucket = TimeBuckets.fromString(bucket);
+        if (timeBucket == null) {
+            statusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "Invalid time bucket : " + bucket));
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ResponseFormGET(statusList)).build();
+        }
+        List<Double> percentilesValues = new ArrayList<>();
+        if (percentiles != null && !percentiles.trim().isEmpty()) {
+            for (String percentile : percentiles.split(",")) {
+                try {
+                    double percentileValue = Double.parseDouble(percentile.trim());
+                    if (percentileValue < 0 || percentileValue > 100) {
+                        throw new NumberFormatException();
+                    }
+                    percentilesValues.add(percentileValue);
+                } catch (NumberFormatException ex) {
+                    statusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "Invalid percentile : " + percentile));
+                    return Response.status(Response.Status.BAD_REQUEST).entity(new ResponseFormGET(statusList)).build();
+                }
+            }
+        }
+        
+        //2. Check the variable
+        VariableDAO variableDAO = new VariableDAO();
+        if (!variableDAO.existAndIsVariable(variableUri)) {
+            statusList.add(new Status(StatusCodeMsg.DATA_ERROR, StatusCodeMsg.ERR, "Unknown variable URI : " + variableUri));
+            return Response.status(Response.Status.NOT_FOUND).entity(new ResponseFormGET(statusList)).build();
+        }
+        
+        //3. Aggregate the data
+        List<String> objectsUris = new ArrayList<>();
         if (objectUri != null && !objectUri.isEmpty()) {
-            objectsUrisAndLabels.put(objectUri, scientificObjectDAO.findLabelsForUri(objectUri));
-        } else if (objectLabel != null && !objectLabel.isEmpty()) { //We need to get the list of the uris of the scientific object with this label (like)
-            objectsUrisAndLabels = scientificObjectDAO.findUriAndLabelsByLabelAndRdfType(objectLabel, Oeso.CONCEPT_SCIENTIFIC_OBJECT.toString());
+            objectsUris.add(objectUri);
+        }
+        List<String> provenancesUris = new ArrayList<>();
+        if (provenanceUri != null && !provenanceUri.isEmpty()) {
+            provenancesUris.add(provenanceUri);
         }
+        List<DataAggregate> dataAggregates = new DataDAO().aggregate(
+                variableUri, startDate, endDate, objectsUris, provenancesUris, timeBucket, percentilesValues);
         
-        for (String uri : objectsUrisAndLabels.keySet()) {
-            objectsUris.add(uri);
+        //4. Downsample each object and provenance series if needed
+        ArrayList<DataAggregateDTO> list = new ArrayList<>();
+        int seriesStart = 0;
+        for (int i = 1; i <= dataAggregates.size(); i++) {
+            if (i == dataAggregates.size() || !isSameSeries(dataAggregates.get(seriesStart), dataAggregates.get(i))) {
+                List<DataAggregate> series = Downsampling.largestTriangleThreeBuckets(
+                        dataAggregates.subList(seriesStart, i), maxPoints,
+                        (dataAggregate) -> dataAggregate.getDate().getTime(), 
+                        DataAggregate::getMean);
+                series.forEach((dataAggregate) -> {
+                    list.add(new DataAggregateDTO(dataAggregate));
+                });
+                seriesStart = i;
+            }
         }
         
-        //2. Get list of provenances uris corresponding to the label given if needed.
-        ProvenanceDAO provenanceDAO = new ProvenanceDAO();
+        //5. Return result
+        ResultForm<DataAggregateDTO> getResponse = new ResultForm<>(0, 0, list, true);
+        if (list.isEmpty()) {
+            return noResultFound(getResponse, statusList);
+        }
+        getResponse.setStatus(statusList);
+        return Response.status(Response.Status.OK).entity(getResponse).build();
+    }
+    
+    /**
+     * @param first
+     * @param second
+     * @return true if the two aggregates have the same object and provenance
+     */
+    private static boolean isSameSeries(DataAggregate first, DataAggregate second) {
+        return Objects.equals(first.getObjectUri(), second.getObjectUri())
+                && Objects.equals(first.getProvenanceUri(), second.getProvenanceUri());
+    }
+    
+    /**
+     * Gets the URIs of the searched provenances.
+     * @param provenanceUri the provenance URI given
+     * @param provenancesUrisAndLabels the provenances found by label
+     * @return the URIs
+     */
+    private List<String> getSearchedProvenancesUris(String provenanceUri, Map<String, String> provenancesUrisAndLabels) {
+        List<String> provenancesUris = new ArrayList<>();
         if (provenanceUri != null && !provenanceUri.isEmpty()) {
-            //If the provenance URI is given, we need the provenance label
             provenancesUris.add(provenanceUri);
-        } else if (provenanceLabel != null && !provenanceLabel.isEmpty()) { 
-            //If the provenance URI is empty and a label is given, we search the provenance(s) with the given label (like)
-            provenancesUrisAndLabels = provenanceDAO.findUriAndLabelsByLabel(provenanceLabel);
         }
+        provenancesUris.addAll(provenancesUrisAndLabels.keySet());
+        return provenancesUris;
+    }
+    
+    /**
+     * Service to export the data corresponding to the search parameters, in 
+     * newline delimited JSON or in CSV according to the Accept header.
+     * It has its own path, so that it isn't mixed up with the JSON search.
+     * The data are streamed from the database without pagination. Each data 
+     * comes with a cursor which can be given to continue the export after it.
+     * @param variableUri
+     * @param startDate
+     * @param endDate
+     * @param objectUri
+     * @param objectLabel
+     * @param provenanceUri
+     * @param provenanceLabel
+     * @param dateSortAsc
+     * @param cursor
+     * @param limit
+     * @param httpHeaders
+     * @return the data stream
+     * @example application/x-ndjson
+     * {"uri":"http://www.opensilex.org/opensilex/id/data/k3zilz2rrjhkxo4ppy43372rr5hyrbehjuf2stecbekvkxyqcjdq84b1df953972418a8d5808ba2bca3baedfsf","provenance":{"uri":"http://www.opensilex.org/opensilex/id/provenance/1552386023784"},"object":{"uri":"http://www.opensilex.org/opensilex/2019/o19000060"},"variable":{"uri":"http://www.opensilex.org/opensilex/id/variables/v001"},"date":"2014-01-04T00:55:00+0100","value":19,"cursor":"1388793300000-5c87a1e7e4b0d4a8e8b1c7a2"}
+     * @example text/csv
+     * uri,variable,object,provenance,date,value,cursor
+     * http://www.opensilex.org/opensilex/id/data/k3zilz2rrjhkxo4ppy43372rr5hyrbehjuf2stecbekvkxyqcjdq84b1df953972418a8d5808ba2bca3baedfsf,http://www.opensilex.org/opensilex/id/variables/v001,http://www.opensilex.org/opensilex/2019/o19000060,http://www.opensilex.org/opensilex/id/provenance/1552386023784,2014-01-04T00:55:00+0100,19,1388793300000-5c87a1e7e4b0d4a8e8b1c7a2
+     */
+    @GET
+    @Path("export")
+    @ApiOperation(value = "Export data corresponding to the search parameters given.",
+                  notes = "Stream all data corresponding to the search parameters given, as newline delimited JSON or CSV,"
+                          + "<br/>Each data comes with a cursor which can be given to continue the export after this data."
+                          + "<br/>Date parameters could be either a datetime like: " + DocumentationAnnotation.EXAMPLE_XSDDATETIME 
+                          + "<br/>or simply a date like: " + DocumentationAnnotation.EXAMPLE_DATE)
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Retrieve all data"),
+        @ApiResponse(code = 400, message = DocumentationAnnotation.BAD_USER_INFORMATION),
+        @ApiResponse(code = 401, message = DocumentationAnnotation.USER_NOT_AUTHORIZED),
+        @ApiResponse(code = 500, message = DocumentationAnnotation.ERROR_FETCH_DATA)
+    })
+    @ApiImplicitParams({
+        @ApiImplicitParam(name = GlobalWebserviceValues.AUTHORIZATION, required = true,
+                          dataType = GlobalWebserviceValues.DATA_TYPE_STRING, paramType = GlobalWebserviceValues.HEADER,
+                          value = DocumentationAnnotation.ACCES_TOKEN,
+                          example = GlobalWebserviceValues.AUTHENTICATION_SCHEME + " ")
+    })
+    @Produces({GlobalWebserviceValues.APPLICATION_NDJSON, GlobalWebserviceValues.TEXT_CSV})
+    public Response getDataSearchStream(
+        @ApiParam(value = "Search by variable uri", example = DocumentationAnnotation.EXAMPLE_VARIABLE_URI) @QueryParam("variableUri") @URL @Required String variableUri,
+        @ApiParam(value = "Search by minimal date", example = DocumentationAnnotation.EXAMPLE_XSDDATETIME) @QueryParam("startDate") @Date({DateFormat.YMDTHMSZ, DateFormat.YMD}) String startDate,
+        @ApiParam(value = "Search by maximal date", example = DocumentationAnnotation.EXAMPLE_XSDDATETIME) @QueryParam("endDate") @Date({DateFormat.YMDTHMSZ, DateFormat.YMD}) String endDate,
+        @ApiParam(value = "Search by object uri", example = DocumentationAnnotation.EXAMPLE_SCIENTIFIC_OBJECT_URI) @QueryParam("objectUri") @URL String objectUri,
+        @ApiParam(value = "Search by object label", example = DocumentationAnnotation.EXAMPLE_SCIENTIFIC_OBJECT_ALIAS) @QueryParam("objectLabel") String objectLabel,
+        @ApiParam(value = "Search by provenance uri", example = DocumentationAnnotation.EXAMPLE_PROVENANCE_URI) @QueryParam("provenanceUri") @URL String provenanceUri,
+        @ApiParam(value = "Search by provenance label", example = DocumentationAnnotation.EXAMPLE_PROVENANCE_LABEL) @QueryParam("provenanceLabel") String provenanceLabel,
+        @ApiParam(value = "Date search result order ('true' for ascending and 'false' for descending)", example = "true") @QueryParam("dateSortAsc") boolean dateSortAsc,
+        @ApiParam(value = "Cursor of the last data already received, to continue the export after it") @QueryParam("cursor") String cursor,
+        @ApiParam(value = "Maximum number of data to export (0 for no limit)", example = "0") @QueryParam("limit") @DefaultValue("0") @Min(0) int limit,
+        @Context HttpHeaders httpHeaders
+    ) {
+        ArrayList<Status> statusList = new ArrayList<>();
         
-        for (String uri : provenancesUrisAndLabels.keySet()) {
-            provenancesUris.add(uri);
+        //1. Check the cursor
+        if (cursor != null && !DataDAO.isValidCursor(cursor)) {
+            statusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "Invalid cursor : " + cursor));
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(new ResponseFormGET(statusList))
+                    .build();
         }
         
-        //3. Get variable label
+        //2. Check the variable
         VariableDAO variableDAO = new VariableDAO();
         if (!variableDAO.existAndIsVariable(variableUri)) {
-            // Request failure
-            getResponse = new ResultForm<>(0, 0, list, true, 0);
             statusList.add(new Status(StatusCodeMsg.DATA_ERROR, StatusCodeMsg.ERR, "Unknown variable URI : " + variableUri));
-            getResponse.setStatus(statusList);
-            return Response.status(Response.Status.NOT_FOUND).entity(getResponse).build();
+            return Response.status(Response.Status.NOT_FOUND)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(new ResponseFormGET(statusList))
+                    .build();
         }
-        String variableLabel = variableDAO.findLabelsForUri(variableUri).get(0);
         
-        //4. Get count
-        Integer totalCount = dataDAO.count(variableUri, startDate, endDate, objectsUris, provenancesUris);
+        //3. Get list of objects uris corresponding to the label given if needed.
+        List<String> objectsUris = new ArrayList<>();
+        if (objectUri != null && !objectUri.isEmpty()) {
+            objectsUris.add(objectUri);
+        } else if (objectLabel != null && !objectLabel.isEmpty()) {
+            ScientificObjectRdf4jDAO scientificObjectDAO = new ScientificObjectRdf4jDAO();
+            objectsUris.addAll(scientificObjectDAO.findUriAndLabelsByLabelAndRdfType(objectLabel, Oeso.CONCEPT_SCIENTIFIC_OBJECT.toString()).keySet());
+        }
         
-        //5. Get data
-        List<Data> dataList = dataDAO.find(page, pageSize, variableUri, startDate, endDate, objectsUris, provenancesUris);      
+        //4. Get list of provenances uris corresponding to the label given if needed.
+        List<String> provenancesUris = new ArrayList<>();
+        if (provenanceUri != null && !provenanceUri.isEmpty()) {
+            provenancesUris.add(provenanceUri);
+        } else if (provenanceLabel != null && !provenanceLabel.isEmpty()) {
+            ProvenanceDAO provenanceDAO = new ProvenanceDAO();
+            provenancesUris.addAll(provenanceDAO.findUriAndLabelsByLabel(provenanceLabel).keySet());
+        }
         
-        //6. Return result
-        if (dataList == null) {
-            // Request failure
-            getResponse = new ResultForm<>(0, 0, list, true, 0);
-            return noResultFound(getResponse, statusList);
-        } else if (dataList.isEmpty()) {
-            // No results
-            getResponse = new ResultForm<>(0, 0, list, true, 0);
-            return noResultFound(getResponse, statusList);
-        } else {
-            // Convert all data object to DTO's
-            for (Data data : dataList) {
-                if (data.getObjectUri() != null && !objectsUrisAndLabels.containsKey(data.getObjectUri())) { 
-                    //We need to get the labels of the object
-                    objectsUrisAndLabels.put(data.getObjectUri(), scientificObjectDAO.findLabelsForUri(data.getObjectUri()));
-                }
-                
-                if (!provenancesUrisAndLabels.containsKey(data.getProvenanceUri())) {
-                    //We need to get the label of the provenance
-                    provenancesUrisAndLabels.put(data.getProvenanceUri(), provenanceDAO.findLabelByUri(data.getProvenanceUri()));
-                }
-                
-                //Get provenance label
-                String dataProvenanceLabel = provenancesUrisAndLabels.get(data.getProvenanceUri());
-                //Get object labels
-                List<String> dataObjectLabels = new ArrayList<>();
-                if (objectsUrisAndLabels.get(data.getObjectUri()) != null) {
-                    dataObjectLabels = objectsUrisAndLabels.get(data.getObjectUri());
-                }
-                
-                list.add(new DataSearchDTO(data, dataProvenanceLabel, dataObjectLabels, variableLabel));
+        //5. Stream the data
+        boolean csv = isCsvPreferred(httpHeaders);
+        DataDAO dataDAO = new DataDAO();
+        dataDAO.dateSortAsc = dateSortAsc;
+        
+        StreamingOutput stream = (OutputStream outputStream) -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            DataDAO.DataStreamConsumer consumer;
+            if (csv) {
+                writer.write(DATA_CSV_HEADER);
+                consumer = (data, dataCursor) -> writeDataCsvLine(writer, data, dataCursor);
+            } else {
+                consumer = (data, dataCursor) -> {
+                    JsonObject dataJson = DATA_STREAM_GSON.toJsonTree(new DataSearchDTO(data, null, null, null)).getAsJsonObject();
+                    dataJson.addProperty("cursor", dataCursor);
+                    DATA_STREAM_GSON.toJson(dataJson, writer);
+                    writer.write("\n");
+                };
             }
-            
-            // Return list of DTO
-            getResponse = new ResultForm<>(pageSize, page, list, true, totalCount);
-            getResponse.setStatus(statusList);
-            return Response.status(Response.Status.OK).entity(getResponse).build();
+            dataDAO.stream(variableUri, startDate, endDate, objectsUris, provenancesUris, cursor, limit, consumer);
+            writer.flush();
+        };
+        
+        return Response.ok(stream, csv ? GlobalWebserviceValues.TEXT_CSV : GlobalWebserviceValues.APPLICATION_NDJSON).build();
+    }
+    
+    /**
+     * Checks if CSV is preferred to newline delimited JSON in the accepted 
+     * media types of the request.
+     * @param httpHeaders
+     * @return true if the data must be exported in CSV
+     */
+    private static boolean isCsvPreferred(HttpHeaders httpHeaders) {
+        MediaType csv = MediaType.valueOf(GlobalWebserviceValues.TEXT_CSV);
+        MediaType ndjson = MediaType.valueOf(GlobalWebserviceValues.APPLICATION_NDJSON);
+        // The accepted media types are sorted by quality
+        for (MediaType mediaType : httpHeaders.getAcceptableMediaTypes()) {
+            if (!mediaType.isWildcardType() && mediaType.isCompatible(csv)) {
+                return true;
+            } else if (mediaType.isCompatible(ndjson)) {
+                return false;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Writes a data as a CSV line.
+     * @param writer
+     * @param data
+     * @param cursor
+     * @throws IOException 
+     */
+    private static void writeDataCsvLine(Writer writer, Data data, String cursor) throws IOException {
+        DataSearchDTO dataDTO = new DataSearchDTO(data, null, null, null);
+        writer.write(csvValue(data.getUri()));
+        writer.write(',');
+        writer.write(csvValue(data.getVariableUri()));
+        writer.write(',');
+        writer.write(csvValue(data.getObjectUri()));
+        writer.write(',');
+        writer.write(csvValue(data.getProvenanceUri()));
+        writer.write(',');
+        writer.write(csvValue(dataDTO.getDate()));
+        writer.write(',');
+        writer.write(csvValue(dataDTO.getValue()));
+        writer.write(',');
+        writer.write(cursor);
+        writer.write('\n');
+    }
+    
+    /**
+     * Formats a value for a CSV file, quoting it if needed.
+     * @param value
+     * @return the CSV value
+     */
+    private static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String csvValue = value.toString();
+        if (csvValue.indexOf(',') >= 0 || csvValue.indexOf('"') >= 0 
+                || csvValue.indexOf('\n') >= 0 || csvValue.indexOf('\r') >= 0) {
+            csvValue = "\"" + csvValue.replace("\"", "\"\"") + "\"";
         }
+        return csvValue;
     }
 }
@@ -8,8 +8,6 @@
 //******************************************************************************
 package opensilex.service.resource;
 
-import com.twmacinta.util.MD5;
-
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
@@ -17,12 +15,11 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
-import java.io.File;
-import java.io.IOException;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -42,9 +39,12 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 import org.eclipse.rdf4j.query.MalformedQueryException;
@@ -64,6 +64,7 @@ import opensilex.service.ontology.Contexts;
 import opensilex.service.resource.dto.DocumentMetadataDTO;
 import opensilex.service.resource.validation.interfaces.Date;
 import opensilex.service.resource.validation.interfaces.URL;
+import opensilex.service.utils.ByteRange;
 import opensilex.service.utils.DocumentWaitingCheck;
 import opensilex.service.utils.POSTResultsReturn;
 import opensilex.service.utils.ResourcesUtils;
@@ -204,7 +205,7 @@ public class DocumentResourceService extends ResourceService {
     @Consumes(MediaType.APPLICATION_OCTET_STREAM)
     @Produces(MediaType.APPLICATION_JSON)
     public Response postDocumentFile(
-            @ApiParam(value = "File to upload") File file,
+            @ApiParam(value = "File to upload") InputStream file,
             @ApiParam(value = "URI given from \"/documents\" path for upload") @QueryParam("uri") @URL String docUri,
             @Context HttpHeaders headers,
             @Context HttpServletRequest request) throws URISyntaxException {
@@ -224,14 +225,6 @@ public class DocumentResourceService extends ResourceService {
             return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
         }
         
-        // Check md5 checksum 
-        String hash = getHash(file);
-        if (hash != null && !WAITING_ANNOT_INFORMATION.get(docUri).getChecksum().equals(hash)) {
-            statusList.add(new Status("MD5 error", "Error", "Checksum MD5 doesn't match. Corrupted File."));
-            postResponse = new ResponseFormPOST(statusList);
-            return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
-        }
-        
         String media = WAITING_ANNOT_INFORMATION.get(docUri).getDocumentType();
         media = media.substring(media.lastIndexOf("#") + 1, media.length());
         
@@ -240,8 +233,9 @@ public class DocumentResourceService extends ResourceService {
             documentsDao.remoteUserAdress = request.getRemoteAddr();
         }
         documentsDao.user = userSession.getUser();
+        // The md5 checksum is checked while the file is streamed to mongodb
         final POSTResultsReturn insertAnnotationJSON = 
-                documentsDao.insert(Arrays.asList(WAITING_ANNOT_INFORMATION.get(docUri)), file);
+                documentsDao.insert(WAITING_ANNOT_INFORMATION.get(docUri), file);
 
         postResponse = new ResponseFormPOST(insertAnnotationJSON.statusList);
 
@@ -260,17 +254,8 @@ public class DocumentResourceService extends ResourceService {
                 return Response.status(insertAnnotationJSON.getHttpStatus()).entity(postResponse).build();
             }
         }
-        return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ResponseFormPOST()).build();
-    }
-    
-    private String getHash(File in) {
-        String hash = null;
-        try {
-            hash = MD5.asHex(MD5.getHash(in)); // e.g 106fa487baa1728083747de1c6df73e9
-        } catch (IOException ex) {
-            LOGGER.error(ex.getMessage(), ex);
-        }
-        return hash;
+        // Corrupted file or error, the file can be sent again
+        return Response.status(insertAnnotationJSON.getHttpStatus()).entity(postResponse).build();
     }
     
     @GET
@@ -408,7 +393,12 @@ public class DocumentResourceService extends ResourceService {
      * We must find a way to send validation errors in JSON when an error occured.
      * Maybe just by changing the response status.
      * \SILEX:todo
+     * The document is streamed from the database. The HTTP Range header is 
+     * supported to download a part of the document, and the If-None-Match 
+     * header with the document ETag (its MD5 checksum) to use a cached copy.
      * @param documentURI URI of the document to download
+     * @param request
+     * @param headers
      * @return the response with the document if the URI exists
      */
     @GET
@@ -417,6 +407,8 @@ public class DocumentResourceService extends ResourceService {
                   notes = "Retrieve the document corresponding to the uri given")
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "Retrieve document"),
+        @ApiResponse(code = 206, message = "Retrieve the requested part of the document"),
+        @ApiResponse(code = 304, message = "Document not modified"),
         @ApiResponse(code = 400, message = DocumentationAnnotation.BAD_USER_INFORMATION),
         @ApiResponse(code = 401, message = DocumentationAnnotation.USER_NOT_AUTHORIZED),
         @ApiResponse(code = 500, message = DocumentationAnnotation.ERROR_FETCH_DATA)
@@ -433,8 +425,10 @@ public class DocumentResourceService extends ResourceService {
                     value = DocumentationAnnotation.DOCUMENT_URI_DEFINITION, 
                     required = true, 
                     example = DocumentationAnnotation.EXAMPLE_DOCUMENT_URI) 
-            @PathParam("documentURI") String documentURI) {
-        return getFile(documentURI);
+            @PathParam("documentURI") String documentURI,
+            @Context Request request,
+            @Context HttpHeaders headers) {
+        return getFile(documentURI, request, headers);
     }
     
     /**
@@ -530,18 +524,72 @@ public class DocumentResourceService extends ResourceService {
     
     /**
      * @param documentURI URI of the document to download
-     * @return The response containing the document if existing
+     * @param request
+     * @param headers
+     * @return The response containing the document (or the requested part of
+     * the document) if existing
      */
-    private Response getFile(String documentURI) {
+    private Response getFile(String documentURI, Request request, HttpHeaders headers) {
         DocumentMongoDAO documentMongoDao = new DocumentMongoDAO();
-        File file = documentMongoDao.getDocument(documentURI);
+        GridFSFile file = documentMongoDao.getDocument(documentURI);
         
         if (file == null) {
             return Response.noContent().build();
+        }
+        
+        // 304 if the client already has the document
+        EntityTag entityTag = getEntityTag(file);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        
+        final long fileLength = file.getLength();
+        ByteRange range = null;
+        String ifRange = headers.getHeaderString(ByteRange.IF_RANGE_HEADER);
+        // The range is ignored if the document has changed since the first part
+        if (ifRange == null || ifRange.equals(entityTag.toString())) {
+            range = ByteRange.parse(headers.getHeaderString(ByteRange.RANGE_HEADER), fileLength);
+        }
+        
+        Response.ResponseBuilder response;
+        final long offset;
+        final long length;
+        if (range == null) {
+            response = Response.ok();
+            offset = 0;
+            length = fileLength;
+        } else if (range.isSatisfiable()) {
+            response = Response.status(Response.Status.PARTIAL_CONTENT)
+                    .header(ByteRange.CONTENT_RANGE_HEADER, range.toContentRange());
+            offset = range.getStart();
+            length = range.getLength();
         } else {
-            return Response.ok(file, MediaType.APPLICATION_OCTET_STREAM)
-                           .header("Content-Disposition", "attachement; filename=\"" + file.getName() + "\"")
-                           .build();
+            return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(ByteRange.CONTENT_RANGE_HEADER, ByteRange.unsatisfiedContentRange(fileLength))
+                    .build();
+        }
+        
+        StreamingOutput content = (output) -> documentMongoDao.writeDocument(file, output, offset, length);
+        return response.entity(content)
+                .type(MediaType.APPLICATION_OCTET_STREAM)
+                .tag(entityTag)
+                .header(ByteRange.ACCEPT_RANGES_HEADER, ByteRange.BYTES_UNIT)
+                .header(HttpHeaders.CONTENT_LENGTH, length)
+                .header("Content-Disposition", "attachement; filename=\"" + file.getFilename() + "\"")
+                .build();
+    }
+    
+    /**
+     * @param file
+     * @return the ETag of a document, its MD5 checksum. The documents saved
+     * without MD5 are identified by their id and length.
+     */
+    private EntityTag getEntityTag(GridFSFile file) {
+        String md5 = file.getMD5();
+        if (md5 == null) {
+            md5 = file.getObjectId().toHexString() + "-" + file.getLength();
         }
+        return new EntityTag(md5);
     }
 }
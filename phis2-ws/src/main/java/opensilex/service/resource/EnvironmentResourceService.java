@@ -7,6 +7,7 @@
 //******************************************************************************
 package opensilex.service.resource;
 
+import com.mongodb.MongoException;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
@@ -33,6 +34,7 @@ import opensilex.service.configuration.DateFormat;
 import opensilex.service.configuration.DefaultBrapiPaginationValues;
 import opensilex.service.configuration.GlobalWebserviceValues;
 import opensilex.service.dao.EnvironmentMeasureDAO;
+import opensilex.service.dao.UserDAO;
 import opensilex.service.documentation.DocumentationAnnotation;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.resource.dto.environment.EnvironmentMeasureDTO;
@@ -141,6 +143,7 @@ public class EnvironmentResourceService extends ResourceService {
      * @param endDate
      * @param sensor
      * @param dateSortAsc
+     * @param maxPoints
      * @return list of the environment measures corresponding to the search parameters given
      * @example
      * {
@@ -198,7 +201,8 @@ public class EnvironmentResourceService extends ResourceService {
         @ApiParam(value = "Search by minimal date", example = DocumentationAnnotation.EXAMPLE_XSDDATETIME) @QueryParam("startDate") @Date(DateFormat.YMDTHMSZ) String startDate,
         @ApiParam(value = "Search by maximal date", example = DocumentationAnnotation.EXAMPLE_XSDDATETIME) @QueryParam("endDate") @Date(DateFormat.YMDTHMSZ) String endDate,
         @ApiParam(value = "Search by sensor uri", example = DocumentationAnnotation.EXAMPLE_SENSOR_URI) @QueryParam("sensor")  @URL String sensor,
-        @ApiParam(value = "Date search result order ('true' for ascending and 'false' for descending)", example = "true") @QueryParam("dateSortAsc") boolean dateSortAsc
+        @ApiParam(value = "Date search result order ('true' for ascending and 'false' for descending)", example = "true") @QueryParam("dateSortAsc") boolean dateSortAsc,
+        @ApiParam(value = "Maximal number of points. If there are more measures, their hourly or daily means are returned, with their count, min and max", example = "1000") @QueryParam("maxPoints") @Min(0) Integer maxPoints
     ) {
         // 1. Initialize environmentDAO with parameters
         EnvironmentMeasureDAO environmentMeasureDAO = new EnvironmentMeasureDAO();
@@ -214,8 +218,14 @@ public class EnvironmentResourceService extends ResourceService {
         environmentMeasureDAO.setPage(page);
         environmentMeasureDAO.setPageSize(pageSize);
         
-        // 2. Get environment measures count
-        int totalCount = environmentMeasureDAO.count();
+        // 2. Get environment measures count, at the finest resolution having
+        // no more than maxPoints measures
+        int totalCount;
+        if (maxPoints != null) {
+            totalCount = environmentMeasureDAO.chooseResolution(maxPoints);
+        } else {
+            totalCount = environmentMeasureDAO.count();
+        }
         
         // 3. Get environment measures page list
         ArrayList<EnvironmentMeasure> measures = environmentMeasureDAO.allPaginate();
@@ -225,6 +235,11 @@ public class EnvironmentResourceService extends ResourceService {
         ArrayList<Status> statusList = new ArrayList<>();
         ResultForm<EnvironmentMeasureDTO> getResponse;
         
+        if (environmentMeasureDAO.resolution != null) {
+            statusList.add(new Status("Resolution", StatusCodeMsg.INFO, 
+                    "Means of the measures by " + environmentMeasureDAO.resolution.toString()));
+        }
+        
         if (measures == null) {
             // Request failure
             getResponse = new ResultForm<>(0, 0, list, true, 0);
@@ -245,4 +260,47 @@ public class EnvironmentResourceService extends ResourceService {
             return Response.status(Response.Status.OK).entity(getResponse).build();
         }
     }
+    
+    /**
+     * Service to rebuild the hourly and daily rollups of the measures of a 
+     * variable, e.g. after measures have been inserted without the web 
+     * service. Only an admin can rebuild the rollups.
+     * @param variable
+     * @return the rebuild result
+     */
+    @POST
+    @Path("rollups")
+    @ApiOperation(value = "Rebuild the environment measures rollups of a variable",
+                  notes = "Rebuild the hourly and daily rollups from the environment measures of the variable")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Rollups rebuilt", response = ResponseFormPOST.class),
+        @ApiResponse(code = 400, message = DocumentationAnnotation.BAD_USER_INFORMATION),
+        @ApiResponse(code = 401, message = DocumentationAnnotation.USER_NOT_AUTHORIZED),
+        @ApiResponse(code = 403, message = "Only an admin can rebuild the rollups"),
+        @ApiResponse(code = 500, message = DocumentationAnnotation.ERROR_SEND_DATA)
+    })
+    @ApiImplicitParams({
+        @ApiImplicitParam(name = GlobalWebserviceValues.AUTHORIZATION, required = true,
+                dataType = GlobalWebserviceValues.DATA_TYPE_STRING, paramType = GlobalWebserviceValues.HEADER,
+                value = DocumentationAnnotation.ACCES_TOKEN,
+                example = GlobalWebserviceValues.AUTHENTICATION_SCHEME + " ")
+    })
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response postEnvironmentMeasuresRollups(
+        @ApiParam(value = "Variable uri", example = DocumentationAnnotation.EXAMPLE_VARIABLE_URI, required = true) @QueryParam("variable") @URL @Required String variable) {
+        if (!new UserDAO().isAdmin(userSession.getUser())) {
+            return Response.status(Response.Status.FORBIDDEN).entity(new ResponseFormPOST()).build();
+        }
+        
+        try {
+            new EnvironmentMeasureDAO().rebuildRollups(variable);
+        } catch (MongoException ex) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(new ResponseFormPOST(new Status("Error", StatusCodeMsg.ERR, ex.getMessage())))
+                    .build();
+        }
+        return Response.status(Response.Status.OK)
+                .entity(new ResponseFormPOST(new Status("Rollups rebuilt", StatusCodeMsg.INFO, null)))
+                .build();
+    }
 }
@@ -8,7 +8,6 @@
 package opensilex.service.resource;
 
 import com.jcraft.jsch.SftpException;
-import com.twmacinta.util.MD5;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
@@ -16,21 +15,19 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
-import java.io.File;
-import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Year;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
@@ -48,6 +45,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
+import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.PropertiesFileManager;
@@ -62,11 +60,12 @@ import opensilex.service.resource.dto.ImageMetadataDTO;
 import opensilex.service.resource.validation.interfaces.Required;
 import opensilex.service.resource.validation.interfaces.URL;
 import opensilex.service.utils.FileUploader;
-import opensilex.service.utils.ImageWaitingCheck;
 import opensilex.service.utils.POSTResultsReturn;
+import opensilex.service.utils.PendingUploadRegistry;
 import opensilex.service.utils.UriGenerator;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.view.brapi.form.AbstractResultForm;
+import opensilex.service.view.brapi.form.ResponseFormGET;
 import opensilex.service.view.brapi.form.ResponseFormPOST;
 import opensilex.service.result.ResultForm;
 import opensilex.service.model.ImageMetadata;
@@ -85,14 +84,16 @@ public class ImageResourceService extends ResourceService {
     @Context
     UriInfo uri;
     
-    // For the waiting annotations
-    public final static ExecutorService THREAD_POOL = Executors.newCachedThreadPool();
+    // Default time to wait for an image file, in seconds
+    private final static int DEFAULT_WAITING_FILE_TIME = 30;
     
-    // contains the informations abour the waiting annotations
-    public final static Map<String, Boolean> WAITING_METADATA_FILE_CHECK = new HashMap<>();
+    // Contains the metadata of the waiting image files
+    public final static PendingUploadRegistry<ImageMetadata> PENDING_IMAGES = new PendingUploadRegistry<>(
+            "image", 
+            PropertiesFileManager.getConfigFileIntProperty("service", "waitingFileTime", DEFAULT_WAITING_FILE_TIME));
     
-    // contains the informations abour the waiting annotations
-    public final static Map<String, ImageMetadata> WAITING_METADATA_INFORMATION = new HashMap<>();
+    // Header giving the cursor of the last image of a search page
+    public final static String NEXT_CURSOR_HEADER = "Next-Cursor";
     
     /**
      * Checks images metadata.
@@ -165,12 +166,10 @@ public class ImageResourceService extends ResourceService {
                         final String uploadLink = uploadPath.path("images").path("upload").queryParam("uri", imageUri).toString();
                         imagesUploadLinks.add(uploadLink);
                         
-                        WAITING_METADATA_FILE_CHECK.put(imageUri, false); // file waiting
                         ImageMetadata imageMetadataToSave = imageMetadata.createObjectFromDTO();
                         imageMetadataToSave.setUri(imageUri);
-                        WAITING_METADATA_INFORMATION.put(imageUri, imageMetadataToSave);
-                        // Launch the thread for the expected file
-                        THREAD_POOL.submit(new ImageWaitingCheck(imageUri));
+                        // The file is waited until the timeout
+                        PENDING_IMAGES.register(imageUri, imageMetadataToSave);
                     } catch (Exception ex) { // In the images case, no exception should be raised
                         java.util.logging.Logger.getLogger(ImageResourceService.class.getName()).log(Level.SEVERE, null, ex);
                     }
@@ -191,21 +190,6 @@ public class ImageResourceService extends ResourceService {
         }
     }
     
-    /**
-     * Calculates the hash of a file.
-     * @param file the file we want the hash
-     * @return the hash file
-     */
-    private String getHash(File file) {
-        String hash = null;
-        try {
-            hash = MD5.asHex(MD5.getHash(file)); // e.g: 106fa487baa1728083747de1c6df73e9
-        } catch (IOException ex) {
-            LOGGER.error(ex.getMessage(), ex);
-        }
-        return hash;
-    }
-    
     /**
      * Calculates the server image directory for an image.
      * @return the server image directory of the image. 
@@ -240,7 +224,13 @@ public class ImageResourceService extends ResourceService {
     }
     
     /**
-     * @param in File
+     * Receives an image file and saves it with its metadata.
+     * The file is streamed to the file server in one pass, its MD5 checksum 
+     * being calculated during the transfer. The file is sent to a temporary 
+     * ".part" file which is renamed if the checksum is correct.
+     * If the file can't be saved, it is waited again so that it can be sent 
+     * again.
+     * @param in file content
      * @param imageUri Metadata uri
      * @param headers
      * @param request
@@ -267,7 +257,7 @@ public class ImageResourceService extends ResourceService {
     @Consumes(MediaType.APPLICATION_OCTET_STREAM)
     @Produces(MediaType.APPLICATION_JSON)
     public Response postImageFile(
-        @ApiParam(value = "File to upload") File in,
+        @ApiParam(value = "File to upload") InputStream in,
         @ApiParam(value = "Uri given from \"images\" path for upload") @QueryParam("uri") @URL @Required String imageUri,
         @Context HttpHeaders headers,
         @Context HttpServletRequest request) throws URISyntaxException, ParseException {
@@ -275,10 +265,8 @@ public class ImageResourceService extends ResourceService {
         List<Status> statusList = new ArrayList<>();
         
         // The file metadata exists
-        if (!WAITING_METADATA_FILE_CHECK.containsKey(imageUri)) {
-            statusList.add(new Status("No waiting image", StatusCodeMsg.ERR, "No waiting file for the following uri : " + imageUri));
-            postResponse = new ResponseFormPOST(statusList);
-            return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+        if (!PENDING_IMAGES.isWaiting(imageUri)) {
+            return noWaitingImage(imageUri, statusList);
         }
         
         if (headers != null && headers.getLength() <= 0) {
@@ -287,63 +275,99 @@ public class ImageResourceService extends ResourceService {
             return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
         }
         
-        // check the checksum
-        String hash = getHash(in);
-        if (hash != null && !WAITING_METADATA_INFORMATION.get(imageUri).getFileInformations().getChecksum().equals(hash)) {
-            statusList.add(new Status(StatusCodeMsg.MD5_ERROR, StatusCodeMsg.ERR, "Checksum MD5 doesn't match. Corrupted File."));
-            postResponse = new ResponseFormPOST(statusList);
-            return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+        // The metadata is claimed so that the same file can't be sent twice at
+        // the same time
+        final ImageMetadata imageMetadata = PENDING_IMAGES.claim(imageUri);
+        if (imageMetadata == null) {
+            return noWaitingImage(imageUri, statusList);
         }
         
-        FileUploader jsch = new FileUploader();
-        
-        final String serverFileName = getImageName(imageUri) + "." + WAITING_METADATA_INFORMATION.get(imageUri).getFileInformations().getExtension();
+        final String serverFileName = getImageName(imageUri) + "." + imageMetadata.getFileInformations().getExtension();
+        final String partFileName = serverFileName + ".part";
         final String serverImagesDirectory = getServerImagesDirectory();
         final String webAccessImagesDirectory = getWebAccessImagesDirectory();
-    
+        
+        // The metadata is registered again on every failure, so that the file
+        // can be sent again
+        boolean fileSaved = false;
+        FileUploader jsch = null;
         try {
-            WAITING_METADATA_FILE_CHECK.put(imageUri, Boolean.TRUE);
-            //SILEX:test
-            jsch.getChannelSftp().cd(serverImagesDirectory);
-            //\SILEX:test
-        } catch (SftpException e) {
+            jsch = new FileUploader();
+            if (!jsch.isConnected()) {
+                statusList.add(new Status(
+                        StatusCodeMsg.SFTP_EXCEPTION, 
+                        StatusCodeMsg.ERR, 
+                        "The file server can't be reached. Try to submit it again " + imageUri));
+                postResponse = new ResponseFormPOST(statusList);
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(postResponse).build();
+            }
+            
             try {
-                //Create repository if it does not exist
-                jsch.createNestedDirectories(serverImagesDirectory);
+                //SILEX:test
                 jsch.getChannelSftp().cd(serverImagesDirectory);
-                LOGGER.debug("Create directory : " + serverImagesDirectory);
-            } catch (SftpException ex) {
-                statusList.add(new Status(StatusCodeMsg.SFTP_EXCEPTION, StatusCodeMsg.ERR, e.getMessage()));
-                LOGGER.error(e.getMessage(), serverImagesDirectory + " " + ex);
+                //\SILEX:test
+            } catch (SftpException e) {
+                try {
+                    //Create repository if it does not exist
+                    jsch.createNestedDirectories(serverImagesDirectory);
+                    jsch.getChannelSftp().cd(serverImagesDirectory);
+                    LOGGER.debug("Create directory : " + serverImagesDirectory);
+                } catch (SftpException ex) {
+                    statusList.add(new Status(StatusCodeMsg.SFTP_EXCEPTION, StatusCodeMsg.ERR, e.getMessage()));
+                    LOGGER.error(e.getMessage(), serverImagesDirectory + " " + ex);
+                }
             }
-        }
-        
-        boolean fileTransfered = jsch.fileTransfer(in, serverFileName);
-        jsch.closeConnection();
-        
-        if (!fileTransfered) { //If the image has not been register
+            
+            // Sends the file and calculates its checksum at the same time
+            DigestInputStream digestStream = new DigestInputStream(in, MessageDigest.getInstance("MD5"));
+            if (!jsch.fileTransfer(digestStream, partFileName)) { //If the image has not been register
+                removePartFile(jsch, partFileName);
+                statusList.add(new Status(
+                        "Image upload error", 
+                        StatusCodeMsg.ERR, 
+                        "An error occurred during file upload. Try to submit it again " + imageUri));
+                postResponse = new ResponseFormPOST(statusList);
+                return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+            }
+            
+            // check the checksum
+            String hash = Hex.encodeHexString(digestStream.getMessageDigest().digest()); // e.g: 106fa487baa1728083747de1c6df73e9
+            if (!imageMetadata.getFileInformations().getChecksum().equals(hash)) {
+                removePartFile(jsch, partFileName);
+                statusList.add(new Status(StatusCodeMsg.MD5_ERROR, StatusCodeMsg.ERR, "Checksum MD5 doesn't match. Corrupted File."));
+                postResponse = new ResponseFormPOST(statusList);
+                return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+            }
+            
+            jsch.getChannelSftp().rename(partFileName, serverFileName);
+            fileSaved = true;
+        } catch (SftpException | NoSuchAlgorithmException ex) {
+            LOGGER.error(ex.getMessage(), ex);
             statusList.add(new Status(
                     "Image upload error", 
                     StatusCodeMsg.ERR, 
                     "An error occurred during file upload. Try to submit it again " + imageUri));
             postResponse = new ResponseFormPOST(statusList);
-            return Response.status(Response.Status.BAD_REQUEST).entity(postResponse).build();
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(postResponse).build();
+        } finally {
+            if (jsch != null) {
+                jsch.closeConnection();
+            }
+            if (!fileSaved) {
+                PENDING_IMAGES.register(imageUri, imageMetadata);
+            }
         }
         
-        WAITING_METADATA_INFORMATION.get(imageUri)
-                .getFileInformations()
+        imageMetadata.getFileInformations()
                 .setServerFilePath(webAccessImagesDirectory + "/" + serverFileName);
         
         ImageMetadataMongoDAO imageMetadataMongoDao = new ImageMetadataMongoDAO();
         imageMetadataMongoDao.user = userSession.getUser();
         
-        final POSTResultsReturn insertMetadata = imageMetadataMongoDao.insert(Arrays.asList(WAITING_METADATA_INFORMATION.get(imageUri)));
+        final POSTResultsReturn insertMetadata = imageMetadataMongoDao.insert(Arrays.asList(imageMetadata));
         postResponse = new ResponseFormPOST(insertMetadata.statusList);
         
         if (insertMetadata.getDataState()) {
-            WAITING_METADATA_FILE_CHECK.remove(imageUri);
-            WAITING_METADATA_INFORMATION.remove(imageUri);
-            
             if (insertMetadata.getHttpStatus() == Response.Status.CREATED) {
                 postResponse.getMetadata().setDatafiles((ArrayList) insertMetadata.createdResources);
                 final URI newUri = new URI(uri.getPath());
@@ -352,35 +376,62 @@ public class ImageResourceService extends ResourceService {
                 return Response.status(insertMetadata.getHttpStatus()).entity(postResponse).build();
             }
         }
+        // The metadata has not been saved, the file can be sent again
+        PENDING_IMAGES.register(imageUri, imageMetadata);
         return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(new ResponseFormPOST()).build();
     }
     
+    /**
+     * Removes the partial file of a failed upload, if it has been created.
+     * @param jsch
+     * @param partFileName
+     */
+    private void removePartFile(FileUploader jsch, String partFileName) {
+        try {
+            jsch.getChannelSftp().rm(partFileName);
+        } catch (SftpException ex) {
+            LOGGER.warn("Can't remove the partial file " + partFileName + ": " + ex.getMessage());
+        }
+    }
+    
+    /**
+     * @param imageUri
+     * @param statusList
+     * @return the bad request response sent when no file is waited for an URI
+     */
+    private Response noWaitingImage(String imageUri, List<Status> statusList) {
+        statusList.add(new Status("No waiting image", StatusCodeMsg.ERR, "No waiting file for the following uri : " + imageUri));
+        return Response.status(Response.Status.BAD_REQUEST).entity(new ResponseFormPOST(statusList)).build();
+    }
+    
     /**
      * Searches images metadata corresponding to a user search.
+     * The cursor of the last image of the page is given in the 
+     * {@value #NEXT_CURSOR_HEADER} header.
      * @param imageMetadataMongoDao
      * @return the images corresponding to the search
      */
     private Response getImagesData(ImageMetadataMongoDAO imageMetadataMongoDao) {
-        ArrayList<ImageMetadata> imagesMetadata;
         ArrayList<Status> statusList = new ArrayList<>();
         ResultForm<ImageMetadata> getResponse;
         
-        imagesMetadata = imageMetadataMongoDao.allPaginate();
+        int imagesCount = (int) imageMetadataMongoDao.count();
+        if (imagesCount == 0) {
+            getResponse = new ResultForm<>(0, 0, new ArrayList<>(), true);
+            return noResultFound(getResponse, statusList);
+        }
+        
+        ArrayList<ImageMetadata> imagesMetadata = imageMetadataMongoDao.allPaginate();
         
-        if (imagesMetadata == null) {
+        if (imagesMetadata.isEmpty()) {
             getResponse = new ResultForm<>(0, 0, imagesMetadata, true);
             return noResultFound(getResponse, statusList);
-        } else if (!imagesMetadata.isEmpty()) {
-            getResponse = new ResultForm<>(imageMetadataMongoDao.getPageSize(), imageMetadataMongoDao.getPage(), imagesMetadata, false);
-            if (getResponse.getResult().dataSize() == 0) {
-                return noResultFound(getResponse, statusList);
-            } else {
-                getResponse.setStatus(statusList);
-                return Response.status(Response.Status.OK).entity(getResponse).build();
-            }
         } else {
-            getResponse = new ResultForm<ImageMetadata>(0, 0, imagesMetadata, true);
-            return noResultFound(getResponse, statusList);
+            getResponse = new ResultForm<>(imageMetadataMongoDao.getPageSize(), imageMetadataMongoDao.getPage(), imagesMetadata, true, imagesCount);
+            getResponse.setStatus(statusList);
+            return Response.status(Response.Status.OK)
+                    .header(NEXT_CURSOR_HEADER, imageMetadataMongoDao.getNextCursor())
+                    .entity(getResponse).build();
         }
     }
     
@@ -395,8 +446,10 @@ public class ImageResourceService extends ResourceService {
      * @param startDate start date of the shooting. Format YYYY-MM-DD (e.g 2015-07-07)
      * @param endDate end date of the shooting. Format YYYY-MM-DD (e.g 2015-07-08)
      * @param sensor URI of the sensor providing the image (e.g. http://www.phenome-fppn.fr/diaphen/2018/s18035)
+     * @param cursor cursor of the last image already received, given in the 
+     * {@value #NEXT_CURSOR_HEADER} header of the previous page. If given, the page number is ignored
      * @return the images list corresponding to the search parameters given (all the images if no search param) 
-     * /!\ there is a pagination 
+     * /!\ there is a pagination, the images are sorted by date 
      * JSON returned : 
      * [
      *    { //first image description
@@ -446,9 +499,17 @@ public class ImageResourceService extends ResourceService {
         @ApiParam(value = "Search by concerned item uri - each concerned item uri must be separated by \";\"", example = DocumentationAnnotation.EXAMPLE_IMAGE_CONCERNED_ITEMS) @QueryParam("concernedItems") String concernedItems,
         @ApiParam(value = "Search by interval - start date", example = DocumentationAnnotation.EXAMPLE_IMAGE_DATE) @QueryParam("startDate") @opensilex.service.resource.validation.interfaces.Date(DateFormat.YMDHMSZ) String startDate,
         @ApiParam(value = "Search by interval - end date", example = DocumentationAnnotation.EXAMPLE_IMAGE_DATE) @QueryParam("endDate") @opensilex.service.resource.validation.interfaces.Date(DateFormat.YMDHMSZ) String endDate,
-        @ApiParam(value = "Search by sensor", example = DocumentationAnnotation.EXAMPLE_SENSOR_URI) @QueryParam("sensor") @URL String sensor) {
+        @ApiParam(value = "Search by sensor", example = DocumentationAnnotation.EXAMPLE_SENSOR_URI) @QueryParam("sensor") @URL String sensor,
+        @ApiParam(value = "Cursor of the last image already received, to get the images after it") @QueryParam("cursor") String cursor) {
+        
+        if (cursor != null && !ImageMetadataMongoDAO.isValidCursor(cursor)) {
+            ArrayList<Status> statusList = new ArrayList<>();
+            statusList.add(new Status(StatusCodeMsg.WRONG_VALUE, StatusCodeMsg.ERR, "Invalid cursor : " + cursor));
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ResponseFormGET(statusList)).build();
+        }
         
         ImageMetadataMongoDAO imageMetadataMongoDao = new ImageMetadataMongoDAO();
+        imageMetadataMongoDao.cursor = cursor;
         
         if (uri != null) {
             imageMetadataMongoDao.uri = uri;
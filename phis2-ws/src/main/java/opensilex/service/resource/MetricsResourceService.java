@@ -0,0 +1,168 @@
+//******************************************************************************
+//                           MetricsResourceService.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.resource;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import opensilex.service.authentication.TokenManager;
+import opensilex.service.dao.LabelResolver;
+import opensilex.service.dao.manager.AsyncQueryExecutor;
+import opensilex.service.dao.manager.MongoDAO;
+import opensilex.service.datasource.MongoMetricsListener;
+import opensilex.service.datasource.PostgreSQLDataSource;
+import opensilex.service.datasource.TriplestoreCache;
+import opensilex.service.datasource.TriplestoreDataSource;
+import opensilex.service.utils.SftpChannelPool;
+import opensilex.service.utils.cache.AuthorizationCache;
+import opensilex.service.utils.cache.ExpiringLruCache;
+import opensilex.service.utils.cache.LayerCache;
+import opensilex.service.utils.metrics.Metrics;
+
+/**
+ * Metrics resource service.
+ * Exports the requests and databases durations and the pools and caches
+ * statistics in the Prometheus text format. The metrics don't need any
+ * authentication, so that they can be scraped by a Prometheus server.
+ * @see Metrics
+ */
+@Api("/metrics")
+@Path("/metrics")
+public class MetricsResourceService {
+
+    // Prometheus text exposition format
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String STATE = "state";
+    private static final String ACTIVE = "active";
+    private static final String IDLE = "idle";
+
+    static {
+        registerGauges();
+    }
+
+    /**
+     * Registers the gauges and the counters of the pools, the sessions and
+     * the caches. They are read when the metrics are scraped.
+     */
+    private static void registerGauges() {
+        // Triplestore connections pool
+        TriplestoreDataSource triplestore = TriplestoreDataSource.getInstance();
+        Metrics.Family triplestoreConnections = Metrics.gauges(
+                "phis_triplestore_connections", "Triplestore connections of the pool", STATE);
+        triplestoreConnections.register(triplestore::getActive, ACTIVE);
+        triplestoreConnections.register(triplestore::getIdle, IDLE);
+        Metrics.gauges("phis_triplestore_connections_max", "Maximum number of borrowed triplestore connections")
+                .register(triplestore::getMaxActive);
+        Metrics.gauges("phis_triplestore_connections_waiting_threads", "Threads waiting for a triplestore connection")
+                .register(triplestore::getWaitCount);
+        Metrics.counters("phis_triplestore_connections_created_total", "Triplestore connections created")
+                .register(triplestore::getCreatedCount);
+        Metrics.counters("phis_triplestore_connections_abandoned_total", "Triplestore connections abandoned by their thread")
+                .register(triplestore::getAbandonedCount);
+        Metrics.counters("phis_triplestore_connections_wait_timeouts_total", "Triplestore connections not borrowed in time")
+                .register(triplestore::getWaitTimeoutCount);
+
+        // PostgreSQL connections pool, initialized on first use
+        Metrics.Family postgresqlConnections = Metrics.gauges(
+                "phis_postgresql_connections", "PostgreSQL connections of the pool", STATE);
+        postgresqlConnections.register(() -> PostgreSQLDataSource.getInstance().getActive(), ACTIVE);
+        postgresqlConnections.register(() -> PostgreSQLDataSource.getInstance().getIdle(), IDLE);
+        Metrics.gauges("phis_postgresql_connections_max", "Maximum number of borrowed PostgreSQL connections")
+                .register(() -> PostgreSQLDataSource.getInstance().getMaxActive());
+        Metrics.gauges("phis_postgresql_connections_waiting_threads", "Threads waiting for a PostgreSQL connection")
+                .register(() -> PostgreSQLDataSource.getInstance().getWaitCount());
+
+        // MongoDB connections pool
+        MongoMetricsListener mongo = MongoDAO.getMetricsListener();
+        Metrics.Family mongoConnections = Metrics.gauges(
+                "phis_mongodb_connections", "MongoDB connections of the pool", STATE);
+        mongoConnections.register(mongo::getCheckedOut, ACTIVE);
+        mongoConnections.register(() -> mongo.getSize() - mongo.getCheckedOut(), IDLE);
+        Metrics.gauges("phis_mongodb_connections_waiting_threads", "Threads waiting for a MongoDB connection")
+                .register(mongo::getWaitQueueSize);
+
+        // SFTP channels pool, initialized on first use
+        Metrics.gauges("phis_sftp_channels_idle", "Idle SFTP channels of the pool")
+                .register(() -> SftpChannelPool.getInstance().getIdle());
+        Metrics.counters("phis_sftp_channels_created_total", "SFTP channels created")
+                .register(() -> SftpChannelPool.getInstance().getCreatedCount());
+        Metrics.counters("phis_sftp_channels_destroyed_total", "SFTP channels destroyed")
+                .register(() -> SftpChannelPool.getInstance().getDestroyedCount());
+
+        // Asynchronous queries
+        Metrics.gauges("phis_async_queries_active", "Queries run by the asynchronous queries executor")
+                .register(AsyncQueryExecutor::getActiveCount);
+        Metrics.gauges("phis_async_queries_queued", "Queries waiting in the asynchronous queries executor")
+                .register(AsyncQueryExecutor::getQueueSize);
+        Metrics.counters("phis_async_queries_completed_total", "Queries completed by the asynchronous queries executor")
+                .register(AsyncQueryExecutor::getCompletedCount);
+        Metrics.counters("phis_async_queries_rejected_total", "Queries rejected by the asynchronous queries executor")
+                .register(AsyncQueryExecutor::getRejectedCount);
+
+        // Sessions
+        Metrics.gauges("phis_sessions_active", "Active user sessions")
+                .register(() -> TokenManager.Instance().getActiveSessionsCount());
+        Metrics.counters("phis_sessions_created_total", "User sessions created")
+                .register(() -> TokenManager.Instance().getCreatedSessionsCount());
+        Metrics.counters("phis_sessions_expired_total", "User sessions expired")
+                .register(() -> TokenManager.Instance().getExpiredSessionsCount());
+
+        // Caches
+        for (ExpiringLruCache<?, ?> cache : TriplestoreCache.getCaches()) {
+            registerCache(cache);
+        }
+        registerCache(LabelResolver.getProvenancesLabels());
+        Metrics.gauges("phis_layers_cached", "GeoJSON layers kept in cache")
+                .register(LayerCache::size);
+        Metrics.gauges("phis_images_pending_uploads", "Images metadata waiting for their file")
+                .register(() -> ImageResourceService.PENDING_IMAGES.getSize());
+        Metrics.counters("phis_authorizations_loads_total", "Loads of the groups and memberships snapshot")
+                .register(AuthorizationCache::getLoadCount);
+    }
+
+    private static void registerCache(ExpiringLruCache<?, ?> cache) {
+        String name = cache.getName();
+        Metrics.gauges("phis_cache_size", "Entries of the caches", "cache")
+                .register(cache::getSize, name);
+        Metrics.counters("phis_cache_hits_total", "Hits of the caches", "cache")
+                .register(cache::getHitCount, name);
+        Metrics.counters("phis_cache_misses_total", "Misses of the caches", "cache")
+                .register(cache::getMissCount, name);
+        Metrics.counters("phis_cache_evictions_total", "Entries evicted from the caches", "cache")
+                .register(cache::getEvictionCount, name);
+    }
+
+    /**
+     * Service to get the metrics.
+     * @example
+     * # HELP phis_http_request_duration_seconds Duration of the requests handling, without the response body writing
+     * # TYPE phis_http_request_duration_seconds summary
+     * phis_http_request_duration_seconds{route="/data",method="GET",status="200",quantile="0.5"} 0.041983
+     * phis_http_request_duration_seconds{route="/data",method="GET",status="200",quantile="0.9"} 0.087039
+     * ...
+     * phis_http_request_duration_seconds_sum{route="/data",method="GET",status="200"} 12.5
+     * phis_http_request_duration_seconds_count{route="/data",method="GET",status="200"} 254
+     * @return the metrics in the Prometheus text format
+     */
+    @GET
+    @ApiOperation(value = "Get the web service metrics",
+                  notes = "Retrieve the requests and databases durations and the pools and caches statistics in the Prometheus text format")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Metrics retrieved")
+    })
+    @Produces(PROMETHEUS_CONTENT_TYPE)
+    public Response getMetrics() {
+        return Response.ok(Metrics.scrape(), PROMETHEUS_CONTENT_TYPE).build();
+    }
+}
@@ -0,0 +1,92 @@
+//******************************************************************************
+//                          MongoIndexResourceService.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.resource;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import java.util.ArrayList;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import opensilex.service.configuration.GlobalWebserviceValues;
+import opensilex.service.dao.UserDAO;
+import opensilex.service.datasource.MongoIndexRegistry;
+import opensilex.service.documentation.DocumentationAnnotation;
+import opensilex.service.resource.dto.MongoIndexDTO;
+import opensilex.service.result.ResultForm;
+import opensilex.service.view.brapi.form.ResponseFormGET;
+
+/**
+ * MongoDB index resource service.
+ * Gives the admins the indexes of the MongoDB collections used since the web
+ * service start, to find the missing and the unused ones.
+ * @see MongoIndexRegistry
+ */
+@Api("/mongoIndexes")
+@Path("/mongoIndexes")
+public class MongoIndexResourceService extends ResourceService {
+
+    /**
+     * Service to get the indexes of the MongoDB collections.
+     * @return the indexes, by collection
+     * @example
+     * {
+     *      "metadata": {
+     *          "pagination": null,
+     *          "status": [],
+     *          "datafiles": []
+     *      },
+     *      "result": {
+     *          "data": [
+     *              {
+     *                  "collection": "phis.v001",
+     *                  "name": "date_1__id_1",
+     *                  "key": "{\"date\": 1, \"_id\": 1}",
+     *                  "declared": true,
+     *                  "missing": false,
+     *                  "unused": false,
+     *                  "operations": 1520,
+     *                  "since": "2026-10-18T08:00:00+0200"
+     *              }
+     *          ]
+     *      }
+     * }
+     */
+    @GET
+    @ApiOperation(value = "Get the indexes of the MongoDB collections",
+                  notes = "Retrieve the indexes of the collections used since the web service start, with the number of operations which have used them since the MongoDB start. Only an admin can get the indexes")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Retrieve the indexes", response = MongoIndexDTO.class, responseContainer = "List"),
+        @ApiResponse(code = 401, message = DocumentationAnnotation.USER_NOT_AUTHORIZED),
+        @ApiResponse(code = 403, message = "Only an admin can get the indexes")
+    })
+    @ApiImplicitParams({
+        @ApiImplicitParam(name = GlobalWebserviceValues.AUTHORIZATION, required = true,
+                dataType = GlobalWebserviceValues.DATA_TYPE_STRING, paramType = GlobalWebserviceValues.HEADER,
+                value = DocumentationAnnotation.ACCES_TOKEN,
+                example = GlobalWebserviceValues.AUTHENTICATION_SCHEME + " ")
+    })
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getMongoIndexes() {
+        if (!new UserDAO().isAdmin(userSession.getUser())) {
+            return Response.status(Response.Status.FORBIDDEN).entity(new ResponseFormGET()).build();
+        }
+
+        ArrayList<MongoIndexDTO> indexes = new ArrayList<>();
+        MongoIndexRegistry.getInstance().getReport().forEach((index) -> {
+            indexes.add(new MongoIndexDTO(index));
+        });
+        return Response.status(Response.Status.OK).entity(new ResultForm<>(0, 0, indexes, true)).build();
+    }
+}
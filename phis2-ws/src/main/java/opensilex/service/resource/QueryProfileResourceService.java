@@ -0,0 +1,98 @@
+//******************************************************************************
+//                         QueryProfileResourceService.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.resource;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import java.util.ArrayList;
+import javax.validation.constraints.Min;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import opensilex.service.configuration.GlobalWebserviceValues;
+import opensilex.service.dao.UserDAO;
+import opensilex.service.documentation.DocumentationAnnotation;
+import opensilex.service.resource.dto.QueryProfileDTO;
+import opensilex.service.result.ResultForm;
+import opensilex.service.utils.metrics.QueryProfiler;
+import opensilex.service.view.brapi.form.ResponseFormGET;
+
+/**
+ * Query profile resource service.
+ * Gives the admins the queries which have taken the most time in the
+ * databases since the web service start.
+ * @see QueryProfiler
+ */
+@Api("/queryProfiles")
+@Path("/queryProfiles")
+public class QueryProfileResourceService extends ResourceService {
+
+    /**
+     * Service to get the query profiles with the highest total durations.
+     * @param limit
+     * @return the query profiles, by descending total duration
+     * @example
+     * {
+     *      "metadata": {
+     *          "pagination": null,
+     *          "status": [],
+     *          "datafiles": []
+     *      },
+     *      "result": {
+     *          "data": [
+     *              {
+     *                  "backend": "mongodb",
+     *                  "fingerprint": "find images {filter: {concern: {$elemMatch: {uri: ?}}}}",
+     *                  "count": 1520,
+     *                  "totalTime": 45210.5,
+     *                  "meanTime": 29.7,
+     *                  "percentile99Time": 212.9,
+     *                  "maxTime": 830.2,
+     *                  "lastQuery": "{\"find\": \"images\", \"filter\": {\"concern\": {\"$elemMatch\": {\"uri\": \"http://www.phenome-fppn.fr/mtp/2018/s18003\"}}}}"
+     *              }
+     *          ]
+     *      }
+     * }
+     */
+    @GET
+    @ApiOperation(value = "Get the query profiles having the highest total durations",
+                  notes = "Retrieve the fingerprints of the database queries with their number of executions and durations, in milliseconds. Only an admin can get the query profiles")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Retrieve the query profiles", response = QueryProfileDTO.class, responseContainer = "List"),
+        @ApiResponse(code = 401, message = DocumentationAnnotation.USER_NOT_AUTHORIZED),
+        @ApiResponse(code = 403, message = "Only an admin can get the query profiles")
+    })
+    @ApiImplicitParams({
+        @ApiImplicitParam(name = GlobalWebserviceValues.AUTHORIZATION, required = true,
+                dataType = GlobalWebserviceValues.DATA_TYPE_STRING, paramType = GlobalWebserviceValues.HEADER,
+                value = DocumentationAnnotation.ACCES_TOKEN,
+                example = GlobalWebserviceValues.AUTHENTICATION_SCHEME + " ")
+    })
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getQueryProfiles(
+        @ApiParam(value = "Number of query profiles", example = "20") @QueryParam("limit") @DefaultValue("20") @Min(1) int limit) {
+        if (!new UserDAO().isAdmin(userSession.getUser())) {
+            return Response.status(Response.Status.FORBIDDEN).entity(new ResponseFormGET()).build();
+        }
+
+        ArrayList<QueryProfileDTO> queryProfiles = new ArrayList<>();
+        QueryProfiler.getTopByTotalTime(limit).forEach((queryProfile) -> {
+            queryProfiles.add(new QueryProfileDTO(queryProfile));
+        });
+        return Response.status(Response.Status.OK).entity(new ResultForm<>(0, 0, queryProfiles, true)).build();
+    }
+}
@@ -9,6 +9,10 @@ package opensilex.service.resource;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.core.Response;
 import opensilex.service.PropertiesFileManager;
 import opensilex.service.authentication.Session;
@@ -23,6 +27,7 @@ import opensilex.service.resource.dto.manager.AbstractVerifiedClass;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.result.ResultForm;
 import opensilex.service.utils.POSTResultsReturn;
+import opensilex.service.utils.metrics.BackendMetrics;
 import opensilex.service.view.brapi.form.AbstractResultForm;
 import opensilex.service.view.brapi.form.ResponseFormPOST;
 
@@ -91,6 +96,40 @@ public abstract class ResourceService {
         return Response.status(Response.Status.NOT_FOUND).entity(getResponse).build();
     }
 
+    /**
+     * Resumes a suspended request with a response computed asynchronously.
+     * If a query has been rejected because the server is overloaded, a 
+     * service unavailable response is sent.
+     * @param asyncResponse
+     * @param response
+     * @see opensilex.service.dao.manager.AsyncQueryExecutor
+     */
+    protected void resume(AsyncResponse asyncResponse, CompletableFuture<Response> response) {
+        // The request thread is given back to the container: the time of the
+        // request is only counted by its asynchronous queries from now
+        BackendMetrics.endRequest();
+        response.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                asyncResponse.resume(result);
+                return;
+            }
+            Throwable cause = throwable;
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RejectedExecutionException) {
+                asyncResponse.resume(getPostPutResponseFromSingleOperationStatus(
+                        Response.Status.SERVICE_UNAVAILABLE,
+                        StatusCodeMsg.SERVICE_OVERLOADED,
+                        StatusCodeMsg.ERR,
+                        null));
+            } else {
+                LOGGER.error(cause.getMessage(), cause);
+                asyncResponse.resume(cause);
+            }
+        });
+    }
+
     /**
      * Gets the response when a SQL error message occured.
      * @param getResponse
@@ -14,10 +14,20 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.inject.Singleton;
 import javax.validation.constraints.Min;
@@ -29,12 +39,14 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import opensilex.service.authentication.Session;
 import opensilex.service.configuration.DateFormat;
 import opensilex.service.configuration.DefaultBrapiPaginationValues;
 import opensilex.service.configuration.GlobalWebserviceValues;
 import opensilex.service.dao.DataDAO;
 import opensilex.service.dao.ExperimentSQLDAO;
+import opensilex.service.dao.LabelResolver;
 import opensilex.service.dao.ScientificObjectRdf4jDAO;
 import opensilex.service.dao.StudyDAO;
 import opensilex.service.dao.VariableDAO;
@@ -53,6 +65,7 @@ import opensilex.service.model.StudyDetails;
 import opensilex.service.model.Variable;
 import opensilex.service.resource.validation.interfaces.Required;
 import opensilex.service.resource.validation.interfaces.URL;
+import opensilex.service.view.brapi.BrapiMetadata;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.view.brapi.form.BrapiMultiResponseForm;
 import opensilex.service.view.brapi.form.BrapiSingleResponseForm;
@@ -68,6 +81,12 @@ import opensilex.service.view.brapi.form.BrapiSingleResponseForm;
  */
 public class StudiesResourceService implements BrapiCall {    
 
+    /**
+     * Gson used to write the streamed observations, with the null values as 
+     * the other BrAPI responses.
+     */
+    private static final Gson OBSERVATIONS_GSON = new GsonBuilder().serializeNulls().create();
+
      /**
      * Overriding BrapiCall method
      * @date 27 Aug 2018
@@ -359,22 +378,21 @@ public class StudiesResourceService implements BrapiCall {
         studyDAO.user = userSession.getUser();
         ArrayList<Status> statusList = new ArrayList<>();  
 
-        ArrayList<BrapiObservationDTO> observationsList = getObservationsList(studyDAO, new ArrayList());
-        ArrayList<String> variableURIs = new ArrayList();
+        //the measured variables are the variables having data for the study scientific objects
+        List<String> objectsURIs = new ArrayList<>(getStudyObjects(studyDAO).keySet());
+        List<String> allVariablesURIs = new ArrayList<>(getVariables(new ArrayList<>()).keySet());
+        Set<String> variableURIs = new DataDAO().countByVariable(allVariablesURIs, objectsURIs).keySet();
         ArrayList<BrapiVariable> obsVariablesList = new ArrayList();
-        for (BrapiObservationDTO obs:observationsList) {  
-            if (!variableURIs.contains(obs.getObservationVariableDbId())){
-                variableURIs.add(obs.getObservationVariableDbId());
-                VariableDAO varDAO = new VariableDAO();
-                try {
-                    BrapiVariable obsVariable = varDAO.findBrapiVariableById(obs.getObservationVariableDbId());
-                    obsVariablesList.add(obsVariable);  
-                } catch (Exception ex) {
-                    // Ignore unknonw variable id
-                }
-            }            
+        for (String variableURI:variableURIs) {  
+            VariableDAO varDAO = new VariableDAO();
+            try {
+                BrapiVariable obsVariable = varDAO.findBrapiVariableById(variableURI);
+                obsVariablesList.add(obsVariable);  
+            } catch (Exception ex) {
+                // Ignore unknonw variable id
+            }
         }
-        if (observationsList.isEmpty()) {
+        if (variableURIs.isEmpty()) {
             BrapiMultiResponseForm getResponse = new BrapiMultiResponseForm(0, 0, obsVariablesList, true);
             return noResultFound(getResponse, statusList);
         } else {
@@ -574,6 +592,9 @@ public class StudiesResourceService implements BrapiCall {
 
     /**
      * Retrieve the response with observations corresponding to the user query (parameters: one specific study and eventually some variables)
+     * Each variable collection is queried once for all the scientific objects
+     * of the study, and only the requested page is read and written in the 
+     * response, one observation at a time.
      * @param studyDAO the study for which we want to retrieve the linked observations
      * @param variableURIs to filter the observations on a list of variableURIs defined by the user
      * @param limit pagesize
@@ -582,94 +603,112 @@ public class StudiesResourceService implements BrapiCall {
      */
     private Response getStudyObservations(StudyDAO studyDAO, List<String> variableURIs, int limit, int page) {
         ArrayList<Status> statusList = new ArrayList<>();         
-        ArrayList<BrapiObservationDTO> observations = getObservationsList(studyDAO,variableURIs);
+        Map<String, ScientificObject> objects = getStudyObjects(studyDAO);
+        Map<String, Variable> variables = getVariables(variableURIs);
+
+        DataDAO dataDAOMongo = new DataDAO();
+        List<String> objectsURIs = new ArrayList<>(objects.keySet());
+        Map<String, Long> observationsCounts = dataDAOMongo.countByVariable(new ArrayList<>(variables.keySet()), objectsURIs);
+        long totalCount = observationsCounts.values().stream().mapToLong(Long::longValue).sum();
 
-        if (observations.isEmpty()) {
-            BrapiMultiResponseForm getResponse = new BrapiMultiResponseForm(0, 0, observations, true);
+        if (totalCount == 0) {
+            BrapiMultiResponseForm getResponse = new BrapiMultiResponseForm(0, 0, new ArrayList<>(), true);
             return noResultFound(getResponse, statusList);
-        } else {
-            BrapiMultiResponseForm getResponse = new BrapiMultiResponseForm(limit, page, observations, false);
-            return Response.status(Response.Status.OK).entity(getResponse).build();
-        }    
+        } 
+
+        BrapiMetadata metadata = new BrapiMetadata(limit, page, (int) Math.min(totalCount, Integer.MAX_VALUE));
+        List<String> measuredVariablesURIs = new ArrayList<>(observationsCounts.keySet());
+        // The page size is validated to be positive or zero
+        int offset = (int) Math.min((long) page * limit, Integer.MAX_VALUE - limit);
+
+        StreamingOutput stream = (OutputStream outputStream) -> {
+            SimpleDateFormat df = new SimpleDateFormat(DateFormat.YMDTHMSZ.toString());
+            JsonWriter jsonWriter = OBSERVATIONS_GSON.newJsonWriter(
+                    new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)));
+            jsonWriter.beginObject();
+            jsonWriter.name("metadata");
+            OBSERVATIONS_GSON.toJson(metadata, BrapiMetadata.class, jsonWriter);
+            jsonWriter.name("result").beginObject().name("data").beginArray();
+            dataDAOMongo.streamByObjects(measuredVariablesURIs, objectsURIs, offset, limit, (data, cursor) -> {
+                BrapiObservationDTO observation = getObservationFromData(data, variables.get(data.getVariableUri()), objects.get(data.getObjectUri()), df);
+                OBSERVATIONS_GSON.toJson(observation, BrapiObservationDTO.class, jsonWriter);
+            });
+            jsonWriter.endArray().endObject();
+            jsonWriter.endObject();
+            jsonWriter.flush();
+        };
+
+        return Response.ok(stream, MediaType.APPLICATION_JSON).build();
     }
 
     /**
-     * Retrieve the observations list corresponding to the user query
-     * @param studyDAO the study for which we want to retrieve the linked observations
-     * @param variableURIs to filter the observations on a list of variableURIs defined by the user
-     * @param limit pagesize
-     * @param page the page number
-     * @return observations list 
+     * Retrieve the scientific objects of a study
+     * @param studyDAO the study for which we want to retrieve the scientific objects
+     * @return the scientific objects, by uri
      */
-    private ArrayList<BrapiObservationDTO> getObservationsList(StudyDAO studyDAO, List<String> variableURIs) {
-
-        ArrayList<BrapiObservationDTO> observations = new ArrayList();  
+    private Map<String, ScientificObject> getStudyObjects(StudyDAO studyDAO) {
         ScientificObjectRdf4jDAO objectDAO = new ScientificObjectRdf4jDAO();
-        ArrayList<ScientificObject> objectsList = objectDAO.find(null, null, null, null, studyDAO.studyDbId, null);
-        ArrayList<Variable> variablesList = new ArrayList();
+        Map<String, ScientificObject> objects = new LinkedHashMap<>();
+        for (ScientificObject object : objectDAO.find(null, null, null, null, studyDAO.studyDbId, null)) {
+            objects.put(object.getUri(), object);
+        }
+        return objects;
+    }
+
+    /**
+     * Retrieve the variables (uri and label) from a list of variables uris defined by the user
+     * @param variableURIs the variables uris. If empty, all the variables are returned
+     * @return the variables, by uri 
+     */
+    private Map<String, Variable> getVariables(List<String> variableURIs) {
+        Map<String, Variable> variables = new LinkedHashMap<>();
 
         if (variableURIs.isEmpty()) {  
             VariableDAO variableDaoSesame = new VariableDAO();
             //if variableURIs is empty, we look for all variables observations
-            variablesList = variableDaoSesame.getAll(false, false); 
+            for (Variable variable : variableDaoSesame.getAll(false, false)) {
+                variables.put(variable.getUri(), variable);
+            }
 
         } else {            
             //in case a variable uri is duplicated, we keep distinct uris
             List<String> uniqueVariableURIs= variableURIs.stream().distinct().collect(Collectors.toList());
+            //only the uri and the label of the variables are needed: they are resolved all at once
+            Map<String, List<String>> variablesLabels = LabelResolver.getLabels(uniqueVariableURIs);
             for (String variableURI:uniqueVariableURIs) {
-                VariableDAO variableDAO = new VariableDAO();
-                try {
-                    Variable variable = variableDAO.findById(variableURI);
-                    variablesList.add(variable);
-                } catch (Exception ex) {
-                    // ignore unknown variables
+                List<String> labels = variablesLabels.get(variableURI);
+                if (labels != null && !labels.isEmpty()) {
+                    Variable variable = new Variable(variableURI);
+                    variable.setLabel(labels.get(0));
+                    variables.put(variableURI, variable);
                 }
-
+                // ignore unknown variables
             }                
         }
 
-        for (Variable variable:variablesList) {
-            DataDAO dataDAOMongo = new DataDAO();
-            dataDAOMongo.variableUri = variable.getUri();
-            ArrayList<BrapiObservationDTO> observationsPerVariable = new ArrayList();
-            for (ScientificObject object:objectsList) {            
-                dataDAOMongo.objectUri = object.getUri();
-                ArrayList<Data> dataList = dataDAOMongo.allPaginate();
-                ArrayList<BrapiObservationDTO> observationsPerVariableAndObject = getObservationsFromData(dataList,variable,object);
-                observationsPerVariable.addAll(observationsPerVariableAndObject);            
-            }
-            observations.addAll(observationsPerVariable);
-        }
-
-        return observations;
+        return variables;
     }
 
     /**
-     * Fill the observations attributes with Data, Variable and ScientificObject attributes
-     * @param dataList list of data corresponding to the variable and the scientificObject
-     * @param variable variable linked to the dataList
-     * @param object scientific object linked to the dataList
-     * @return observations list 
+     * Fill the observation attributes with Data, Variable and ScientificObject attributes
+     * @param data
+     * @param variable variable linked to the data
+     * @param object scientific object linked to the data
+     * @param df format of the observation timestamp
+     * @return the observation 
      */
-    private ArrayList<BrapiObservationDTO> getObservationsFromData(ArrayList<Data> dataList, Variable variable, ScientificObject object) {
-        SimpleDateFormat df = new SimpleDateFormat(DateFormat.YMDTHMSZ.toString());
-        ArrayList<BrapiObservationDTO> observations = new ArrayList();
-
-        for (Data data:dataList){            
-            BrapiObservationDTO observation= new BrapiObservationDTO();
-            observation.setObservationUnitDbId(object.getUri());
-            observation.setObservationUnitName(object.getLabel());
-            observation.setObservationLevel(object.getRdfType());            
-            observation.setStudyDbId(object.getExperiment());
-            observation.setObservationVariableDbId(variable.getUri());
-            observation.setObservationVariableName(variable.getLabel());    
-            observation.setObservationDbId(data.getUri());
-            observation.setObservationTimeStamp(df.format(data.getDate()));
-            observation.setValue(data.getValue().toString());
-            observations.add(observation);
-        }
-
-        return observations;
+    private BrapiObservationDTO getObservationFromData(Data data, Variable variable, ScientificObject object, SimpleDateFormat df) {
+        BrapiObservationDTO observation= new BrapiObservationDTO();
+        observation.setObservationUnitDbId(object.getUri());
+        observation.setObservationUnitName(object.getLabel());
+        observation.setObservationLevel(object.getRdfType());            
+        observation.setStudyDbId(object.getExperiment());
+        observation.setObservationVariableDbId(variable.getUri());
+        observation.setObservationVariableName(variable.getLabel());    
+        observation.setObservationDbId(data.getUri());
+        observation.setObservationTimeStamp(df.format(data.getDate()));
+        observation.setValue(data.getValue().toString());
+        return observation;
     }
 
     /**
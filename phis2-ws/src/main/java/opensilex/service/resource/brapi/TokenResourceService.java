@@ -195,7 +195,7 @@ public class TokenResourceService implements BrapiCall{
                         DateTime sessionStartDateTime = Dates.convertStringToDateTime(session.getDateStart(), DateFormats.YMDHMS_FORMAT);
                         if (sessionStartDateTime != null) {
                             Seconds secondsBetween = Seconds.secondsBetween(sessionStartDateTime, new DateTime());
-                            int expiration = Integer.valueOf(PropertiesFileManager.getConfigFileProperty("service", "sessionTime")) - secondsBetween.getSeconds();
+                            int expiration = PropertiesFileManager.getConfigFileIntProperty("service", "sessionTime") - secondsBetween.getSeconds();
                             //SILEX:info
                             //sometimes token expiration time become negative and crash the webapp
                             //this code forces regeneration of a new token in this case
@@ -204,7 +204,7 @@ public class TokenResourceService implements BrapiCall{
                                 TokenManager.Instance().createToken(session);
                                 sessionStartDateTime = Dates.convertStringToDateTime(session.getDateStart(), DateFormats.YMDHMS_FORMAT);
                                 secondsBetween = Seconds.secondsBetween(sessionStartDateTime, new DateTime());
-                                expiration = Integer.valueOf(PropertiesFileManager.getConfigFileProperty("service", "sessionTime")) - secondsBetween.getSeconds();
+                                expiration = PropertiesFileManager.getConfigFileIntProperty("service", "sessionTime") - secondsBetween.getSeconds();
                             }
                             //\SILEX:info
                             expires_in = Integer.toString(expiration);
@@ -0,0 +1,57 @@
+//******************************************************************************
+//                               MongoIndexDTO.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.resource.dto;
+
+import java.text.SimpleDateFormat;
+import opensilex.service.configuration.DateFormat;
+import opensilex.service.datasource.MongoIndexRegistry.IndexReport;
+import opensilex.service.resource.dto.manager.AbstractVerifiedClass;
+
+/**
+ * MongoDB index DTO.
+ */
+public class MongoIndexDTO extends AbstractVerifiedClass {
+    //Namespace of the collection
+    //@example phis.v001
+    protected String collection;
+    //Name of the index, null if it is missing
+    //@example date_1__id_1
+    protected String name;
+    //Fields of the index
+    //@example {"date": 1, "_id": 1}
+    protected String key;
+    //True if the index is declared by the web service
+    protected boolean declared;
+    //True if the index is declared but doesn't exist
+    protected boolean missing;
+    //True if the index hasn't been used since the start of its operations count
+    protected boolean unused;
+    //Number of operations which have used the index, null if unknown
+    protected Long operations;
+    //Start of the operations count, null if unknown
+    //@example 2026-10-18T08:00:00+0200
+    protected String since;
+
+    public MongoIndexDTO(IndexReport index) {
+        collection = index.getCollection();
+        name = index.getName();
+        key = index.getKey();
+        declared = index.isDeclared();
+        missing = index.isMissing();
+        unused = index.isUnused();
+        operations = index.getOperations();
+        if (index.getSince() != null) {
+            since = new SimpleDateFormat(DateFormat.YMDTHMSZ.toString()).format(index.getSince());
+        }
+    }
+
+    @Override
+    public Object createObjectFromDTO() throws Exception {
+        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    }
+}
@@ -0,0 +1,52 @@
+//******************************************************************************
+//                              QueryProfileDTO.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.resource.dto;
+
+import java.util.concurrent.TimeUnit;
+import opensilex.service.resource.dto.manager.AbstractVerifiedClass;
+import opensilex.service.utils.metrics.QueryProfiler.QueryProfile;
+
+/**
+ * Query profile DTO. The durations are in milliseconds.
+ */
+public class QueryProfileDTO extends AbstractVerifiedClass {
+    //Database of the queries
+    //@example rdf4j
+    protected String backend;
+    //Queries without their values
+    //@example SELECT ?label WHERE { <?> rdfs:label ?label }
+    protected String fingerprint;
+    //Number of executions
+    protected long count;
+    protected double totalTime;
+    protected double meanTime;
+    protected double percentile99Time;
+    protected double maxTime;
+    //Last executed query, with its values
+    protected String lastQuery;
+
+    public QueryProfileDTO(QueryProfile queryProfile) {
+        backend = queryProfile.getBackend().toString();
+        fingerprint = queryProfile.getFingerprint();
+        count = queryProfile.getCount();
+        totalTime = toMilliseconds(queryProfile.getTotalTime());
+        meanTime = count == 0 ? 0 : totalTime / count;
+        percentile99Time = toMilliseconds(queryProfile.getPercentile99Time());
+        maxTime = toMilliseconds(queryProfile.getMaxTime());
+        lastQuery = queryProfile.getLastQuery();
+    }
+
+    private static double toMilliseconds(long nanoseconds) {
+        return (double) nanoseconds / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public Object createObjectFromDTO() throws Exception {
+        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    }
+}
@@ -0,0 +1,61 @@
+//******************************************************************************
+//                              DataAggregateDTO.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.resource.dto.data;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import opensilex.service.configuration.DateFormat;
+import opensilex.service.model.DataAggregate;
+import opensilex.service.resource.dto.manager.AbstractVerifiedClass;
+
+/**
+ * Data aggregate DTO.
+ */
+public class DataAggregateDTO extends AbstractVerifiedClass {
+    //URI of the object
+    //@example http://www.opensilex.org/opensilex/2019/o19000060
+    protected String objectUri;
+    //URI of the provenance
+    //@example http://www.opensilex.org/opensilex/id/provenance/1552386023784
+    protected String provenanceUri;
+    //Start of the time bucket. The format is yyyy-MM-ddTHH:mm:ssZ
+    //@example 2017-05-21T23:00:00+0000
+    protected String date;
+    //Number of data in the bucket
+    protected long count;
+    protected double min;
+    protected double max;
+    protected double mean;
+    //Values of the requested percentiles, by percentile
+    //@example {"50": 1.2, "90": 2.5}
+    protected Map<String, Double> percentiles;
+
+    public DataAggregateDTO(DataAggregate dataAggregate) {
+        objectUri = dataAggregate.getObjectUri();
+        provenanceUri = dataAggregate.getProvenanceUri();
+        SimpleDateFormat df = new SimpleDateFormat(DateFormat.YMDTHMSZ.toString());
+        date = df.format(dataAggregate.getDate());
+        count = dataAggregate.getCount();
+        min = dataAggregate.getMin();
+        max = dataAggregate.getMax();
+        mean = dataAggregate.getMean();
+        if (!dataAggregate.getPercentiles().isEmpty()) {
+            percentiles = new LinkedHashMap<>();
+            for (Map.Entry<Double, Double> percentile : dataAggregate.getPercentiles().entrySet()) {
+                percentiles.put(BigDecimal.valueOf(percentile.getKey()).stripTrailingZeros().toPlainString(), percentile.getValue());
+            }
+        }
+    }
+
+    @Override
+    public Object createObjectFromDTO() throws Exception {
+        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+    }
+}
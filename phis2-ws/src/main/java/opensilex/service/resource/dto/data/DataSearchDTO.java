@@ -59,6 +59,14 @@ public class DataSearchDTO extends AbstractVerifiedClass {
         }
     }
     
+    public String getDate() {
+        return date;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+    
     @Override
     public Object createObjectFromDTO() throws Exception {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
@@ -43,6 +43,24 @@ public class EnvironmentMeasureDTO {
      */
     protected BigDecimal value;
     
+    /**
+     * Number of measures of a rollup, null for a single measure.
+     * @example 60
+     */
+    protected Long count;
+    
+    /**
+     * Minimum value of the measures of a rollup, null for a single measure.
+     * @example 0.8
+     */
+    protected BigDecimal min;
+    
+    /**
+     * Maximum value of the measures of a rollup, null for a single measure.
+     * @example 1.5
+     */
+    protected BigDecimal max;
+    
     public EnvironmentMeasureDTO(EnvironmentMeasure measure) {
         if (measure.getDate() != null) {
             SimpleDateFormat df = new SimpleDateFormat(DateFormat.YMDTHMSZ.toString());
@@ -52,6 +70,9 @@ public class EnvironmentMeasureDTO {
         setSensorUri(measure.getSensorUri());
         setVariableUri(measure.getVariableUri());
         setValue(measure.getValue());
+        setCount(measure.getCount());
+        setMin(measure.getMin());
+        setMax(measure.getMax());
     }
 
     public String getSensorUri() {
@@ -85,4 +106,28 @@ public class EnvironmentMeasureDTO {
     public void setVariableUri(String variableUri) {
         this.variableUri = variableUri;
     }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public void setMin(BigDecimal min) {
+        this.min = min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public void setMax(BigDecimal max) {
+        this.max = max;
+    }
 }
@@ -26,6 +26,7 @@ import opensilex.service.authentication.TokenManager;
 import opensilex.service.configuration.GlobalWebserviceValues;
 import opensilex.service.documentation.StatusCodeMsg;
 import opensilex.service.resource.DataResourceService;
+import opensilex.service.resource.MetricsResourceService;
 import opensilex.service.view.brapi.Status;
 import opensilex.service.view.brapi.form.ResponseFormGET;
 
@@ -65,6 +66,7 @@ public class AuthenticationRequestFilter implements ContainerRequestFilter {
                 && !resourcePath.contains("token") 
                 && !resourcePath.contains("calls") 
                 && !resourcePath.contains("swagger.json")
+                && resourceInfo.getResourceClass() != MetricsResourceService.class
                 && !(resourceInfo.getResourceClass() == DataResourceService.class && resourceInfo.getResourceMethod().getName().equals("getDataFile"))) {
             // Get request headers
             final MultivaluedMap<String, String> headers = requestContext.getHeaders();
@@ -0,0 +1,168 @@
+//******************************************************************************
+//                              MetricsFilter.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.resource.request.filter;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.uri.UriTemplate;
+import opensilex.service.utils.metrics.BackendMetrics;
+import opensilex.service.utils.metrics.BackendMetrics.Backend;
+import opensilex.service.utils.metrics.BackendMetrics.RequestDurations;
+import opensilex.service.utils.metrics.Metrics;
+
+/**
+ * Records the metrics of the requests, by route: the time to handle the
+ * request, the part of this time spent in each database, and the time to
+ * write the response body with its size.
+ * The route is the path template of the resource method, e.g.
+ * /data/{uri}, so that the metrics don't depend on the requested URIs.
+ * Runs before the authentication filter, so that the rejected requests are
+ * counted too.
+ * @see BackendMetrics
+ */
+@Provider
+@Priority(Priorities.AUTHENTICATION - 1)
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final String START_PROPERTY = MetricsFilter.class.getName() + ".start";
+    private static final String ROUTE_PROPERTY = MetricsFilter.class.getName() + ".route";
+    private static final String BACKENDS_PROPERTY = MetricsFilter.class.getName() + ".backends";
+
+    // Route of the requests which don't match any resource method
+    private static final String UNMATCHED_ROUTE = "unmatched";
+
+    private static final Metrics.Family REQUESTS_DURATIONS = Metrics.durations(
+            "phis_http_request_duration_seconds",
+            "Duration of the requests handling, without the response body writing",
+            "route", "method", "status");
+
+    private static final Metrics.Family REQUESTS_BACKENDS_DURATIONS = Metrics.durations(
+            "phis_http_request_backend_duration_seconds",
+            "Time spent in each database by the requests",
+            "route", "backend");
+
+    private static final Metrics.Family RESPONSES_WRITE_DURATIONS = Metrics.durations(
+            "phis_http_response_write_duration_seconds",
+            "Duration of the response bodies serialization and sending",
+            "route");
+
+    private static final Metrics.Family RESPONSES_SIZES = Metrics.sizes(
+            "phis_http_response_size_bytes",
+            "Size of the response bodies",
+            "route");
+
+    @Context
+    private ExtendedUriInfo uriInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+        // Kept with the request, as the response filter of a suspended request
+        // runs in another thread
+        requestContext.setProperty(BACKENDS_PROPERTY, BackendMetrics.startRequest());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        Long start = (Long) requestContext.getProperty(START_PROPERTY);
+        RequestDurations requestDurations = (RequestDurations) requestContext.getProperty(BACKENDS_PROPERTY);
+        BackendMetrics.endRequest();
+        if (start == null || requestDurations == null) {
+            return;
+        }
+        Map<Backend, Long> backendsDurations = requestDurations.get();
+        String route = getRoute();
+        requestContext.setProperty(ROUTE_PROPERTY, route);
+
+        REQUESTS_DURATIONS.recordDuration(System.nanoTime() - start,
+                route, requestContext.getMethod(), String.valueOf(responseContext.getStatus()));
+        backendsDurations.forEach((backend, duration) -> {
+            if (duration > 0) {
+                REQUESTS_BACKENDS_DURATIONS.recordDuration(duration, route, backend.toString());
+            }
+        });
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        String route = (String) context.getProperty(ROUTE_PROPERTY);
+        if (route == null) {
+            context.proceed();
+            return;
+        }
+        CountingOutputStream countingOutputStream = new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(countingOutputStream);
+        long start = System.nanoTime();
+        try {
+            context.proceed();
+        } finally {
+            RESPONSES_WRITE_DURATIONS.recordDuration(System.nanoTime() - start, route);
+            RESPONSES_SIZES.labels(route).record(countingOutputStream.count);
+        }
+    }
+
+    /**
+     * @return the path template of the matched resource method
+     */
+    private String getRoute() {
+        List<UriTemplate> templates = uriInfo.getMatchedTemplates();
+        if (templates == null || templates.isEmpty()) {
+            return UNMATCHED_ROUTE;
+        }
+        // The templates are given from the method to the resource class
+        StringBuilder route = new StringBuilder();
+        for (int i = templates.size() - 1; i >= 0; i--) {
+            String template = templates.get(i).getTemplate();
+            if (!template.startsWith("/") && (route.length() == 0 || route.charAt(route.length() - 1) != '/')) {
+                route.append('/');
+            }
+            route.append(template);
+        }
+        return route.toString();
+    }
+
+    /**
+     * Output stream counting the written bytes.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count = 0;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -65,7 +65,7 @@ public class PageSizeMaxRequestFilter implements ContainerRequestFilter {
      * Sets the page size max value from the configuration file.
      */
     private void setPageSizeMaxFromConfigFile() {        
-        PAGE_SIZE_MAX = Integer.parseInt(PropertiesFileManager.getConfigFileProperty("service", "pageSizeMax"));
+        PAGE_SIZE_MAX = PropertiesFileManager.getConfigFileIntProperty("service", "pageSizeMax");
         PAGE_SIZE_MAX_HAS_BEEN_SET_UP = true;
     }
 }
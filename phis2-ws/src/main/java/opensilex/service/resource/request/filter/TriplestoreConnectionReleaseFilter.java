@@ -0,0 +1,30 @@
+//******************************************************************************
+//                    TriplestoreConnectionReleaseFilter.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.resource.request.filter;
+
+import java.io.IOException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+import opensilex.service.datasource.TriplestoreDataSource;
+
+/**
+ * Gives back to the triplestore data source the connections which have been
+ * borrowed by the DAOs during the request and which have not been closed.
+ * @see TriplestoreDataSource#releaseThreadConnections()
+ */
+@Provider
+public class TriplestoreConnectionReleaseFilter implements ContainerResponseFilter {
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        TriplestoreDataSource.releaseThreadConnections();
+    }
+}
@@ -0,0 +1,117 @@
+//******************************************************************************
+//                                ByteRange.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+/**
+ * Byte range of a file requested with the HTTP Range header.
+ * Only the single ranges are supported (e.g. bytes=0-499, bytes=500- or
+ * bytes=-500). The requests with several ranges get the whole file, as
+ * allowed by the RFC 7233.
+ */
+public class ByteRange {
+
+    public final static String RANGE_HEADER = "Range";
+    public final static String IF_RANGE_HEADER = "If-Range";
+    public final static String CONTENT_RANGE_HEADER = "Content-Range";
+    public final static String ACCEPT_RANGES_HEADER = "Accept-Ranges";
+    public final static String BYTES_UNIT = "bytes";
+
+    private final static String BYTES_PREFIX = BYTES_UNIT + "=";
+
+    // Position of the first byte
+    private final long start;
+    // Position of the last byte, included
+    private final long end;
+    // Length of the file
+    private final long fileLength;
+
+    private ByteRange(long start, long end, long fileLength) {
+        this.start = start;
+        this.end = end;
+        this.fileLength = fileLength;
+    }
+
+    /**
+     * Parses a Range header.
+     * @param rangeHeader the header value, may be null
+     * @param fileLength
+     * @return the range, null if the whole file has to be sent (no header,
+     * several ranges or invalid header)
+     */
+    public static ByteRange parse(String rangeHeader, long fileLength) {
+        if (rangeHeader == null || !rangeHeader.startsWith(BYTES_PREFIX)) {
+            return null;
+        }
+        String range = rangeHeader.substring(BYTES_PREFIX.length()).trim();
+        int dashIndex = range.indexOf('-');
+        if (range.contains(",") || dashIndex < 0) {
+            return null;
+        }
+
+        try {
+            String first = range.substring(0, dashIndex).trim();
+            String last = range.substring(dashIndex + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last bytes of the file
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength <= 0) {
+                    return new ByteRange(fileLength, fileLength - 1, fileLength);
+                }
+                return new ByteRange(Math.max(0, fileLength - suffixLength), fileLength - 1, fileLength);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? fileLength - 1 : Math.min(Long.parseLong(last), fileLength - 1);
+            if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) {
+                return null;
+            }
+            return new ByteRange(start, end, fileLength);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the range is in the file, false if the range can't be
+     * sent (416 Range Not Satisfiable)
+     */
+    public boolean isSatisfiable() {
+        return start < fileLength && start <= end;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the number of bytes of the range
+     */
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * @return the Content-Range header value of the range
+     * @example bytes 0-499/1234
+     */
+    public String toContentRange() {
+        return BYTES_UNIT + " " + start + "-" + end + "/" + fileLength;
+    }
+
+    /**
+     * @param fileLength
+     * @return the Content-Range header value of a 416 response
+     * @example bytes * /1234
+     */
+    public static String unsatisfiedContentRange(long fileLength) {
+        return BYTES_UNIT + " */" + fileLength;
+    }
+}
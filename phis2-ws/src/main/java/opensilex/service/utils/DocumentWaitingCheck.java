@@ -34,7 +34,7 @@ public class DocumentWaitingCheck implements Callable<Boolean> {
         // Waiting time
         int waitingFileTime = DEFAUT_WAITING_FILE_TIME;
         try{
-            waitingFileTime = Integer.valueOf(PropertiesFileManager.getConfigFileProperty(PROPS_FILE_NAME, "waitingFileTime"));
+            waitingFileTime = PropertiesFileManager.getConfigFileIntProperty(PROPS_FILE_NAME, "waitingFileTime");
         }catch(Exception e){
             LOGGER.info("Can't parse waitingFileTime properties in " + PROPS_FILE_NAME + " properties file. Default value is "+ DEFAUT_WAITING_FILE_TIME +" seconds.", e);
         }
@@ -0,0 +1,79 @@
+//******************************************************************************
+//                                Downsampling.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Downsampling of the series displayed in charts.
+ */
+public class Downsampling {
+
+    /**
+     * Selects the points of a series which keep its visual shape, with the
+     * Largest-Triangle-Three-Buckets algorithm: the first and the last points
+     * are kept and, in each of the other buckets, the point forming the
+     * largest triangle with the point selected in the previous bucket and the
+     * average of the next bucket.
+     * @param <T> the points type
+     * @param points the series, sorted by x
+     * @param threshold the number of points to keep
+     * @param x the x coordinate of a point
+     * @param y the y coordinate of a point
+     * @return the selected points, in their order. The series itself if it
+     * doesn't have more than threshold points or if threshold is lower than 3
+     */
+    public static <T> List<T> largestTriangleThreeBuckets(List<T> points, int threshold, ToDoubleFunction<T> x, ToDoubleFunction<T> y) {
+        if (threshold < 3 || points.size() <= threshold) {
+            return points;
+        }
+
+        List<T> sampled = new ArrayList<>(threshold);
+        // The first and the last points are in their own bucket
+        double bucketSize = (double) (points.size() - 2) / (threshold - 2);
+
+        int selectedIndex = 0;
+        sampled.add(points.get(selectedIndex));
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average point of the next bucket
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, points.size());
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x.applyAsDouble(points.get(i));
+                averageY += y.applyAsDouble(points.get(i));
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            // Point of the current bucket forming the largest triangle
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double selectedX = x.applyAsDouble(points.get(selectedIndex));
+            double selectedY = y.applyAsDouble(points.get(selectedIndex));
+            double maxArea = -1;
+            int maxAreaIndex = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((selectedX - averageX) * (y.applyAsDouble(points.get(i)) - selectedY)
+                        - (selectedX - x.applyAsDouble(points.get(i))) * (averageY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxAreaIndex = i;
+                }
+            }
+            selectedIndex = maxAreaIndex;
+            sampled.add(points.get(selectedIndex));
+        }
+        sampled.add(points.get(points.size() - 1));
+
+        return sampled;
+    }
+}
@@ -17,12 +17,16 @@ import com.jcraft.jsch.Session;
 import com.jcraft.jsch.SftpException;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import opensilex.service.PropertiesFileManager;
  
 /**
  * File uploader. Enables simple SFTP calls in Java.
+ * The SFTP channel is borrowed from the SFTP channel pool and given back by
+ * closeConnection(), which must always be called. If the channel can't be
+ * borrowed, the error is logged and isConnected() returns false.
  * @update [Andréas Garcia] 23 Jan. 2019: Add generic function to create nested 
  * directories from a complete path
  * @author Arnaud Charleroy <arnaud.charleroy@inra.fr>
@@ -37,6 +41,8 @@ public class FileUploader extends JSch{
     private Session session = null;
     private Channel channel = null;
     private ChannelSftp channelSftp = null;
+    // True if the channel is in an unknown state and can't be reused
+    private boolean channelBroken = false;
     
     public FileUploader() {
         // Connection parameters
@@ -47,14 +53,10 @@ public class FileUploader extends JSch{
         
         try {
             // Connection
-            session = getSession(SFTPUser,SFTPHost);
-            session.setConfig("StrictHostKeyChecking", "no");
-            session.setPassword(SFTPPass);
-            session.connect();
-            channel = session.openChannel("sftp");
-            channel.connect();
-            channelSftp = (ChannelSftp) channel;
-            // Folder changing
+            channelSftp = SftpChannelPool.getInstance().borrowChannel();
+            channel = channelSftp;
+            session = channelSftp.getSession();
+            // Folder changing, the channel may have been left in another folder
             channelSftp.cd(SFTPWorkingDirectory);
             
         } catch (SftpException | JSchException ex) {
@@ -62,25 +64,41 @@ public class FileUploader extends JSch{
         }
     }
     
+    /**
+     * @return false if no SFTP channel could be borrowed, in which case no 
+     * transfer can be done
+     */
+    public boolean isConnected() {
+        return channelSftp != null;
+    }
+    
     public boolean fileTransfer(File f, String filename) {
         // Envoie d'un fichier au dossier prévu
-        FileInputStream fStream = null;
-        try {
-            fStream = new FileInputStream(f);
-            channelSftp.put(new FileInputStream(f), filename);
-        } catch (SftpException | IOException ex) {
+        try (FileInputStream fStream = new FileInputStream(f)) {
+            return fileTransfer(fStream, filename);
+        } catch (IOException ex) {
             LOGGER.error(ex.getMessage(), ex);  
             return false;
-        }finally{
-            if(fStream != null){
-                try {
-                    fStream.close();
-                } catch (IOException ex) {
-                    LOGGER.error("Error during file closing", ex);  
-                }
+        }
+    }
+    
+    /**
+     * Sends the content of a stream to a file, in one pass.
+     * @param stream
+     * @param filename
+     * @return true if the file has been sent
+     */
+    public boolean fileTransfer(InputStream stream, String filename) {
+        try {
+            channelSftp.put(stream, filename);
+        } catch (SftpException ex) {
+            if (ex.getCause() instanceof IOException) {
+                // The transfer has been interrupted while reading the stream
+                channelBroken = true;
             }
+            LOGGER.error(ex.getMessage(), ex);  
+            return false;
         }
-        
         return true;
     }
     
@@ -117,13 +135,20 @@ public class FileUploader extends JSch{
     }
     
     /**
-     * Closes connection.
+     * Gives back the connection to the SFTP channel pool.
      */
     public void closeConnection(){
-        channelSftp.exit();
-        channelSftp.disconnect();
-        channel.disconnect();
-        session.disconnect();
+        if (channelSftp == null) {
+            return;
+        }
+        if (channelBroken) {
+            SftpChannelPool.getInstance().invalidateChannel(channelSftp);
+        } else {
+            SftpChannelPool.getInstance().returnChannel(channelSftp);
+        }
+        channelSftp = null;
+        channel = null;
+        session = null;
     }
 
     public String getSFTPHost() {
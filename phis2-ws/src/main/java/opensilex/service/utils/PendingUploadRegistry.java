@@ -0,0 +1,122 @@
+//******************************************************************************
+//                           PendingUploadRegistry.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the files waiting to be uploaded, with their metadata.
+ * A file is sent in two stages:
+ * 1. the metadata is sent and registered here
+ * 2. the file is sent: its metadata is claimed from the registry
+ * The metadata of a file which has not been sent in time is removed from the
+ * registry. The expirations of all the registries are run by a single thread.
+ * @param <T> the metadata type
+ */
+public class PendingUploadRegistry<T> {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(PendingUploadRegistry.class);
+
+    /**
+     * Single thread shared by all the registries to remove the expired
+     * metadata.
+     */
+    private static final ScheduledExecutorService EXPIRATION_EXECUTOR = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "pending-upload-expiration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    // In seconds
+    private final long waitingTime;
+
+    private final Map<String, PendingUpload<T>> pendingUploads = new ConcurrentHashMap<>();
+
+    /**
+     * @param name name of the registry, used for the logs
+     * @param waitingTime time to wait for a file, in seconds
+     */
+    public PendingUploadRegistry(String name, long waitingTime) {
+        this.name = name;
+        this.waitingTime = waitingTime;
+    }
+
+    /**
+     * Registers the metadata of a file waiting to be sent. The metadata is
+     * removed after the waiting time if the file has not been sent.
+     * @param uri the file URI
+     * @param metadata
+     */
+    public void register(String uri, T metadata) {
+        PendingUpload<T> pendingUpload = new PendingUpload<>(metadata);
+        // Scheduled before the registration so that a claimed upload always
+        // has an expiration to cancel
+        pendingUpload.expiration = EXPIRATION_EXECUTOR.schedule(() -> {
+            if (pendingUploads.remove(uri, pendingUpload)) {
+                LOGGER.debug("No " + name + " file received for " + uri + " after " + waitingTime + " seconds");
+            }
+        }, waitingTime, TimeUnit.SECONDS);
+        PendingUpload<T> previousUpload = pendingUploads.put(uri, pendingUpload);
+        if (previousUpload != null) {
+            previousUpload.expiration.cancel(false);
+        }
+    }
+
+    /**
+     * Checks if a file is waited.
+     * @param uri the file URI
+     * @return true if the file is waited
+     */
+    public boolean isWaiting(String uri) {
+        return pendingUploads.containsKey(uri);
+    }
+
+    /**
+     * Takes the metadata of a file which is being sent. The file is no longer
+     * waited: the metadata can only be claimed once.
+     * @param uri the file URI
+     * @return the metadata, null if the file is not waited
+     */
+    public T claim(String uri) {
+        PendingUpload<T> pendingUpload = pendingUploads.remove(uri);
+        if (pendingUpload == null) {
+            return null;
+        }
+        pendingUpload.expiration.cancel(false);
+        return pendingUpload.metadata;
+    }
+
+    /**
+     * @return the number of files waited
+     */
+    public int getSize() {
+        return pendingUploads.size();
+    }
+
+    /**
+     * Metadata of a waited file, with its expiration.
+     * @param <T>
+     */
+    private static class PendingUpload<T> {
+
+        private final T metadata;
+        private ScheduledFuture<?> expiration;
+
+        private PendingUpload(T metadata) {
+            this.metadata = metadata;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+//******************************************************************************
+//                             SftpChannelPool.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import opensilex.service.PropertiesFileManager;
+
+/**
+ * Pool of SFTP channels on the upload file server.
+ * Each channel has its own SSH session, kept alive by the server alive
+ * messages. The channels are borrowed with borrowChannel() and given back
+ * with returnChannel(), or invalidateChannel() if they are in an unknown
+ * state. The closed channels are replaced on the next borrow.
+ * The pool configuration is read at startup in the service configuration
+ * file.
+ * @see FileUploader
+ */
+public class SftpChannelPool {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(SftpChannelPool.class);
+
+    private static final String PROPERTY_FILE_NAME = "service";
+
+    private static final int DEFAULT_PORT = 22;
+    private static final int DEFAULT_MAX_ACTIVE = 8;
+    private static final int DEFAULT_MAX_IDLE = 4;
+    private static final long DEFAULT_MAX_WAIT = 30000;
+    // In seconds
+    private static final int DEFAULT_KEEP_ALIVE_INTERVAL = 30;
+
+    private final JSch jsch = new JSch();
+
+    private final String host;
+    private final int port;
+    private final String user;
+    private final String password;
+
+    private final int maxIdle;
+    private final long maxWait;
+    private final int keepAliveInterval;
+
+    /**
+     * Limits the number of channels borrowed at the same time.
+     */
+    private final Semaphore activePermits;
+
+    private final LinkedBlockingDeque<ChannelSftp> idleChannels = new LinkedBlockingDeque<>();
+
+    // Pool statistics
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+
+    /**
+     * Safe thread initialization of the unique instance.
+     */
+    private static class SftpChannelPoolHolder {
+
+        final private static SftpChannelPool instance = new SftpChannelPool();
+    }
+
+    public static SftpChannelPool getInstance() {
+        return SftpChannelPoolHolder.instance;
+    }
+
+    private SftpChannelPool() {
+        host = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILE_NAME, "uploadFileServerIP");
+        port = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "uploadFileServerPort", DEFAULT_PORT);
+        user = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILE_NAME, "uploadFileServerUsername");
+        password = PropertiesFileManager.getConfigFileProperty(PROPERTY_FILE_NAME, "uploadFileServerPassword");
+
+        int maxActive = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "sftpPoolMaxActive", DEFAULT_MAX_ACTIVE);
+        maxIdle = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "sftpPoolMaxIdle", DEFAULT_MAX_IDLE);
+        maxWait = PropertiesFileManager.getConfigFileLongProperty(PROPERTY_FILE_NAME, "sftpPoolMaxWait", DEFAULT_MAX_WAIT);
+        keepAliveInterval = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "sftpKeepAliveInterval", DEFAULT_KEEP_ALIVE_INTERVAL);
+        activePermits = new Semaphore(maxActive, true);
+    }
+
+    /**
+     * Borrows a connected channel from the pool.
+     * Waits at most sftpPoolMaxWait milliseconds if sftpPoolMaxActive
+     * channels are already borrowed.
+     * @return the channel, which has to be given back to the pool
+     * @throws JSchException if no channel can be borrowed
+     */
+    public ChannelSftp borrowChannel() throws JSchException {
+        try {
+            if (!activePermits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                throw new JSchException("Timeout waiting for an SFTP channel");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JSchException("Interrupted while waiting for an SFTP channel", ex);
+        }
+
+        try {
+            ChannelSftp channel;
+            while ((channel = idleChannels.pollFirst()) != null) {
+                if (isConnected(channel)) {
+                    return channel;
+                }
+                destroy(channel);
+            }
+            return createChannel();
+        } catch (JSchException | RuntimeException ex) {
+            activePermits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gives back a borrowed channel to the pool.
+     * @param channel
+     */
+    public void returnChannel(ChannelSftp channel) {
+        try {
+            if (isConnected(channel) && idleChannels.size() < maxIdle) {
+                idleChannels.offerFirst(channel);
+            } else {
+                destroy(channel);
+            }
+        } finally {
+            activePermits.release();
+        }
+    }
+
+    /**
+     * Gives back a borrowed channel which can't be used anymore (e.g. after
+     * a transfer error). The channel is closed.
+     * @param channel
+     */
+    public void invalidateChannel(ChannelSftp channel) {
+        try {
+            destroy(channel);
+        } finally {
+            activePermits.release();
+        }
+    }
+
+    private ChannelSftp createChannel() throws JSchException {
+        Session session = jsch.getSession(user, host, port);
+        session.setConfig("StrictHostKeyChecking", "no");
+        session.setPassword(password);
+        session.setServerAliveInterval(keepAliveInterval * 1000);
+        session.connect();
+        try {
+            ChannelSftp channel = (ChannelSftp) session.openChannel("sftp");
+            channel.connect();
+            createdCount.incrementAndGet();
+            return channel;
+        } catch (JSchException ex) {
+            session.disconnect();
+            throw ex;
+        }
+    }
+
+    private boolean isConnected(ChannelSftp channel) {
+        try {
+            return channel.isConnected() && !channel.isClosed() && channel.getSession().isConnected();
+        } catch (JSchException ex) {
+            return false;
+        }
+    }
+
+    private void destroy(ChannelSftp channel) {
+        try {
+            Session session = channel.getSession();
+            channel.disconnect();
+            session.disconnect();
+        } catch (JSchException ex) {
+            channel.disconnect();
+        }
+        destroyedCount.incrementAndGet();
+    }
+
+    /**
+     * @return the number of idle channels
+     */
+    public int getIdle() {
+        return idleChannels.size();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount.get();
+    }
+}
@@ -86,6 +86,17 @@ public class UriGenerator {
     private static final String PLATFORM_URI_ID_PROVENANCE = PLATFORM_URI_ID + "provenance/";
     
     private static final String EXPERIMENT_URI_SEPARATOR = "-";
+    
+    // Names of the sequences of the auto incremented numbers
+    private static final String SEQUENCE_ACTUATOR = "actuator/";
+    private static final String SEQUENCE_METHOD = "method";
+    private static final String SEQUENCE_RADIOMETRIC_TARGET = "radiometricTarget";
+    private static final String SEQUENCE_SCIENTIFIC_OBJECT = "scientificObject/";
+    private static final String SEQUENCE_SENSOR = "sensor/";
+    private static final String SEQUENCE_TRAIT = "trait";
+    private static final String SEQUENCE_UNIT = "unit";
+    private static final String SEQUENCE_VARIABLE = "variable";
+    private static final String SEQUENCE_VECTOR = "vector/";
 
 
     /**
@@ -98,12 +109,12 @@ public class UriGenerator {
      * @return the new vector URI
      */
     private static String generateVectorUri(String year) {
-        //1. get the actual number of vectors in the triplestor for the year
-        VectorDAO vectorDAO = new VectorDAO();
-        int lastVectorIdFromYear = vectorDAO.getLastIdFromYear(year);
+        //1. get the next vector number of the year
+        long vectorNumber = UriSequenceAllocator.getInstance().next(SEQUENCE_VECTOR + year, 
+                () -> new VectorDAO().getLastIdFromYear(year));
 
         //2. generate vectors URI
-        String numberOfVectors = Integer.toString(lastVectorIdFromYear + 1);
+        String numberOfVectors = Long.toString(vectorNumber);
 
         String newVectorNumber;
 
@@ -127,13 +138,12 @@ public class UriGenerator {
      * @return the new sensor URI
      */
     private static String generateSensorUri(String year) {
-        //1. get the current number of sensors in the triplestor for the year
-        SensorDAO sensorDAO = new SensorDAO();
-        int lastSensorIdFromYear = sensorDAO.getLastIdFromYear(year);
+        //1. get the next sensor number of the year
+        long sensorNumber = UriSequenceAllocator.getInstance().next(SEQUENCE_SENSOR + year, 
+                () -> new SensorDAO().getLastIdFromYear(year));
 
         //2. generate sensor URI
-        int sensorNumber = lastSensorIdFromYear + 1;
-        String numberOfSensors = Integer.toString(sensorNumber);
+        String numberOfSensors = Long.toString(sensorNumber);
         String newSensorNumber;
         switch (numberOfSensors.length()) {
             case 1:
@@ -160,13 +170,12 @@ public class UriGenerator {
      * @return the new actuator URI
      */
     private static String generateActuatorUri(String year) {
-        //1. get the current number of actuator in the triplestor for the year
-        ActuatorDAO actuatorDAO = new ActuatorDAO();
-        int lastActuatorIdFromYear = actuatorDAO.getLastIdFromYear(year);
+        //1. get the next actuator number of the year
+        long actuatorNumber = UriSequenceAllocator.getInstance().next(SEQUENCE_ACTUATOR + year, 
+                () -> new ActuatorDAO().getLastIdFromYear(year));
 
         //2. generate actuator URI
-        int actuatorNumber = lastActuatorIdFromYear + 1;
-        String numberOfActuators = Integer.toString(actuatorNumber);
+        String numberOfActuators = Long.toString(actuatorNumber);
         String newActuatorNumber;
         switch (numberOfActuators.length()) {
             case 1:
@@ -194,14 +203,13 @@ public class UriGenerator {
      * @return the new agronomical object URI
      */
     private static String generateAgronomicalObjectUri(String year) {
-        //1. get the highest number for the year 
-        //(i.e. the last inserted agronomical object for the year)
-        ScientificObjectRdf4jDAO agronomicalObjectDAO = new ScientificObjectRdf4jDAO();
-        int lastAgronomicalObjectIdFromYear = agronomicalObjectDAO.getLastScientificObjectIdFromYear(year);
+        //1. get the next agronomical object number of the year, the sequence
+        //starts after the last inserted agronomical object for the year
+        long agronomicalObjectNumber = UriSequenceAllocator.getInstance().nextInBlock(SEQUENCE_SCIENTIFIC_OBJECT + year, 
+                () -> new ScientificObjectRdf4jDAO().getLastScientificObjectIdFromYear(year));
 
         //2. generates agronomical object URI
-        int agronomicalObjectNumber = lastAgronomicalObjectIdFromYear + 1;
-        String agronomicalObjectId = Integer.toString(agronomicalObjectNumber);
+        String agronomicalObjectId = Long.toString(agronomicalObjectNumber);
 
         while (agronomicalObjectId.length() < 6) {
             agronomicalObjectId = "0" + agronomicalObjectId;
@@ -218,13 +226,12 @@ public class UriGenerator {
      * @return the new variable URI
      */
     private static String generateVariableUri() {
-        //1. get the higher variable id (i.e. the last inserted variable)
-        VariableDAO variableDAO = new VariableDAO();
-        int lastVariableId = variableDAO.getLastId();
+        //1. get the next variable id, the sequence starts after the last
+        //inserted variable
+        long newVariableId = UriSequenceAllocator.getInstance().next(SEQUENCE_VARIABLE, () -> new VariableDAO().getLastId());
 
         //2. generate variable URI
-        int newVariableId = lastVariableId + 1;
-        String variableId = Integer.toString(newVariableId);
+        String variableId = Long.toString(newVariableId);
 
         while (variableId.length() < 3) {
             variableId = "0" + variableId;
@@ -241,13 +248,12 @@ public class UriGenerator {
      * @return the new trait URI
      */
     private static String generateTraitUri() {
-        //1. get the highest trait id (i.e. the last inserted trait)
-        TraitDAO traitDAO = new TraitDAO();
-        int lastTraitId = traitDAO.getLastId();
+        //1. get the next trait id, the sequence starts after the last
+        //inserted trait
+        long newTraitId = UriSequenceAllocator.getInstance().next(SEQUENCE_TRAIT, () -> new TraitDAO().getLastId());
 
         //2. generate trait URI
-        int newTraitId = lastTraitId + 1;
-        String traitId = Integer.toString(newTraitId);
+        String traitId = Long.toString(newTraitId);
 
         while (traitId.length() < 3) {
             traitId = "0" + traitId;
@@ -264,13 +270,12 @@ public class UriGenerator {
      * @return the new method URI
      */
     private static String generateMethodUri() {
-        //1. get the highest method id (i.e. the last inserted method)
-        MethodDAO methodDAO = new MethodDAO();
-        int lastMethodId = methodDAO.getLastId();
+        //1. get the next method id, the sequence starts after the last
+        //inserted method
+        long newMethodId = UriSequenceAllocator.getInstance().next(SEQUENCE_METHOD, () -> new MethodDAO().getLastId());
 
         //2. generate method URI
-        int newMethodId = lastMethodId + 1;
-        String methodId = Integer.toString(newMethodId);
+        String methodId = Long.toString(newMethodId);
 
         while (methodId.length() < 3) {
             methodId = "0" + methodId;
@@ -287,13 +292,12 @@ public class UriGenerator {
      * @return the new unit URI
      */
     private static String generateUnitUri() {
-        //1. get the highest unit id (i.e. the last inserted unit)
-        UnitDAO unitDAO = new UnitDAO();
-        int lastUnitId = unitDAO.getLastId();
+        //1. get the next unit id, the sequence starts after the last
+        //inserted unit
+        long newUnitId = UriSequenceAllocator.getInstance().next(SEQUENCE_UNIT, () -> new UnitDAO().getLastId());
 
         //2. generates unit URI
-        int newUnitId = lastUnitId + 1;
-        String unitId = Integer.toString(newUnitId);
+        String unitId = Long.toString(newUnitId);
 
         while (unitId.length() < 3) {
             unitId = "0" + unitId;
@@ -310,14 +314,13 @@ public class UriGenerator {
      * @return The new radiometric target URI
      */
     private static String generateRadiometricTargetUri() {
-        //1. Get the highest radiometric target id (i.e. the last inserted
-        //radiometric target)
-        RadiometricTargetDAO radiometricTargetDAO = new RadiometricTargetDAO();
-        int lastID = radiometricTargetDAO.getLastId();
+        //1. Get the next radiometric target id, the sequence starts after the
+        //last inserted radiometric target
+        long newRadiometricTargetID = UriSequenceAllocator.getInstance().next(SEQUENCE_RADIOMETRIC_TARGET, 
+                () -> new RadiometricTargetDAO().getLastId());
         
         //2. Generate radiometric target URI
-        int newRadiometricTargetID = lastID + 1;
-        String radiometricTargetID = Integer.toString(newRadiometricTargetID);
+        String radiometricTargetID = Long.toString(newRadiometricTargetID);
         
         while (radiometricTargetID.length() < 3) {
             radiometricTargetID = "0" + radiometricTargetID;
@@ -0,0 +1,158 @@
+//******************************************************************************
+//                           UriSequenceAllocator.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import opensilex.service.PropertiesFileManager;
+import opensilex.service.dao.manager.MongoDAO;
+
+/**
+ * Allocates the auto incremented numbers of the generated URIs (e.g. the
+ * number of the scientific objects of a year).
+ * Each sequence is seeded once with the highest number already used in the
+ * triplestore. The numbers are then reserved in a MongoDB collection which
+ * keeps the high-water mark of each sequence, so that they are unique across
+ * the threads, the webservice instances and the restarts.
+ * The numbers of the low volume sequences (e.g. the variables) are reserved
+ * one by one, so that they don't have gaps. The numbers of the scientific
+ * objects are given from memory, in blocks: the unused numbers of a block are
+ * lost when the webservice stops.
+ * The collection name and the block size are read at startup in the MongoDB
+ * configuration file.
+ * @see mongodb_nosql_config.properties file
+ */
+public class UriSequenceAllocator {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(UriSequenceAllocator.class);
+
+    private static final String PROPERTY_FILENAME = "mongodb_nosql_config";
+
+    private static final String DEFAULT_COLLECTION = "uriSequences";
+    private static final int DEFAULT_BLOCK_SIZE = 100;
+    private static final int SINGLE_NUMBER_BLOCK_SIZE = 1;
+
+    private static final String DB_FIELD_HIGH_WATER_MARK = "highWaterMark";
+
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    private final MongoCollection<Document> collection;
+    private final int blockSize;
+
+    /**
+     * Safe thread initialization of the unique instance.
+     */
+    private static class UriSequenceAllocatorHolder {
+
+        final private static UriSequenceAllocator instance = new UriSequenceAllocator();
+    }
+
+    public static UriSequenceAllocator getInstance() {
+        return UriSequenceAllocatorHolder.instance;
+    }
+
+    private UriSequenceAllocator() {
+        collection = MongoDAO.getMongoClient()
+                .getDatabase(PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "db"))
+                .getCollection(PropertiesFileManager.getConfigFileProperty(PROPERTY_FILENAME, "uriSequences", DEFAULT_COLLECTION));
+        blockSize = PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILENAME, "uriSequenceBlockSize", DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Gets the next number of a sequence, reserved alone.
+     * @param sequenceName e.g. variable
+     * @param lastUsedNumber gives the highest number already used in the
+     * triplestore. Called once, when the sequence is first used.
+     * @return the number
+     */
+    public long next(String sequenceName, LongSupplier lastUsedNumber) {
+        return sequences.computeIfAbsent(sequenceName, (name) -> new Sequence(name, SINGLE_NUMBER_BLOCK_SIZE))
+                .next(lastUsedNumber);
+    }
+
+    /**
+     * Gets the next number of a high volume sequence, from a block of
+     * uriSequenceBlockSize numbers.
+     * @param sequenceName e.g. scientificObject/2019
+     * @param lastUsedNumber gives the highest number already used in the
+     * triplestore. Called once, when the sequence is first used.
+     * @return the number
+     */
+    public long nextInBlock(String sequenceName, LongSupplier lastUsedNumber) {
+        return sequences.computeIfAbsent(sequenceName, (name) -> new Sequence(name, blockSize))
+                .next(lastUsedNumber);
+    }
+
+    /**
+     * Sequence of numbers, with the block of numbers reserved for it.
+     */
+    private class Sequence {
+
+        private final String name;
+        // Number of numbers reserved at once
+        private final int blockSize;
+        private boolean seeded = false;
+        // Next number to give
+        private long next = 1;
+        // Last number of the reserved block
+        private long blockEnd = 0;
+
+        private Sequence(String name, int blockSize) {
+            this.name = name;
+            this.blockSize = blockSize;
+        }
+
+        private synchronized long next(LongSupplier lastUsedNumber) {
+            if (!seeded) {
+                seed(lastUsedNumber.getAsLong());
+                seeded = true;
+            }
+            if (next > blockEnd) {
+                reserve(blockSize);
+            }
+            return next++;
+        }
+
+        /**
+         * Raises the high-water mark of the sequence to the highest number
+         * used in the triplestore, if needed.
+         * @param lastUsedNumber
+         */
+        private void seed(long lastUsedNumber) {
+            collection.updateOne(
+                    Filters.eq(MongoDAO.DB_FIELD_ID, name),
+                    Updates.max(DB_FIELD_HIGH_WATER_MARK, lastUsedNumber),
+                    new UpdateOptions().upsert(true));
+        }
+
+        /**
+         * Reserves the next block of numbers by increasing the high-water
+         * mark of the sequence.
+         * @param size
+         */
+        private void reserve(int size) {
+            Document sequence = collection.findOneAndUpdate(
+                    Filters.eq(MongoDAO.DB_FIELD_ID, name),
+                    Updates.inc(DB_FIELD_HIGH_WATER_MARK, (long) size),
+                    new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+            blockEnd = ((Number) sequence.get(DB_FIELD_HIGH_WATER_MARK)).longValue();
+            next = blockEnd - size + 1;
+            LOGGER.debug("Numbers " + next + " to " + blockEnd + " reserved for the sequence " + name);
+        }
+    }
+}
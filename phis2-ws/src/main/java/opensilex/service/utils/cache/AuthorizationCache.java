@@ -0,0 +1,248 @@
+//******************************************************************************
+//                            AuthorizationCache.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils.cache;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import opensilex.service.PropertiesFileManager;
+import opensilex.service.configuration.GroupLevels;
+import opensilex.service.model.Group;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot of the groups, of the users memberships and of the experiments
+ * groups, used to check the experiments visibility without querying the
+ * database for each experiment.
+ * The memberships are kept as bit sets of groups, so that a check is a bit
+ * set intersection.
+ * The snapshot is invalidated when the groups, the users or the experiments
+ * are updated by the web service. As the other applications may update the
+ * database, it also expires after a time to live, read at startup in the
+ * service configuration file.
+ * @see opensilex.service.dao.GroupDAO#getAuthorizations()
+ */
+public final class AuthorizationCache {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(AuthorizationCache.class);
+
+    // In seconds
+    private static final int DEFAULT_TIME_TO_LIVE = 60;
+
+    private static final long TIME_TO_LIVE = PropertiesFileManager.getConfigFileIntProperty(
+            "service", "authorizationCacheTimeToLive", DEFAULT_TIME_TO_LIVE) * 1000L;
+
+    private static volatile Snapshot snapshot;
+
+    private static final AtomicLong CONTENT_VERSION = new AtomicLong();
+
+    private static final AtomicLong LOAD_COUNT = new AtomicLong();
+
+    private AuthorizationCache() {
+    }
+
+    /**
+     * Loads a snapshot from the database.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        Snapshot load() throws SQLException;
+    }
+
+    /**
+     * Gets the current snapshot, loaded if it has been invalidated or has
+     * expired.
+     * @param loader
+     * @return the snapshot
+     * @throws SQLException
+     */
+    public static Snapshot getSnapshot(Loader loader) throws SQLException {
+        Snapshot currentSnapshot = snapshot;
+        if (currentSnapshot != null && !currentSnapshot.isExpired()) {
+            return currentSnapshot;
+        }
+        synchronized (AuthorizationCache.class) {
+            currentSnapshot = snapshot;
+            if (currentSnapshot != null && !currentSnapshot.isExpired()) {
+                return currentSnapshot;
+            }
+            long contentVersion = CONTENT_VERSION.get();
+            Snapshot loadedSnapshot = loader.load();
+            LOAD_COUNT.incrementAndGet();
+            // Not kept if the content has been changed during the loading
+            if (CONTENT_VERSION.get() == contentVersion) {
+                snapshot = loadedSnapshot;
+            }
+            return loadedSnapshot;
+        }
+    }
+
+    /**
+     * Invalidates the snapshot, after an update of the groups, users or
+     * experiments.
+     */
+    public static void invalidate() {
+        CONTENT_VERSION.incrementAndGet();
+        snapshot = null;
+        LOGGER.debug("Authorizations invalidated");
+    }
+
+    /**
+     * @return the number of snapshots loaded
+     */
+    public static long getLoadCount() {
+        return LOAD_COUNT.get();
+    }
+
+    /**
+     * Groups and memberships at a given time.
+     */
+    public static class Snapshot {
+
+        private final long loadTime = System.currentTimeMillis();
+
+        // Groups, by their bit index
+        private final List<Group> groups = new ArrayList<>();
+        private final Map<String, Integer> groupsIndexes = new HashMap<>();
+        private final BitSet ownerGroups = new BitSet();
+
+        // Groups of the users, by email
+        private final Map<String, BitSet> usersGroups = new HashMap<>();
+        // Groups of the experiments, by URI
+        private final Map<String, BitSet> experimentsGroups = new HashMap<>();
+
+        /**
+         * Adds a group. The groups have to be added before the memberships.
+         * @param uri
+         * @param level
+         * @param name
+         */
+        public void addGroup(String uri, String level, String name) {
+            Group group = new Group(uri);
+            group.setLevel(level);
+            group.setName(name);
+            int index = groups.size();
+            groups.add(group);
+            groupsIndexes.put(uri, index);
+            if (GroupLevels.OWNER.toString().equals(level)) {
+                ownerGroups.set(index);
+            }
+        }
+
+        /**
+         * Adds a user to a group.
+         * @param email
+         * @param groupUri
+         */
+        public void addUserGroup(String email, String groupUri) {
+            add(usersGroups, email, groupUri);
+        }
+
+        /**
+         * Gives a group access to an experiment.
+         * @param experimentUri
+         * @param groupUri
+         */
+        public void addExperimentGroup(String experimentUri, String groupUri) {
+            add(experimentsGroups, experimentUri, groupUri);
+        }
+
+        private void add(Map<String, BitSet> groupsByKey, String key, String groupUri) {
+            Integer index = groupsIndexes.get(groupUri);
+            if (index != null) {
+                groupsByKey.computeIfAbsent(key, (newKey) -> new BitSet()).set(index);
+            }
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - loadTime > TIME_TO_LIVE;
+        }
+
+        /**
+         * Checks if a user can see an experiment.
+         * @param email
+         * @param experimentUri
+         * @return true if the experiment isn't in any group (public
+         * experiment) or if the user belongs to one of its groups
+         */
+        public boolean canSee(String email, String experimentUri) {
+            BitSet experimentGroups = experimentsGroups.get(experimentUri);
+            if (experimentGroups == null) {
+                return true;
+            }
+            BitSet userGroups = usersGroups.get(email);
+            return userGroups != null && userGroups.intersects(experimentGroups);
+        }
+
+        /**
+         * Checks if a user is in an owner group of an experiment.
+         * @param email
+         * @param experimentUri
+         * @return true if the user belongs to one of the experiment groups
+         * having the Owner level
+         */
+        public boolean isOwner(String email, String experimentUri) {
+            BitSet experimentGroups = experimentsGroups.get(experimentUri);
+            BitSet userGroups = usersGroups.get(email);
+            if (experimentGroups == null || userGroups == null) {
+                return false;
+            }
+            BitSet userOwnerGroups = (BitSet) userGroups.clone();
+            userOwnerGroups.and(ownerGroups);
+            return userOwnerGroups.intersects(experimentGroups);
+        }
+
+        /**
+         * @param email
+         * @return the groups of a user
+         */
+        public ArrayList<Group> getUserGroups(String email) {
+            return toGroups(usersGroups.get(email));
+        }
+
+        /**
+         * @param experimentUri
+         * @return the groups having access to an experiment
+         */
+        public ArrayList<Group> getExperimentGroups(String experimentUri) {
+            return toGroups(experimentsGroups.get(experimentUri));
+        }
+
+        /**
+         * @param groupsBits
+         * @return a copy of the groups, which can be modified by the caller
+         */
+        private ArrayList<Group> toGroups(BitSet groupsBits) {
+            if (groupsBits == null) {
+                return new ArrayList<>();
+            }
+            ArrayList<Group> groupsList = new ArrayList<>(groupsBits.cardinality());
+            groupsBits.stream().forEach((index) -> {
+                Group group = groups.get(index);
+                Group copy = new Group(group.getUri());
+                copy.setLevel(group.getLevel());
+                copy.setName(group.getName());
+                groupsList.add(copy);
+            });
+            return groupsList;
+        }
+
+        /**
+         * @return the number of groups
+         */
+        public int getGroupsCount() {
+            return groups.size();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+//******************************************************************************
+//                            ExpiringLruCache.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Size-bounded in-memory cache.
+ * When the cache is full, the least recently used entry is evicted. Each entry
+ * also expires after a time to live.
+ * The cache is thread safe.
+ * @param <K> the keys type
+ * @param <V> the values type
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long timeToLive;
+
+    /**
+     * Entries in access order: the first one is the least recently used.
+     */
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // Statistics
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expirationCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * @param name name of the cache, used for the logs and the metrics
+     * @param maxSize maximum number of entries
+     * @param timeToLive time to live of the entries in milliseconds
+     */
+    public ExpiringLruCache(String name, int maxSize, long timeToLive) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringLruCache.this.maxSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached value.
+     * @param key
+     * @return the value, null if it is not in the cache or if it has expired
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            if (entry.isExpired(System.currentTimeMillis())) {
+                entries.remove(key);
+                expirationCount.incrementAndGet();
+                missCount.incrementAndGet();
+                return null;
+            }
+            hitCount.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Gets the cached values of the given keys.
+     * @param keys
+     * @return the values found in the cache, by key
+     */
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> values = new HashMap<>();
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            for (K key : keys) {
+                Entry<V> entry = entries.get(key);
+                if (entry == null) {
+                    missCount.incrementAndGet();
+                } else if (entry.isExpired(now)) {
+                    entries.remove(key);
+                    expirationCount.incrementAndGet();
+                    missCount.incrementAndGet();
+                } else {
+                    hitCount.incrementAndGet();
+                    values.put(key, entry.value);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Adds or replaces a value in the cache.
+     * @param key
+     * @param value
+     */
+    public void put(K key, V value) {
+        Entry<V> entry = new Entry<>(value, System.currentTimeMillis() + timeToLive);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Adds or replaces values in the cache.
+     * @param values
+     */
+    public void putAll(Map<K, V> values) {
+        long expirationTime = System.currentTimeMillis() + timeToLive;
+        synchronized (entries) {
+            values.forEach((key, value) -> {
+                entries.put(key, new Entry<>(value, expirationTime));
+            });
+        }
+    }
+
+    /**
+     * Removes a value from the cache.
+     * @param key
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            if (entries.remove(key) != null) {
+                invalidationCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes the values whose key matches the given predicate.
+     * @param keyPredicate
+     */
+    public void invalidateIf(Predicate<K> keyPredicate) {
+        synchronized (entries) {
+            Iterator<K> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keyPredicate.test(keys.next())) {
+                    keys.remove();
+                    invalidationCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all the values from the cache.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidationCount.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getExpirationCount() {
+        return expirationCount.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Cached value with its expiration time.
+     * @param <V>
+     */
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expirationTime;
+
+        private Entry(V value, long expirationTime) {
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+
+        private boolean isExpired(long now) {
+            return expirationTime <= now;
+        }
+    }
+}
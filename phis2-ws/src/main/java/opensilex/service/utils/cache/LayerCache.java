@@ -0,0 +1,124 @@
+//******************************************************************************
+//                                LayerCache.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils.cache;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the generated GeoJSON layer files which are up to date, so
+ * that a layer is only generated again when its content may have changed.
+ * A layer is identified by its object URI and the depth used to generate it.
+ * It is invalidated when its object or one of its features is changed
+ * (triplestore update mentioning their URI or geometry update).
+ * Each invalidation increases the content version: a layer generated while
+ * its content was changed is not kept.
+ * @see opensilex.service.dao.LayerDAO
+ */
+public final class LayerCache {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(LayerCache.class);
+
+    private static final Map<String, Layer> LAYERS = new ConcurrentHashMap<>();
+
+    private static final AtomicLong CONTENT_VERSION = new AtomicLong();
+
+    private LayerCache() {
+    }
+
+    /**
+     * @return the current content version, to get before generating a layer
+     */
+    public static long getContentVersion() {
+        return CONTENT_VERSION.get();
+    }
+
+    /**
+     * Checks if the file of a layer is up to date.
+     * @param objectUri
+     * @param depth true if the layer contains all the descendants
+     * @param filePath
+     * @return true if the file doesn't have to be generated again
+     */
+    public static boolean isUpToDate(String objectUri, boolean depth, String filePath) {
+        Layer layer = LAYERS.get(objectUri);
+        return layer != null && layer.depth == depth && new File(filePath).exists();
+    }
+
+    /**
+     * Registers a generated layer file.
+     * @param objectUri
+     * @param depth
+     * @param featuresUris the URIs of the objects in the layer
+     * @param contentVersion the content version got before the layer
+     * generation. If the content has changed since, the layer isn't kept.
+     */
+    public static void put(String objectUri, boolean depth, Collection<String> featuresUris, long contentVersion) {
+        Layer layer = new Layer(depth, featuresUris);
+        LAYERS.put(objectUri, layer);
+        // An invalidation may have been missed during the registration
+        if (CONTENT_VERSION.get() != contentVersion) {
+            LAYERS.remove(objectUri, layer);
+        }
+    }
+
+    /**
+     * Invalidates the layers of the given objects or containing them.
+     * @param uris
+     */
+    public static void invalidate(Collection<String> uris) {
+        if (uris.isEmpty()) {
+            return;
+        }
+        CONTENT_VERSION.incrementAndGet();
+        LAYERS.entrySet().removeIf((layer) -> {
+            boolean changed = uris.contains(layer.getKey()) || uris.stream().anyMatch(layer.getValue().featuresUris::contains);
+            if (changed) {
+                LOGGER.debug("Layer of " + layer.getKey() + " invalidated");
+            }
+            return changed;
+        });
+    }
+
+    /**
+     * Invalidates all the layers.
+     */
+    public static void invalidateAll() {
+        CONTENT_VERSION.incrementAndGet();
+        LAYERS.clear();
+    }
+
+    /**
+     * @return the number of up to date layers
+     */
+    public static int size() {
+        return LAYERS.size();
+    }
+
+    /**
+     * Generated layer.
+     */
+    private static class Layer {
+
+        private final boolean depth;
+        private final Set<String> featuresUris;
+
+        private Layer(boolean depth, Collection<String> featuresUris) {
+            this.depth = depth;
+            this.featuresUris = Collections.unmodifiableSet(new HashSet<>(featuresUris));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+//******************************************************************************
+//                              BackendMetrics.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Durations of the operations on the databases.
+ * Each operation is recorded in the histogram of its backend, operation and
+ * result, and added to the time spent in its backend by the current request,
+ * so that the time of a request can be split between the databases. The 
+ * asynchronous queries of a request add their time to the request they are
+ * run for.
+ * @see opensilex.service.resource.request.filter.MetricsFilter
+ */
+public final class BackendMetrics {
+
+    /**
+     * Databases used by the web service.
+     */
+    public enum Backend {
+        RDF4J("rdf4j"),
+        MONGODB("mongodb"),
+        POSTGRESQL("postgresql");
+
+        private final String label;
+
+        private Backend(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public static final String RESULT_SUCCESS = "success";
+    public static final String RESULT_ERROR = "error";
+
+    private static final Metrics.Family OPERATIONS_DURATIONS = Metrics.durations(
+            "phis_backend_operation_duration_seconds",
+            "Duration of the database operations",
+            "backend", "operation", "result");
+
+    /**
+     * Time spent in the backends by the request of the current thread. Null
+     * out of a request.
+     */
+    private static final ThreadLocal<RequestDurations> REQUEST_DURATIONS = new ThreadLocal<>();
+
+    private BackendMetrics() {
+    }
+
+    /**
+     * Records a database operation.
+     * @param backend
+     * @param operation the kind of operation, e.g. select or find
+     * @param nanoseconds
+     * @param success false if the operation failed
+     */
+    public static void record(Backend backend, String operation, long nanoseconds, boolean success) {
+        OPERATIONS_DURATIONS.recordDuration(nanoseconds, backend.toString(), operation, success ? RESULT_SUCCESS : RESULT_ERROR);
+        RequestDurations requestDurations = REQUEST_DURATIONS.get();
+        if (requestDurations != null) {
+            requestDurations.durations.addAndGet(backend.ordinal(), nanoseconds);
+        }
+    }
+
+    /**
+     * Starts counting the time spent in the backends by the request of the
+     * current thread.
+     * @return the time spent by the request, to be kept with the request
+     */
+    public static RequestDurations startRequest() {
+        RequestDurations requestDurations = new RequestDurations();
+        REQUEST_DURATIONS.set(requestDurations);
+        return requestDurations;
+    }
+
+    /**
+     * Stops counting the time spent in the backends by the current thread, 
+     * at the end of the request or when it is suspended.
+     */
+    public static void endRequest() {
+        REQUEST_DURATIONS.remove();
+    }
+
+    /**
+     * @return the time spent by the request of the current thread, null out
+     * of a request
+     */
+    public static RequestDurations getRequestDurations() {
+        return REQUEST_DURATIONS.get();
+    }
+
+    /**
+     * Runs a task of a request in the current thread, e.g. an asynchronous
+     * query, adding its backends time to the time of the request.
+     * @param requestDurations the time spent by the request, null if the task
+     * isn't run for a request
+     * @param task
+     */
+    public static void runInRequest(RequestDurations requestDurations, Runnable task) {
+        RequestDurations previousDurations = REQUEST_DURATIONS.get();
+        REQUEST_DURATIONS.set(requestDurations);
+        try {
+            task.run();
+        } finally {
+            if (previousDurations == null) {
+                REQUEST_DURATIONS.remove();
+            } else {
+                REQUEST_DURATIONS.set(previousDurations);
+            }
+        }
+    }
+
+    /**
+     * Time spent in each backend by a request. Its operations can be run by
+     * several threads at the same time.
+     */
+    public static final class RequestDurations {
+
+        // In nanoseconds, by backend ordinal
+        private final AtomicLongArray durations = new AtomicLongArray(Backend.values().length);
+
+        private RequestDurations() {
+        }
+
+        /**
+         * @return the time spent in each backend, in nanoseconds
+         */
+        public Map<Backend, Long> get() {
+            Map<Backend, Long> backendsDurations = new EnumMap<>(Backend.class);
+            for (Backend backend : Backend.values()) {
+                backendsDurations.put(backend, durations.get(backend.ordinal()));
+            }
+            return backendsDurations;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+//******************************************************************************
+//                                Histogram.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of positive values with a bounded relative error, in the manner
+ * of HdrHistogram: the values lower than 32 have their own bucket, the others
+ * are counted in 16 linear sub-buckets per power of 2, so that a percentile is
+ * known within about 6%.
+ * The recording is lock free, so that it can be done by every request.
+ */
+public class Histogram {
+
+    private static final int LINEAR_BUCKETS = 32;
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BUCKETS_BITS = 4;
+    // Values are clamped to 2^37 - 1 (38 hours in microseconds, 128 GB in bytes)
+    private static final int MAX_SHIFT = 32;
+    private static final long MAX_VALUE = (1L << (MAX_SHIFT + SUB_BUCKETS_BITS + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR_BUCKETS + MAX_SHIFT * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Records a value.
+     * @param value negative values are recorded as 0
+     */
+    public void record(long value) {
+        long clampedValue = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.incrementAndGet(getIndex(clampedValue));
+        count.increment();
+        sum.add(clampedValue);
+    }
+
+    private static int getIndex(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        // Shift keeping the 5 most significant bits of the value
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKETS_BITS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @param index
+     * @return the highest value counted in the bucket
+     */
+    private static long getHighestValue(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Gets the values at several percentiles, computed on the same counts.
+     * @param percentiles between 0 and 100, in ascending order
+     * @return the highest value of the bucket of each percentile, 0 if no
+     * value has been recorded
+     */
+    public long[] getValuesAtPercentiles(double... percentiles) {
+        long[] countsSnapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < countsSnapshot.length; i++) {
+            countsSnapshot[i] = counts.get(i);
+            total += countsSnapshot[i];
+        }
+
+        long[] values = new long[percentiles.length];
+        if (total == 0) {
+            return values;
+        }
+        int index = 0;
+        long cumulatedCount = countsSnapshot[0];
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100 * total));
+            while (cumulatedCount < rank && index < countsSnapshot.length - 1) {
+                index++;
+                cumulatedCount += countsSnapshot[index];
+            }
+            values[p] = getHighestValue(index);
+        }
+        return values;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+}
@@ -0,0 +1,233 @@
+//******************************************************************************
+//                                 Metrics.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the metrics of the web service, exported in the Prometheus text
+ * format.
+ * A metric family has a name, a help text and label names. Its samples are
+ * either histograms, exported as summaries with their 0.5, 0.9, 0.99 and
+ * 0.999 quantiles, or gauges and counters read when the metrics are scraped.
+ * @see https://prometheus.io/docs/instrumenting/exposition_formats/
+ */
+public final class Metrics {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(Metrics.class);
+
+    // Durations are recorded in microseconds and exported in seconds
+    private static final double MICROSECONDS_PER_SECOND = 1000000;
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final Map<String, Family> FAMILIES = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    private enum Type {
+        SUMMARY("summary"),
+        GAUGE("gauge"),
+        COUNTER("counter");
+
+        private final String label;
+
+        private Type(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Gets or creates a family of durations histograms.
+     * @param name the name of the family, ending with _seconds
+     * @param help
+     * @param labelNames
+     * @return the family
+     */
+    public static Family durations(String name, String help, String... labelNames) {
+        return getFamily(name, help, Type.SUMMARY, MICROSECONDS_PER_SECOND, labelNames);
+    }
+
+    /**
+     * Gets or creates a family of sizes histograms.
+     * @param name the name of the family, ending with _bytes
+     * @param help
+     * @param labelNames
+     * @return the family
+     */
+    public static Family sizes(String name, String help, String... labelNames) {
+        return getFamily(name, help, Type.SUMMARY, 1, labelNames);
+    }
+
+    /**
+     * Gets or creates a family of gauges.
+     * @param name
+     * @param help
+     * @param labelNames
+     * @return the family
+     */
+    public static Family gauges(String name, String help, String... labelNames) {
+        return getFamily(name, help, Type.GAUGE, 1, labelNames);
+    }
+
+    /**
+     * Gets or creates a family of counters.
+     * @param name the name of the family, ending with _total
+     * @param help
+     * @param labelNames
+     * @return the family
+     */
+    public static Family counters(String name, String help, String... labelNames) {
+        return getFamily(name, help, Type.COUNTER, 1, labelNames);
+    }
+
+    private static Family getFamily(String name, String help, Type type, double scale, String... labelNames) {
+        return FAMILIES.computeIfAbsent(name, (newName) -> new Family(newName, help, type, scale, labelNames));
+    }
+
+    /**
+     * @return all the metrics in the Prometheus text format
+     */
+    public static String scrape() {
+        StringBuilder text = new StringBuilder();
+        FAMILIES.values().forEach((family) -> family.write(text));
+        return text.toString();
+    }
+
+    /**
+     * Metrics with the same name and different label values.
+     */
+    public static class Family {
+
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final double scale;
+        private final String[] labelNames;
+
+        private final Map<List<String>, Histogram> histograms = new ConcurrentHashMap<>();
+        private final Map<List<String>, DoubleSupplier> suppliers = new ConcurrentHashMap<>();
+
+        private Family(String name, String help, Type type, double scale, String[] labelNames) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.scale = scale;
+            this.labelNames = labelNames;
+        }
+
+        /**
+         * Gets the histogram of the label values, created on first use.
+         * @param labelValues in the order of the label names
+         * @return the histogram
+         */
+        public Histogram labels(String... labelValues) {
+            return histograms.computeIfAbsent(Arrays.asList(labelValues), (newLabelValues) -> new Histogram());
+        }
+
+        /**
+         * Records a duration in the histogram of the label values.
+         * @param nanoseconds
+         * @param labelValues
+         */
+        public void recordDuration(long nanoseconds, String... labelValues) {
+            labels(labelValues).record(nanoseconds / 1000);
+        }
+
+        /**
+         * Registers the supplier of a gauge or a counter. The supplier is
+         * called when the metrics are scraped.
+         * @param supplier
+         * @param labelValues in the order of the label names
+         */
+        public void register(DoubleSupplier supplier, String... labelValues) {
+            suppliers.put(Arrays.asList(labelValues), supplier);
+        }
+
+        private void write(StringBuilder text) {
+            text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            text.append("# TYPE ").append(name).append(' ').append(type.label).append('\n');
+            if (type == Type.SUMMARY) {
+                double[] percentiles = new double[QUANTILES.length];
+                for (int i = 0; i < QUANTILES.length; i++) {
+                    percentiles[i] = QUANTILES[i] * 100;
+                }
+                histograms.forEach((labelValues, histogram) -> {
+                    long[] values = histogram.getValuesAtPercentiles(percentiles);
+                    for (int i = 0; i < QUANTILES.length; i++) {
+                        writeSample(text, name, labelValues, "quantile", String.valueOf(QUANTILES[i]), values[i] / scale);
+                    }
+                    writeSample(text, name + "_sum", labelValues, null, null, histogram.getSum() / scale);
+                    writeSample(text, name + "_count", labelValues, null, null, histogram.getCount());
+                });
+            } else {
+                suppliers.forEach((labelValues, supplier) -> {
+                    // A failing gauge, e.g. a data source which can't be
+                    // initialized, mustn't prevent the other metrics export
+                    try {
+                        writeSample(text, name, labelValues, null, null, supplier.getAsDouble());
+                    } catch (RuntimeException ex) {
+                        LOGGER.debug("Metric " + name + " not available: " + ex.getMessage());
+                    }
+                });
+            }
+        }
+
+        private void writeSample(StringBuilder text, String sampleName, List<String> labelValues,
+                String extraLabelName, String extraLabelValue, double value) {
+            text.append(sampleName);
+            if (labelNames.length > 0 || extraLabelName != null) {
+                text.append('{');
+                for (int i = 0; i < labelNames.length; i++) {
+                    if (i > 0) {
+                        text.append(',');
+                    }
+                    appendLabel(text, labelNames[i], labelValues.get(i));
+                }
+                if (extraLabelName != null) {
+                    if (labelNames.length > 0) {
+                        text.append(',');
+                    }
+                    appendLabel(text, extraLabelName, extraLabelValue);
+                }
+                text.append('}');
+            }
+            text.append(' ');
+            if (value == Math.rint(value) && !Double.isInfinite(value)) {
+                text.append((long) value);
+            } else {
+                text.append(value);
+            }
+            text.append('\n');
+        }
+
+        private static void appendLabel(StringBuilder text, String labelName, String labelValue) {
+            text.append(labelName).append("=\"");
+            String value = labelValue == null ? "" : labelValue;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' || c == '"') {
+                    text.append('\\').append(c);
+                } else if (c == '\n') {
+                    text.append("\\n");
+                } else {
+                    text.append(c);
+                }
+            }
+            text.append('"');
+        }
+    }
+}
@@ -0,0 +1,259 @@
+//******************************************************************************
+//                            QueryFingerprints.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils.metrics;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+/**
+ * Fingerprints of the queries: the queries without their values, so that the
+ * queries differing only by their parameters have the same fingerprint.
+ * @see QueryProfiler
+ */
+public final class QueryFingerprints {
+
+    // Replacement of the literals and of the IRIs
+    private static final String VALUE = "?";
+    private static final String IRI = "<?>";
+
+    // Lists of values, e.g. IN (?, ?, ?) or VALUES ?uri { <?> <?> }
+    private static final Pattern VALUES_LIST = Pattern.compile("(<\\?>|\\?(?![\\w]))(?:\\s*,\\s*\\1|\\s+\\1)+");
+    // Lists of tuples, e.g. VALUES (?a ?b) { (<?> <?>) (<?> <?>) }
+    private static final Pattern TUPLES_LIST = Pattern.compile("(\\([^()]*\\))(?:\\s*,?\\s*\\1)+");
+    private static final String LIST = "$1 ...";
+
+    // Fingerprints are truncated, e.g. for the queries with very long filters
+    private static final int MAX_LENGTH = 2000;
+
+    /**
+     * Fields of the MongoDB commands which don't define the query.
+     */
+    private static final Set<String> MONGO_IGNORED_FIELDS = new HashSet<>(Arrays.asList(
+            "$db", "lsid", "$clusterTime", "txnNumber", "autocommit", "startTransaction",
+            "$readPreference", "readConcern", "writeConcern", "ordered", "cursor",
+            "batchSize", "allowDiskUse", "maxTimeMS"));
+
+    /**
+     * Fields of the MongoDB commands holding the inserted documents.
+     */
+    private static final String MONGO_DOCUMENTS_FIELD = "documents";
+
+    /**
+     * Field of the getMore command holding its collection.
+     */
+    private static final String MONGO_COLLECTION_FIELD = "collection";
+
+    private QueryFingerprints() {
+    }
+
+    /**
+     * Gets the fingerprint of a SPARQL or SQL query: the string literals,
+     * the numbers and the IRIs are replaced by placeholders, the lists of
+     * placeholders are shortened and the whitespaces are collapsed.
+     * @param query
+     * @example SELECT ?label WHERE { <http://www.opensilex.org/demo/s1> rdfs:label ?label FILTER (?label = "a") }
+     * gives SELECT ?label WHERE { <?> rdfs:label ?label FILTER (?label = ?) }
+     * @return the fingerprint
+     */
+    public static String ofText(String query) {
+        StringBuilder fingerprint = new StringBuilder(Math.min(query.length(), MAX_LENGTH));
+        int length = query.length();
+        int i = 0;
+        while (i < length && fingerprint.length() < MAX_LENGTH) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(query.charAt(i))) {
+                    i++;
+                }
+                if (fingerprint.length() > 0) {
+                    fingerprint.append(' ');
+                }
+            } else if (c == '\'' || c == '"') {
+                i = skipStringLiteral(query, i);
+                // Language tag of a SPARQL literal
+                if (i < length && query.charAt(i) == '@') {
+                    i++;
+                    while (i < length && (Character.isLetterOrDigit(query.charAt(i)) || query.charAt(i) == '-')) {
+                        i++;
+                    }
+                }
+                fingerprint.append(VALUE);
+            } else if (c == '<' && getIriEnd(query, i) > 0) {
+                i = getIriEnd(query, i);
+                fingerprint.append(IRI);
+            } else if (Character.isDigit(c) && !isIdentifierEnd(fingerprint)) {
+                while (i < length && (Character.isDigit(query.charAt(i)) || query.charAt(i) == '.'
+                        || query.charAt(i) == 'e' || query.charAt(i) == 'E')) {
+                    i++;
+                }
+                fingerprint.append(VALUE);
+            } else {
+                fingerprint.append(c);
+                i++;
+            }
+        }
+        String normalizedQuery = VALUES_LIST.matcher(fingerprint.toString().trim()).replaceAll(LIST);
+        return TUPLES_LIST.matcher(normalizedQuery).replaceAll(LIST);
+    }
+
+    /**
+     * @param query
+     * @param start index of the opening quote
+     * @return the index following the closing quote
+     */
+    private static int skipStringLiteral(String query, int start) {
+        char quote = query.charAt(start);
+        int length = query.length();
+        // SPARQL long literal, e.g. """a "quoted" text"""
+        boolean longLiteral = start + 2 < length && query.charAt(start + 1) == quote && query.charAt(start + 2) == quote;
+        int i = start + (longLiteral ? 3 : 1);
+        while (i < length) {
+            char c = query.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (longLiteral) {
+                    if (i + 2 < length && query.charAt(i + 1) == quote && query.charAt(i + 2) == quote) {
+                        return i + 3;
+                    }
+                    i++;
+                } else if (i + 1 < length && query.charAt(i + 1) == quote) {
+                    // SQL escaped quote
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @param query
+     * @param start index of the <
+     * @return the index following the > closing the IRI, 0 if the < is an
+     * operator
+     */
+    private static int getIriEnd(String query, int start) {
+        for (int i = start + 1; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '>') {
+                return i > start + 1 ? i + 1 : 0;
+            } else if (Character.isWhitespace(c) || c == '<' || c == '"' || c == '{' || c == '}') {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param fingerprint
+     * @return true if the fingerprint ends by a variable or an identifier, e.g.
+     * ?uri1 or $1, whose digits are kept
+     */
+    private static boolean isIdentifierEnd(StringBuilder fingerprint) {
+        if (fingerprint.length() == 0) {
+            return false;
+        }
+        char c = fingerprint.charAt(fingerprint.length() - 1);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '?' || c == '$' || c == ':';
+    }
+
+    /**
+     * Gets the fingerprint of a MongoDB command: its name, its collection and
+     * the shape of its other fields, where the values are replaced by
+     * placeholders and the repeated array elements are shortened.
+     * @param commandName
+     * @param command
+     * @example {"find": "images", "filter": {"concern": {"$elemMatch": {"uri": "http://..."}}}}
+     * gives find images {filter: {concern: {$elemMatch: {uri: ?}}}}
+     * @return the fingerprint
+     */
+    public static String ofMongoCommand(String commandName, BsonDocument command) {
+        StringBuilder fingerprint = new StringBuilder(commandName);
+        boolean first = true;
+        boolean firstField = true;
+        for (Map.Entry<String, BsonValue> field : command.entrySet()) {
+            if (first) {
+                // The first field is the command, with its collection
+                first = false;
+                if (field.getValue().isString()) {
+                    fingerprint.append(' ').append(field.getValue().asString().getValue());
+                }
+            } else if (MONGO_COLLECTION_FIELD.equals(field.getKey()) && field.getValue().isString()) {
+                fingerprint.append(' ').append(field.getValue().asString().getValue());
+            } else if (!MONGO_IGNORED_FIELDS.contains(field.getKey())) {
+                fingerprint.append(firstField ? " {" : ", ").append(field.getKey()).append(": ");
+                firstField = false;
+                if (MONGO_DOCUMENTS_FIELD.equals(field.getKey())) {
+                    fingerprint.append(VALUE);
+                } else {
+                    appendShape(fingerprint, field.getValue());
+                }
+            }
+            if (fingerprint.length() >= MAX_LENGTH) {
+                return fingerprint.substring(0, MAX_LENGTH);
+            }
+        }
+        if (!firstField) {
+            fingerprint.append('}');
+        }
+        return fingerprint.toString();
+    }
+
+    private static void appendShape(StringBuilder fingerprint, BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument document = value.asDocument();
+            fingerprint.append('{');
+            boolean first = true;
+            for (Map.Entry<String, BsonValue> field : document.entrySet()) {
+                if (!first) {
+                    fingerprint.append(", ");
+                }
+                first = false;
+                fingerprint.append(field.getKey()).append(": ");
+                appendShape(fingerprint, field.getValue());
+            }
+            fingerprint.append('}');
+        } else if (value.isArray()) {
+            BsonArray array = value.asArray();
+            fingerprint.append('[');
+            String previousShape = null;
+            boolean repeated = false;
+            for (BsonValue element : array) {
+                StringBuilder elementShape = new StringBuilder();
+                appendShape(elementShape, element);
+                String shape = elementShape.toString();
+                if (shape.equals(previousShape)) {
+                    if (!repeated) {
+                        fingerprint.append(" ...");
+                        repeated = true;
+                    }
+                } else {
+                    if (previousShape != null) {
+                        fingerprint.append(", ");
+                    }
+                    fingerprint.append(shape);
+                    previousShape = shape;
+                    repeated = false;
+                }
+            }
+            fingerprint.append(']');
+        } else {
+            fingerprint.append(VALUE);
+        }
+    }
+}
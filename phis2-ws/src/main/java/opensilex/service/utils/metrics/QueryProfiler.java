@@ -0,0 +1,192 @@
+//******************************************************************************
+//                              QueryProfiler.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import opensilex.service.PropertiesFileManager;
+import opensilex.service.utils.metrics.BackendMetrics.Backend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Profiles of the queries sent to the databases, by fingerprint: number of
+ * executions, total, 99th percentile and maximum durations, and the last
+ * executed query.
+ * The number of profiles is bounded: when it is reached, the profile with
+ * the lowest total duration is removed to make room for a new fingerprint.
+ * The queries lasting more than a threshold are logged with their
+ * parameters.
+ * The threshold and the maximum number of profiles are read at startup in
+ * the service configuration file.
+ * @see QueryFingerprints
+ */
+public final class QueryProfiler {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(QueryProfiler.class);
+
+    // In milliseconds
+    private static final int DEFAULT_SLOW_QUERY_THRESHOLD = 1000;
+    private static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final long SLOW_QUERY_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(
+            PropertiesFileManager.getConfigFileIntProperty("service", "slowQueryThreshold", DEFAULT_SLOW_QUERY_THRESHOLD));
+
+    private static final int MAX_SIZE = PropertiesFileManager.getConfigFileIntProperty(
+            "service", "queryProfilesMaxSize", DEFAULT_MAX_SIZE);
+
+    // Kept and logged queries are truncated, e.g. for the queries with
+    // thousands of values
+    private static final int QUERY_MAX_LENGTH = 10000;
+
+    private static final Map<String, QueryProfile> PROFILES = new ConcurrentHashMap<>();
+
+    private QueryProfiler() {
+    }
+
+    /**
+     * Records the execution of a SPARQL or SQL query.
+     * @param backend
+     * @param query the executed query, with its parameters
+     * @param nanoseconds
+     */
+    public static void record(Backend backend, String query, long nanoseconds) {
+        record(backend, QueryFingerprints.ofText(query), query, nanoseconds);
+    }
+
+    /**
+     * Records the execution of a query.
+     * @param backend
+     * @param fingerprint
+     * @param query the executed query, with its parameters
+     * @param nanoseconds
+     */
+    public static void record(Backend backend, String fingerprint, String query, long nanoseconds) {
+        String key = backend.toString() + " " + fingerprint;
+        QueryProfile profile = PROFILES.get(key);
+        if (profile == null) {
+            profile = addProfile(key, backend, fingerprint);
+        }
+        String truncatedQuery = query.length() > QUERY_MAX_LENGTH ? query.substring(0, QUERY_MAX_LENGTH) + "..." : query;
+        profile.record(nanoseconds, truncatedQuery);
+
+        if (nanoseconds > SLOW_QUERY_THRESHOLD) {
+            LOGGER.warn("Slow " + backend + " query (" + TimeUnit.NANOSECONDS.toMillis(nanoseconds) + " ms): " + truncatedQuery);
+        }
+    }
+
+    private static synchronized QueryProfile addProfile(String key, Backend backend, String fingerprint) {
+        QueryProfile profile = PROFILES.get(key);
+        if (profile != null) {
+            return profile;
+        }
+        if (PROFILES.size() >= MAX_SIZE) {
+            PROFILES.entrySet().stream()
+                    .min(Comparator.comparingLong((entry) -> entry.getValue().getTotalTime()))
+                    .ifPresent((entry) -> PROFILES.remove(entry.getKey()));
+        }
+        profile = new QueryProfile(backend, fingerprint);
+        PROFILES.put(key, profile);
+        return profile;
+    }
+
+    /**
+     * @param limit
+     * @return the profiles with the highest total durations, in descending
+     * order
+     */
+    public static List<QueryProfile> getTopByTotalTime(int limit) {
+        return PROFILES.values().stream()
+                .sorted(Comparator.comparingLong(QueryProfile::getTotalTime).reversed())
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Removes all the profiles.
+     */
+    public static void reset() {
+        PROFILES.clear();
+    }
+
+    /**
+     * Executions of the queries having the same fingerprint.
+     */
+    public static class QueryProfile {
+
+        private final Backend backend;
+        private final String fingerprint;
+        private final LongAdder count = new LongAdder();
+        // In nanoseconds
+        private final LongAdder totalTime = new LongAdder();
+        private final AtomicLong maxTime = new AtomicLong();
+        // In microseconds
+        private final Histogram durations = new Histogram();
+        private volatile String lastQuery;
+
+        private QueryProfile(Backend backend, String fingerprint) {
+            this.backend = backend;
+            this.fingerprint = fingerprint;
+        }
+
+        private void record(long nanoseconds, String query) {
+            count.increment();
+            totalTime.add(nanoseconds);
+            maxTime.accumulateAndGet(nanoseconds, Math::max);
+            durations.record(TimeUnit.NANOSECONDS.toMicros(nanoseconds));
+            lastQuery = query;
+        }
+
+        public Backend getBackend() {
+            return backend;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return the total duration, in nanoseconds
+         */
+        public long getTotalTime() {
+            return totalTime.sum();
+        }
+
+        /**
+         * @return the maximum duration, in nanoseconds
+         */
+        public long getMaxTime() {
+            return maxTime.get();
+        }
+
+        /**
+         * @return the 99th percentile of the durations, in nanoseconds
+         */
+        public long getPercentile99Time() {
+            return TimeUnit.MICROSECONDS.toNanos(durations.getValuesAtPercentiles(99)[0]);
+        }
+
+        /**
+         * @return the last executed query with this fingerprint
+         */
+        public String getLastQuery() {
+            return lastQuery;
+        }
+    }
+}
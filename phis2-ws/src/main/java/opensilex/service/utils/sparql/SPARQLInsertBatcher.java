@@ -0,0 +1,133 @@
+//******************************************************************************
+//                            SPARQLInsertBatcher.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils.sparql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.jena.arq.querybuilder.UpdateBuilder;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.sparql.modify.request.QuadDataAcc;
+import org.apache.jena.sparql.modify.request.UpdateDataInsert;
+import org.apache.jena.update.Update;
+import org.apache.jena.update.UpdateRequest;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import opensilex.service.PropertiesFileManager;
+
+/**
+ * Sends the statements of many insert requests in a few INSERT DATA requests.
+ * The INSERT DATA statements of the given requests are accumulated, by graph,
+ * and sent when their number reaches the batch size. The other operations
+ * (e.g. DELETE ... WHERE) are sent alone, after the statements added before
+ * them, so that the order of the operations is kept.
+ * The batcher doesn't manage the transaction: to be atomic, the batches have
+ * to be sent between the begin and the commit of the connection, and the
+ * remaining statements flushed before the commit.
+ */
+public class SPARQLInsertBatcher {
+
+    final static Logger LOGGER = LoggerFactory.getLogger(SPARQLInsertBatcher.class);
+
+    private static final String PROPERTY_FILE_NAME = "service";
+    private static final int DEFAULT_BATCH_SIZE = 5000;
+
+    private final RepositoryConnection connection;
+
+    /**
+     * Maximum number of statements of an INSERT DATA request.
+     */
+    private final int batchSize;
+
+    /**
+     * Statements not sent yet, by graph.
+     */
+    private final Map<Node, List<Quad>> pendingQuads = new LinkedHashMap<>();
+    private int pendingQuadsCount = 0;
+
+    /**
+     * Batcher with the batch size of the configuration.
+     * @param connection
+     */
+    public SPARQLInsertBatcher(RepositoryConnection connection) {
+        this(connection, PropertiesFileManager.getConfigFileIntProperty(PROPERTY_FILE_NAME, "sparqlInsertBatchSize", DEFAULT_BATCH_SIZE));
+    }
+
+    /**
+     * @param connection
+     * @param batchSize maximum number of statements of an INSERT DATA request
+     */
+    public SPARQLInsertBatcher(RepositoryConnection connection, int batchSize) {
+        this.connection = connection;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    /**
+     * Adds the operations of an update builder.
+     * @param updateBuilder
+     */
+    public void add(UpdateBuilder updateBuilder) {
+        add(updateBuilder.buildRequest());
+    }
+
+    /**
+     * Adds the operations of an update request.
+     * @param request
+     */
+    public void add(UpdateRequest request) {
+        for (Update operation : request.getOperations()) {
+            if (operation instanceof UpdateDataInsert) {
+                for (Quad quad : ((UpdateDataInsert) operation).getQuads()) {
+                    add(quad);
+                }
+            } else {
+                flush();
+                execute(new UpdateRequest(operation));
+            }
+        }
+    }
+
+    /**
+     * Adds a statement to insert.
+     * @param quad
+     */
+    public void add(Quad quad) {
+        pendingQuads.computeIfAbsent(quad.getGraph(), (graph) -> new ArrayList<>()).add(quad);
+        pendingQuadsCount++;
+        if (pendingQuadsCount >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the statements not sent yet.
+     */
+    public void flush() {
+        if (pendingQuadsCount == 0) {
+            return;
+        }
+        QuadDataAcc quads = new QuadDataAcc();
+        pendingQuads.values().forEach((graphQuads) -> {
+            graphQuads.forEach(quads::addQuad);
+        });
+        LOGGER.debug("Insert of " + pendingQuadsCount + " statements in " + pendingQuads.size() + " graphs");
+        pendingQuads.clear();
+        pendingQuadsCount = 0;
+        execute(new UpdateRequest(new UpdateDataInsert(quads)));
+    }
+
+    private void execute(UpdateRequest request) {
+        String query = request.toString();
+        LOGGER.trace(query);
+        connection.prepareUpdate(QueryLanguage.SPARQL, query).execute();
+    }
+}
@@ -0,0 +1,28 @@
+//******************************************************************************
+//                             ResultSetHandler.java
+// SILEX-PHIS
+// Copyright © INRA 2026
+// Creation date: 18 Oct. 2026
+// Contact: anne.tireau@inra.fr, pascal.neveu@inra.fr
+//******************************************************************************
+package opensilex.service.utils.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the result of a select query. The result set is closed after the
+ * handling, it must not be kept.
+ * @see opensilex.service.dao.manager.PostgreSQLDAO#selectQuery
+ * @param <R> the type of the result read
+ */
+@FunctionalInterface
+public interface ResultSetHandler<R> {
+
+    /**
+     * @param resultSet the result set, positioned before its first row
+     * @return the result read
+     * @throws SQLException
+     */
+    R handle(ResultSet resultSet) throws SQLException;
+}
@@ -8,11 +8,16 @@
 //******************************************************************************
 package opensilex.service.utils.sql;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 /**
  * SQL query builder.
+ * With bind values, the values of the conditions are replaced by "?" in the
+ * query and kept in the parameters list, to be bound to a prepared statement
+ * (see PostgreSQLDAO.prepareSelectStatement).
  * @update [Andréas Garcia] 28 Feb. 2019: Add max clause handling
  * @author Morgane Vidal <morgane.vidal@inra.fr>, Arnaud Charleroy <arnaud.charleroy@inra.fr>
  */
@@ -30,8 +35,22 @@ public class SQLQueryBuilder {
     public String orderBy;
     public String limit;
     public String offset;
+    
+    // True if the values are bound instead of being written in the query
+    private final boolean bindValues;
+    // Values to bind, in their order in the query
+    private final List<Object> parameters = new ArrayList<>();
 
     public SQLQueryBuilder() {
+        this(false);
+    }
+
+    /**
+     * @param bindValues true to replace the values of the conditions by 
+     * parameters
+     */
+    public SQLQueryBuilder(boolean bindValues) {
+        this.bindValues = bindValues;
         where = "";
         from = "";
         join = "";
@@ -39,6 +58,26 @@ public class SQLQueryBuilder {
         limit = "";
         offset = "";
     }
+    
+    /**
+     * @return the values to bind to the query parameters, in their order
+     */
+    public List<Object> getParameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+    
+    /**
+     * Adds a value to the WHERE clause, as a parameter if the values are bound.
+     * @param value
+     * @return the value or the parameter to write in the query
+     */
+    private String value(String value) {
+        if (bindValues) {
+            parameters.add(value);
+            return "?";
+        }
+        return "'" + value + "'";
+    }
 
     public void appendOrderBy(String valuesList, String order) {
         if (valuesList != null) {
@@ -150,7 +189,7 @@ public class SQLQueryBuilder {
             } else {
                 this.where += " = ";
             }
-            this.where += "'" + value + "'";
+            this.where += value(value);
             if (type != null) {
                 this.where += type;
             }
@@ -170,7 +209,7 @@ public class SQLQueryBuilder {
                 }
                 Iterator<String> it = valuesGroup.iterator();
                 while (it.hasNext()) {
-                    this.where += "'" + it.next() + "'";
+                    this.where += value(it.next());
                     if (it.hasNext()) {
                         this.where += ",";
                     }
@@ -203,7 +242,7 @@ public class SQLQueryBuilder {
             } else {
                 this.where += " = ";
             }
-            this.where += "'" + value + "'";
+            this.where += value(value);
             if (type != null) {
                 this.where += type;
             }
@@ -231,7 +270,7 @@ public class SQLQueryBuilder {
             } else {
                 this.where += " = ";
             }
-            this.where += "'" + value + "'";
+            this.where += value(value);
             if (type != null) {
                 this.where += type;
             }
@@ -316,7 +355,7 @@ public class SQLQueryBuilder {
             } else {
                 this.where += " = ";
             }
-            this.where += "'" + value + "'";
+            this.where += value(value);
             if (type != null) {
                 this.where += type;
             }